@@ -0,0 +1,45 @@
+package br.trabalho3.sistema.exceptions;
+
+/**
+ * Exceção lançada quando uma alteração é recusada porque o registro foi
+ * alterado por outra pessoa (ou outro processo) depois de ter sido lido.
+ *
+ * Controle de concorrência otimista
+ * Quem edita um registro guarda a versão que leu. Ao salvar, a alteração
+ * só é aceita se a versão gravada ainda for a mesma; senão, esta exceção
+ * informa o conflito, e quem editou deve reler o registro e tentar de novo.
+ *
+ */
+public class ConflitoVersaoException extends Exception {
+
+    /**
+     * Versão que quem editou tinha lido.
+     */
+    private final long versaoEsperada;
+
+    /**
+     * Versão gravada no momento da alteração.
+     */
+    private final long versaoAtual;
+
+    /**
+     * Construtor que recebe a mensagem e as versões em conflito.
+     *
+     * @param mensagem Descrição do erro (ex: "Aluno 123.456.789-00 foi alterado por outro usuário")
+     * @param versaoEsperada Versão que quem editou tinha lido
+     * @param versaoAtual Versão gravada no momento da alteração
+     */
+    public ConflitoVersaoException(String mensagem, long versaoEsperada, long versaoAtual) {
+        super(mensagem);
+        this.versaoEsperada = versaoEsperada;
+        this.versaoAtual = versaoAtual;
+    }
+
+    public long getVersaoEsperada() {
+        return versaoEsperada;
+    }
+
+    public long getVersaoAtual() {
+        return versaoAtual;
+    }
+}
@@ -1,9 +1,25 @@
 package br.trabalho3.sistema.model;
 
 import br.trabalho3.sistema.exceptions.*;
+import br.trabalho3.sistema.utils.Conversor;
+import br.trabalho3.sistema.utils.MapaCpf;
+import br.trabalho3.sistema.utils.ValidadorCPF;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -13,50 +29,178 @@ import java.util.stream.Collectors;
  * A interface gráfica (UI) se comunica apenas com esta classe, que por sua vez
  * coordena as demais classes do modelo.
  *
+ * CONCORRÊNCIA
+ * A academia pode ser usada por várias threads ao mesmo tempo (telas,
+ * carregamento em segundo plano, relatórios):
+ * - As listas são ColecaoVersionada: cada escrita publica uma versão nova e
+ *   imutável, e as leituras apenas devolvem a versão atual, sem copiar nem bloquear.
+ * - Cada tipo de entidade tem sua própria trava de escrita, então escrever
+ *   um pagamento não bloqueia quem lê ou escreve alunos.
+ * - A regra "uma matrícula ativa por aluno" usa travas separadas por CPF,
+ *   para que matrículas de alunos diferentes não esperem umas pelas outras.
+ *
+ * EVENTOS
+ * Toda alteração (inclusão, atualização, remoção ou mudança de status) gera
+ * um EventoAcademia, publicado no barramento retornado por getEventos().
+ * Mudanças de status devem passar pela academia (suspenderMatricula,
+ * confirmarPagamento, etc.) para que os ouvintes sejam avisados.
+ *
  */
 public class Academia {
 
+    /**
+     * Quantidade de travas usadas para separar as operações por CPF.
+     * Deve ser potência de 2.
+     */
+    private static final int QUANTIDADE_TRAVAS_CPF = 32;
+
     /**
      * Guarda a única instância da academia no sistema.
      * Garante que todos acessam a mesma academia.
+     *
+     * A instância fica em uma classe interna: a JVM só carrega essa classe
+     * (e cria a academia) no primeiro getInstance(), e o carregamento de
+     * classes já é seguro entre threads.
      */
-    private static Academia instancia;
+    private static class Portador {
+        private static final Academia INSTANCIA = new Academia();
+    }
 
     /**
      * Lista de todos os alunos cadastrados.
-     * COLEÇÕES (ArrayList)
+     * COLEÇÕES (ColecaoVersionada)
      */
-    private List<Aluno> alunos;
+    private final ColecaoVersionada<Aluno> alunos;
 
     /**
      * Lista de todos os instrutores cadastrados.
      */
-    private List<Instrutor> instrutores;
+    private final ColecaoVersionada<Instrutor> instrutores;
+
+    /**
+     * Índice de alunos por CPF compacto.
+     * Evita percorrer a lista inteira nas buscas por CPF.
+     * Protegido por travaAlunos.
+     */
+    private final MapaCpf<Aluno> alunosPorCpf;
+
+    /**
+     * Índice de instrutores por CPF compacto.
+     * Protegido por travaInstrutores.
+     */
+    private final MapaCpf<Instrutor> instrutoresPorCpf;
 
     /**
      * Lista de todos os planos disponíveis.
      */
-    private List<Plano> planos;
+    private final ColecaoVersionada<Plano> planos;
+
+    /**
+     * Índice de planos por ID.
+     */
+    private final Map<String, Plano> planosPorId;
 
     /**
      * Lista de todas as matrículas realizadas.
      */
-    private List<Matricula> matriculas;
+    private final ColecaoVersionada<Matricula> matriculas;
+
+    /**
+     * Índice de matrículas por ID.
+     */
+    private final Map<String, Matricula> matriculasPorId;
 
     /**
      * Lista de todos os pagamentos registrados.
      */
-    private List<Pagamento> pagamentos;
+    private final ColecaoVersionada<Pagamento> pagamentos;
+
+    /**
+     * Índice de pagamentos por ID (apenas os que estão no heap).
+     */
+    private final Map<String, Pagamento> pagamentosPorId;
+
+    /**
+     * Travas de escrita de cada tipo de entidade.
+     * StampedLock permite ler os índices sem travar (leitura otimista),
+     * usando a trava de leitura só se uma escrita acontecer no meio.
+     */
+    private final StampedLock travaAlunos;
+    private final StampedLock travaInstrutores;
+    private final StampedLock travaPlanos;
+    private final StampedLock travaMatriculas;
+    private final StampedLock travaPagamentos;
+
+    /**
+     * Travas por CPF, usadas nas regras que envolvem um único aluno.
+     */
+    private final ReentrantLock[] travasPorCpf;
+
+    /**
+     * Arquivo morto (fora do heap) com os pagamentos antigos.
+     * Fica null até ser configurado com configurarArquivoPagamentos().
+     */
+    private volatile ArquivoPagamentos arquivoPagamentos;
+
+    /**
+     * Idade mínima (em dias) para um pagamento ir para o arquivo morto.
+     */
+    private volatile int idadeArquivamentoDias;
+
+    /**
+     * Barramento que avisa os ouvintes sobre cada alteração nos dados.
+     */
+    private final BarramentoEventos eventos;
+
+    /**
+     * Entidades alteradas desde o último salvamento.
+     */
+    private final RastreadorAlteracoes alteracoes;
+
+    /**
+     * Leituras isoladas abertas (ver abrirLeitura()).
+     */
+    private final RegistroLeituras leituras = new RegistroLeituras();
+
+    /**
+     * Receita confirmada por dia, atualizada junto com os pagamentos.
+     */
+    private final ReceitaDiaria receitas = new ReceitaDiaria();
+
+    /**
+     * Pagamentos em colunas primitivas, atualizados junto com os pagamentos.
+     */
+    private final LivroPagamentos livroPagamentos = new LivroPagamentos();
+
+    /**
+     * Matrículas por plano e status, atualizadas junto com as matrículas.
+     */
+    private final EstatisticasPlanos estatisticasPlanos = new EstatisticasPlanos();
+
+    /**
+     * MRR e valores a receber, atualizados junto com matrículas e pagamentos.
+     */
+    private final PosicaoFinanceira posicao = new PosicaoFinanceira();
 
     /**
      * Contador para gerar IDs únicos de matrículas.
      */
-    private int contadorMatriculas;
+    private final AtomicInteger contadorMatriculas;
 
     /**
      * Contador para gerar IDs únicos de pagamentos.
      */
-    private int contadorPagamentos;
+    private final AtomicInteger contadorPagamentos;
+
+    /**
+     * Fonte compartilhada dos números de IDs (null: só os contadores acima).
+     */
+    private volatile GeradorIds geradorIds;
+
+    /**
+     * Valor interno para "não conferir a versão" nas mudanças de status.
+     */
+    private static final long QUALQUER_VERSAO = -1;
 
     /**
      * Construtor privado - garante que só existe uma academia.
@@ -66,28 +210,107 @@ public class Academia {
      */
     private Academia() {
         // Inicializa todas as coleções
-        this.alunos = new ArrayList<>();
-        this.instrutores = new ArrayList<>();
-        this.planos = new ArrayList<>();
-        this.matriculas = new ArrayList<>();
-        this.pagamentos = new ArrayList<>();
-        this.contadorMatriculas = 1;
-        this.contadorPagamentos = 1;
+        this.alunos = new ColecaoVersionada<>();
+        this.instrutores = new ColecaoVersionada<>();
+        this.alunosPorCpf = new MapaCpf<>();
+        this.instrutoresPorCpf = new MapaCpf<>();
+        this.planos = new ColecaoVersionada<>();
+        this.planosPorId = new ConcurrentHashMap<>();
+        this.matriculas = new ColecaoVersionada<>();
+        this.matriculasPorId = new ConcurrentHashMap<>();
+        this.pagamentos = new ColecaoVersionada<>();
+        this.pagamentosPorId = new ConcurrentHashMap<>();
+
+        this.travaAlunos = new StampedLock();
+        this.travaInstrutores = new StampedLock();
+        this.travaPlanos = new StampedLock();
+        this.travaMatriculas = new StampedLock();
+        this.travaPagamentos = new StampedLock();
+        this.travasPorCpf = new ReentrantLock[QUANTIDADE_TRAVAS_CPF];
+        for (int i = 0; i < travasPorCpf.length; i++) {
+            travasPorCpf[i] = new ReentrantLock();
+        }
+
+        this.eventos = new BarramentoEventos();
+        this.alteracoes = new RastreadorAlteracoes();
+        this.eventos.inscrever(alteracoes);
+        this.contadorMatriculas = new AtomicInteger(1);
+        this.contadorPagamentos = new AtomicInteger(1);
     }
 
     /**
      * Retorna a academia do sistema.
      *
-     * Se ainda não foi criada, cria uma nova. Caso contrário,
-     * retorna a academia existente. Assim, todos usam a mesma.
+     * Na primeira chamada a academia é criada; nas seguintes, a mesma
+     * academia é retornada. Assim, todos usam a mesma, mesmo que
+     * várias threads chamem este método ao mesmo tempo.
      *
      * @return A academia do sistema
      */
     public static Academia getInstance() {
-        if (instancia == null) {
-            instancia = new Academia();
-        }
-        return instancia;
+        return Portador.INSTANCIA;
+    }
+
+    /**
+     * Retorna o barramento de eventos da academia.
+     * Use-o para inscrever ouvintes que querem saber de cada alteração.
+     *
+     * Os eventos são publicados depois que a academia libera suas travas,
+     * então um ouvinte síncrono pode consultar a academia normalmente.
+     *
+     * @return Barramento de eventos
+     */
+    public BarramentoEventos getEventos() {
+        return eventos;
+    }
+
+    /**
+     * Retorna o rastreador com as entidades alteradas desde o último salvamento.
+     *
+     * @return Rastreador de alterações
+     */
+    public RastreadorAlteracoes getAlteracoes() {
+        return alteracoes;
+    }
+
+    /**
+     * Retorna a receita confirmada por dia, para consultas de período
+     * em O(log dias) sem percorrer os pagamentos.
+     *
+     * @return Receita diária da academia
+     */
+    public ReceitaDiaria getReceitas() {
+        return receitas;
+    }
+
+    /**
+     * Retorna o livro de pagamentos em colunas primitivas, para somas
+     * sobre todos os pagamentos sem percorrer os objetos.
+     *
+     * @return Livro de pagamentos da academia
+     */
+    public LivroPagamentos getLivroPagamentos() {
+        return livroPagamentos;
+    }
+
+    /**
+     * Retorna a quantidade de matrículas por plano (ID) e status, para
+     * consultas em O(planos) sem percorrer as matrículas.
+     *
+     * @return Estatísticas dos planos
+     */
+    public EstatisticasPlanos getEstatisticasPlanos() {
+        return estatisticasPlanos;
+    }
+
+    /**
+     * Retorna a posição financeira (MRR, total pago e a receber por
+     * matrícula e da academia), com consultas em O(1).
+     *
+     * @return Posição financeira da academia
+     */
+    public PosicaoFinanceira getPosicaoFinanceira() {
+        return posicao;
     }
 
     // ========== MÉTODOS DE ALUNOS ==========
@@ -104,14 +327,21 @@ public class Academia {
             throw new DadosInvalidosException("Aluno não pode ser nulo");
         }
 
-        // Verifica se já existe um aluno com este CPF
-        for (Aluno a : alunos) {
-            if (a.getCpf().equals(aluno.getCpf())) {
+        EventoAcademia evento;
+        long carimbo = travaAlunos.writeLock();
+        try {
+            // Verifica se já existe um aluno com este CPF
+            if (buscarPorCpf(alunos.visao(), alunosPorCpf, aluno.getCpf()) != null) {
                 throw new DadosInvalidosException("Já existe um aluno com o CPF: " + aluno.getCpf());
             }
-        }
 
-        alunos.add(aluno);
+            alunos.adicionar(aluno);
+            indexar(alunosPorCpf, aluno);
+            evento = EventoAcademia.adicionado(aluno);
+        } finally {
+            travaAlunos.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
     }
 
     /**
@@ -122,10 +352,9 @@ public class Academia {
      * @throws UsuarioNaoEncontradoException Se o aluno não for encontrado
      */
     public Aluno buscarAlunoPorCpf(String cpf) throws UsuarioNaoEncontradoException {
-        for (Aluno aluno : alunos) {
-            if (aluno.getCpf().equals(cpf)) {
-                return aluno;
-            }
+        Aluno aluno = lerPorCpf(travaAlunos, alunos.visao(), alunosPorCpf, cpf);
+        if (aluno != null) {
+            return aluno;
         }
         throw new UsuarioNaoEncontradoException("Aluno com CPF " + cpf + " não encontrado");
     }
@@ -137,32 +366,80 @@ public class Academia {
      * @return true se removeu, false se não encontrou
      */
     public boolean removerAluno(String cpf) {
-        return alunos.removeIf(aluno -> aluno.getCpf().equals(cpf));
+        EventoAcademia evento;
+        long carimbo = travaAlunos.writeLock();
+        try {
+            Aluno removido = buscarPorCpf(alunos.visao(), alunosPorCpf, cpf);
+            if (removido == null) {
+                return false;
+            }
+            alunosPorCpf.remove(ValidadorCPF.compactarCPF(cpf));
+            alunos.removerSe(aluno -> aluno.getCpf().equals(cpf));
+            evento = EventoAcademia.removido(removido);
+        } finally {
+            travaAlunos.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
+        return true;
     }
 
     /**
      * Atualiza os dados de um aluno existente.
      *
+     * A alteração só é aceita se a versão do aluno informado for a mesma
+     * versão cadastrada (controle de concorrência otimista); a versão é
+     * então incrementada.
+     *
      * @param alunoAtualizado Aluno com dados atualizados
      * @throws UsuarioNaoEncontradoException Se o aluno não for encontrado
+     * @throws ConflitoVersaoException Se o aluno foi alterado depois de lido
      */
-    public void atualizarAluno(Aluno alunoAtualizado) throws UsuarioNaoEncontradoException {
-        for (int i = 0; i < alunos.size(); i++) {
-            if (alunos.get(i).getCpf().equals(alunoAtualizado.getCpf())) {
-                alunos.set(i, alunoAtualizado);
-                return;
+    public void atualizarAluno(Aluno alunoAtualizado)
+            throws UsuarioNaoEncontradoException, ConflitoVersaoException {
+        EventoAcademia evento = null;
+        long carimbo = travaAlunos.writeLock();
+        try {
+            int posicao = alunos.visao().indexOf(alunoAtualizado); // Pessoa.equals compara o CPF
+            if (posicao >= 0) {
+                verificarVersao(alunos.visao().get(posicao).getVersao(), alunoAtualizado.getVersao(),
+                    "Aluno com CPF " + alunoAtualizado.getCpf() + " foi alterado");
+                alunoAtualizado.setVersao(alunoAtualizado.getVersao() + 1);
+                alunos.substituir(posicao, alunoAtualizado);
+                indexar(alunosPorCpf, alunoAtualizado);
+                evento = EventoAcademia.atualizado(alunoAtualizado);
             }
+        } finally {
+            travaAlunos.unlockWrite(carimbo);
+        }
+        if (evento != null) {
+            eventos.publicar(evento);
+            return;
         }
         throw new UsuarioNaoEncontradoException("Aluno com CPF " + alunoAtualizado.getCpf() + " não encontrado");
     }
 
     /**
      * Retorna todos os alunos cadastrados.
+     * A lista é imutável e não é copiada: reflete os dados no momento da chamada.
      *
-     * @return Lista de alunos
+     * @return Lista imutável de alunos
      */
     public List<Aluno> listarAlunos() {
-        return new ArrayList<>(alunos); // Retorna uma cópia para segurança
+        return alunos.visao(); // Versão imutável: não precisa copiar
+    }
+
+    /**
+     * Adiciona vários alunos de uma vez.
+     *
+     * O lote inteiro é validado em uma única passada (nulos, CPFs repetidos
+     * no lote e CPFs já cadastrados, usando o índice). Se algum aluno for
+     * inválido, nenhum é adicionado.
+     *
+     * @param novos Alunos a serem adicionados
+     * @throws DadosInvalidosException Se algum aluno for inválido
+     */
+    public void adicionarAlunos(List<Aluno> novos) throws DadosInvalidosException {
+        adicionarPessoas(novos, alunos, alunosPorCpf, travaAlunos, "aluno");
     }
 
     // ========== MÉTODOS DE INSTRUTORES ==========
@@ -178,14 +455,21 @@ public class Academia {
             throw new DadosInvalidosException("Instrutor não pode ser nulo");
         }
 
-        // Verifica se já existe um instrutor com este CPF
-        for (Instrutor i : instrutores) {
-            if (i.getCpf().equals(instrutor.getCpf())) {
+        EventoAcademia evento;
+        long carimbo = travaInstrutores.writeLock();
+        try {
+            // Verifica se já existe um instrutor com este CPF
+            if (buscarPorCpf(instrutores.visao(), instrutoresPorCpf, instrutor.getCpf()) != null) {
                 throw new DadosInvalidosException("Já existe um instrutor com o CPF: " + instrutor.getCpf());
             }
-        }
 
-        instrutores.add(instrutor);
+            instrutores.adicionar(instrutor);
+            indexar(instrutoresPorCpf, instrutor);
+            evento = EventoAcademia.adicionado(instrutor);
+        } finally {
+            travaInstrutores.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
     }
 
     /**
@@ -196,10 +480,9 @@ public class Academia {
      * @throws UsuarioNaoEncontradoException Se não encontrar
      */
     public Instrutor buscarInstrutorPorCpf(String cpf) throws UsuarioNaoEncontradoException {
-        for (Instrutor instrutor : instrutores) {
-            if (instrutor.getCpf().equals(cpf)) {
-                return instrutor;
-            }
+        Instrutor instrutor = lerPorCpf(travaInstrutores, instrutores.visao(), instrutoresPorCpf, cpf);
+        if (instrutor != null) {
+            return instrutor;
         }
         throw new UsuarioNaoEncontradoException("Instrutor com CPF " + cpf + " não encontrado");
     }
@@ -211,32 +494,75 @@ public class Academia {
      * @return true se removeu, false se não encontrou
      */
     public boolean removerInstrutor(String cpf) {
-        return instrutores.removeIf(instrutor -> instrutor.getCpf().equals(cpf));
+        EventoAcademia evento;
+        long carimbo = travaInstrutores.writeLock();
+        try {
+            Instrutor removido = buscarPorCpf(instrutores.visao(), instrutoresPorCpf, cpf);
+            if (removido == null) {
+                return false;
+            }
+            instrutoresPorCpf.remove(ValidadorCPF.compactarCPF(cpf));
+            instrutores.removerSe(instrutor -> instrutor.getCpf().equals(cpf));
+            evento = EventoAcademia.removido(removido);
+        } finally {
+            travaInstrutores.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
+        return true;
     }
 
     /**
      * Atualiza os dados de um instrutor existente.
      *
+     * Só é aceita se a versão for a mesma cadastrada (ver atualizarAluno).
+     *
      * @param instrutorAtualizado Instrutor com dados atualizados
      * @throws UsuarioNaoEncontradoException Se não encontrar
+     * @throws ConflitoVersaoException Se o instrutor foi alterado depois de lido
      */
-    public void atualizarInstrutor(Instrutor instrutorAtualizado) throws UsuarioNaoEncontradoException {
-        for (int i = 0; i < instrutores.size(); i++) {
-            if (instrutores.get(i).getCpf().equals(instrutorAtualizado.getCpf())) {
-                instrutores.set(i, instrutorAtualizado);
-                return;
+    public void atualizarInstrutor(Instrutor instrutorAtualizado)
+            throws UsuarioNaoEncontradoException, ConflitoVersaoException {
+        EventoAcademia evento = null;
+        long carimbo = travaInstrutores.writeLock();
+        try {
+            int posicao = instrutores.visao().indexOf(instrutorAtualizado);
+            if (posicao >= 0) {
+                verificarVersao(instrutores.visao().get(posicao).getVersao(), instrutorAtualizado.getVersao(),
+                    "Instrutor com CPF " + instrutorAtualizado.getCpf() + " foi alterado");
+                instrutorAtualizado.setVersao(instrutorAtualizado.getVersao() + 1);
+                instrutores.substituir(posicao, instrutorAtualizado);
+                indexar(instrutoresPorCpf, instrutorAtualizado);
+                evento = EventoAcademia.atualizado(instrutorAtualizado);
             }
+        } finally {
+            travaInstrutores.unlockWrite(carimbo);
+        }
+        if (evento != null) {
+            eventos.publicar(evento);
+            return;
         }
         throw new UsuarioNaoEncontradoException("Instrutor com CPF " + instrutorAtualizado.getCpf() + " não encontrado");
     }
 
     /**
      * Retorna todos os instrutores cadastrados.
+     * A lista é imutável e não é copiada: reflete os dados no momento da chamada.
      *
-     * @return Lista de instrutores
+     * @return Lista imutável de instrutores
      */
     public List<Instrutor> listarInstrutores() {
-        return new ArrayList<>(instrutores);
+        return instrutores.visao();
+    }
+
+    /**
+     * Adiciona vários instrutores de uma vez.
+     * Se algum instrutor for inválido, nenhum é adicionado.
+     *
+     * @param novos Instrutores a serem adicionados
+     * @throws DadosInvalidosException Se algum instrutor for inválido
+     */
+    public void adicionarInstrutores(List<Instrutor> novos) throws DadosInvalidosException {
+        adicionarPessoas(novos, instrutores, instrutoresPorCpf, travaInstrutores, "instrutor");
     }
 
     // ========== MÉTODOS DE PLANOS ==========
@@ -252,14 +578,21 @@ public class Academia {
             throw new DadosInvalidosException("Plano não pode ser nulo");
         }
 
-        // Verifica se já existe um plano com este ID
-        for (Plano p : planos) {
-            if (p.getId().equals(plano.getId())) {
+        EventoAcademia evento;
+        long carimbo = travaPlanos.writeLock();
+        try {
+            // Verifica se já existe um plano com este ID
+            if (planosPorId.containsKey(plano.getId())) {
                 throw new DadosInvalidosException("Já existe um plano com o ID: " + plano.getId());
             }
-        }
 
-        planos.add(plano);
+            planos.adicionar(plano);
+            planosPorId.put(plano.getId(), plano);
+            evento = EventoAcademia.adicionado(plano);
+        } finally {
+            travaPlanos.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
     }
 
     /**
@@ -270,10 +603,9 @@ public class Academia {
      * @throws DadosInvalidosException Se não encontrar
      */
     public Plano buscarPlanoPorId(String id) throws DadosInvalidosException {
-        for (Plano plano : planos) {
-            if (plano.getId().equals(id)) {
-                return plano;
-            }
+        Plano plano = id != null ? planosPorId.get(id) : null;
+        if (plano != null) {
+            return plano;
         }
         throw new DadosInvalidosException("Plano com ID " + id + " não encontrado");
     }
@@ -285,16 +617,94 @@ public class Academia {
      * @return true se removeu, false se não encontrou
      */
     public boolean removerPlano(String id) {
-        return planos.removeIf(plano -> plano.getId().equals(id));
+        EventoAcademia evento;
+        long carimbo = travaPlanos.writeLock();
+        try {
+            Plano removido = id != null ? planosPorId.remove(id) : null;
+            if (removido == null) {
+                return false;
+            }
+            planos.removerSe(plano -> plano.getId().equals(id));
+            evento = EventoAcademia.removido(removido);
+        } finally {
+            travaPlanos.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
+        return true;
+    }
+
+    /**
+     * Atualiza os dados de um plano existente.
+     *
+     * Só é aceita se a versão for a mesma cadastrada (ver atualizarAluno).
+     *
+     * @param planoAtualizado Plano com dados atualizados
+     * @throws DadosInvalidosException Se o plano não for encontrado
+     * @throws ConflitoVersaoException Se o plano foi alterado depois de lido
+     */
+    public void atualizarPlano(Plano planoAtualizado) throws DadosInvalidosException, ConflitoVersaoException {
+        EventoAcademia evento = null;
+        long carimbo = travaPlanos.writeLock();
+        try {
+            int posicao = planos.visao().indexOf(planoAtualizado); // Plano.equals compara o ID
+            if (posicao >= 0) {
+                verificarVersao(planos.visao().get(posicao).getVersao(), planoAtualizado.getVersao(),
+                    "Plano com ID " + planoAtualizado.getId() + " foi alterado");
+                planoAtualizado.setVersao(planoAtualizado.getVersao() + 1);
+                planos.substituir(posicao, planoAtualizado);
+                planosPorId.put(planoAtualizado.getId(), planoAtualizado);
+                evento = EventoAcademia.atualizado(planoAtualizado);
+            }
+        } finally {
+            travaPlanos.unlockWrite(carimbo);
+        }
+        if (evento == null) {
+            throw new DadosInvalidosException("Plano com ID " + planoAtualizado.getId() + " não encontrado");
+        }
+        eventos.publicar(evento);
     }
 
     /**
      * Retorna todos os planos cadastrados.
+     * A lista é imutável e não é copiada: reflete os dados no momento da chamada.
      *
-     * @return Lista de planos
+     * @return Lista imutável de planos
      */
     public List<Plano> listarPlanos() {
-        return new ArrayList<>(planos);
+        return planos.visao();
+    }
+
+    /**
+     * Adiciona vários planos de uma vez.
+     * Se algum plano for inválido, nenhum é adicionado.
+     *
+     * @param novos Planos a serem adicionados
+     * @throws DadosInvalidosException Se algum plano for inválido
+     */
+    public void adicionarPlanos(List<Plano> novos) throws DadosInvalidosException {
+        List<EventoAcademia> eventosLote = new ArrayList<>(novos.size());
+        long carimbo = travaPlanos.writeLock();
+        try {
+            Set<String> idsNoLote = new HashSet<>();
+            for (int i = 0; i < novos.size(); i++) {
+                Plano plano = novos.get(i);
+                if (plano == null) {
+                    throw new DadosInvalidosException("Item " + (i + 1) + ": Plano não pode ser nulo");
+                }
+                if (planosPorId.containsKey(plano.getId()) || !idsNoLote.add(plano.getId())) {
+                    throw new DadosInvalidosException("Item " + (i + 1) + ": Já existe um plano com o ID: " + plano.getId());
+                }
+            }
+
+            planos.adicionarTodos(novos);
+            for (Plano plano : novos) {
+                planosPorId.put(plano.getId(), plano);
+                eventosLote.add(EventoAcademia.adicionado(plano));
+            }
+        } finally {
+            travaPlanos.unlockWrite(carimbo);
+        }
+        eventos.publicar(eventosLote);
     }
 
     // ========== MÉTODOS DE MATRÍCULAS ==========
@@ -306,6 +716,10 @@ public class Academia {
      * O preço mensal é calculado usando o método polimórfico calcularPrecoFinal()
      * que tem implementações diferentes em cada tipo de plano.
      *
+     * A verificação de matrícula ativa e a inclusão da nova matrícula são
+     * feitas com a trava do CPF do aluno, para que duas threads não consigam
+     * matricular o mesmo aluno ao mesmo tempo.
+     *
      * @param aluno Aluno a ser matriculado
      * @param plano Plano escolhido
      * @param dataInicio Data de início
@@ -316,32 +730,50 @@ public class Academia {
     public Matricula realizarMatricula(Aluno aluno, Plano plano, Date dataInicio, Date dataFim)
             throws MatriculaInvalidaException {
 
-        // Valida se o aluno já possui matrícula ativa
-        for (Matricula m : matriculas) {
-            if (m.getAluno().getCpf().equals(aluno.getCpf()) && m.getStatus() == StatusMatricula.ATIVA) {
-                throw new MatriculaInvalidaException(
-                    "Aluno " + aluno.getNome() + " já possui uma matrícula ativa");
-            }
-        }
-
         // Valida datas
         if (dataInicio.after(dataFim)) {
             throw new MatriculaInvalidaException("Data de início não pode ser posterior à data de fim");
         }
 
-        // Cria a matrícula
-        String id = String.format("MAT%03d", contadorMatriculas++);
+        Matricula matricula;
+        EventoAcademia evento;
+        ReentrantLock travaCpf = travaDoCpf(aluno);
+        travaCpf.lock();
+        try {
+            // Valida se o aluno já possui matrícula ativa
+            for (Matricula m : matriculas.visao()) {
+                if (m.getAluno().equals(aluno) && m.getStatus() == StatusMatricula.ATIVA) {
+                    throw new MatriculaInvalidaException(
+                        "Aluno " + aluno.getNome() + " já possui uma matrícula ativa");
+                }
+            }
 
-        // POLIMORFISMO EM AÇÃO: calcularPrecoFinal() retorna valores diferentes
-        // dependendo do tipo de plano (Comum, Premium ou Estudante)
-        double valorMensal = plano.calcularPrecoFinal();
+            // Cria a matrícula
+            String id = String.format("MAT%03d", reservarMatriculas(1));
 
-        Matricula matricula = new Matricula(
-            id, aluno, plano, dataInicio, dataFim,
-            StatusMatricula.ATIVA, valorMensal
-        );
+            // POLIMORFISMO EM AÇÃO: calcularPrecoFinal() retorna valores diferentes
+            // dependendo do tipo de plano (Comum, Premium ou Estudante)
+            double valorMensal = plano.calcularPrecoFinal();
 
-        matriculas.add(matricula);
+            matricula = new Matricula(
+                id, aluno, plano, dataInicio, dataFim,
+                StatusMatricula.ATIVA, valorMensal
+            );
+
+            long carimbo = travaMatriculas.writeLock();
+            try {
+                matriculas.adicionar(matricula);
+                matriculasPorId.put(id, matricula);
+                estatisticasPlanos.adicionar(matricula);
+                posicao.adicionarMatricula(matricula);
+                evento = EventoAcademia.adicionado(matricula);
+            } finally {
+                travaMatriculas.unlockWrite(carimbo);
+            }
+        } finally {
+            travaCpf.unlock();
+        }
+        eventos.publicar(evento);
         return matricula;
     }
 
@@ -353,21 +785,21 @@ public class Academia {
      * @throws MatriculaInvalidaException Se não encontrar
      */
     public Matricula buscarMatriculaPorId(String id) throws MatriculaInvalidaException {
-        for (Matricula matricula : matriculas) {
-            if (matricula.getId().equals(id)) {
-                return matricula;
-            }
+        Matricula matricula = buscarMatriculaOuNull(id);
+        if (matricula != null) {
+            return matricula;
         }
         throw new MatriculaInvalidaException("Matrícula com ID " + id + " não encontrada");
     }
 
     /**
      * Retorna todas as matrículas cadastradas.
+     * A lista é imutável e não é copiada: reflete os dados no momento da chamada.
      *
-     * @return Lista de matrículas
+     * @return Lista imutável de matrículas
      */
     public List<Matricula> listarMatriculas() {
-        return new ArrayList<>(matriculas);
+        return matriculas.visao();
     }
 
     /**
@@ -377,11 +809,262 @@ public class Academia {
      * @return Lista de matrículas ativas
      */
     public List<Matricula> listarMatriculasAtivasPorAluno(String cpfAluno) {
-        return matriculas.stream()
-            .filter(m -> m.getAluno().getCpf().equals(cpfAluno) && m.estaAtiva())
+        long cpf = ValidadorCPF.compactarCPF(cpfAluno);
+        return matriculas.visao().stream()
+            .filter(m -> m.estaAtiva() && (cpf >= 0
+                ? m.getAluno().getCpfCompacto() == cpf
+                : m.getAluno().getCpf().equals(cpfAluno)))
             .collect(Collectors.toList());
     }
 
+    /**
+     * Realiza várias matrículas de uma vez.
+     *
+     * A regra "uma matrícula ativa por aluno" é verificada para o lote
+     * inteiro com uma única passada pelas matrículas existentes, em vez de
+     * uma passada por matrícula. Se alguma solicitação for inválida,
+     * nenhuma matrícula é criada.
+     *
+     * @param solicitacoes Matrículas a serem criadas
+     * @return Matrículas criadas, na ordem das solicitações
+     * @throws MatriculaInvalidaException Se alguma solicitação for inválida
+     */
+    public List<Matricula> realizarMatriculas(List<SolicitacaoMatricula> solicitacoes)
+            throws MatriculaInvalidaException {
+
+        // Valida os dados de cada solicitação
+        Set<Integer> posicoesTravas = new TreeSet<>();
+        for (int i = 0; i < solicitacoes.size(); i++) {
+            SolicitacaoMatricula s = solicitacoes.get(i);
+            if (s == null || s.getAluno() == null || s.getPlano() == null
+                    || s.getDataInicio() == null || s.getDataFim() == null) {
+                throw new MatriculaInvalidaException("Item " + (i + 1) + ": dados da matrícula incompletos");
+            }
+            if (s.getDataInicio().after(s.getDataFim())) {
+                throw new MatriculaInvalidaException(
+                    "Item " + (i + 1) + ": Data de início não pode ser posterior à data de fim");
+            }
+            posicoesTravas.add(s.getAluno().hashCode() & (QUANTIDADE_TRAVAS_CPF - 1));
+        }
+
+        // Trava os CPFs do lote, sempre em ordem crescente, para evitar deadlock
+        List<ReentrantLock> travasCpf = new ArrayList<>(posicoesTravas.size());
+        for (int posicao : posicoesTravas) {
+            travasPorCpf[posicao].lock();
+            travasCpf.add(travasPorCpf[posicao]);
+        }
+
+        List<Matricula> criadas = new ArrayList<>(solicitacoes.size());
+        List<EventoAcademia> eventosLote = new ArrayList<>(solicitacoes.size());
+        try {
+            Set<Aluno> alunosDoLote = new HashSet<>();
+            for (int i = 0; i < solicitacoes.size(); i++) {
+                Aluno aluno = solicitacoes.get(i).getAluno();
+                if (!alunosDoLote.add(aluno)) {
+                    throw new MatriculaInvalidaException(
+                        "Item " + (i + 1) + ": Aluno " + aluno.getNome() + " aparece mais de uma vez no lote");
+                }
+            }
+
+            for (Matricula m : matriculas.visao()) {
+                if (m.getStatus() == StatusMatricula.ATIVA && alunosDoLote.contains(m.getAluno())) {
+                    throw new MatriculaInvalidaException(
+                        "Aluno " + m.getAluno().getNome() + " já possui uma matrícula ativa");
+                }
+            }
+
+            int proximoId = reservarMatriculas(solicitacoes.size());
+            for (SolicitacaoMatricula s : solicitacoes) {
+                String id = String.format("MAT%03d", proximoId++);
+                criadas.add(new Matricula(
+                    id, s.getAluno(), s.getPlano(), s.getDataInicio(), s.getDataFim(),
+                    StatusMatricula.ATIVA, s.getPlano().calcularPrecoFinal()
+                ));
+            }
+
+            long carimbo = travaMatriculas.writeLock();
+            try {
+                matriculas.adicionarTodos(criadas);
+                estatisticasPlanos.adicionarTodas(criadas);
+                posicao.adicionarMatriculas(criadas);
+                for (Matricula matricula : criadas) {
+                    matriculasPorId.put(matricula.getId(), matricula);
+                    eventosLote.add(EventoAcademia.adicionado(matricula));
+                }
+            } finally {
+                travaMatriculas.unlockWrite(carimbo);
+            }
+        } finally {
+            for (int i = travasCpf.size() - 1; i >= 0; i--) {
+                travasCpf.get(i).unlock();
+            }
+        }
+        eventos.publicar(eventosLote);
+        return criadas;
+    }
+
+    /**
+     * Inclui matrículas que já existem (com ID definido), como as lidas de
+     * um arquivo ou de um checkpoint. O contador de IDs é avançado para
+     * não gerar IDs repetidos depois.
+     *
+     * @param existentes Matrículas a incluir
+     * @throws MatriculaInvalidaException Se alguma for nula ou tiver ID repetido
+     */
+    public void importarMatriculas(List<Matricula> existentes) throws MatriculaInvalidaException {
+        List<EventoAcademia> eventosLote = new ArrayList<>(existentes.size());
+        long carimbo = travaMatriculas.writeLock();
+        try {
+            Set<String> idsNoLote = new HashSet<>();
+            for (int i = 0; i < existentes.size(); i++) {
+                Matricula matricula = existentes.get(i);
+                if (matricula == null || matricula.getId() == null || matricula.getAluno() == null) {
+                    throw new MatriculaInvalidaException("Item " + (i + 1) + ": dados da matrícula incompletos");
+                }
+                if (matriculasPorId.containsKey(matricula.getId()) || !idsNoLote.add(matricula.getId())) {
+                    throw new MatriculaInvalidaException(
+                        "Item " + (i + 1) + ": Já existe uma matrícula com o ID: " + matricula.getId());
+                }
+            }
+
+            matriculas.adicionarTodos(existentes);
+            estatisticasPlanos.adicionarTodas(existentes);
+            posicao.adicionarMatriculas(existentes);
+            for (Matricula matricula : existentes) {
+                matriculasPorId.put(matricula.getId(), matricula);
+                avancarContador(contadorMatriculas, matricula.getId(), "MAT");
+                eventosLote.add(EventoAcademia.adicionado(matricula));
+            }
+        } finally {
+            travaMatriculas.unlockWrite(carimbo);
+        }
+        eventos.publicar(eventosLote);
+    }
+
+    /**
+     * Remove uma matrícula do sistema.
+     *
+     * @param id ID da matrícula
+     * @return true se removeu, false se não encontrou
+     */
+    public boolean removerMatricula(String id) {
+        EventoAcademia evento;
+        long carimbo = travaMatriculas.writeLock();
+        try {
+            Matricula removida = id != null ? matriculasPorId.remove(id) : null;
+            if (removida == null) {
+                return false;
+            }
+            matriculas.removerSe(matricula -> matricula.getId().equals(id));
+            estatisticasPlanos.remover(removida);
+            posicao.removerMatricula(removida);
+            evento = EventoAcademia.removido(removida);
+        } finally {
+            travaMatriculas.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
+        return true;
+    }
+
+    /**
+     * Define diretamente o status de uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @param status Novo status
+     * @throws MatriculaInvalidaException Se não encontrar
+     */
+    public void definirStatusMatricula(String id, StatusMatricula status) throws MatriculaInvalidaException {
+        alterarStatusMatricula(id, matricula -> matricula.setStatus(status));
+    }
+
+    /**
+     * Define o status de uma matrícula, se ela ainda estiver na versão informada.
+     *
+     * @param id ID da matrícula
+     * @param status Novo status
+     * @param versaoEsperada Versão da matrícula quando foi lida
+     * @throws MatriculaInvalidaException Se não encontrar
+     * @throws ConflitoVersaoException Se a matrícula foi alterada depois de lida
+     */
+    public void definirStatusMatricula(String id, StatusMatricula status, long versaoEsperada)
+            throws MatriculaInvalidaException, ConflitoVersaoException {
+        alterarStatusMatricula(id, versaoEsperada, matricula -> matricula.setStatus(status));
+    }
+
+    /**
+     * Suspende uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @throws MatriculaInvalidaException Se não encontrar
+     */
+    public void suspenderMatricula(String id) throws MatriculaInvalidaException {
+        alterarStatusMatricula(id, Matricula::suspender);
+    }
+
+    /**
+     * Cancela uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @throws MatriculaInvalidaException Se não encontrar
+     */
+    public void cancelarMatricula(String id) throws MatriculaInvalidaException {
+        alterarStatusMatricula(id, Matricula::cancelar);
+    }
+
+    /**
+     * Reativa uma matrícula suspensa.
+     *
+     * @param id ID da matrícula
+     * @throws MatriculaInvalidaException Se não encontrar
+     */
+    public void reativarMatricula(String id) throws MatriculaInvalidaException {
+        alterarStatusMatricula(id, Matricula::reativar);
+    }
+
+    /**
+     * Aplica uma mudança de status na matrícula, sem conferir a versão.
+     */
+    private void alterarStatusMatricula(String id, Consumer<Matricula> alteracao)
+            throws MatriculaInvalidaException {
+        try {
+            alterarStatusMatricula(id, QUALQUER_VERSAO, alteracao);
+        } catch (ConflitoVersaoException e) {
+            throw new AssertionError(e); // Sem versão esperada não há conflito
+        }
+    }
+
+    /**
+     * Aplica uma mudança de status na matrícula e publica o evento,
+     * se o status realmente mudou (a versão é incrementada).
+     */
+    private void alterarStatusMatricula(String id, long versaoEsperada, Consumer<Matricula> alteracao)
+            throws MatriculaInvalidaException, ConflitoVersaoException {
+        Matricula matricula = buscarMatriculaPorId(id);
+
+        EventoAcademia evento = null;
+        long carimbo = travaMatriculas.writeLock();
+        try {
+            if (versaoEsperada != QUALQUER_VERSAO) {
+                verificarVersao(matricula.getVersao(), versaoEsperada, "Matrícula " + id + " foi alterada");
+            }
+            StatusMatricula anterior = matricula.getStatus();
+            // Anotado antes da mudança: leituras abertas nunca veem o status novo sem a anotação
+            leituras.anotar(matricula, anterior);
+            alteracao.accept(matricula);
+            if (matricula.getStatus() != anterior) {
+                matricula.setVersao(matricula.getVersao() + 1);
+                estatisticasPlanos.statusAlterado(matricula, anterior);
+                posicao.statusMatriculaAlterado(matricula);
+                evento = EventoAcademia.statusAlterado(matricula, anterior);
+            }
+        } finally {
+            travaMatriculas.unlockWrite(carimbo);
+        }
+        if (evento != null) {
+            eventos.publicar(evento);
+        }
+    }
+
     // ========== MÉTODOS DE PAGAMENTOS ==========
 
     /**
@@ -413,14 +1096,26 @@ public class Academia {
         }
 
         // Cria o pagamento
-        String id = String.format("PAG%03d", contadorPagamentos++);
+        String id = String.format("PAG%03d", reservarPagamentos(1));
 
         Pagamento pagamento = new Pagamento(
             id, matricula, formaPagamento, valor,
             dataPagamento, StatusPagamento.CONFIRMADO
         );
 
-        pagamentos.add(pagamento);
+        EventoAcademia evento;
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            pagamentos.adicionar(pagamento);
+            pagamentosPorId.put(id, pagamento);
+            receitas.adicionar(pagamento);
+            livroPagamentos.adicionar(pagamento);
+            posicao.adicionarPagamento(pagamento);
+            evento = EventoAcademia.adicionado(pagamento);
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
         return pagamento;
     }
 
@@ -432,9 +1127,15 @@ public class Academia {
      * @throws PagamentoNaoEncontradoException Se não encontrar
      */
     public Pagamento buscarPagamentoPorId(String id) throws PagamentoNaoEncontradoException {
-        for (Pagamento pagamento : pagamentos) {
-            if (pagamento.getId().equals(id)) {
-                return pagamento;
+        Pagamento pagamento = id != null ? pagamentosPorId.get(id) : null;
+        if (pagamento != null) {
+            return pagamento;
+        }
+        ArquivoPagamentos arquivo = arquivoPagamentos;
+        if (arquivo != null) {
+            Pagamento arquivado = arquivo.buscarPorId(id, this::buscarMatriculaOuNull);
+            if (arquivado != null) {
+                return arquivado;
             }
         }
         throw new PagamentoNaoEncontradoException("Pagamento com ID " + id + " não encontrado");
@@ -442,39 +1143,738 @@ public class Academia {
 
     /**
      * Retorna todos os pagamentos registrados.
+     * Inclui os pagamentos do arquivo morto (antes dos recentes), para que
+     * quem salva a lista inteira não perca o histórico.
+     * Sem arquivo morto, a lista é a versão atual, sem cópia.
      *
-     * @return Lista de pagamentos
+     * @return Lista imutável de pagamentos
      */
     public List<Pagamento> listarPagamentos() {
-        return new ArrayList<>(pagamentos);
+        ArquivoPagamentos arquivo = arquivoPagamentos;
+        if (arquivo == null || arquivo.quantidade() == 0) {
+            return pagamentos.visao();
+        }
+        long carimbo = travaPagamentos.readLock(); // Evita ver um pagamento no arquivo e na lista
+        try {
+            List<Pagamento> todos = arquivo.listarTodos(this::buscarMatriculaOuNull);
+            todos.addAll(pagamentos.visao());
+            return Collections.unmodifiableList(todos);
+        } finally {
+            travaPagamentos.unlockRead(carimbo);
+        }
     }
 
     /**
      * Retorna pagamentos de uma matrícula específica.
+     * Inclui os pagamentos do arquivo morto, se houver.
      *
      * @param idMatricula ID da matrícula
      * @return Lista de pagamentos
      */
     public List<Pagamento> listarPagamentosPorMatricula(String idMatricula) {
-        return pagamentos.stream()
-            .filter(p -> p.getMatricula().getId().equals(idMatricula))
-            .collect(Collectors.toList());
+        List<Pagamento> resultado = new ArrayList<>();
+
+        ArquivoPagamentos arquivo = arquivoPagamentos;
+        if (arquivo != null && arquivo.quantidade() > 0) {
+            Matricula matricula = buscarMatriculaOuNull(idMatricula);
+            if (matricula != null) {
+                long carimbo = travaPagamentos.readLock();
+                try {
+                    resultado.addAll(arquivo.listarPorMatricula(matricula));
+                    adicionarPagamentosDaMatricula(idMatricula, resultado);
+                } finally {
+                    travaPagamentos.unlockRead(carimbo);
+                }
+                return resultado;
+            }
+        }
+
+        adicionarPagamentosDaMatricula(idMatricula, resultado);
+        return resultado;
+    }
+
+    /**
+     * Adiciona ao resultado os pagamentos (do heap) de uma matrícula.
+     */
+    private void adicionarPagamentosDaMatricula(String idMatricula, List<Pagamento> resultado) {
+        for (Pagamento p : pagamentos.visao()) {
+            if (p.getMatricula().getId().equals(idMatricula)) {
+                resultado.add(p);
+            }
+        }
+    }
+
+    /**
+     * Registra vários pagamentos de uma vez (ex.: conciliação bancária).
+     *
+     * Todas as solicitações são validadas antes de qualquer inclusão; se
+     * alguma for inválida, nenhum pagamento é registrado. Os IDs do lote
+     * são reservados de uma vez e a lista recebe uma única versão nova.
+     *
+     * @param solicitacoes Pagamentos a serem registrados
+     * @return Pagamentos criados, na ordem das solicitações
+     * @throws DadosInvalidosException Se alguma solicitação for inválida
+     */
+    public List<Pagamento> registrarPagamentos(List<SolicitacaoPagamento> solicitacoes)
+            throws DadosInvalidosException {
+
+        for (int i = 0; i < solicitacoes.size(); i++) {
+            SolicitacaoPagamento s = solicitacoes.get(i);
+            if (s == null || s.getMatricula() == null || s.getFormaPagamento() == null
+                    || s.getDataPagamento() == null) {
+                throw new DadosInvalidosException("Item " + (i + 1) + ": dados do pagamento incompletos");
+            }
+            if (!s.getFormaPagamento().validarPagamento()) {
+                throw new DadosInvalidosException("Item " + (i + 1) + ": Dados da forma de pagamento inválidos");
+            }
+            if (s.getValor() <= 0) {
+                throw new DadosInvalidosException("Item " + (i + 1) + ": Valor deve ser maior que zero");
+            }
+        }
+
+        List<Pagamento> criados = new ArrayList<>(solicitacoes.size());
+        int proximoId = reservarPagamentos(solicitacoes.size());
+        for (SolicitacaoPagamento s : solicitacoes) {
+            String id = String.format("PAG%03d", proximoId++);
+            criados.add(new Pagamento(
+                id, s.getMatricula(), s.getFormaPagamento(), s.getValor(),
+                s.getDataPagamento(), StatusPagamento.CONFIRMADO
+            ));
+        }
+
+        List<EventoAcademia> eventosLote = new ArrayList<>(criados.size());
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            pagamentos.adicionarTodos(criados);
+            receitas.adicionarTodos(criados);
+            livroPagamentos.adicionarTodos(criados);
+            posicao.adicionarPagamentos(criados);
+            for (Pagamento pagamento : criados) {
+                pagamentosPorId.put(pagamento.getId(), pagamento);
+                eventosLote.add(EventoAcademia.adicionado(pagamento));
+            }
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
+        eventos.publicar(eventosLote);
+        return criados;
+    }
+
+    /**
+     * Inclui pagamentos que já existem (com ID definido), como os lidos de
+     * um arquivo ou de um checkpoint. O contador de IDs é avançado para
+     * não gerar IDs repetidos depois.
+     *
+     * @param existentes Pagamentos a incluir
+     * @throws DadosInvalidosException Se algum for nulo ou tiver ID repetido
+     */
+    public void importarPagamentos(List<Pagamento> existentes) throws DadosInvalidosException {
+        List<EventoAcademia> eventosLote = new ArrayList<>(existentes.size());
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            Set<String> idsNoLote = new HashSet<>();
+            for (int i = 0; i < existentes.size(); i++) {
+                Pagamento pagamento = existentes.get(i);
+                if (pagamento == null || pagamento.getId() == null || pagamento.getMatricula() == null) {
+                    throw new DadosInvalidosException("Item " + (i + 1) + ": dados do pagamento incompletos");
+                }
+                if (pagamentosPorId.containsKey(pagamento.getId()) || !idsNoLote.add(pagamento.getId())) {
+                    throw new DadosInvalidosException(
+                        "Item " + (i + 1) + ": Já existe um pagamento com o ID: " + pagamento.getId());
+                }
+            }
+
+            pagamentos.adicionarTodos(existentes);
+            receitas.adicionarTodos(existentes);
+            livroPagamentos.adicionarTodos(existentes);
+            posicao.adicionarPagamentos(existentes);
+            for (Pagamento pagamento : existentes) {
+                pagamentosPorId.put(pagamento.getId(), pagamento);
+                avancarContador(contadorPagamentos, pagamento.getId(), "PAG");
+                eventosLote.add(EventoAcademia.adicionado(pagamento));
+            }
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
+        eventos.publicar(eventosLote);
+    }
+
+    /**
+     * Remove um pagamento do sistema (apenas os que estão no heap).
+     *
+     * @param id ID do pagamento
+     * @return true se removeu, false se não encontrou
+     */
+    public boolean removerPagamento(String id) {
+        EventoAcademia evento;
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            Pagamento removido = id != null ? pagamentosPorId.remove(id) : null;
+            if (removido == null) {
+                return false;
+            }
+            pagamentos.removerSe(pagamento -> pagamento.getId().equals(id));
+            receitas.remover(removido);
+            livroPagamentos.remover(removido);
+            posicao.removerPagamento(removido);
+            evento = EventoAcademia.removido(removido);
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
+        eventos.publicar(evento);
+        return true;
+    }
+
+    /**
+     * Define diretamente o status de um pagamento.
+     *
+     * @param id ID do pagamento
+     * @param status Novo status
+     * @return true se o status mudou
+     * @throws PagamentoNaoEncontradoException Se não encontrar
+     */
+    public boolean definirStatusPagamento(String id, StatusPagamento status) throws PagamentoNaoEncontradoException {
+        return alterarStatusPagamento(id, pagamento -> {
+            pagamento.setStatus(status);
+            return true;
+        });
+    }
+
+    /**
+     * Define o status de um pagamento, se ele ainda estiver na versão informada.
+     *
+     * @param id ID do pagamento
+     * @param status Novo status
+     * @param versaoEsperada Versão do pagamento quando foi lido
+     * @return true se o status mudou
+     * @throws PagamentoNaoEncontradoException Se não encontrar
+     * @throws ConflitoVersaoException Se o pagamento foi alterado depois de lido
+     */
+    public boolean definirStatusPagamento(String id, StatusPagamento status, long versaoEsperada)
+            throws PagamentoNaoEncontradoException, ConflitoVersaoException {
+        return alterarStatusPagamento(id, versaoEsperada, pagamento -> {
+            pagamento.setStatus(status);
+            return true;
+        });
+    }
+
+    /**
+     * Confirma um pagamento pendente.
+     *
+     * @param id ID do pagamento
+     * @return true se foi confirmado, false se não estava pendente
+     * @throws PagamentoNaoEncontradoException Se não encontrar
+     */
+    public boolean confirmarPagamento(String id) throws PagamentoNaoEncontradoException {
+        return alterarStatusPagamento(id, Pagamento::confirmar);
+    }
+
+    /**
+     * Estorna um pagamento confirmado.
+     *
+     * @param id ID do pagamento
+     * @return true se foi estornado, false se não estava confirmado
+     * @throws PagamentoNaoEncontradoException Se não encontrar
+     */
+    public boolean estornarPagamento(String id) throws PagamentoNaoEncontradoException {
+        return alterarStatusPagamento(id, Pagamento::estornar);
+    }
+
+    /**
+     * Aplica uma mudança de status no pagamento, sem conferir a versão.
+     */
+    private boolean alterarStatusPagamento(String id, Predicate<Pagamento> alteracao)
+            throws PagamentoNaoEncontradoException {
+        try {
+            return alterarStatusPagamento(id, QUALQUER_VERSAO, alteracao);
+        } catch (ConflitoVersaoException e) {
+            throw new AssertionError(e); // Sem versão esperada não há conflito
+        }
+    }
+
+    /**
+     * Aplica uma mudança de status no pagamento e publica o evento,
+     * se o status realmente mudou (a versão é incrementada).
+     * Pagamentos do arquivo morto não podem mudar de status.
+     */
+    private boolean alterarStatusPagamento(String id, long versaoEsperada, Predicate<Pagamento> alteracao)
+            throws PagamentoNaoEncontradoException, ConflitoVersaoException {
+        EventoAcademia evento = null;
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            Pagamento pagamento = id != null ? pagamentosPorId.get(id) : null;
+            if (pagamento == null) {
+                ArquivoPagamentos arquivo = arquivoPagamentos;
+                if (arquivo != null && arquivo.buscarPorId(id, this::buscarMatriculaOuNull) != null) {
+                    throw new PagamentoNaoEncontradoException("Pagamento com ID " + id
+                        + " está no arquivo morto (estornado) e não pode mudar de status");
+                }
+                throw new PagamentoNaoEncontradoException("Pagamento com ID " + id + " não encontrado");
+            }
+            if (versaoEsperada != QUALQUER_VERSAO) {
+                verificarVersao(pagamento.getVersao(), versaoEsperada, "Pagamento " + id + " foi alterado");
+            }
+            StatusPagamento anterior = pagamento.getStatus();
+            // Anotado antes da mudança: leituras abertas nunca veem o status novo sem a anotação
+            leituras.anotar(pagamento, anterior);
+            if (alteracao.test(pagamento) && pagamento.getStatus() != anterior) {
+                pagamento.setVersao(pagamento.getVersao() + 1);
+                receitas.statusAlterado(pagamento, anterior);
+                livroPagamentos.statusAlterado(pagamento);
+                posicao.statusPagamentoAlterado(pagamento, anterior);
+                evento = EventoAcademia.statusAlterado(pagamento, anterior);
+            }
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
+        if (evento != null) {
+            eventos.publicar(evento);
+            return true;
+        }
+        return false;
+    }
+
+    // ========== ARQUIVO MORTO DE PAGAMENTOS ==========
+
+    /**
+     * Configura o arquivo morto de pagamentos.
+     *
+     * Pagamentos com mais de idadeDias dias passam a poder ser movidos
+     * para fora do heap com arquivarPagamentosAntigos().
+     *
+     * Os pagamentos confirmados que já estiverem no arquivo (um arquivo
+     * mapeado de uma execução anterior) passam a contar na receita diária,
+     * no livro de pagamentos e na posição financeira.
+     *
+     * @param arquivo Arquivo morto (em memória nativa ou mapeado em disco)
+     * @param idadeDias Idade mínima, em dias, para arquivar um pagamento
+     */
+    public void configurarArquivoPagamentos(ArquivoPagamentos arquivo, int idadeDias) {
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            if (arquivo != arquivoPagamentos) {
+                if (arquivoPagamentos != null) {
+                    List<Pagamento> antigos = arquivoPagamentos.listarTodos(this::buscarMatriculaOuNull);
+                    receitas.removerTodos(antigos);
+                    livroPagamentos.removerTodos(antigos);
+                    posicao.removerPagamentos(antigos);
+                }
+                if (arquivo != null) {
+                    List<Pagamento> arquivados = arquivo.listarTodos(this::buscarMatriculaOuNull);
+                    receitas.adicionarTodos(arquivados);
+                    livroPagamentos.adicionarTodos(arquivados);
+                    posicao.adicionarPagamentos(arquivados);
+                }
+            }
+            this.arquivoPagamentos = arquivo;
+            this.idadeArquivamentoDias = idadeDias;
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Move para o arquivo morto os pagamentos estornados mais antigos que a
+     * idade configurada. Pendentes e confirmados ficam no heap, mesmo
+     * antigos, para ainda poderem ser confirmados ou estornados (ver
+     * ArquivoPagamentos.podeArquivar()).
+     *
+     * @return Quantidade de pagamentos arquivados
+     * @throws IllegalStateException Se o arquivo morto não foi configurado
+     */
+    public int arquivarPagamentosAntigos() {
+        long carimbo = travaPagamentos.writeLock();
+        try {
+            if (arquivoPagamentos == null) {
+                throw new IllegalStateException("Arquivo de pagamentos não configurado");
+            }
+
+            int diaLimite = Conversor.paraDiaEpoch(new Date()) - idadeArquivamentoDias;
+            List<Pagamento> arquivados = new ArrayList<>();
+
+            for (Pagamento pagamento : pagamentos.visao()) {
+                if (Conversor.paraDiaEpoch(pagamento.getDataPagamento()) < diaLimite
+                        && ArquivoPagamentos.podeArquivar(pagamento)) {
+                    arquivoPagamentos.arquivar(pagamento);
+                    arquivados.add(pagamento);
+                }
+            }
+
+            pagamentos.removerSe(new HashSet<>(arquivados)::contains);
+            for (Pagamento pagamento : arquivados) {
+                pagamentosPorId.remove(pagamento.getId());
+            }
+            return arquivados.size();
+        } finally {
+            travaPagamentos.unlockWrite(carimbo);
+        }
     }
 
     // ========== MÉTODOS AUXILIARES ==========
 
+    /**
+     * Busca uma matrícula pelo ID sem lançar exceção.
+     *
+     * @param id ID da matrícula
+     * @return Matrícula encontrada ou null
+     */
+    private Matricula buscarMatriculaOuNull(String id) {
+        return id != null ? matriculasPorId.get(id) : null;
+    }
+
+    /**
+     * Adiciona um lote de pessoas (alunos ou instrutores) de uma vez.
+     * Valida o lote inteiro antes de incluir qualquer pessoa.
+     *
+     * @param novas Pessoas a adicionar
+     * @param colecao Lista do tipo de pessoa
+     * @param indice Índice por CPF compacto
+     * @param trava Trava do tipo de pessoa
+     * @param nomeTipo Nome usado nas mensagens ("aluno" ou "instrutor")
+     * @throws DadosInvalidosException Se alguma pessoa for inválida
+     */
+    private <P extends Pessoa> void adicionarPessoas(List<P> novas, ColecaoVersionada<P> colecao,
+                                                     MapaCpf<P> indice, StampedLock trava, String nomeTipo)
+            throws DadosInvalidosException {
+        List<EventoAcademia> eventosLote = new ArrayList<>(novas.size());
+        long carimbo = trava.writeLock();
+        try {
+            Set<P> noLote = new HashSet<>(); // Pessoa.equals compara o CPF
+            for (int i = 0; i < novas.size(); i++) {
+                P pessoa = novas.get(i);
+                if (pessoa == null) {
+                    throw new DadosInvalidosException("Item " + (i + 1) + ": " + nomeTipo + " não pode ser nulo");
+                }
+                if (!noLote.add(pessoa) || buscarPorCpf(colecao.visao(), indice, pessoa.getCpf()) != null) {
+                    throw new DadosInvalidosException(
+                        "Item " + (i + 1) + ": Já existe um " + nomeTipo + " com o CPF: " + pessoa.getCpf());
+                }
+            }
+
+            colecao.adicionarTodos(novas);
+            for (P pessoa : novas) {
+                indexar(indice, pessoa);
+                eventosLote.add(EventoAcademia.adicionado(pessoa));
+            }
+        } finally {
+            trava.unlockWrite(carimbo);
+        }
+        eventos.publicar(eventosLote);
+    }
+
+    /**
+     * Busca uma pessoa pelo CPF sem bloquear escritores.
+     *
+     * Primeiro tenta uma leitura otimista do índice; se uma escrita
+     * aconteceu durante a leitura, repete a busca com a trava de leitura.
+     *
+     * @param trava Trava do tipo de entidade
+     * @param lista Lista de pessoas
+     * @param indice Índice por CPF compacto
+     * @param cpf CPF procurado
+     * @return Pessoa encontrada ou null
+     */
+    private static <P extends Pessoa> P lerPorCpf(StampedLock trava, List<P> lista, MapaCpf<P> indice, String cpf) {
+        long carimbo = trava.tryOptimisticRead();
+        if (carimbo != 0) {
+            try {
+                P pessoa = buscarPorCpf(lista, indice, cpf);
+                if (trava.validate(carimbo)) {
+                    return pessoa;
+                }
+            } catch (RuntimeException e) {
+                // Leu o índice no meio de uma escrita; repete com a trava abaixo
+            }
+        }
+
+        carimbo = trava.readLock();
+        try {
+            return buscarPorCpf(lista, indice, cpf);
+        } finally {
+            trava.unlockRead(carimbo);
+        }
+    }
+
+    /**
+     * Busca uma pessoa pelo CPF usando o índice de CPFs compactos.
+     * CPFs fora do formato padrão não entram no índice, então para
+     * eles a busca percorre a lista.
+     *
+     * @param lista Lista de pessoas
+     * @param indice Índice por CPF compacto
+     * @param cpf CPF procurado
+     * @return Pessoa encontrada ou null
+     */
+    private static <P extends Pessoa> P buscarPorCpf(List<P> lista, MapaCpf<P> indice, String cpf) {
+        long chave = ValidadorCPF.compactarCPF(cpf);
+        if (chave >= 0) {
+            return indice.get(chave);
+        }
+        for (P pessoa : lista) {
+            if (pessoa.getCpfCompacto() < 0 && pessoa.getCpf() != null && pessoa.getCpf().equals(cpf)) {
+                return pessoa;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adiciona (ou substitui) uma pessoa no índice de CPFs.
+     *
+     * @param indice Índice por CPF compacto
+     * @param pessoa Pessoa a indexar
+     */
+    private static <P extends Pessoa> void indexar(MapaCpf<P> indice, P pessoa) {
+        if (pessoa.getCpfCompacto() >= 0) {
+            indice.put(pessoa.getCpfCompacto(), pessoa);
+        }
+    }
+
+    /**
+     * Retorna a trava responsável pelo CPF de uma pessoa.
+     *
+     * @param pessoa Pessoa (normalmente um aluno)
+     * @return Trava do grupo de CPFs da pessoa
+     */
+    private ReentrantLock travaDoCpf(Pessoa pessoa) {
+        return travasPorCpf[pessoa.hashCode() & (QUANTIDADE_TRAVAS_CPF - 1)];
+    }
+
+    /**
+     * Abre uma leitura isolada dos dados, para relatórios.
+     *
+     * A leitura fixa a versão atual de todas as listas (incluindo os
+     * pagamentos do arquivo morto, como listarPagamentos()) em um único
+     * ponto no tempo. Depois disso, as alterações seguem sem esperar a
+     * leitura, e ela continua vendo a versão fixada. A leitura deve ser
+     * fechada ao terminar.
+     *
+     * @return Leitura aberta
+     */
+    public LeituraAcademia abrirLeitura() {
+        long cAlunos = travaAlunos.readLock();
+        long cInstrutores = travaInstrutores.readLock();
+        long cPlanos = travaPlanos.readLock();
+        long cMatriculas = travaMatriculas.readLock();
+        long cPagamentos = travaPagamentos.readLock();
+        try {
+            List<Pagamento> todosPagamentos = pagamentos.visao();
+            if (arquivoPagamentos != null && arquivoPagamentos.quantidade() > 0) {
+                todosPagamentos = arquivoPagamentos.listarTodos(this::buscarMatriculaOuNull);
+                todosPagamentos.addAll(pagamentos.visao());
+            }
+            // Fixada ainda com as travas: nenhuma mudança de status escapa da anotação
+            long sequencia = EventoAcademia.ultimaSequencia();
+            leituras.fixar(sequencia);
+            return new LeituraAcademia(new SnapshotAcademia(sequencia, alunos.visao(), instrutores.visao(),
+                planos.visao(), matriculas.visao(), todosPagamentos), leituras);
+        } finally {
+            travaPagamentos.unlockRead(cPagamentos);
+            travaMatriculas.unlockRead(cMatriculas);
+            travaPlanos.unlockRead(cPlanos);
+            travaInstrutores.unlockRead(cInstrutores);
+            travaAlunos.unlockRead(cAlunos);
+        }
+    }
+
+    /**
+     * Quantidade de leituras isoladas ainda abertas.
+     *
+     * @return Leituras abertas
+     */
+    public int leiturasAbertas() {
+        return leituras.abertas();
+    }
+
+    /**
+     * Captura o estado completo da academia em um único ponto no tempo.
+     *
+     * Segura a trava de leitura de todos os tipos ao mesmo tempo, para que
+     * nenhuma alteração fique pela metade entre as listas. Como as listas são
+     * versões imutáveis, a captura em si é só a leitura das referências.
+     * Os pagamentos do arquivo morto são incluídos.
+     *
+     * @return Estado da academia
+     */
+    public EstadoAcademia capturarEstado() {
+        long cAlunos = travaAlunos.readLock();
+        long cInstrutores = travaInstrutores.readLock();
+        long cPlanos = travaPlanos.readLock();
+        long cMatriculas = travaMatriculas.readLock();
+        long cPagamentos = travaPagamentos.readLock();
+        try {
+            List<Pagamento> todosPagamentos = pagamentos.visao();
+            if (arquivoPagamentos != null && arquivoPagamentos.quantidade() > 0) {
+                todosPagamentos = arquivoPagamentos.listarTodos(this::buscarMatriculaOuNull);
+                todosPagamentos.addAll(pagamentos.visao());
+            }
+            // Com todas as travas, nenhum evento novo pode ser criado agora
+            long sequencia = EventoAcademia.ultimaSequencia();
+            SnapshotAcademia dados = new SnapshotAcademia(sequencia, alunos.visao(), instrutores.visao(),
+                planos.visao(), matriculas.visao(), todosPagamentos);
+            return new EstadoAcademia(dados, contadorMatriculas.get() - 1, contadorPagamentos.get() - 1, sequencia);
+        } finally {
+            travaPagamentos.unlockRead(cPagamentos);
+            travaMatriculas.unlockRead(cMatriculas);
+            travaPlanos.unlockRead(cPlanos);
+            travaInstrutores.unlockRead(cInstrutores);
+            travaAlunos.unlockRead(cAlunos);
+        }
+    }
+
+    /**
+     * Confere a versão de um registro antes de alterá-lo.
+     *
+     * @param atual Versão cadastrada
+     * @param esperada Versão que quem editou tinha lido
+     * @param descricao Início da mensagem (ex.: "Matrícula MAT001 foi alterada")
+     * @throws ConflitoVersaoException Se as versões forem diferentes
+     */
+    private static void verificarVersao(long atual, long esperada, String descricao)
+            throws ConflitoVersaoException {
+        if (atual != esperada) {
+            throw new ConflitoVersaoException(descricao + " por outro usuário"
+                + " (versão lida " + esperada + ", versão atual " + atual + ")", esperada, atual);
+        }
+    }
+
+    /**
+     * Reserva números de IDs de matrículas.
+     *
+     * @param quantidade Quantidade de IDs a reservar
+     * @return Primeiro número reservado
+     */
+    private int reservarMatriculas(int quantidade) throws MatriculaInvalidaException {
+        try {
+            return reservarNumeros(contadorMatriculas, "MAT", quantidade);
+        } catch (IOException e) {
+            throw new MatriculaInvalidaException("Não foi possível gerar o ID da matrícula: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserva números de IDs de pagamentos.
+     *
+     * @param quantidade Quantidade de IDs a reservar
+     * @return Primeiro número reservado
+     */
+    private int reservarPagamentos(int quantidade) throws DadosInvalidosException {
+        try {
+            return reservarNumeros(contadorPagamentos, "PAG", quantidade);
+        } catch (IOException e) {
+            throw new DadosInvalidosException("Não foi possível gerar o ID do pagamento: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserva números consecutivos no contador ou, se configurado, no
+     * gerador compartilhado (e avança o contador para depois deles).
+     */
+    private int reservarNumeros(AtomicInteger contador, String prefixo, int quantidade) throws IOException {
+        GeradorIds gerador = geradorIds;
+        if (gerador == null) {
+            return contador.getAndAdd(quantidade);
+        }
+        int inicio = gerador.reservar(prefixo, contador.get(), quantidade);
+        contador.accumulateAndGet(inicio + quantidade, Math::max);
+        return inicio;
+    }
+
+    /**
+     * Avança um contador de IDs para depois do número de um ID existente.
+     *
+     * @param contador Contador a avançar
+     * @param id ID existente (ex.: MAT007)
+     * @param prefixo Prefixo dos IDs gerados pelo contador
+     */
+    private static void avancarContador(AtomicInteger contador, String id, String prefixo) {
+        if (id.startsWith(prefixo)) {
+            try {
+                int numero = Integer.parseInt(id.substring(prefixo.length()));
+                contador.accumulateAndGet(numero + 1, Math::max);
+            } catch (NumberFormatException e) {
+                // ID fora do padrão: não afeta o contador
+            }
+        }
+    }
+
     /**
      * Limpa todos os dados do sistema.
      * Útil para testes e reset.
+     * Publica um evento REMOVIDO para cada item que estava em memória.
      */
     public void limparTodosDados() {
-        alunos.clear();
-        instrutores.clear();
-        planos.clear();
-        matriculas.clear();
-        pagamentos.clear();
-        contadorMatriculas = 1;
-        contadorPagamentos = 1;
+        List<EventoAcademia> removidos = new ArrayList<>();
+        // Trava todos os tipos, sempre na mesma ordem, para evitar deadlock
+        long cAlunos = travaAlunos.writeLock();
+        long cInstrutores = travaInstrutores.writeLock();
+        long cPlanos = travaPlanos.writeLock();
+        long cMatriculas = travaMatriculas.writeLock();
+        long cPagamentos = travaPagamentos.writeLock();
+        try {
+            for (List<?> lista : List.of(alunos.visao(), instrutores.visao(), planos.visao(),
+                                         matriculas.visao(), pagamentos.visao())) {
+                for (Object item : lista) {
+                    removidos.add(EventoAcademia.removido(item));
+                }
+            }
+
+            alunos.limpar();
+            instrutores.limpar();
+            alunosPorCpf.limpar();
+            instrutoresPorCpf.limpar();
+            planos.limpar();
+            planosPorId.clear();
+            matriculas.limpar();
+            matriculasPorId.clear();
+            estatisticasPlanos.limpar();
+            posicao.limpar();
+            pagamentos.limpar();
+            pagamentosPorId.clear();
+            receitas.limpar();
+            livroPagamentos.limpar();
+            if (arquivoPagamentos != null) {
+                arquivoPagamentos.limpar();
+            }
+            contadorMatriculas.set(1);
+            contadorPagamentos.set(1);
+        } finally {
+            travaPagamentos.unlockWrite(cPagamentos);
+            travaMatriculas.unlockWrite(cMatriculas);
+            travaPlanos.unlockWrite(cPlanos);
+            travaInstrutores.unlockWrite(cInstrutores);
+            travaAlunos.unlockWrite(cAlunos);
+        }
+        eventos.publicar(removidos);
+    }
+
+    /**
+     * Avança os contadores de IDs para depois dos IDs informados.
+     * Usado quando outro processo pode ter gravado matrículas ou pagamentos
+     * nos mesmos arquivos, para que os próximos IDs gerados aqui não repitam
+     * os dele.
+     *
+     * @param idsMatriculas IDs de matrículas existentes
+     * @param idsPagamentos IDs de pagamentos existentes
+     */
+    public void avancarContadores(Collection<String> idsMatriculas, Collection<String> idsPagamentos) {
+        for (String id : idsMatriculas) {
+            avancarContador(contadorMatriculas, id, "MAT");
+        }
+        for (String id : idsPagamentos) {
+            avancarContador(contadorPagamentos, id, "PAG");
+        }
+    }
+
+    /**
+     * Configura uma fonte compartilhada para os números de IDs de matrículas
+     * e pagamentos (ex.: quando outro computador grava nos mesmos arquivos).
+     * Os contadores em memória continuam valendo como mínimo.
+     *
+     * @param gerador Gerador de IDs, ou null para usar só os contadores em memória
+     */
+    public void configurarGeradorIds(GeradorIds gerador) {
+        this.geradorIds = gerador;
     }
 
     /**
@@ -485,7 +1885,7 @@ public class Academia {
      * @param ultimoPagamento Último ID de pagamento usado
      */
     public void setContadores(int ultimaMatricula, int ultimoPagamento) {
-        this.contadorMatriculas = ultimaMatricula + 1;
-        this.contadorPagamentos = ultimoPagamento + 1;
+        this.contadorMatriculas.set(ultimaMatricula + 1);
+        this.contadorPagamentos.set(ultimoPagamento + 1);
     }
 }
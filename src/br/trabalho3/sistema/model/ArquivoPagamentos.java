@@ -0,0 +1,344 @@
+package br.trabalho3.sistema.model;
+
+import br.trabalho3.sistema.utils.Conversor;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Arquivo morto de pagamentos antigos, guardado fora do heap da JVM.
+ * *
+ * Pagamentos antigos quase nunca são consultados, mas enquanto ficam como
+ * objetos no heap aumentam o trabalho do coletor de lixo. Este arquivo guarda
+ * cada pagamento como um registro binário de tamanho fixo em um ByteBuffer
+ * direto (memória nativa) ou mapeado de um arquivo em disco.
+ *
+ * Os pagamentos arquivados são somente leitura: voltam a ser objetos
+ * Pagamento apenas quando consultados.
+ *
+ * Os métodos públicos são sincronizados, pois o buffer pode ser trocado
+ * (ao crescer) enquanto outra thread lê.
+ *
+ * Layout de cada registro (48 bytes):
+ * - ID do pagamento: 1 byte de tamanho + até 15 bytes ASCII
+ * - ID da matrícula: 1 byte de tamanho + até 15 bytes ASCII
+ * - valor em centavos (long), dia epoch (int)
+ * - ordinal do status (byte), código da forma de pagamento (byte), 2 bytes livres
+ *
+ */
+public class ArquivoPagamentos {
+
+    /**
+     * Tamanho máximo (em bytes) de um ID guardado no registro.
+     */
+    private static final int TAMANHO_MAXIMO_ID = 15;
+
+    /**
+     * Tamanho de cada campo de ID (tamanho + texto).
+     */
+    private static final int CAMPO_ID = TAMANHO_MAXIMO_ID + 1;
+
+    /**
+     * Tamanho de um registro em bytes.
+     */
+    private static final int TAMANHO_REGISTRO = CAMPO_ID * 2 + 8 + 4 + 1 + 1 + 2;
+
+    /**
+     * Cabeçalho do buffer: número mágico (int) + quantidade de registros (int).
+     */
+    private static final int TAMANHO_CABECALHO = 8;
+
+    /**
+     * Número mágico que identifica um arquivo de pagamentos ("PAGA").
+     */
+    private static final int NUMERO_MAGICO = 0x50414741;
+
+    /**
+     * Status na ordem do enum, para converter o ordinal de volta.
+     */
+    private static final StatusPagamento[] STATUS = StatusPagamento.values();
+
+    /**
+     * Buffer com os registros (direto ou mapeado de arquivo).
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Canal do arquivo mapeado, ou null quando o arquivo é só em memória.
+     */
+    private FileChannel canal;
+
+    /**
+     * Quantidade de registros guardados.
+     */
+    private int quantidade;
+
+    /**
+     * Cria um arquivo em memória nativa (ByteBuffer direto), sem arquivo em disco.
+     *
+     * @param capacidadeInicial Quantidade inicial de registros suportada
+     */
+    public ArquivoPagamentos(int capacidadeInicial) {
+        this.buffer = ByteBuffer.allocateDirect(tamanhoBuffer(Math.max(1, capacidadeInicial)));
+        this.buffer.putInt(0, NUMERO_MAGICO);
+        this.quantidade = 0;
+    }
+
+    /**
+     * Abre (ou cria) um arquivo mapeado em disco.
+     * Se o arquivo já existe, os registros gravados anteriormente continuam disponíveis.
+     *
+     * @param caminho Caminho do arquivo
+     * @param capacidadeInicial Quantidade inicial de registros suportada
+     * @throws IOException Se não conseguir abrir ou mapear o arquivo
+     */
+    public ArquivoPagamentos(Path caminho, int capacidadeInicial) throws IOException {
+        this.canal = FileChannel.open(caminho,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long tamanhoAtual = canal.size();
+        long tamanho = Math.max(tamanhoAtual, tamanhoBuffer(Math.max(1, capacidadeInicial)));
+        this.buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanho);
+
+        if (tamanhoAtual >= TAMANHO_CABECALHO && buffer.getInt(0) == NUMERO_MAGICO) {
+            this.quantidade = buffer.getInt(4);
+        } else {
+            buffer.putInt(0, NUMERO_MAGICO);
+            buffer.putInt(4, 0);
+            this.quantidade = 0;
+        }
+    }
+
+    /**
+     * Verifica se um pagamento pode ser arquivado.
+     * Só pagamentos estornados são arquivados: um pagamento arquivado não
+     * pode mais mudar de status, e pendentes e confirmados ainda podem
+     * (ser confirmados ou estornados).
+     * IDs com mais de 15 caracteres ou fora do ASCII não cabem no registro,
+     * nem cartões com tipo fora do padrão (o registro só guarda o código
+     * da forma de pagamento, ver FormaPagamento.codigoCompleto()).
+     *
+     * @param pagamento Pagamento a verificar
+     * @return true se pode ir para o arquivo, false caso contrário
+     */
+    public static boolean podeArquivar(Pagamento pagamento) {
+        return pagamento.getStatus() == StatusPagamento.ESTORNADO
+            && pagamento.getFormaPagamento() != null
+            && FormaPagamento.codigoCompleto(pagamento.getFormaPagamento())
+            && idValido(pagamento.getId()) && pagamento.getMatricula() != null
+            && idValido(pagamento.getMatricula().getId());
+    }
+
+    /**
+     * Grava um pagamento no final do arquivo.
+     *
+     * @param pagamento Pagamento a arquivar
+     * @throws IllegalArgumentException Se o pagamento não puder ser arquivado
+     */
+    public synchronized void arquivar(Pagamento pagamento) {
+        if (!podeArquivar(pagamento)) {
+            throw new IllegalArgumentException("Pagamento não pode ser arquivado: " + pagamento.getId());
+        }
+        garantirCapacidade(quantidade + 1);
+
+        int posicao = TAMANHO_CABECALHO + quantidade * TAMANHO_REGISTRO;
+        escreverId(posicao, pagamento.getId());
+        escreverId(posicao + CAMPO_ID, pagamento.getMatricula().getId());
+        buffer.putLong(posicao + CAMPO_ID * 2, Conversor.paraCentavos(pagamento.getValor()));
+        buffer.putInt(posicao + CAMPO_ID * 2 + 8, Conversor.paraDiaEpoch(pagamento.getDataPagamento()));
+        buffer.put(posicao + CAMPO_ID * 2 + 12, (byte) pagamento.getStatus().ordinal());
+        buffer.put(posicao + CAMPO_ID * 2 + 13, FormaPagamento.codificar(pagamento.getFormaPagamento()));
+
+        quantidade++;
+        buffer.putInt(4, quantidade);
+    }
+
+    /**
+     * Retorna a quantidade de pagamentos arquivados.
+     *
+     * @return Quantidade de registros
+     */
+    public synchronized int quantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Lista os pagamentos arquivados de uma matrícula.
+     *
+     * @param matricula Matrícula cujos pagamentos serão listados
+     * @return Pagamentos arquivados da matrícula, na ordem em que foram arquivados
+     */
+    public synchronized List<Pagamento> listarPorMatricula(Matricula matricula) {
+        byte[] idProcurado = matricula.getId().getBytes(StandardCharsets.US_ASCII);
+        List<Pagamento> resultado = new ArrayList<>();
+
+        for (int i = 0; i < quantidade; i++) {
+            int posicao = TAMANHO_CABECALHO + i * TAMANHO_REGISTRO;
+            if (idIgual(posicao + CAMPO_ID, idProcurado)) {
+                resultado.add(lerRegistro(posicao, matricula));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Lista todos os pagamentos arquivados.
+     *
+     * @param buscarMatricula Função que encontra a matrícula pelo ID
+     *                        (registros cuja matrícula não é encontrada são ignorados)
+     * @return Pagamentos arquivados, na ordem em que foram arquivados
+     */
+    public synchronized List<Pagamento> listarTodos(Function<String, Matricula> buscarMatricula) {
+        Map<String, Matricula> cache = new HashMap<>();
+        List<Pagamento> resultado = new ArrayList<>(quantidade);
+
+        for (int i = 0; i < quantidade; i++) {
+            int posicao = TAMANHO_CABECALHO + i * TAMANHO_REGISTRO;
+            String idMatricula = lerId(posicao + CAMPO_ID);
+            Matricula matricula = cache.computeIfAbsent(idMatricula, buscarMatricula);
+            if (matricula != null) {
+                resultado.add(lerRegistro(posicao, matricula));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca um pagamento arquivado pelo ID.
+     *
+     * @param id ID do pagamento
+     * @param buscarMatricula Função que encontra a matrícula pelo ID
+     * @return Pagamento encontrado ou null
+     */
+    public synchronized Pagamento buscarPorId(String id, Function<String, Matricula> buscarMatricula) {
+        if (!idValido(id)) {
+            return null;
+        }
+        byte[] idProcurado = id.getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 0; i < quantidade; i++) {
+            int posicao = TAMANHO_CABECALHO + i * TAMANHO_REGISTRO;
+            if (idIgual(posicao, idProcurado)) {
+                Matricula matricula = buscarMatricula.apply(lerId(posicao + CAMPO_ID));
+                return matricula != null ? lerRegistro(posicao, matricula) : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove todos os registros do arquivo.
+     */
+    public synchronized void limpar() {
+        quantidade = 0;
+        buffer.putInt(4, 0);
+    }
+
+    /**
+     * Grava em disco as alterações pendentes e fecha o arquivo mapeado.
+     * Não faz nada para arquivos apenas em memória.
+     *
+     * @throws IOException Se ocorrer erro ao fechar o arquivo
+     */
+    public synchronized void fechar() throws IOException {
+        if (canal != null) {
+            ((MappedByteBuffer) buffer).force();
+            canal.close();
+            canal = null;
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private Pagamento lerRegistro(int posicao, Matricula matricula) {
+        return new Pagamento(
+            lerId(posicao),
+            matricula,
+            FormaPagamento.decodificar(buffer.get(posicao + CAMPO_ID * 2 + 13)),
+            Conversor.deCentavos(buffer.getLong(posicao + CAMPO_ID * 2)),
+            Conversor.deDiaEpoch(buffer.getInt(posicao + CAMPO_ID * 2 + 8)),
+            STATUS[buffer.get(posicao + CAMPO_ID * 2 + 12)]
+        );
+    }
+
+    private static boolean idValido(String id) {
+        if (id == null || id.length() > TAMANHO_MAXIMO_ID) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            if (id.charAt(i) > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void escreverId(int posicao, String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(posicao, (byte) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(posicao + 1 + i, bytes[i]);
+        }
+    }
+
+    private String lerId(int posicao) {
+        byte[] bytes = new byte[buffer.get(posicao)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(posicao + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Compara o ID gravado em uma posição com o ID procurado, sem criar Strings.
+     */
+    private boolean idIgual(int posicao, byte[] idProcurado) {
+        if (buffer.get(posicao) != idProcurado.length) {
+            return false;
+        }
+        for (int i = 0; i < idProcurado.length; i++) {
+            if (buffer.get(posicao + 1 + i) != idProcurado[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int tamanhoBuffer(int registros) {
+        return TAMANHO_CABECALHO + registros * TAMANHO_REGISTRO;
+    }
+
+    /**
+     * Aumenta o buffer (dobrando a capacidade) quando não há espaço para mais registros.
+     */
+    private void garantirCapacidade(int registros) {
+        int necessario = tamanhoBuffer(registros);
+        if (necessario <= buffer.capacity()) {
+            return;
+        }
+        int novoTamanho = Math.max(necessario, buffer.capacity() * 2);
+        try {
+            if (canal != null) {
+                ((MappedByteBuffer) buffer).force();
+                buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, novoTamanho);
+            } else {
+                ByteBuffer novo = ByteBuffer.allocateDirect(novoTamanho);
+                ByteBuffer antigo = buffer.duplicate();
+                antigo.clear();
+                novo.put(antigo);
+                buffer = novo;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao aumentar o arquivo de pagamentos", e);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package br.trabalho3.sistema.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distribui os eventos de alteração da academia para os ouvintes.
+ * *
+ * Há dois tipos de ouvinte:
+ * - Síncrono: recebe os eventos na própria thread que fez a alteração,
+ *   logo depois que a Academia libera suas travas. Deve ser rápido.
+ * - Assíncrono: os eventos são acumulados e entregues em lotes por uma
+ *   thread própria ("academia-eventos"), depois de um intervalo. Opcionalmente
+ *   os eventos do lote são combinados (coalescidos): várias alterações na
+ *   mesma entidade viram um único evento.
+ *
+ * Um erro em um ouvinte não impede a entrega para os demais.
+ *
+ */
+public class BarramentoEventos {
+
+    /**
+     * Inscrição de um ouvinte assíncrono com seus eventos pendentes.
+     */
+    private static class Inscricao {
+        private final OuvinteEventos ouvinte;
+        private final long intervaloMs;
+        private final boolean coalescer;
+        private List<EventoAcademia> pendentes = new ArrayList<>();
+        private boolean agendada;
+
+        Inscricao(OuvinteEventos ouvinte, long intervaloMs, boolean coalescer) {
+            this.ouvinte = ouvinte;
+            this.intervaloMs = intervaloMs;
+            this.coalescer = coalescer;
+        }
+    }
+
+    private final List<OuvinteEventos> sincronos;
+    private final List<Inscricao> assincronos;
+
+    /**
+     * Thread que entrega os eventos assíncronos. Criada no primeiro uso.
+     */
+    private volatile ScheduledExecutorService entregador;
+
+    public BarramentoEventos() {
+        this.sincronos = new CopyOnWriteArrayList<>();
+        this.assincronos = new CopyOnWriteArrayList<>();
+    }
+
+    // ========== INSCRIÇÃO ==========
+
+    /**
+     * Inscreve um ouvinte síncrono.
+     *
+     * Atenção: o ouvinte roda na thread que fez a alteração; se demorar,
+     * atrasa quem chamou a Academia.
+     *
+     * @param ouvinte Ouvinte a inscrever
+     */
+    public void inscrever(OuvinteEventos ouvinte) {
+        sincronos.add(ouvinte);
+    }
+
+    /**
+     * Inscreve um ouvinte assíncrono.
+     *
+     * @param ouvinte Ouvinte a inscrever
+     * @param intervaloMs Tempo, em milissegundos, que os eventos esperam
+     *                    acumulando antes de serem entregues em lote
+     * @param coalescer true para combinar os eventos de uma mesma entidade no lote
+     */
+    public void inscreverAssincrono(OuvinteEventos ouvinte, long intervaloMs, boolean coalescer) {
+        if (intervaloMs < 0) {
+            throw new IllegalArgumentException("Intervalo não pode ser negativo");
+        }
+        synchronized (this) {
+            if (entregador == null) {
+                entregador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                    Thread thread = new Thread(tarefa, "academia-eventos");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            assincronos.add(new Inscricao(ouvinte, intervaloMs, coalescer));
+        }
+    }
+
+    /**
+     * Cancela a inscrição de um ouvinte (síncrono ou assíncrono).
+     * Eventos assíncronos ainda pendentes para ele são descartados.
+     *
+     * @param ouvinte Ouvinte a remover
+     */
+    public void cancelar(OuvinteEventos ouvinte) {
+        sincronos.remove(ouvinte);
+        assincronos.removeIf(inscricao -> inscricao.ouvinte == ouvinte);
+    }
+
+    // ========== PUBLICAÇÃO ==========
+
+    /**
+     * Publica um evento.
+     *
+     * @param evento Evento ocorrido
+     */
+    public void publicar(EventoAcademia evento) {
+        publicar(Collections.singletonList(evento));
+    }
+
+    /**
+     * Publica os eventos de uma operação.
+     *
+     * @param eventos Eventos ocorridos, em ordem
+     */
+    public void publicar(List<EventoAcademia> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        List<EventoAcademia> imutaveis = Collections.unmodifiableList(new ArrayList<>(eventos));
+
+        for (OuvinteEventos ouvinte : sincronos) {
+            entregar(ouvinte, imutaveis);
+        }
+
+        ScheduledExecutorService executor = entregador;
+        if (executor == null) {
+            return;
+        }
+        for (Inscricao inscricao : assincronos) {
+            synchronized (inscricao) {
+                inscricao.pendentes.addAll(imutaveis);
+                if (!inscricao.agendada) {
+                    inscricao.agendada = true;
+                    try {
+                        executor.schedule(() -> entregarPendentes(inscricao),
+                            inscricao.intervaloMs, TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
+                        // Barramento encerrado enquanto publicava: não há mais entrega
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Entrega imediatamente todos os eventos assíncronos pendentes e espera
+     * os ouvintes terminarem. Útil antes de salvar ou de encerrar o sistema.
+     */
+    public void descarregar() {
+        ScheduledExecutorService executor = entregador;
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.submit(() -> {
+                for (Inscricao inscricao : assincronos) {
+                    entregarPendentes(inscricao);
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Erro ao entregar eventos: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Entrega os eventos pendentes, cancela os ouvintes assíncronos e
+     * encerra a thread de entrega.
+     */
+    public void encerrar() {
+        descarregar();
+        assincronos.clear();
+        synchronized (this) {
+            if (entregador != null) {
+                entregador.shutdown();
+                entregador = null;
+            }
+        }
+    }
+
+    // ========== COALESCÊNCIA ==========
+
+    /**
+     * Combina os eventos de uma mesma entidade em um único evento.
+     *
+     * Exemplos: ADICIONADO seguido de ATUALIZADO vira ADICIONADO com o objeto
+     * mais recente; ADICIONADO seguido de REMOVIDO desaparece; REMOVIDO
+     * seguido de ADICIONADO vira ATUALIZADO; duas mudanças de status viram
+     * uma só, com o status anterior da primeira.
+     *
+     * @param eventos Eventos em ordem
+     * @return Eventos combinados, na ordem da última alteração de cada entidade
+     */
+    public static List<EventoAcademia> coalescer(List<EventoAcademia> eventos) {
+        Map<String, EventoAcademia> porEntidade = new LinkedHashMap<>();
+
+        for (EventoAcademia evento : eventos) {
+            String chave = evento.getEntidade() + ":" + evento.getChave();
+            EventoAcademia anterior = porEntidade.remove(chave);
+            EventoAcademia combinado = anterior == null ? evento : combinar(anterior, evento);
+            if (combinado != null) {
+                porEntidade.put(chave, combinado);
+            }
+        }
+        return new ArrayList<>(porEntidade.values());
+    }
+
+    /**
+     * Combina dois eventos consecutivos da mesma entidade.
+     *
+     * @return Evento resultante, ou null se os dois se anulam
+     */
+    static EventoAcademia combinar(EventoAcademia anterior, EventoAcademia atual) {
+        EventoAcademia.Tipo tipoAnterior = anterior.getTipo();
+        EventoAcademia.Tipo tipoAtual = atual.getTipo();
+
+        if (tipoAtual == EventoAcademia.Tipo.REMOVIDO) {
+            return tipoAnterior == EventoAcademia.Tipo.ADICIONADO ? null : atual;
+        }
+        if (tipoAnterior == EventoAcademia.Tipo.REMOVIDO) {
+            // Removido e adicionado de novo: para quem observa, foi atualizado
+            return tipoAtual == EventoAcademia.Tipo.ADICIONADO
+                ? com(atual, EventoAcademia.Tipo.ATUALIZADO, null)
+                : atual;
+        }
+        if (tipoAnterior == EventoAcademia.Tipo.ADICIONADO) {
+            return com(atual, EventoAcademia.Tipo.ADICIONADO, null);
+        }
+        if (tipoAnterior == EventoAcademia.Tipo.ATUALIZADO) {
+            return com(atual, EventoAcademia.Tipo.ATUALIZADO, null);
+        }
+        // Anterior é STATUS_ALTERADO
+        if (tipoAtual == EventoAcademia.Tipo.STATUS_ALTERADO) {
+            return com(atual, EventoAcademia.Tipo.STATUS_ALTERADO, anterior.getStatusAnterior());
+        }
+        return atual;
+    }
+
+    /**
+     * Cria um evento com a sequência e o objeto de outro, mudando o tipo.
+     */
+    private static EventoAcademia com(EventoAcademia base, EventoAcademia.Tipo tipo, Enum<?> statusAnterior) {
+        return new EventoAcademia(base.getSequencia(), tipo, base.getObjeto(), statusAnterior);
+    }
+
+    // ========== ENTREGA ==========
+
+    /**
+     * Entrega os eventos acumulados de uma inscrição assíncrona.
+     * Roda na thread de entrega.
+     */
+    private void entregarPendentes(Inscricao inscricao) {
+        List<EventoAcademia> lote;
+        synchronized (inscricao) {
+            lote = inscricao.pendentes;
+            inscricao.pendentes = new ArrayList<>();
+            inscricao.agendada = false;
+        }
+        if (lote.isEmpty() || !assincronos.contains(inscricao)) {
+            return;
+        }
+
+        // Threads diferentes podem publicar fora de ordem; a sequência corrige
+        lote.sort(Comparator.comparingLong(EventoAcademia::getSequencia));
+        if (inscricao.coalescer) {
+            lote = coalescer(lote);
+        }
+        entregar(inscricao.ouvinte, Collections.unmodifiableList(lote));
+    }
+
+    /**
+     * Chama um ouvinte, sem deixar um erro dele atingir quem publicou.
+     */
+    private static void entregar(OuvinteEventos ouvinte, List<EventoAcademia> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        try {
+            ouvinte.aoAlterar(eventos);
+        } catch (RuntimeException e) {
+            System.err.println("Erro em ouvinte de eventos: " + e.getMessage());
+        }
+    }
+}
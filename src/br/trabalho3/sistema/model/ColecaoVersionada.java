@@ -0,0 +1,215 @@
+package br.trabalho3.sistema.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Coleção que publica uma nova versão imutável a cada alteração.
+ * *
+ * Cada versão é um vetor e um tamanho. A leitura apenas devolve a lista da
+ * versão publicada, sem copiar nada: custa O(1), nunca bloqueia e a lista
+ * pode ser percorrida por qualquer thread enquanto outras escrevem.
+ *
+ * Adicionar ao final reaproveita o vetor da versão atual quando há espaço:
+ * o item vai para a posição logo depois do fim, que nenhuma versão publicada
+ * enxerga, e a nova versão só aumenta o tamanho. Quando o vetor enche, ele é
+ * copiado para um com o dobro do tamanho, então adicionar custa O(1)
+ * amortizado. Substituir e remover criam um vetor novo, pois não podem
+ * mexer nas posições que versões antigas ainda enxergam.
+ *
+ * As escritas são sincronizadas entre si; as leituras não usam trava.
+ *
+ * @param <T> Tipo dos itens
+ */
+public class ColecaoVersionada<T> {
+
+    /**
+     * Capacidade do primeiro vetor alocado.
+     */
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    /**
+     * Versão publicada: número, vetor e quantidade de itens visíveis.
+     * As posições até o tamanho nunca mudam depois de publicadas.
+     */
+    private static final class Versao<T> {
+        private final long numero;
+        private final Object[] itens;
+        private final int tamanho;
+        private final List<T> visao;
+
+        Versao(long numero, Object[] itens, int tamanho) {
+            this.numero = numero;
+            this.itens = itens;
+            this.tamanho = tamanho;
+            this.visao = new Visao<>(itens, tamanho);
+        }
+    }
+
+    /**
+     * Lista imutável sobre as primeiras posições de um vetor.
+     */
+    private static final class Visao<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] itens;
+        private final int tamanho;
+
+        Visao(Object[] itens, int tamanho) {
+            this.itens = itens;
+            this.tamanho = tamanho;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int posicao) {
+            if (posicao < 0 || posicao >= tamanho) {
+                throw new IndexOutOfBoundsException("Posição " + posicao + ", tamanho " + tamanho);
+            }
+            return (T) itens[posicao];
+        }
+
+        @Override
+        public int size() {
+            return tamanho;
+        }
+    }
+
+    /**
+     * Versão atual. Leitores apenas leem este campo.
+     */
+    private volatile Versao<T> atual;
+
+    /**
+     * Cria uma coleção vazia (versão 0).
+     */
+    public ColecaoVersionada() {
+        this.atual = new Versao<>(0, new Object[0], 0);
+    }
+
+    // ========== LEITURA ==========
+
+    /**
+     * Retorna a lista imutável da versão atual.
+     * Alterações posteriores na coleção não aparecem nesta lista.
+     *
+     * @return Lista imutável dos itens
+     */
+    public List<T> visao() {
+        return atual.visao;
+    }
+
+    /**
+     * Retorna o número da versão atual.
+     *
+     * @return Número da versão (cresce a cada alteração)
+     */
+    public long versao() {
+        return atual.numero;
+    }
+
+    public int tamanho() {
+        return atual.tamanho;
+    }
+
+    // ========== ESCRITA ==========
+
+    /**
+     * Adiciona um item ao final.
+     *
+     * @param item Item a adicionar
+     */
+    public synchronized void adicionar(T item) {
+        int tamanho = atual.tamanho;
+        Object[] itens = comEspaco(tamanho + 1);
+        itens[tamanho] = item;
+        publicar(itens, tamanho + 1);
+    }
+
+    /**
+     * Adiciona vários itens ao final, publicando uma única versão nova.
+     *
+     * @param novosItens Itens a adicionar
+     */
+    public synchronized void adicionarTodos(Collection<? extends T> novosItens) {
+        if (novosItens.isEmpty()) {
+            return;
+        }
+        int tamanho = atual.tamanho;
+        Object[] itens = comEspaco(tamanho + novosItens.size());
+        int i = tamanho;
+        for (T item : novosItens) {
+            itens[i++] = item;
+        }
+        publicar(itens, i);
+    }
+
+    /**
+     * Substitui o item de uma posição.
+     *
+     * @param posicao Posição do item
+     * @param item Novo item
+     */
+    public synchronized void substituir(int posicao, T item) {
+        int tamanho = atual.tamanho;
+        if (posicao < 0 || posicao >= tamanho) {
+            throw new IndexOutOfBoundsException("Posição " + posicao + ", tamanho " + tamanho);
+        }
+        Object[] novos = Arrays.copyOf(atual.itens, atual.itens.length);
+        novos[posicao] = item;
+        publicar(novos, tamanho);
+    }
+
+    /**
+     * Remove todos os itens que satisfazem a condição.
+     *
+     * @param condicao Condição de remoção
+     * @return true se removeu algum item
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean removerSe(Predicate<? super T> condicao) {
+        Object[] itens = atual.itens;
+        int tamanhoAtual = atual.tamanho;
+        Object[] novos = new Object[itens.length];
+        int tamanho = 0;
+        for (int i = 0; i < tamanhoAtual; i++) {
+            if (!condicao.test((T) itens[i])) {
+                novos[tamanho++] = itens[i];
+            }
+        }
+        if (tamanho == tamanhoAtual) {
+            return false;
+        }
+        publicar(novos, tamanho);
+        return true;
+    }
+
+    /**
+     * Remove todos os itens.
+     */
+    public synchronized void limpar() {
+        publicar(new Object[0], 0);
+    }
+
+    /**
+     * Retorna um vetor com lugar para o tamanho pedido: o da versão atual,
+     * se couber, ou uma cópia com o dobro da capacidade.
+     */
+    private Object[] comEspaco(int tamanhoNecessario) {
+        Object[] itens = atual.itens;
+        if (tamanhoNecessario <= itens.length) {
+            return itens;
+        }
+        int capacidade = Math.max(tamanhoNecessario, Math.max(CAPACIDADE_INICIAL, itens.length * 2));
+        return Arrays.copyOf(itens, capacidade);
+    }
+
+    /**
+     * Publica as primeiras posições do vetor como a próxima versão.
+     */
+    private void publicar(Object[] itens, int tamanho) {
+        atual = new Versao<>(atual.numero + 1, itens, tamanho);
+    }
+}
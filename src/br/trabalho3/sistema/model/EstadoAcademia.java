@@ -0,0 +1,51 @@
+package br.trabalho3.sistema.model;
+
+/**
+ * Estado completo da academia capturado em um único ponto no tempo.
+ * *
+ * Além dos dados (SnapshotAcademia), guarda os contadores de IDs e a
+ * sequência do último evento incluído, para que um checkpoint gravado a
+ * partir deste estado saiba a partir de qual evento precisa reaplicar
+ * as alterações seguintes.
+ *
+ */
+public class EstadoAcademia {
+
+    private final SnapshotAcademia dados;
+    private final int ultimaMatricula;
+    private final int ultimoPagamento;
+    private final long ultimaSequencia;
+
+    /**
+     * Construtor completo.
+     *
+     * @param dados Dados da academia
+     * @param ultimaMatricula Último número de matrícula usado
+     * @param ultimoPagamento Último número de pagamento usado
+     * @param ultimaSequencia Sequência do último evento refletido nos dados
+     */
+    public EstadoAcademia(SnapshotAcademia dados, int ultimaMatricula, int ultimoPagamento, long ultimaSequencia) {
+        this.dados = dados;
+        this.ultimaMatricula = ultimaMatricula;
+        this.ultimoPagamento = ultimoPagamento;
+        this.ultimaSequencia = ultimaSequencia;
+    }
+
+    // ========== GETTERS ==========
+
+    public SnapshotAcademia getDados() {
+        return dados;
+    }
+
+    public int getUltimaMatricula() {
+        return ultimaMatricula;
+    }
+
+    public int getUltimoPagamento() {
+        return ultimoPagamento;
+    }
+
+    public long getUltimaSequencia() {
+        return ultimaSequencia;
+    }
+}
@@ -0,0 +1,149 @@
+package br.trabalho3.sistema.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Quantidade de matrículas por plano e por status, mantida de forma incremental.
+ * *
+ * Os contadores são identificados pelo ID do plano (e não pelo nome, que
+ * pode se repetir entre planos diferentes). A Academia atualiza os
+ * contadores dentro da trava de matrículas, junto com a própria alteração:
+ * ao realizar, importar ou remover matrículas e a cada mudança de status
+ * (suspender, cancelar, reativar, etc.).
+ *
+ * Assim, um painel de popularidade dos planos custa O(planos), sem
+ * percorrer as matrículas. As consultas não usam trava.
+ *
+ */
+public class EstatisticasPlanos {
+
+    private static final StatusMatricula[] STATUS = StatusMatricula.values();
+
+    /**
+     * Contadores de cada plano, indexados pelo ordinal do status.
+     */
+    private final Map<String, AtomicIntegerArray> contadores = new ConcurrentHashMap<>();
+
+    /**
+     * Cria as estatísticas vazias.
+     */
+    EstatisticasPlanos() {
+    }
+
+    // ========== ATUALIZAÇÃO (usada pela Academia) ==========
+
+    /**
+     * Conta uma matrícula nova no status atual dela.
+     */
+    void adicionar(Matricula matricula) {
+        somar(matricula, matricula.getStatus(), 1);
+    }
+
+    /**
+     * Conta várias matrículas novas.
+     */
+    void adicionarTodas(Collection<Matricula> matriculas) {
+        for (Matricula matricula : matriculas) {
+            adicionar(matricula);
+        }
+    }
+
+    /**
+     * Descarta uma matrícula removida.
+     */
+    void remover(Matricula matricula) {
+        somar(matricula, matricula.getStatus(), -1);
+    }
+
+    /**
+     * Move a matrícula do status anterior para o atual.
+     *
+     * @param matricula Matrícula já com o novo status
+     * @param anterior Status antes da mudança
+     */
+    void statusAlterado(Matricula matricula, StatusMatricula anterior) {
+        somar(matricula, anterior, -1);
+        somar(matricula, matricula.getStatus(), 1);
+    }
+
+    /**
+     * Zera todos os contadores.
+     */
+    void limpar() {
+        contadores.clear();
+    }
+
+    private void somar(Matricula matricula, StatusMatricula status, int quantidade) {
+        Plano plano = matricula.getPlano();
+        if (plano == null || status == null) {
+            return;
+        }
+        contadores.computeIfAbsent(plano.getId(), id -> new AtomicIntegerArray(STATUS.length))
+            .addAndGet(status.ordinal(), quantidade);
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Retorna a quantidade de matrículas de um plano em um status.
+     *
+     * @param idPlano ID do plano
+     * @param status Status das matrículas
+     * @return Quantidade de matrículas
+     */
+    public int contar(String idPlano, StatusMatricula status) {
+        AtomicIntegerArray contador = contadores.get(idPlano);
+        return contador != null ? contador.get(status.ordinal()) : 0;
+    }
+
+    /**
+     * Retorna a quantidade de matrículas de um plano, somando todos os status.
+     *
+     * @param idPlano ID do plano
+     * @return Quantidade de matrículas
+     */
+    public int contarTodas(String idPlano) {
+        AtomicIntegerArray contador = contadores.get(idPlano);
+        if (contador == null) {
+            return 0;
+        }
+        int total = 0;
+        for (int i = 0; i < STATUS.length; i++) {
+            total += contador.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Retorna a quantidade de matrículas em um status, por ID de plano.
+     * Planos sem nenhuma matrícula no status não aparecem.
+     *
+     * @param status Status das matrículas
+     * @return Mapa do ID do plano para a quantidade, ordenado pelo ID
+     */
+    public Map<String, Integer> contarPorPlano(StatusMatricula status) {
+        Map<String, Integer> resultado = new TreeMap<>();
+        for (Map.Entry<String, AtomicIntegerArray> entrada : contadores.entrySet()) {
+            int quantidade = entrada.getValue().get(status.ordinal());
+            if (quantidade > 0) {
+                resultado.put(entrada.getKey(), quantidade);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Retorna os IDs dos planos que já tiveram alguma matrícula contada.
+     *
+     * @return IDs dos planos
+     */
+    public Set<String> planos() {
+        return new TreeSet<>(contadores.keySet());
+    }
+}
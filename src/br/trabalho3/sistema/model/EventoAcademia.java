@@ -0,0 +1,204 @@
+package br.trabalho3.sistema.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evento de alteração nos dados da academia.
+ * *
+ * Cada alteração feita pela Academia (inclusão, atualização, remoção ou
+ * mudança de status) gera um evento. Quem precisa acompanhar os dados
+ * (telas, relatórios, persistência, índices) recebe os eventos e atualiza
+ * apenas o que mudou, em vez de recalcular tudo.
+ *
+ * Os eventos são imutáveis. A sequência é global e crescente, e é gerada
+ * enquanto a Academia ainda segura a trava da entidade, então ordena os
+ * eventos de um mesmo tipo de entidade na ordem em que as alterações
+ * aconteceram.
+ *
+ */
+public class EventoAcademia {
+
+    /**
+     * Tipo da alteração.
+     */
+    public enum Tipo {
+        ADICIONADO,
+        ATUALIZADO,
+        REMOVIDO,
+        STATUS_ALTERADO
+    }
+
+    /**
+     * Tipo da entidade alterada.
+     */
+    public enum Entidade {
+        ALUNO,
+        INSTRUTOR,
+        PLANO,
+        MATRICULA,
+        PAGAMENTO;
+
+        /**
+         * Descobre o tipo de entidade de um objeto do modelo.
+         *
+         * @param objeto Objeto do modelo
+         * @return Tipo de entidade
+         * @throws IllegalArgumentException Se o objeto não for uma entidade da academia
+         */
+        public static Entidade de(Object objeto) {
+            if (objeto instanceof Aluno) {
+                return ALUNO;
+            } else if (objeto instanceof Instrutor) {
+                return INSTRUTOR;
+            } else if (objeto instanceof Plano) {
+                return PLANO;
+            } else if (objeto instanceof Matricula) {
+                return MATRICULA;
+            } else if (objeto instanceof Pagamento) {
+                return PAGAMENTO;
+            }
+            throw new IllegalArgumentException("Objeto não é uma entidade da academia: " + objeto);
+        }
+    }
+
+    /**
+     * Gerador da sequência dos eventos.
+     */
+    private static final AtomicLong PROXIMA_SEQUENCIA = new AtomicLong(1);
+
+    private final long sequencia;
+    private final Tipo tipo;
+    private final Entidade entidade;
+
+    /**
+     * CPF (alunos e instrutores) ou ID (planos, matrículas e pagamentos).
+     */
+    private final String chave;
+
+    /**
+     * Objeto alterado. Nas remoções, é o objeto que foi removido.
+     */
+    private final Object objeto;
+
+    /**
+     * Status anterior (StatusMatricula ou StatusPagamento).
+     * Só é preenchido em eventos STATUS_ALTERADO.
+     */
+    private final Enum<?> statusAnterior;
+
+    /**
+     * Construtor completo.
+     *
+     * @param sequencia Sequência do evento
+     * @param tipo Tipo da alteração
+     * @param objeto Objeto alterado
+     * @param statusAnterior Status anterior (ou null)
+     */
+    EventoAcademia(long sequencia, Tipo tipo, Object objeto, Enum<?> statusAnterior) {
+        this.sequencia = sequencia;
+        this.tipo = tipo;
+        this.entidade = Entidade.de(objeto);
+        this.chave = chaveDe(objeto);
+        this.objeto = objeto;
+        this.statusAnterior = statusAnterior;
+    }
+
+    // ========== CRIAÇÃO ==========
+
+    public static EventoAcademia adicionado(Object objeto) {
+        return new EventoAcademia(PROXIMA_SEQUENCIA.getAndIncrement(), Tipo.ADICIONADO, objeto, null);
+    }
+
+    public static EventoAcademia atualizado(Object objeto) {
+        return new EventoAcademia(PROXIMA_SEQUENCIA.getAndIncrement(), Tipo.ATUALIZADO, objeto, null);
+    }
+
+    public static EventoAcademia removido(Object objeto) {
+        return new EventoAcademia(PROXIMA_SEQUENCIA.getAndIncrement(), Tipo.REMOVIDO, objeto, null);
+    }
+
+    public static EventoAcademia statusAlterado(Object objeto, Enum<?> statusAnterior) {
+        return new EventoAcademia(PROXIMA_SEQUENCIA.getAndIncrement(), Tipo.STATUS_ALTERADO, objeto, statusAnterior);
+    }
+
+    /**
+     * Retorna a sequência do último evento criado.
+     *
+     * @return Última sequência usada (0 se nenhum evento foi criado)
+     */
+    public static long ultimaSequencia() {
+        return PROXIMA_SEQUENCIA.get() - 1;
+    }
+
+    /**
+     * Garante que os próximos eventos terão sequência maior que a informada.
+     * Usado ao recuperar dados gravados em uma execução anterior, para que
+     * a sequência continue crescendo entre execuções.
+     *
+     * @param sequencia Maior sequência já usada
+     */
+    public static void avancarSequencia(long sequencia) {
+        PROXIMA_SEQUENCIA.accumulateAndGet(sequencia + 1, Math::max);
+    }
+
+    /**
+     * Retorna a chave que identifica um objeto do modelo.
+     *
+     * @param objeto Objeto do modelo
+     * @return CPF (pessoas) ou ID (demais entidades)
+     */
+    public static String chaveDe(Object objeto) {
+        if (objeto instanceof Pessoa) {
+            return ((Pessoa) objeto).getCpf();
+        } else if (objeto instanceof Plano) {
+            return ((Plano) objeto).getId();
+        } else if (objeto instanceof Matricula) {
+            return ((Matricula) objeto).getId();
+        } else if (objeto instanceof Pagamento) {
+            return ((Pagamento) objeto).getId();
+        }
+        throw new IllegalArgumentException("Objeto não é uma entidade da academia: " + objeto);
+    }
+
+    // ========== GETTERS ==========
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Entidade getEntidade() {
+        return entidade;
+    }
+
+    public String getChave() {
+        return chave;
+    }
+
+    public Object getObjeto() {
+        return objeto;
+    }
+
+    public Enum<?> getStatusAnterior() {
+        return statusAnterior;
+    }
+
+    /**
+     * Retorna o objeto alterado já convertido para a classe esperada.
+     *
+     * @param classe Classe esperada (ex.: Aluno.class)
+     * @return Objeto alterado
+     * @throws ClassCastException Se o objeto não for da classe informada
+     */
+    public <T> T getObjeto(Class<T> classe) {
+        return classe.cast(objeto);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequencia + " " + tipo + " " + entidade + " " + chave;
+    }
+}
@@ -57,4 +57,104 @@ public abstract class FormaPagamento {
         return String.format("FormaPagamento[tipo=%s, detalhes=%s]",
             getTipo(), getDetalhes());
     }
+
+    // ========== CODIFICAÇÃO COMPACTA ==========
+
+    /**
+     * Códigos de um byte usados para guardar a forma de pagamento
+     * em estruturas compactas (vetores primitivos, arquivos binários).
+     *
+     * Cartões com tipo CREDITO, DEBITO ou sem tipo (null) têm código
+     * próprio. Qualquer outro tipo de cartão vira CODIGO_CARTAO_OUTRO_TIPO,
+     * que não guarda o texto do tipo: quem usa esse código precisa guardar
+     * o tipo à parte (ver codigoCompleto() e decodificar(byte, String)).
+     */
+    public static final byte CODIGO_PIX = 0;
+    public static final byte CODIGO_CARTAO_CREDITO = 1;
+    public static final byte CODIGO_CARTAO_DEBITO = 2;
+    public static final byte CODIGO_DINHEIRO = 3;
+    public static final byte CODIGO_CARTAO_SEM_TIPO = 4;
+    public static final byte CODIGO_CARTAO_OUTRO_TIPO = 5;
+
+    /**
+     * Converte uma forma de pagamento para seu código de um byte.
+     *
+     * @param forma Forma de pagamento
+     * @return Código correspondente
+     */
+    public static byte codificar(FormaPagamento forma) {
+        if (forma instanceof PagamentoPix) {
+            return CODIGO_PIX;
+        }
+        if (forma instanceof PagamentoDinheiro) {
+            return CODIGO_DINHEIRO;
+        }
+        if (forma instanceof PagamentoCartao) {
+            String tipoCartao = ((PagamentoCartao) forma).getTipoCartao();
+            if (tipoCartao == null) {
+                return CODIGO_CARTAO_SEM_TIPO;
+            }
+            if ("CREDITO".equals(tipoCartao)) {
+                return CODIGO_CARTAO_CREDITO;
+            }
+            if ("DEBITO".equals(tipoCartao)) {
+                return CODIGO_CARTAO_DEBITO;
+            }
+            return CODIGO_CARTAO_OUTRO_TIPO;
+        }
+        throw new IllegalArgumentException("Forma de pagamento desconhecida: " + forma);
+    }
+
+    /**
+     * Verifica se o código da forma de pagamento basta para recriá-la
+     * (ou seja, se não é um cartão com tipo fora do padrão).
+     *
+     * @param forma Forma de pagamento
+     * @return true se decodificar(codificar(forma)) recria a mesma forma
+     */
+    public static boolean codigoCompleto(FormaPagamento forma) {
+        return codificar(forma) != CODIGO_CARTAO_OUTRO_TIPO;
+    }
+
+    /**
+     * Cria a forma de pagamento correspondente a um código.
+     *
+     * @param codigo Código gerado por codificar()
+     * @return Nova instância da forma de pagamento
+     * @throws IllegalArgumentException Se o código for desconhecido ou
+     *         CODIGO_CARTAO_OUTRO_TIPO (o tipo do cartão não está no código)
+     */
+    public static FormaPagamento decodificar(byte codigo) {
+        switch (codigo) {
+            case CODIGO_PIX:
+                return new PagamentoPix();
+            case CODIGO_CARTAO_CREDITO:
+                return new PagamentoCartao("CREDITO");
+            case CODIGO_CARTAO_DEBITO:
+                return new PagamentoCartao("DEBITO");
+            case CODIGO_DINHEIRO:
+                return new PagamentoDinheiro();
+            case CODIGO_CARTAO_SEM_TIPO:
+                return new PagamentoCartao();
+            case CODIGO_CARTAO_OUTRO_TIPO:
+                throw new IllegalArgumentException("O tipo do cartão não está no código; use decodificar(codigo, tipoCartao)");
+            default:
+                throw new IllegalArgumentException("Código de forma de pagamento desconhecido: " + codigo);
+        }
+    }
+
+    /**
+     * Cria a forma de pagamento correspondente a um código, usando o tipo
+     * do cartão guardado à parte quando o código é CODIGO_CARTAO_OUTRO_TIPO.
+     *
+     * @param codigo Código gerado por codificar()
+     * @param tipoCartao Tipo do cartão guardado à parte (ignorado nos outros códigos)
+     * @return Nova instância da forma de pagamento
+     */
+    public static FormaPagamento decodificar(byte codigo, String tipoCartao) {
+        if (codigo == CODIGO_CARTAO_OUTRO_TIPO) {
+            return new PagamentoCartao(tipoCartao);
+        }
+        return decodificar(codigo);
+    }
 }
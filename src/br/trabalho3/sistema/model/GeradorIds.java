@@ -0,0 +1,27 @@
+package br.trabalho3.sistema.model;
+
+import java.io.IOException;
+
+/**
+ * Fonte dos números usados nos IDs de matrículas (MAT) e pagamentos (PAG).
+ * *
+ * Sem gerador configurado, a Academia numera com contadores em memória.
+ * Quando vários processos gravam nos mesmos arquivos, um gerador
+ * compartilhado entre eles (ex.: o GerenciadorPersistencia, que reserva os
+ * números com a trava do arquivo) garante que dois processos nunca criem
+ * registros com o mesmo ID.
+ *
+ */
+public interface GeradorIds {
+
+    /**
+     * Reserva números consecutivos para IDs novos.
+     *
+     * @param prefixo Prefixo dos IDs ("MAT" ou "PAG")
+     * @param minimo Menor número aceitável (o próximo do contador em memória)
+     * @param quantidade Quantidade de números a reservar
+     * @return Primeiro número reservado (os seguintes também são deste processo)
+     * @throws IOException Se não for possível reservar
+     */
+    int reservar(String prefixo, int minimo, int quantidade) throws IOException;
+}
@@ -0,0 +1,94 @@
+package br.trabalho3.sistema.model;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Leitura isolada dos dados da academia, para relatórios demorados.
+ * *
+ * Ao ser aberta (Academia.abrirLeitura()), a leitura fixa uma versão: as
+ * listas são as versões imutáveis daquele instante, e o status de matrículas
+ * e pagamentos deve ser consultado por statusDe(), que devolve o status do
+ * momento da abertura mesmo que ele mude depois.
+ *
+ * Enquanto a leitura está aberta, as alterações continuam normalmente, sem
+ * esperar o relatório terminar. Feche a leitura quando terminar (de
+ * preferência com try-with-resources) para liberar as versões antigas.
+ *
+ */
+public class LeituraAcademia implements AutoCloseable {
+
+    private final SnapshotAcademia dados;
+    private final RegistroLeituras registro;
+    private final AtomicBoolean fechada = new AtomicBoolean();
+
+    /**
+     * Cria a leitura. A sequência já deve estar fixada no registro.
+     *
+     * @param dados Listas da versão fixada (a versão é a sequência)
+     * @param registro Registro onde a sequência foi fixada
+     */
+    LeituraAcademia(SnapshotAcademia dados, RegistroLeituras registro) {
+        this.dados = dados;
+        this.registro = registro;
+    }
+
+    /**
+     * Retorna a versão fixada (sequência do último evento antes da abertura).
+     *
+     * @return Versão da leitura
+     */
+    public long getVersao() {
+        return dados.getVersao();
+    }
+
+    public List<Aluno> getAlunos() {
+        return dados.getAlunos();
+    }
+
+    public List<Instrutor> getInstrutores() {
+        return dados.getInstrutores();
+    }
+
+    public List<Plano> getPlanos() {
+        return dados.getPlanos();
+    }
+
+    public List<Matricula> getMatriculas() {
+        return dados.getMatriculas();
+    }
+
+    public List<Pagamento> getPagamentos() {
+        return dados.getPagamentos();
+    }
+
+    /**
+     * Retorna o status que a matrícula tinha quando a leitura foi aberta.
+     *
+     * @param matricula Matrícula da leitura
+     * @return Status na versão da leitura
+     */
+    public StatusMatricula statusDe(Matricula matricula) {
+        return registro.statusEm(matricula, matricula::getStatus, getVersao());
+    }
+
+    /**
+     * Retorna o status que o pagamento tinha quando a leitura foi aberta.
+     *
+     * @param pagamento Pagamento da leitura
+     * @return Status na versão da leitura
+     */
+    public StatusPagamento statusDe(Pagamento pagamento) {
+        return registro.statusEm(pagamento, pagamento::getStatus, getVersao());
+    }
+
+    /**
+     * Fecha a leitura, liberando a versão fixada. Chamadas repetidas são ignoradas.
+     */
+    @Override
+    public void close() {
+        if (fechada.compareAndSet(false, true)) {
+            registro.liberar(getVersao());
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package br.trabalho3.sistema.model;
+
+import br.trabalho3.sistema.utils.Conversor;
+import br.trabalho3.sistema.utils.TotaisFinanceiros;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Livro-razão de pagamentos guardado em vetores primitivos paralelos.
+ * *
+ * Cada pagamento é uma linha, e cada coluna fica em seu próprio vetor:
+ * centavos, dia epoch, status, forma de pagamento e chave da matrícula.
+ * As somas percorrem esses vetores em sequência, sem passar pelos objetos
+ * Pagamento (com Date, enum, forma de pagamento e matrícula de cada um).
+ *
+ * A Academia atualiza o livro dentro da trava de pagamentos, junto com a
+ * própria alteração, nos mesmos pontos da receita diária: ao registrar,
+ * importar ou remover um pagamento e quando o status muda. Pagamentos
+ * movidos para o arquivo morto continuam no livro, como em
+ * listarPagamentos().
+ *
+ * Ao remover um pagamento, a última linha passa para o lugar dele, então
+ * a ordem das linhas não é a ordem de cadastro.
+ *
+ */
+public class LivroPagamentos {
+
+    /**
+     * Capacidade inicial dos vetores.
+     */
+    private static final int CAPACIDADE_INICIAL = 64;
+
+    /**
+     * Status na ordem do enum, para converter o ordinal de volta.
+     */
+    private static final StatusPagamento[] STATUS = StatusPagamento.values();
+
+    /**
+     * Quantidade de linhas (pagamentos) no livro.
+     */
+    private int tamanho;
+
+    /**
+     * ID de cada pagamento (o mesmo texto guardado no objeto Pagamento).
+     */
+    private String[] ids = new String[CAPACIDADE_INICIAL];
+
+    /**
+     * Valor de cada pagamento em centavos.
+     */
+    private long[] centavos = new long[CAPACIDADE_INICIAL];
+
+    /**
+     * Data de cada pagamento em dias desde 01/01/1970.
+     */
+    private int[] diaEpoch = new int[CAPACIDADE_INICIAL];
+
+    /**
+     * Ordinal do StatusPagamento de cada pagamento.
+     */
+    private byte[] status = new byte[CAPACIDADE_INICIAL];
+
+    /**
+     * Código da forma de pagamento (ver FormaPagamento.codificar()).
+     */
+    private byte[] forma = new byte[CAPACIDADE_INICIAL];
+
+    /**
+     * Chave da matrícula de cada pagamento (posição em idsMatricula).
+     */
+    private int[] chaveMatricula = new int[CAPACIDADE_INICIAL];
+
+    /**
+     * Linha de cada pagamento pelo ID, para remover e mudar o status.
+     */
+    private final Map<String, Integer> linhaPorId = new HashMap<>();
+
+    /**
+     * Tipo do cartão dos pagamentos cujo código de forma não guarda o tipo
+     * (FormaPagamento.CODIGO_CARTAO_OUTRO_TIPO), pelo ID do pagamento.
+     */
+    private final Map<String, String> tiposCartaoForaDoPadrao = new HashMap<>();
+
+    /**
+     * Dicionário de matrículas: a chave de uma matrícula é a posição do seu ID nesta lista.
+     */
+    private final List<String> idsMatricula = new ArrayList<>();
+
+    /**
+     * Chave de cada matrícula pelo seu ID.
+     */
+    private final Map<String, Integer> chavePorIdMatricula = new HashMap<>();
+
+    /**
+     * Cria o livro vazio.
+     */
+    LivroPagamentos() {
+    }
+
+    // ========== ATUALIZAÇÃO (usada pela Academia) ==========
+
+    /**
+     * Inclui um pagamento no final do livro.
+     * Se o ID já estiver no livro, a linha dele é regravada.
+     */
+    synchronized void adicionar(Pagamento pagamento) {
+        Integer existente = linhaPorId.get(pagamento.getId());
+        int linha;
+        if (existente != null) {
+            linha = existente;
+        } else {
+            garantirCapacidade(tamanho + 1);
+            linha = tamanho++;
+            linhaPorId.put(pagamento.getId(), linha);
+        }
+
+        ids[linha] = pagamento.getId();
+        centavos[linha] = Conversor.paraCentavos(pagamento.getValor());
+        diaEpoch[linha] = Conversor.paraDiaEpoch(pagamento.getDataPagamento());
+        status[linha] = (byte) pagamento.getStatus().ordinal();
+        forma[linha] = FormaPagamento.codificar(pagamento.getFormaPagamento());
+        chaveMatricula[linha] = chaveDe(pagamento.getMatricula().getId());
+        if (forma[linha] == FormaPagamento.CODIGO_CARTAO_OUTRO_TIPO) {
+            tiposCartaoForaDoPadrao.put(pagamento.getId(),
+                ((PagamentoCartao) pagamento.getFormaPagamento()).getTipoCartao());
+        } else {
+            tiposCartaoForaDoPadrao.remove(pagamento.getId());
+        }
+    }
+
+    /**
+     * Inclui vários pagamentos.
+     */
+    synchronized void adicionarTodos(Collection<Pagamento> pagamentos) {
+        garantirCapacidade(tamanho + pagamentos.size());
+        for (Pagamento pagamento : pagamentos) {
+            adicionar(pagamento);
+        }
+    }
+
+    /**
+     * Retira um pagamento; a última linha ocupa o lugar dele.
+     */
+    synchronized void remover(Pagamento pagamento) {
+        Integer removida = linhaPorId.remove(pagamento.getId());
+        if (removida == null) {
+            return;
+        }
+        tiposCartaoForaDoPadrao.remove(pagamento.getId());
+
+        int linha = removida;
+        int ultima = --tamanho;
+        if (linha != ultima) {
+            ids[linha] = ids[ultima];
+            centavos[linha] = centavos[ultima];
+            diaEpoch[linha] = diaEpoch[ultima];
+            status[linha] = status[ultima];
+            forma[linha] = forma[ultima];
+            chaveMatricula[linha] = chaveMatricula[ultima];
+            linhaPorId.put(ids[linha], linha);
+        }
+        ids[ultima] = null;
+    }
+
+    /**
+     * Retira vários pagamentos.
+     */
+    synchronized void removerTodos(Collection<Pagamento> pagamentos) {
+        for (Pagamento pagamento : pagamentos) {
+            remover(pagamento);
+        }
+    }
+
+    /**
+     * Copia o status atual do pagamento para o livro.
+     *
+     * @param pagamento Pagamento já com o novo status
+     */
+    synchronized void statusAlterado(Pagamento pagamento) {
+        Integer linha = linhaPorId.get(pagamento.getId());
+        if (linha != null) {
+            status[linha] = (byte) pagamento.getStatus().ordinal();
+        }
+    }
+
+    /**
+     * Esvazia o livro.
+     */
+    synchronized void limpar() {
+        Arrays.fill(ids, 0, tamanho, null);
+        tamanho = 0;
+        linhaPorId.clear();
+        tiposCartaoForaDoPadrao.clear();
+        idsMatricula.clear();
+        chavePorIdMatricula.clear();
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Retorna a quantidade de pagamentos no livro.
+     *
+     * @return Número de linhas
+     */
+    public synchronized int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Soma todos os pagamentos do livro por status, percorrendo só as
+     * colunas de status e de centavos.
+     *
+     * @return Totais por status, em centavos
+     */
+    public synchronized TotaisFinanceiros calcularTotais() {
+        int[] quantidades = new int[STATUS.length];
+        long[] somas = new long[STATUS.length];
+        for (int i = 0; i < tamanho; i++) {
+            int s = status[i];
+            quantidades[s]++;
+            somas[s] += centavos[i];
+        }
+
+        TotaisFinanceiros totais = new TotaisFinanceiros();
+        for (int s = 0; s < STATUS.length; s++) {
+            totais.adicionar(STATUS[s], quantidades[s], somas[s]);
+        }
+        return totais;
+    }
+
+    // ========== VISÕES ==========
+
+    /**
+     * Preenche um objeto Pagamento já existente com os dados de uma linha.
+     *
+     * Permite percorrer o livro reutilizando sempre o mesmo objeto. O
+     * objeto é apenas uma cópia: alterá-lo não altera o livro nem o
+     * pagamento da academia. A data vem à meia-noite do dia do pagamento.
+     *
+     * @param linha Linha do pagamento (0 até tamanho() - 1)
+     * @param reutilizado Objeto a ser preenchido
+     * @param matriculas Busca a matrícula pelo ID (ex.: academia::buscarMatricula)
+     * @return O próprio objeto reutilizado, preenchido
+     */
+    public synchronized Pagamento ver(int linha, Pagamento reutilizado, Function<String, Matricula> matriculas) {
+        if (linha < 0 || linha >= tamanho) {
+            throw new IndexOutOfBoundsException("Linha inválida no livro de pagamentos: " + linha);
+        }
+        reutilizado.setId(ids[linha]);
+        reutilizado.setMatricula(matriculas.apply(idsMatricula.get(chaveMatricula[linha])));
+        reutilizado.setFormaPagamento(FormaPagamento.decodificar(forma[linha],
+            tiposCartaoForaDoPadrao.get(ids[linha])));
+        reutilizado.setValor(Conversor.deCentavos(centavos[linha]));
+        reutilizado.setDataPagamento(Conversor.deDiaEpoch(diaEpoch[linha]));
+        reutilizado.setStatus(STATUS[status[linha]]);
+        return reutilizado;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Retorna a chave da matrícula no dicionário, cadastrando-a se for nova.
+     */
+    private int chaveDe(String idMatricula) {
+        Integer chave = chavePorIdMatricula.get(idMatricula);
+        if (chave == null) {
+            chave = idsMatricula.size();
+            idsMatricula.add(idMatricula);
+            chavePorIdMatricula.put(idMatricula, chave);
+        }
+        return chave;
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (minimo <= centavos.length) {
+            return;
+        }
+        int novaCapacidade = Math.max(minimo, centavos.length * 2);
+        ids = Arrays.copyOf(ids, novaCapacidade);
+        centavos = Arrays.copyOf(centavos, novaCapacidade);
+        diaEpoch = Arrays.copyOf(diaEpoch, novaCapacidade);
+        status = Arrays.copyOf(status, novaCapacidade);
+        forma = Arrays.copyOf(forma, novaCapacidade);
+        chaveMatricula = Arrays.copyOf(chaveMatricula, novaCapacidade);
+    }
+}
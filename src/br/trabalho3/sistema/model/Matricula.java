@@ -41,8 +41,9 @@ public class Matricula {
     /**
      * Status atual da matrícula.
      * Valores possíveis: ATIVA, SUSPENSA, CANCELADA, VENCIDA
+     * Volátil: leituras abertas consultam o status sem trava.
      */
-    private StatusMatricula status;
+    private volatile StatusMatricula status;
 
     /**
      * Valor mensal da matrícula.
@@ -50,6 +51,12 @@ public class Matricula {
      */
     private double valorMensal;
 
+    /**
+     * Versão do registro, usada no controle de concorrência otimista.
+     * Começa em 0 e é incrementada pela Academia a cada alteração aceita.
+     */
+    private long versao;
+
     /**
      * Formato de data usado para conversão string/Date.
      */
@@ -202,6 +209,14 @@ public class Matricula {
             valorMensal);
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     @Override
     public String toString() {
         return String.format("Matricula[id=%s, aluno=%s, plano=%s, dataInicio=%s, dataFim=%s, status=%s, valorMensal=R$ %.2f]",
@@ -0,0 +1,22 @@
+package br.trabalho3.sistema.model;
+
+import java.util.List;
+
+/**
+ * Ouvinte das alterações feitas na academia.
+ * *
+ * Recebe sempre uma lista de eventos: ouvintes síncronos recebem os eventos
+ * de uma operação (um evento, ou vários em operações em lote); ouvintes
+ * assíncronos recebem os eventos acumulados em um intervalo.
+ *
+ */
+@FunctionalInterface
+public interface OuvinteEventos {
+
+    /**
+     * Trata os eventos recebidos, na ordem da lista.
+     *
+     * @param eventos Eventos ocorridos
+     */
+    void aoAlterar(List<EventoAcademia> eventos);
+}
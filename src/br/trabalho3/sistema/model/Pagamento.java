@@ -45,8 +45,15 @@ public class Pagamento {
      * Status do pagamento.
      * USO DE ENUM
      * Valores possíveis: PENDENTE, CONFIRMADO, ESTORNADO
+     * Volátil: leituras abertas consultam o status sem trava.
      */
-    private StatusPagamento status;
+    private volatile StatusPagamento status;
+
+    /**
+     * Versão do registro, usada no controle de concorrência otimista.
+     * Começa em 0 e é incrementada pela Academia a cada alteração aceita.
+     */
+    private long versao;
 
     /**
      * Formato de data usado para conversão string/Date.
@@ -221,6 +228,14 @@ public class Pagamento {
         );
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     @Override
     public String toString() {
         return String.format("Pagamento[id=%s, matricula=%s, formaPagamento=%s, valor=R$ %.2f, data=%s, status=%s]",
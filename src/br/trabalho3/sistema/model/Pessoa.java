@@ -1,5 +1,7 @@
 package br.trabalho3.sistema.model;
 
+import br.trabalho3.sistema.utils.ValidadorCPF;
+
 /**
  * Classe abstrata que representa uma pessoa genérica no sistema.
  * Define os atributos e comportamentos comuns a todas as pessoas
@@ -8,11 +10,24 @@ package br.trabalho3.sistema.model;
 public abstract class Pessoa {
 
     /**
-     * CPF da pessoa (Cadastro de Pessoa Física).
-     * Formato: XXX.XXX.XXX-XX
+     * Valor usado nos campos compactos quando o dado não pôde ser
+     * convertido para número (ou ainda não foi informado).
+     */
+    private static final long SEM_VALOR = -1L;
+
+    /**
+     * CPF da pessoa (Cadastro de Pessoa Física) em forma compacta.
+     * Guarda apenas os 11 dígitos como número; o formato XXX.XXX.XXX-XX
+     * é montado sob demanda em getCpf().
      * Este é o identificador único da pessoa no sistema.
      */
-    private String cpf;
+    private long cpf = SEM_VALOR;
+
+    /**
+     * CPF em texto, usado apenas quando não está no formato padrão
+     * e por isso não pode ser guardado na forma compacta.
+     */
+    private String cpfTexto;
 
     /**
      * Nome completo da pessoa.
@@ -20,17 +35,30 @@ public abstract class Pessoa {
     private String nome;
 
     /**
-     * Telefone de contato da pessoa.
+     * Telefone de contato da pessoa em forma compacta (apenas dígitos).
      * Pode conter DDD e ser fixo ou celular.
      */
-    private String telefone;
+    private long telefone = SEM_VALOR;
+
+    /**
+     * Telefone em texto, usado apenas quando contém outros caracteres
+     * além de dígitos (ex: parênteses, traços) ou começa com zero.
+     */
+    private String telefoneTexto;
 
     /**
      * Endereço de e-mail da pessoa.
      * Usado para comunicação e identificação secundária.
+     * A string é internada para que e-mails repetidos compartilhem a mesma instância.
      */
     private String email;
 
+    /**
+     * Versão do registro, usada no controle de concorrência otimista.
+     * Começa em 0 e é incrementada pela Academia a cada alteração aceita.
+     */
+    private long versao;
+
     /**
      * Construtor padrão (vazio).
      * Necessário para algumas operações de persistência.
@@ -47,10 +75,10 @@ public abstract class Pessoa {
      * @param email Endereço de e-mail
      */
     public Pessoa(String cpf, String nome, String telefone, String email) {
-        this.cpf = cpf;
+        guardarCpf(cpf);
         this.nome = nome;
-        this.telefone = telefone;
-        this.email = email;
+        guardarTelefone(telefone);
+        this.email = internar(email);
     }
 
     /**
@@ -70,6 +98,16 @@ public abstract class Pessoa {
      * @return CPF da pessoa
      */
     public String getCpf() {
+        return cpf != SEM_VALOR ? ValidadorCPF.formatarCPF(cpf) : cpfTexto;
+    }
+
+    /**
+     * Obtém o CPF da pessoa em forma compacta.
+     * Usado como chave nos índices de busca por CPF.
+     *
+     * @return CPF compacto, ou -1 se o CPF não está no formato padrão
+     */
+    public long getCpfCompacto() {
         return cpf;
     }
 
@@ -79,7 +117,7 @@ public abstract class Pessoa {
      * @param cpf Novo CPF
      */
     public void setCpf(String cpf) {
-        this.cpf = cpf;
+        guardarCpf(cpf);
     }
 
     /**
@@ -106,7 +144,7 @@ public abstract class Pessoa {
      * @return Telefone de contato
      */
     public String getTelefone() {
-        return telefone;
+        return telefone != SEM_VALOR ? Long.toString(telefone) : telefoneTexto;
     }
 
     /**
@@ -115,7 +153,7 @@ public abstract class Pessoa {
      * @param telefone Novo telefone
      */
     public void setTelefone(String telefone) {
-        this.telefone = telefone;
+        guardarTelefone(telefone);
     }
 
     /**
@@ -133,7 +171,63 @@ public abstract class Pessoa {
      * @param email Novo e-mail
      */
     public void setEmail(String email) {
-        this.email = email;
+        this.email = internar(email);
+    }
+
+    // ========== FORMA COMPACTA ==========
+
+    /**
+     * Guarda o CPF na forma compacta quando possível.
+     * Caso contrário, guarda o texto original.
+     *
+     * @param cpf CPF informado
+     */
+    private void guardarCpf(String cpf) {
+        this.cpf = ValidadorCPF.compactarCPF(cpf);
+        this.cpfTexto = this.cpf == SEM_VALOR ? cpf : null;
+    }
+
+    /**
+     * Guarda o telefone na forma compacta quando possível.
+     * Só é compactado se tiver apenas dígitos e não começar com zero,
+     * para que getTelefone() devolva exatamente o texto informado.
+     *
+     * @param telefone Telefone informado
+     */
+    private void guardarTelefone(String telefone) {
+        long valor = SEM_VALOR;
+        if (telefone != null && !telefone.isEmpty() && telefone.length() <= 18
+                && telefone.charAt(0) != '0') {
+            valor = 0;
+            for (int i = 0; i < telefone.length(); i++) {
+                char c = telefone.charAt(i);
+                if (c < '0' || c > '9') {
+                    valor = SEM_VALOR;
+                    break;
+                }
+                valor = valor * 10 + (c - '0');
+            }
+        }
+        this.telefone = valor;
+        this.telefoneTexto = valor == SEM_VALOR ? telefone : null;
+    }
+
+    /**
+     * Interna o e-mail, compartilhando a mesma string entre pessoas.
+     *
+     * @param email E-mail informado
+     * @return E-mail internado ou null
+     */
+    private static String internar(String email) {
+        return email != null ? email.intern() : null;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(long versao) {
+        this.versao = versao;
     }
 
     /**
@@ -145,7 +239,7 @@ public abstract class Pessoa {
     @Override
     public String toString() {
         return String.format("Pessoa[tipo=%s, cpf=%s, nome=%s, telefone=%s, email=%s]",
-            getTipo(), cpf, nome, telefone, email);
+            getTipo(), getCpf(), nome, getTelefone(), email);
     }
 
     /**
@@ -164,7 +258,10 @@ public abstract class Pessoa {
             return false;
         }
         Pessoa outraPessoa = (Pessoa) obj;
-        return this.cpf != null && this.cpf.equals(outraPessoa.cpf);
+        if (this.cpf != SEM_VALOR || outraPessoa.cpf != SEM_VALOR) {
+            return this.cpf == outraPessoa.cpf;
+        }
+        return this.cpfTexto != null && this.cpfTexto.equals(outraPessoa.cpfTexto);
     }
 
     /**
@@ -175,6 +272,9 @@ public abstract class Pessoa {
      */
     @Override
     public int hashCode() {
-        return cpf != null ? cpf.hashCode() : 0;
+        if (cpf != SEM_VALOR) {
+            return Long.hashCode(cpf);
+        }
+        return cpfTexto != null ? cpfTexto.hashCode() : 0;
     }
 }
@@ -0,0 +1,580 @@
+package br.trabalho3.sistema.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Modo opcional de escrita com uma única thread escritora.
+ * *
+ * Em vez de várias threads disputarem as travas da Academia, as alterações
+ * (adicionarAluno, realizarMatricula, registrarPagamento, etc.) são enviadas
+ * como comandos para uma fila circular de tamanho limitado. Uma única thread
+ * retira os comandos em lotes, aplica-os na Academia e entrega o resultado
+ * de cada um por um CompletableFuture.
+ *
+ * Depois de cada lote, um SnapshotAcademia imutável é publicado. Leitores
+ * usam getSnapshot() sem nenhuma trava.
+ *
+ * Quando a fila está cheia, quem envia um comando espera até haver espaço,
+ * o que limita a memória usada em picos de carga.
+ *
+ * O modo é opcional: a aplicação continua chamando a Academia direto. Quem
+ * cria o pipeline deve enviar todas as alterações por ele (há um comando
+ * pronto para cada alteração da Academia); uma chamada direta não passa
+ * pela thread escritora e só aparece no snapshot do lote seguinte.
+ *
+ */
+public class PipelineEscrita implements AutoCloseable {
+
+    /**
+     * Um comando de escrita aplicado na Academia pela thread escritora.
+     *
+     * @param <T> Tipo do resultado do comando
+     */
+    @FunctionalInterface
+    public interface Comando<T> {
+        T executar(Academia academia) throws Exception;
+    }
+
+    /**
+     * Comando na fila junto com o futuro que receberá seu resultado.
+     */
+    private static class Pedido<T> {
+        private final Comando<T> comando;
+        private final CompletableFuture<T> futuro;
+
+        Pedido(Comando<T> comando) {
+            this.comando = comando;
+            this.futuro = new CompletableFuture<>();
+        }
+
+        void executar(Academia academia) {
+            try {
+                futuro.complete(comando.executar(academia));
+            } catch (Exception e) {
+                futuro.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Pedido especial usado para avisar a thread escritora que deve parar.
+     */
+    private static final Pedido<Void> PARAR = new Pedido<>(academia -> null);
+
+    /**
+     * Academia onde os comandos são aplicados.
+     */
+    private final Academia academia;
+
+    /**
+     * Fila circular de tamanho limitado com os comandos pendentes.
+     */
+    private final BlockingQueue<Pedido<?>> fila;
+
+    /**
+     * Quantidade máxima de comandos aplicados em cada lote.
+     */
+    private final int tamanhoLote;
+
+    /**
+     * Thread que aplica os comandos.
+     */
+    private final Thread escritor;
+
+    /**
+     * Indica se o pipeline ainda aceita comandos.
+     */
+    private volatile boolean ativo;
+
+    /**
+     * Último snapshot publicado.
+     */
+    private volatile SnapshotAcademia snapshot;
+
+    /**
+     * Cria o pipeline e inicia a thread escritora.
+     *
+     * @param academia Academia onde os comandos serão aplicados
+     * @param capacidade Tamanho máximo da fila de comandos
+     * @param tamanhoLote Quantidade máxima de comandos por lote
+     */
+    public PipelineEscrita(Academia academia, int capacidade, int tamanhoLote) {
+        if (capacidade <= 0 || tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Capacidade e tamanho do lote devem ser maiores que zero");
+        }
+        this.academia = academia;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.tamanhoLote = tamanhoLote;
+        this.snapshot = SnapshotAcademia.de(academia, 0);
+        this.ativo = true;
+
+        this.escritor = new Thread(this::executarLaco, "academia-escritor");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Envia um comando para a thread escritora.
+     * Se a fila estiver cheia, espera até haver espaço.
+     *
+     * @param comando Comando a ser aplicado
+     * @return Futuro com o resultado (ou a exceção) do comando
+     */
+    public <T> CompletableFuture<T> enviar(Comando<T> comando) {
+        if (!ativo) {
+            throw new IllegalStateException("Pipeline de escrita encerrado");
+        }
+        Pedido<T> pedido = new Pedido<>(comando);
+        try {
+            fila.put(pedido);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pedido.futuro.completeExceptionally(e);
+            return pedido.futuro;
+        }
+        // close() pode ter terminado entre a verificação acima e o put(): aí
+        // ninguém mais retira o pedido da fila. Quem tirar o pedido da fila
+        // (esta thread, a escritora ou recusarPendentes()) o completa.
+        if (!ativo && fila.remove(pedido)) {
+            pedido.futuro.completeExceptionally(new IllegalStateException("Pipeline de escrita encerrado"));
+        }
+        return pedido.futuro;
+    }
+
+    /**
+     * Retorna o último snapshot publicado pela thread escritora.
+     *
+     * @return Snapshot imutável dos dados
+     */
+    public SnapshotAcademia getSnapshot() {
+        return snapshot;
+    }
+
+    // ========== COMANDOS PRONTOS ==========
+    //
+    // Um comando para cada alteração da Academia, com o mesmo resultado e as
+    // mesmas exceções (entregues pelo futuro). Ficam de fora, de propósito,
+    // as operações de manutenção que já travam tudo ou só preparam a
+    // Academia: limparTodosDados(), configurarArquivoPagamentos(),
+    // arquivarPagamentosAntigos(), configurarGeradorIds(), setContadores()
+    // e avancarContadores(). Para elas, ou qualquer outra, use enviar().
+
+    /**
+     * Adiciona um aluno.
+     *
+     * @param aluno Aluno a adicionar
+     * @return Futuro concluído quando o aluno for adicionado
+     */
+    public CompletableFuture<Void> adicionarAluno(Aluno aluno) {
+        return enviar(a -> {
+            a.adicionarAluno(aluno);
+            return null;
+        });
+    }
+
+    /**
+     * Adiciona vários alunos de uma vez (tudo ou nada).
+     *
+     * @param alunos Alunos a adicionar
+     * @return Futuro concluído quando os alunos forem adicionados
+     */
+    public CompletableFuture<Void> adicionarAlunos(List<Aluno> alunos) {
+        return enviar(a -> {
+            a.adicionarAlunos(alunos);
+            return null;
+        });
+    }
+
+    /**
+     * Atualiza um aluno, conferindo a versão lida.
+     *
+     * @param aluno Aluno com os dados atualizados
+     * @return Futuro concluído quando o aluno for atualizado
+     */
+    public CompletableFuture<Void> atualizarAluno(Aluno aluno) {
+        return enviar(a -> {
+            a.atualizarAluno(aluno);
+            return null;
+        });
+    }
+
+    /**
+     * Remove um aluno.
+     *
+     * @param cpf CPF do aluno
+     * @return Futuro com true se removeu, false se não encontrou
+     */
+    public CompletableFuture<Boolean> removerAluno(String cpf) {
+        return enviar(a -> a.removerAluno(cpf));
+    }
+
+    /**
+     * Adiciona um instrutor.
+     *
+     * @param instrutor Instrutor a adicionar
+     * @return Futuro concluído quando o instrutor for adicionado
+     */
+    public CompletableFuture<Void> adicionarInstrutor(Instrutor instrutor) {
+        return enviar(a -> {
+            a.adicionarInstrutor(instrutor);
+            return null;
+        });
+    }
+
+    /**
+     * Adiciona vários instrutores de uma vez (tudo ou nada).
+     *
+     * @param instrutores Instrutores a adicionar
+     * @return Futuro concluído quando os instrutores forem adicionados
+     */
+    public CompletableFuture<Void> adicionarInstrutores(List<Instrutor> instrutores) {
+        return enviar(a -> {
+            a.adicionarInstrutores(instrutores);
+            return null;
+        });
+    }
+
+    /**
+     * Atualiza um instrutor, conferindo a versão lida.
+     *
+     * @param instrutor Instrutor com os dados atualizados
+     * @return Futuro concluído quando o instrutor for atualizado
+     */
+    public CompletableFuture<Void> atualizarInstrutor(Instrutor instrutor) {
+        return enviar(a -> {
+            a.atualizarInstrutor(instrutor);
+            return null;
+        });
+    }
+
+    /**
+     * Remove um instrutor.
+     *
+     * @param cpf CPF do instrutor
+     * @return Futuro com true se removeu, false se não encontrou
+     */
+    public CompletableFuture<Boolean> removerInstrutor(String cpf) {
+        return enviar(a -> a.removerInstrutor(cpf));
+    }
+
+    /**
+     * Adiciona um plano.
+     *
+     * @param plano Plano a adicionar
+     * @return Futuro concluído quando o plano for adicionado
+     */
+    public CompletableFuture<Void> adicionarPlano(Plano plano) {
+        return enviar(a -> {
+            a.adicionarPlano(plano);
+            return null;
+        });
+    }
+
+    /**
+     * Adiciona vários planos de uma vez (tudo ou nada).
+     *
+     * @param planos Planos a adicionar
+     * @return Futuro concluído quando os planos forem adicionados
+     */
+    public CompletableFuture<Void> adicionarPlanos(List<Plano> planos) {
+        return enviar(a -> {
+            a.adicionarPlanos(planos);
+            return null;
+        });
+    }
+
+    /**
+     * Atualiza um plano, conferindo a versão lida.
+     *
+     * @param plano Plano com os dados atualizados
+     * @return Futuro concluído quando o plano for atualizado
+     */
+    public CompletableFuture<Void> atualizarPlano(Plano plano) {
+        return enviar(a -> {
+            a.atualizarPlano(plano);
+            return null;
+        });
+    }
+
+    /**
+     * Remove um plano.
+     *
+     * @param id ID do plano
+     * @return Futuro com true se removeu, false se não encontrou
+     */
+    public CompletableFuture<Boolean> removerPlano(String id) {
+        return enviar(a -> a.removerPlano(id));
+    }
+
+    /**
+     * Realiza uma matrícula.
+     *
+     * @param aluno Aluno
+     * @param plano Plano
+     * @param dataInicio Data de início
+     * @param dataFim Data de término
+     * @return Futuro com a matrícula criada
+     */
+    public CompletableFuture<Matricula> realizarMatricula(Aluno aluno, Plano plano, Date dataInicio, Date dataFim) {
+        return enviar(a -> a.realizarMatricula(aluno, plano, dataInicio, dataFim));
+    }
+
+    /**
+     * Realiza várias matrículas de uma vez (tudo ou nada).
+     *
+     * @param solicitacoes Dados de cada matrícula
+     * @return Futuro com as matrículas criadas, na ordem das solicitações
+     */
+    public CompletableFuture<List<Matricula>> realizarMatriculas(List<SolicitacaoMatricula> solicitacoes) {
+        return enviar(a -> a.realizarMatriculas(solicitacoes));
+    }
+
+    /**
+     * Importa matrículas já existentes (com ID), como ao ler os arquivos.
+     *
+     * @param matriculas Matrículas a importar
+     * @return Futuro concluído quando as matrículas forem importadas
+     */
+    public CompletableFuture<Void> importarMatriculas(List<Matricula> matriculas) {
+        return enviar(a -> {
+            a.importarMatriculas(matriculas);
+            return null;
+        });
+    }
+
+    /**
+     * Remove uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @return Futuro com true se removeu, false se não encontrou
+     */
+    public CompletableFuture<Boolean> removerMatricula(String id) {
+        return enviar(a -> a.removerMatricula(id));
+    }
+
+    /**
+     * Define o status de uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @param status Novo status
+     * @return Futuro concluído quando o status for definido
+     */
+    public CompletableFuture<Void> definirStatusMatricula(String id, StatusMatricula status) {
+        return enviar(a -> {
+            a.definirStatusMatricula(id, status);
+            return null;
+        });
+    }
+
+    /**
+     * Define o status de uma matrícula, se ela ainda estiver na versão informada.
+     *
+     * @param id ID da matrícula
+     * @param status Novo status
+     * @param versaoEsperada Versão da matrícula quando foi lida
+     * @return Futuro concluído quando o status for definido
+     */
+    public CompletableFuture<Void> definirStatusMatricula(String id, StatusMatricula status, long versaoEsperada) {
+        return enviar(a -> {
+            a.definirStatusMatricula(id, status, versaoEsperada);
+            return null;
+        });
+    }
+
+    /**
+     * Suspende uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @return Futuro concluído quando a matrícula for suspensa
+     */
+    public CompletableFuture<Void> suspenderMatricula(String id) {
+        return enviar(a -> {
+            a.suspenderMatricula(id);
+            return null;
+        });
+    }
+
+    /**
+     * Cancela uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @return Futuro concluído quando a matrícula for cancelada
+     */
+    public CompletableFuture<Void> cancelarMatricula(String id) {
+        return enviar(a -> {
+            a.cancelarMatricula(id);
+            return null;
+        });
+    }
+
+    /**
+     * Reativa uma matrícula.
+     *
+     * @param id ID da matrícula
+     * @return Futuro concluído quando a matrícula for reativada
+     */
+    public CompletableFuture<Void> reativarMatricula(String id) {
+        return enviar(a -> {
+            a.reativarMatricula(id);
+            return null;
+        });
+    }
+
+    /**
+     * Registra um pagamento.
+     *
+     * @param matricula Matrícula paga
+     * @param formaPagamento Forma de pagamento
+     * @param valor Valor pago
+     * @param dataPagamento Data do pagamento
+     * @return Futuro com o pagamento registrado
+     */
+    public CompletableFuture<Pagamento> registrarPagamento(Matricula matricula, FormaPagamento formaPagamento,
+                                                         double valor, Date dataPagamento) {
+        return enviar(a -> a.registrarPagamento(matricula, formaPagamento, valor, dataPagamento));
+    }
+
+    /**
+     * Registra vários pagamentos de uma vez (tudo ou nada).
+     *
+     * @param solicitacoes Dados de cada pagamento
+     * @return Futuro com os pagamentos registrados, na ordem das solicitações
+     */
+    public CompletableFuture<List<Pagamento>> registrarPagamentos(List<SolicitacaoPagamento> solicitacoes) {
+        return enviar(a -> a.registrarPagamentos(solicitacoes));
+    }
+
+    /**
+     * Importa pagamentos já existentes (com ID), como ao ler os arquivos.
+     *
+     * @param pagamentos Pagamentos a importar
+     * @return Futuro concluído quando os pagamentos forem importados
+     */
+    public CompletableFuture<Void> importarPagamentos(List<Pagamento> pagamentos) {
+        return enviar(a -> {
+            a.importarPagamentos(pagamentos);
+            return null;
+        });
+    }
+
+    /**
+     * Remove um pagamento (apenas os que estão no heap).
+     *
+     * @param id ID do pagamento
+     * @return Futuro com true se removeu, false se não encontrou
+     */
+    public CompletableFuture<Boolean> removerPagamento(String id) {
+        return enviar(a -> a.removerPagamento(id));
+    }
+
+    /**
+     * Define o status de um pagamento.
+     *
+     * @param id ID do pagamento
+     * @param status Novo status
+     * @return Futuro com true se o status mudou
+     */
+    public CompletableFuture<Boolean> definirStatusPagamento(String id, StatusPagamento status) {
+        return enviar(a -> a.definirStatusPagamento(id, status));
+    }
+
+    /**
+     * Define o status de um pagamento, se ele ainda estiver na versão informada.
+     *
+     * @param id ID do pagamento
+     * @param status Novo status
+     * @param versaoEsperada Versão do pagamento quando foi lido
+     * @return Futuro com true se o status mudou
+     */
+    public CompletableFuture<Boolean> definirStatusPagamento(String id, StatusPagamento status, long versaoEsperada) {
+        return enviar(a -> a.definirStatusPagamento(id, status, versaoEsperada));
+    }
+
+    /**
+     * Confirma um pagamento pendente.
+     *
+     * @param id ID do pagamento
+     * @return Futuro com true se foi confirmado, false se não estava pendente
+     */
+    public CompletableFuture<Boolean> confirmarPagamento(String id) {
+        return enviar(a -> a.confirmarPagamento(id));
+    }
+
+    /**
+     * Estorna um pagamento confirmado.
+     *
+     * @param id ID do pagamento
+     * @return Futuro com true se foi estornado, false se não estava confirmado
+     */
+    public CompletableFuture<Boolean> estornarPagamento(String id) {
+        return enviar(a -> a.estornarPagamento(id));
+    }
+
+    // ========== THREAD ESCRITORA ==========
+
+    /**
+     * Laço da thread escritora: espera um comando, junta os que estiverem
+     * na fila até o tamanho do lote, aplica todos e publica um novo snapshot.
+     */
+    private void executarLaco() {
+        List<Pedido<?>> lote = new ArrayList<>(tamanhoLote);
+        long versao = 0;
+        boolean parar = false;
+
+        while (!parar) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            fila.drainTo(lote, tamanhoLote - 1);
+
+            for (Pedido<?> pedido : lote) {
+                if (pedido == PARAR) {
+                    parar = true;
+                } else {
+                    pedido.executar(academia);
+                }
+            }
+            lote.clear();
+
+            snapshot = SnapshotAcademia.de(academia, ++versao);
+        }
+
+        recusarPendentes();
+    }
+
+    /**
+     * Recusa os comandos que ainda estiverem na fila após o pedido de parada.
+     */
+    private void recusarPendentes() {
+        Pedido<?> restante;
+        while ((restante = fila.poll()) != null) {
+            restante.futuro.completeExceptionally(new IllegalStateException("Pipeline de escrita encerrado"));
+        }
+    }
+
+    /**
+     * Encerra o pipeline: os comandos já enviados são aplicados e a
+     * thread escritora termina.
+     */
+    @Override
+    public void close() {
+        if (!ativo) {
+            return;
+        }
+        ativo = false;
+        try {
+            fila.put(PARAR);
+            escritor.join();
+            recusarPendentes(); // Comandos que entraram enquanto a thread terminava
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -33,6 +33,12 @@ public abstract class Plano {
      */
     private int duracao;
 
+    /**
+     * Versão do registro, usada no controle de concorrência otimista.
+     * Começa em 0 e é incrementada pela Academia a cada alteração aceita.
+     */
+    private long versao;
+
     /**
      * Construtor padrão (vazio).
      * Necessário para operações de persistência.
@@ -154,6 +160,14 @@ public abstract class Plano {
         this.duracao = duracao;
     }
 
+    public long getVersao() {
+        return versao;
+    }
+
+    public void setVersao(long versao) {
+        this.versao = versao;
+    }
+
     /**
      * Retorna uma representação em string do plano.
      * Útil para debug e exibição em logs.
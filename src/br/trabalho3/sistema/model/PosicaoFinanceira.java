@@ -0,0 +1,406 @@
+package br.trabalho3.sistema.model;
+
+import br.trabalho3.sistema.utils.Conversor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Posição financeira da academia, mantida de forma incremental.
+ * *
+ * Para cada matrícula guarda o valor mensal esperado e o total pago
+ * (pagamentos confirmados). Para a academia inteira guarda:
+ * - a receita recorrente mensal (MRR): soma do valor mensal das
+ *   matrículas ativas;
+ * - o total a receber: soma, sobre as matrículas não canceladas, do que
+ *   falta pagar do valor mensal (esperado menos pago, nunca negativo).
+ *
+ * A Academia atualiza a posição dentro das suas travas, junto com a própria
+ * alteração: matrículas realizadas, importadas, removidas ou com status
+ * alterado e pagamentos registrados, importados, removidos ou com status
+ * alterado. As consultas de totais custam O(1).
+ *
+ * Valores em centavos, para que somas e subtrações sejam exatas.
+ *
+ * As matrículas que devem alguma coisa (não canceladas, com valor a
+ * receber) também ficam em dois índices ordenados, atualizados a cada
+ * alteração em O(log n): por valor devido e por data de início (a mais
+ * antiga é a que está há mais dias em atraso). Assim, os N maiores
+ * devedores ou os N mais atrasados saem em O(N + log n), sem ordenar
+ * todas as matrículas.
+ *
+ */
+public class PosicaoFinanceira {
+
+    /**
+     * Posição de uma matrícula.
+     */
+    private static class Saldo {
+        private final String idMatricula;
+        private long esperado;
+        private long pago;
+
+        /**
+         * Dia epoch do início da matrícula (Integer.MAX_VALUE se não informado).
+         */
+        private int diaInicio = Integer.MAX_VALUE;
+
+        /**
+         * Status da matrícula, ou null se ela não existe (ainda ou mais),
+         * mas há pagamentos para ela.
+         */
+        private StatusMatricula status;
+
+        Saldo(String idMatricula) {
+            this.idMatricula = idMatricula;
+        }
+
+        long mrr() {
+            return status == StatusMatricula.ATIVA ? esperado : 0;
+        }
+
+        long aReceber() {
+            return status != null && status != StatusMatricula.CANCELADA ? Math.max(0, esperado - pago) : 0;
+        }
+    }
+
+    /**
+     * Matrícula com valor a receber, como retornada pelas consultas de devedores.
+     */
+    public static final class Devedor {
+        private final String idMatricula;
+        private final long aReceberCentavos;
+        private final int diasEmAtraso;
+
+        Devedor(String idMatricula, long aReceberCentavos, int diasEmAtraso) {
+            this.idMatricula = idMatricula;
+            this.aReceberCentavos = aReceberCentavos;
+            this.diasEmAtraso = diasEmAtraso;
+        }
+
+        public String getIdMatricula() {
+            return idMatricula;
+        }
+
+        public long getAReceberCentavos() {
+            return aReceberCentavos;
+        }
+
+        public double getAReceber() {
+            return Conversor.deCentavos(aReceberCentavos);
+        }
+
+        /**
+         * Dias desde o início da matrícula, que é quando o valor mensal vence.
+         */
+        public int getDiasEmAtraso() {
+            return diasEmAtraso;
+        }
+
+        @Override
+        public String toString() {
+            return idMatricula + " (R$ " + String.format("%.2f", getAReceber()) + ", " + diasEmAtraso + " dias)";
+        }
+    }
+
+    private final Map<String, Saldo> saldos = new HashMap<>();
+
+    /**
+     * Devedores do maior valor a receber para o menor (empate: pelo ID).
+     */
+    private final TreeSet<Saldo> porValor = new TreeSet<>(
+        Comparator.comparingLong(Saldo::aReceber).reversed()
+            .thenComparing(saldo -> saldo.idMatricula));
+
+    /**
+     * Devedores da matrícula mais antiga para a mais nova (empate: pelo ID).
+     */
+    private final TreeSet<Saldo> porAntiguidade = new TreeSet<>(
+        Comparator.comparingInt((Saldo saldo) -> saldo.diaInicio)
+            .thenComparing(saldo -> saldo.idMatricula));
+
+    private long mrrCentavos;
+    private long aReceberCentavos;
+
+    /**
+     * Cria a posição vazia.
+     */
+    PosicaoFinanceira() {
+    }
+
+    // ========== MATRÍCULAS (usado pela Academia) ==========
+
+    synchronized void adicionarMatricula(Matricula matricula) {
+        Saldo saldo = retirar(matricula.getId());
+        saldo.esperado = Conversor.paraCentavos(matricula.getValorMensal());
+        saldo.status = matricula.getStatus();
+        saldo.diaInicio = matricula.getDataInicio() != null
+            ? Conversor.paraDiaEpoch(matricula.getDataInicio()) : Integer.MAX_VALUE;
+        devolver(matricula.getId(), saldo);
+    }
+
+    synchronized void adicionarMatriculas(Collection<Matricula> matriculas) {
+        for (Matricula matricula : matriculas) {
+            adicionarMatricula(matricula);
+        }
+    }
+
+    synchronized void removerMatricula(Matricula matricula) {
+        Saldo saldo = retirar(matricula.getId());
+        saldo.esperado = 0;
+        saldo.status = null;
+        devolver(matricula.getId(), saldo);
+    }
+
+    synchronized void statusMatriculaAlterado(Matricula matricula) {
+        Saldo saldo = retirar(matricula.getId());
+        saldo.status = matricula.getStatus();
+        devolver(matricula.getId(), saldo);
+    }
+
+    // ========== PAGAMENTOS (usado pela Academia) ==========
+
+    /**
+     * Conta um pagamento, se estiver confirmado.
+     */
+    synchronized void adicionarPagamento(Pagamento pagamento) {
+        if (pagamento.getStatus() == StatusPagamento.CONFIRMADO) {
+            somarPago(pagamento, Conversor.paraCentavos(pagamento.getValor()));
+        }
+    }
+
+    synchronized void adicionarPagamentos(Collection<Pagamento> pagamentos) {
+        for (Pagamento pagamento : pagamentos) {
+            adicionarPagamento(pagamento);
+        }
+    }
+
+    /**
+     * Descarta um pagamento, se estava confirmado.
+     */
+    synchronized void removerPagamento(Pagamento pagamento) {
+        if (pagamento.getStatus() == StatusPagamento.CONFIRMADO) {
+            somarPago(pagamento, -Conversor.paraCentavos(pagamento.getValor()));
+        }
+    }
+
+    synchronized void removerPagamentos(Collection<Pagamento> pagamentos) {
+        for (Pagamento pagamento : pagamentos) {
+            removerPagamento(pagamento);
+        }
+    }
+
+    /**
+     * Ajusta o total pago depois de uma mudança de status do pagamento.
+     *
+     * @param pagamento Pagamento já com o novo status
+     * @param anterior Status antes da mudança
+     */
+    synchronized void statusPagamentoAlterado(Pagamento pagamento, StatusPagamento anterior) {
+        boolean contava = anterior == StatusPagamento.CONFIRMADO;
+        boolean conta = pagamento.getStatus() == StatusPagamento.CONFIRMADO;
+        if (contava != conta) {
+            long centavos = Conversor.paraCentavos(pagamento.getValor());
+            somarPago(pagamento, conta ? centavos : -centavos);
+        }
+    }
+
+    synchronized void limpar() {
+        saldos.clear();
+        porValor.clear();
+        porAntiguidade.clear();
+        mrrCentavos = 0;
+        aReceberCentavos = 0;
+    }
+
+    private void somarPago(Pagamento pagamento, long centavos) {
+        if (pagamento.getMatricula() == null) {
+            return;
+        }
+        String id = pagamento.getMatricula().getId();
+        Saldo saldo = retirar(id);
+        saldo.pago += centavos;
+        devolver(id, saldo);
+    }
+
+    /**
+     * Tira a contribuição do saldo dos totais e dos índices antes de alterá-lo.
+     */
+    private Saldo retirar(String idMatricula) {
+        Saldo saldo = saldos.get(idMatricula);
+        if (saldo == null) {
+            return new Saldo(idMatricula);
+        }
+        mrrCentavos -= saldo.mrr();
+        aReceberCentavos -= saldo.aReceber();
+        if (saldo.aReceber() > 0) {
+            porValor.remove(saldo);
+            porAntiguidade.remove(saldo);
+        }
+        return saldo;
+    }
+
+    /**
+     * Soma a contribuição do saldo alterado de volta aos totais.
+     */
+    private void devolver(String idMatricula, Saldo saldo) {
+        if (saldo.status == null && saldo.pago == 0) {
+            saldos.remove(idMatricula);
+            return;
+        }
+        saldos.put(idMatricula, saldo);
+        mrrCentavos += saldo.mrr();
+        aReceberCentavos += saldo.aReceber();
+        if (saldo.aReceber() > 0) {
+            porValor.add(saldo);
+            porAntiguidade.add(saldo);
+        }
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Receita recorrente mensal, em centavos.
+     */
+    public synchronized long getMrrCentavos() {
+        return mrrCentavos;
+    }
+
+    /**
+     * Receita recorrente mensal: soma do valor mensal das matrículas ativas.
+     *
+     * @return MRR em reais
+     */
+    public double getMrr() {
+        return Conversor.deCentavos(getMrrCentavos());
+    }
+
+    /**
+     * Total a receber das matrículas não canceladas, em centavos.
+     */
+    public synchronized long getAReceberCentavos() {
+        return aReceberCentavos;
+    }
+
+    /**
+     * Total a receber: o que falta pagar do valor mensal, somado sobre as
+     * matrículas não canceladas.
+     *
+     * @return Total a receber em reais
+     */
+    public double getAReceber() {
+        return Conversor.deCentavos(getAReceberCentavos());
+    }
+
+    /**
+     * Total pago (pagamentos confirmados) de uma matrícula, em centavos.
+     *
+     * @param idMatricula ID da matrícula
+     * @return Total pago em centavos
+     */
+    public synchronized long getPagoCentavos(String idMatricula) {
+        Saldo saldo = saldos.get(idMatricula);
+        return saldo != null ? saldo.pago : 0;
+    }
+
+    /**
+     * Total pago (pagamentos confirmados) de uma matrícula.
+     *
+     * @param idMatricula ID da matrícula
+     * @return Total pago em reais
+     */
+    public double getPago(String idMatricula) {
+        return Conversor.deCentavos(getPagoCentavos(idMatricula));
+    }
+
+    /**
+     * Quanto falta pagar do valor mensal de uma matrícula (nunca negativo),
+     * qualquer que seja o status dela.
+     *
+     * @param idMatricula ID da matrícula
+     * @return Valor restante em centavos
+     */
+    public synchronized long getAReceberCentavos(String idMatricula) {
+        Saldo saldo = saldos.get(idMatricula);
+        return saldo != null ? Math.max(0, saldo.esperado - saldo.pago) : 0;
+    }
+
+    /**
+     * Quanto falta pagar do valor mensal de uma matrícula (nunca negativo).
+     *
+     * @param idMatricula ID da matrícula
+     * @return Valor restante em reais
+     */
+    public double getAReceber(String idMatricula) {
+        return Conversor.deCentavos(getAReceberCentavos(idMatricula));
+    }
+
+    // ========== DEVEDORES ==========
+
+    /**
+     * Retorna a quantidade de matrículas não canceladas com valor a receber.
+     *
+     * @return Quantidade de devedores
+     */
+    public synchronized int quantidadeDevedores() {
+        return porValor.size();
+    }
+
+    /**
+     * Retorna as matrículas com maior valor a receber.
+     *
+     * @param quantidade Quantidade máxima de devedores (N)
+     * @return Até N devedores, do maior valor para o menor
+     * @throws IllegalArgumentException Se a quantidade for negativa
+     */
+    public synchronized List<Devedor> maioresDevedores(int quantidade) {
+        validarQuantidade(quantidade);
+        int hoje = Conversor.paraDiaEpoch(new Date());
+        List<Devedor> resultado = new ArrayList<>(Math.min(quantidade, porValor.size()));
+        for (Saldo saldo : porValor) {
+            if (resultado.size() >= quantidade) {
+                break;
+            }
+            resultado.add(devedor(saldo, hoje));
+        }
+        return resultado;
+    }
+
+    /**
+     * Retorna as matrículas há mais dias em atraso: as que devem alguma
+     * coisa e começaram há mais tempo. Matrículas que começam hoje ou
+     * depois ainda não estão atrasadas e não aparecem.
+     *
+     * @param quantidade Quantidade máxima de devedores (N)
+     * @return Até N devedores, do mais atrasado para o menos atrasado
+     * @throws IllegalArgumentException Se a quantidade for negativa
+     */
+    public synchronized List<Devedor> maisAtrasados(int quantidade) {
+        validarQuantidade(quantidade);
+        int hoje = Conversor.paraDiaEpoch(new Date());
+        List<Devedor> resultado = new ArrayList<>(Math.min(quantidade, porAntiguidade.size()));
+        for (Saldo saldo : porAntiguidade) {
+            if (resultado.size() >= quantidade || saldo.diaInicio >= hoje) {
+                break;
+            }
+            resultado.add(devedor(saldo, hoje));
+        }
+        return resultado;
+    }
+
+    private static void validarQuantidade(int quantidade) {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("Quantidade de devedores não pode ser negativa: " + quantidade);
+        }
+    }
+
+    private static Devedor devedor(Saldo saldo, int hoje) {
+        int dias = saldo.diaInicio != Integer.MAX_VALUE ? Math.max(0, hoje - saldo.diaInicio) : 0;
+        return new Devedor(saldo.idMatricula, saldo.aReceber(), dias);
+    }
+}
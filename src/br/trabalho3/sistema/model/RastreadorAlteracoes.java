@@ -0,0 +1,136 @@
+package br.trabalho3.sistema.model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Guarda quais entidades foram alteradas desde o último salvamento.
+ * *
+ * Ouve os eventos da academia e mantém, para cada tipo de entidade, a
+ * última alteração de cada item (combinando as alterações repetidas, como
+ * o barramento faz). Assim, quem salva os dados escreve apenas os
+ * arquivos e os registros que mudaram, em vez de regravar tudo.
+ *
+ */
+public class RastreadorAlteracoes implements OuvinteEventos {
+
+    /**
+     * Alterações pendentes: tipo de entidade -> (chave -> evento combinado).
+     */
+    private final Map<EventoAcademia.Entidade, Map<String, EventoAcademia>> pendentes;
+
+    public RastreadorAlteracoes() {
+        this.pendentes = new EnumMap<>(EventoAcademia.Entidade.class);
+        for (EventoAcademia.Entidade entidade : EventoAcademia.Entidade.values()) {
+            pendentes.put(entidade, new LinkedHashMap<>());
+        }
+    }
+
+    @Override
+    public synchronized void aoAlterar(List<EventoAcademia> eventos) {
+        for (EventoAcademia evento : eventos) {
+            registrar(evento, false);
+        }
+    }
+
+    /**
+     * Verifica se há alguma alteração pendente.
+     *
+     * @return true se algo mudou desde o último salvamento
+     */
+    public synchronized boolean temAlteracoes() {
+        return quantidade() > 0;
+    }
+
+    /**
+     * Verifica se há alteração pendente em um tipo de entidade.
+     *
+     * @param entidade Tipo de entidade
+     * @return true se algum item desse tipo mudou
+     */
+    public synchronized boolean temAlteracoes(EventoAcademia.Entidade entidade) {
+        return !pendentes.get(entidade).isEmpty();
+    }
+
+    /**
+     * Retorna quantos itens estão com alteração pendente.
+     *
+     * @return Quantidade de itens alterados
+     */
+    public synchronized int quantidade() {
+        int total = 0;
+        for (Map<String, EventoAcademia> porChave : pendentes.values()) {
+            total += porChave.size();
+        }
+        return total;
+    }
+
+    /**
+     * Retira as alterações pendentes, deixando o rastreador limpo.
+     * Se o salvamento falhar, as alterações devem ser devolvidas com devolver().
+     *
+     * @return Alterações de cada tipo de entidade (só os tipos que mudaram)
+     */
+    public synchronized Map<EventoAcademia.Entidade, List<EventoAcademia>> retirar() {
+        Map<EventoAcademia.Entidade, List<EventoAcademia>> retiradas = new EnumMap<>(EventoAcademia.Entidade.class);
+        for (Map.Entry<EventoAcademia.Entidade, Map<String, EventoAcademia>> entrada : pendentes.entrySet()) {
+            if (!entrada.getValue().isEmpty()) {
+                retiradas.put(entrada.getKey(), new ArrayList<>(entrada.getValue().values()));
+                entrada.getValue().clear();
+            }
+        }
+        return retiradas;
+    }
+
+    /**
+     * Devolve alterações que não puderam ser salvas.
+     * Elas são combinadas com as que chegaram depois, que continuam valendo.
+     *
+     * @param alteracoes Alterações retiradas antes
+     */
+    public synchronized void devolver(List<EventoAcademia> alteracoes) {
+        for (EventoAcademia evento : alteracoes) {
+            registrar(evento, true);
+        }
+    }
+
+    /**
+     * Descarta todas as alterações pendentes.
+     * Usado depois de carregar os dados dos arquivos, que já estão salvos.
+     */
+    public synchronized void limpar() {
+        for (Map<String, EventoAcademia> porChave : pendentes.values()) {
+            porChave.clear();
+        }
+    }
+
+    /**
+     * Combina um evento com a alteração pendente do mesmo item.
+     *
+     * @param evento Evento a registrar
+     * @param maisAntigo true se o evento aconteceu antes do pendente (devolução)
+     */
+    private void registrar(EventoAcademia evento, boolean maisAntigo) {
+        Map<String, EventoAcademia> porChave = pendentes.get(evento.getEntidade());
+        EventoAcademia atual = porChave.remove(evento.getChave());
+
+        EventoAcademia combinado;
+        if (atual == null) {
+            combinado = evento;
+        } else if (maisAntigo) {
+            combinado = BarramentoEventos.combinar(evento, atual);
+        } else {
+            combinado = BarramentoEventos.combinar(atual, evento);
+        }
+
+        if (combinado == null) {
+            // Adicionado e removido: o registro pode já ter sido gravado por
+            // outro caminho, então a remoção continua pendente
+            combinado = maisAntigo ? atual : evento;
+        }
+        porChave.put(evento.getChave(), combinado);
+    }
+}
@@ -0,0 +1,216 @@
+package br.trabalho3.sistema.model;
+
+import br.trabalho3.sistema.utils.Conversor;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Receita confirmada por dia, mantida de forma incremental.
+ * *
+ * Guarda, para cada dia epoch, a soma em centavos dos pagamentos confirmados
+ * daquele dia, numa árvore de Fenwick (árvore de índices binários). Assim a
+ * receita de qualquer período é obtida em O(log dias), sem percorrer os
+ * pagamentos, e cada inclusão ou mudança de status custa também O(log dias).
+ *
+ * A Academia atualiza a receita dentro da trava de pagamentos, junto com a
+ * própria alteração: ao registrar, importar ou remover um pagamento e quando
+ * o status muda de ou para CONFIRMADO. Pagamentos movidos para o arquivo
+ * morto continuam contando, como em listarPagamentos().
+ *
+ * O intervalo de dias coberto começa pequeno e cresce (dobrando) conforme
+ * aparecem pagamentos fora dele.
+ *
+ */
+public class ReceitaDiaria {
+
+    /**
+     * Quantidade de dias coberta quando o primeiro valor é incluído.
+     */
+    private static final int DIAS_INICIAIS = 1024;
+
+    /**
+     * Dia epoch da primeira posição.
+     */
+    private int diaBase;
+
+    /**
+     * Valor em centavos de cada dia (posição 0 = diaBase).
+     * Usado para reconstruir a árvore quando o intervalo cresce.
+     */
+    private long[] valores;
+
+    /**
+     * Árvore de Fenwick sobre os valores (índices a partir de 1).
+     */
+    private long[] arvore;
+
+    /**
+     * Cria a receita vazia.
+     */
+    ReceitaDiaria() {
+    }
+
+    // ========== ATUALIZAÇÃO (usada pela Academia) ==========
+
+    /**
+     * Inclui um pagamento, se estiver confirmado.
+     */
+    synchronized void adicionar(Pagamento pagamento) {
+        if (pagamento.getStatus() == StatusPagamento.CONFIRMADO) {
+            somar(pagamento, Conversor.paraCentavos(pagamento.getValor()));
+        }
+    }
+
+    /**
+     * Inclui vários pagamentos (apenas os confirmados contam).
+     */
+    synchronized void adicionarTodos(Collection<Pagamento> pagamentos) {
+        for (Pagamento pagamento : pagamentos) {
+            adicionar(pagamento);
+        }
+    }
+
+    /**
+     * Retira um pagamento, se estava confirmado.
+     */
+    synchronized void remover(Pagamento pagamento) {
+        if (pagamento.getStatus() == StatusPagamento.CONFIRMADO) {
+            somar(pagamento, -Conversor.paraCentavos(pagamento.getValor()));
+        }
+    }
+
+    /**
+     * Retira vários pagamentos (apenas os confirmados contam).
+     */
+    synchronized void removerTodos(Collection<Pagamento> pagamentos) {
+        for (Pagamento pagamento : pagamentos) {
+            remover(pagamento);
+        }
+    }
+
+    /**
+     * Ajusta a receita depois de uma mudança de status do pagamento.
+     *
+     * @param pagamento Pagamento já com o novo status
+     * @param anterior Status antes da mudança
+     */
+    synchronized void statusAlterado(Pagamento pagamento, StatusPagamento anterior) {
+        boolean contava = anterior == StatusPagamento.CONFIRMADO;
+        boolean conta = pagamento.getStatus() == StatusPagamento.CONFIRMADO;
+        if (contava != conta) {
+            long centavos = Conversor.paraCentavos(pagamento.getValor());
+            somar(pagamento, conta ? centavos : -centavos);
+        }
+    }
+
+    /**
+     * Zera toda a receita.
+     */
+    synchronized void limpar() {
+        valores = null;
+        arvore = null;
+    }
+
+    // ========== CONSULTAS ==========
+
+    /**
+     * Soma a receita confirmada entre dois dias epoch (ambos incluídos).
+     *
+     * @param diaInicio Primeiro dia do período
+     * @param diaFim Último dia do período
+     * @return Total em centavos
+     */
+    public synchronized long somarCentavos(int diaInicio, int diaFim) {
+        if (valores == null) {
+            return 0;
+        }
+        int inicio = Math.max(diaInicio, diaBase) - diaBase;
+        int fim = (int) Math.min((long) diaFim, (long) diaBase + valores.length - 1) - diaBase;
+        if (inicio > fim) {
+            return 0;
+        }
+        return prefixo(fim) - prefixo(inicio - 1);
+    }
+
+    /**
+     * Calcula a receita confirmada de um período.
+     * A comparação é feita por dia: pagamentos do dia inicial e do dia final
+     * entram no total.
+     *
+     * @param dataInicio Data inicial do período (pode ser null para sem limite)
+     * @param dataFim Data final do período (pode ser null para sem limite)
+     * @return Valor total em reais
+     */
+    public double calcularReceita(Date dataInicio, Date dataFim) {
+        int diaInicio = dataInicio != null ? Conversor.paraDiaEpoch(dataInicio) : Integer.MIN_VALUE;
+        int diaFim = dataFim != null ? Conversor.paraDiaEpoch(dataFim) : Integer.MAX_VALUE;
+        return Conversor.deCentavos(somarCentavos(diaInicio, diaFim));
+    }
+
+    // ========== ÁRVORE DE FENWICK ==========
+
+    private void somar(Pagamento pagamento, long centavos) {
+        int dia = Conversor.paraDiaEpoch(pagamento.getDataPagamento());
+        garantirDia(dia);
+        int posicao = dia - diaBase;
+        valores[posicao] += centavos;
+        for (int i = posicao + 1; i < arvore.length; i += i & -i) {
+            arvore[i] += centavos;
+        }
+    }
+
+    /**
+     * Soma das posições 0 até a informada (inclusive).
+     */
+    private long prefixo(int posicao) {
+        long soma = 0;
+        for (int i = posicao + 1; i > 0; i -= i & -i) {
+            soma += arvore[i];
+        }
+        return soma;
+    }
+
+    /**
+     * Garante que o dia está no intervalo coberto, dobrando o intervalo
+     * para o lado em que o dia ficou de fora.
+     */
+    private void garantirDia(int dia) {
+        if (valores == null) {
+            diaBase = dia - DIAS_INICIAIS / 2;
+            valores = new long[DIAS_INICIAIS];
+            arvore = new long[DIAS_INICIAIS + 1];
+            return;
+        }
+        int ultimoDia = diaBase + valores.length - 1;
+        if (dia >= diaBase && dia <= ultimoDia) {
+            return;
+        }
+
+        int necessario = Math.max(ultimoDia, dia) - Math.min(diaBase, dia) + 1;
+        int tamanho = valores.length;
+        while (tamanho < necessario) {
+            tamanho *= 2;
+        }
+        int novoBase = dia < diaBase ? ultimoDia - tamanho + 1 : diaBase;
+
+        long[] novos = new long[tamanho];
+        System.arraycopy(valores, 0, novos, diaBase - novoBase, valores.length);
+        diaBase = novoBase;
+        valores = novos;
+        reconstruirArvore();
+    }
+
+    /**
+     * Monta a árvore a partir dos valores em O(n).
+     */
+    private void reconstruirArvore() {
+        arvore = new long[valores.length + 1];
+        for (int i = 1; i < arvore.length; i++) {
+            arvore[i] += valores[i - 1];
+            int pai = i + (i & -i);
+            if (pai < arvore.length) {
+                arvore[pai] += arvore[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package br.trabalho3.sistema.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Controle das leituras abertas (LeituraAcademia) e das mudanças de status
+ * que elas ainda precisam enxergar.
+ * *
+ * As listas da academia são versões imutáveis, mas o status de matrículas e
+ * pagamentos muda no próprio objeto. Para que uma leitura continue vendo o
+ * status do momento em que foi aberta, cada mudança de status feita enquanto
+ * há leituras abertas é anotada aqui (sequência do evento e status anterior).
+ *
+ * Cada leitura fixa uma sequência. Quando a última leitura de uma sequência
+ * é fechada, as anotações que nenhuma leitura aberta precisa mais são
+ * descartadas; sem leituras abertas, nada é anotado.
+ *
+ * statusEm() não usa trava: as mudanças de cada objeto ficam num vetor
+ * imutável, trocado por um novo a cada anotação ou descarte. A Academia
+ * anota a mudança antes de aplicá-la, e statusEm() confere se o vetor não
+ * foi trocado enquanto lia o status atual, para nunca ver o status novo sem
+ * a anotação.
+ *
+ */
+final class RegistroLeituras {
+
+    /**
+     * Mudança de status anotada.
+     */
+    private static final class Mudanca {
+        private final long sequencia;
+        private final Enum<?> anterior;
+
+        Mudanca(long sequencia, Enum<?> anterior) {
+            this.sequencia = sequencia;
+            this.anterior = anterior;
+        }
+    }
+
+    /**
+     * Quantidade de leituras abertas por sequência fixada.
+     */
+    private final TreeMap<Long, Integer> fixadas = new TreeMap<>();
+
+    /**
+     * Mudanças de status por objeto (matrícula ou pagamento), em ordem de
+     * sequência. Os vetores nunca são alterados depois de publicados.
+     */
+    private final Map<Object, Mudanca[]> mudancas = new ConcurrentHashMap<>();
+
+    /**
+     * Registra uma leitura aberta na sequência informada.
+     */
+    synchronized void fixar(long sequencia) {
+        fixadas.merge(sequencia, 1, Integer::sum);
+    }
+
+    /**
+     * Fecha uma leitura. Se era a última de sua sequência, descarta as
+     * mudanças que nenhuma leitura aberta precisa mais.
+     */
+    synchronized void liberar(long sequencia) {
+        Integer restantes = fixadas.get(sequencia);
+        if (restantes == null) {
+            return;
+        }
+        if (restantes > 1) {
+            fixadas.put(sequencia, restantes - 1);
+            return;
+        }
+        fixadas.remove(sequencia);
+        descartarAte(fixadas.isEmpty() ? Long.MAX_VALUE : fixadas.firstKey());
+    }
+
+    /**
+     * Anota o status atual do objeto, se alguma leitura aberta puder precisar
+     * dele. Deve ser chamado antes de mudar o status, com a trava de escrita
+     * do tipo do objeto (que impede abrir leituras ao mesmo tempo).
+     *
+     * A anotação recebe a próxima sequência de evento: leituras já abertas
+     * têm sequência menor e passam a ver o status anotado; as abertas depois
+     * da mudança têm sequência igual ou maior e veem o status novo. Se no fim
+     * o status não mudar, a anotação continua correta.
+     *
+     * @param objeto Matrícula ou pagamento que vai ser alterado
+     * @param anterior Status antes da mudança
+     */
+    synchronized void anotar(Object objeto, Enum<?> anterior) {
+        if (fixadas.isEmpty()) {
+            return;
+        }
+        Mudanca mudanca = new Mudanca(EventoAcademia.ultimaSequencia() + 1, anterior);
+        Mudanca[] doObjeto = mudancas.get(objeto);
+        if (doObjeto == null) {
+            mudancas.put(objeto, new Mudanca[] {mudanca});
+        } else {
+            Mudanca[] novas = Arrays.copyOf(doObjeto, doObjeto.length + 1);
+            novas[doObjeto.length] = mudanca;
+            mudancas.put(objeto, novas);
+        }
+    }
+
+    /**
+     * Retorna o status que o objeto tinha na sequência informada.
+     *
+     * @param objeto Matrícula ou pagamento
+     * @param atual Lê o status atual do objeto
+     * @param sequencia Sequência da leitura
+     * @return Status na sequência da leitura
+     */
+    @SuppressWarnings("unchecked")
+    <E extends Enum<E>> E statusEm(Object objeto, Supplier<E> atual, long sequencia) {
+        while (true) {
+            Mudanca[] doObjeto = mudancas.get(objeto);
+            if (doObjeto != null) {
+                // A primeira mudança depois da leitura guarda o status que a leitura via
+                for (Mudanca mudanca : doObjeto) {
+                    if (mudanca.sequencia > sequencia) {
+                        return (E) mudanca.anterior;
+                    }
+                }
+            }
+            E status = atual.get();
+            // Se nada foi anotado enquanto o status era lido, ele vale para a leitura
+            if (mudancas.get(objeto) == doObjeto) {
+                return status;
+            }
+        }
+    }
+
+    /**
+     * Quantidade de leituras abertas.
+     */
+    synchronized int abertas() {
+        int total = 0;
+        for (int quantidade : fixadas.values()) {
+            total += quantidade;
+        }
+        return total;
+    }
+
+    /**
+     * Descarta as mudanças com sequência até a informada.
+     */
+    private void descartarAte(long sequencia) {
+        Iterator<Map.Entry<Object, Mudanca[]>> entradas = mudancas.entrySet().iterator();
+        while (entradas.hasNext()) {
+            Map.Entry<Object, Mudanca[]> entrada = entradas.next();
+            Mudanca[] doObjeto = entrada.getValue();
+            int descartadas = 0;
+            while (descartadas < doObjeto.length && doObjeto[descartadas].sequencia <= sequencia) {
+                descartadas++;
+            }
+            if (descartadas == doObjeto.length) {
+                entradas.remove();
+            } else if (descartadas > 0) {
+                entrada.setValue(Arrays.copyOfRange(doObjeto, descartadas, doObjeto.length));
+            }
+        }
+    }
+}
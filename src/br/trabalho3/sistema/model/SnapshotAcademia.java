@@ -0,0 +1,88 @@
+package br.trabalho3.sistema.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fotografia imutável dos dados da academia em um determinado momento.
+ * *
+ * As listas não podem ser alteradas e não mudam depois de criadas, então
+ * podem ser lidas por qualquer thread sem travas, enquanto a academia
+ * continua recebendo alterações.
+ *
+ */
+public class SnapshotAcademia {
+
+    /**
+     * Número da versão: cresce a cada snapshot publicado.
+     */
+    private final long versao;
+
+    private final List<Aluno> alunos;
+    private final List<Instrutor> instrutores;
+    private final List<Plano> planos;
+    private final List<Matricula> matriculas;
+    private final List<Pagamento> pagamentos;
+
+    /**
+     * Cria um snapshot a partir de listas que não serão mais alteradas.
+     *
+     * @param versao Número da versão
+     * @param alunos Alunos no momento do snapshot
+     * @param instrutores Instrutores no momento do snapshot
+     * @param planos Planos no momento do snapshot
+     * @param matriculas Matrículas no momento do snapshot
+     * @param pagamentos Pagamentos no momento do snapshot
+     */
+    public SnapshotAcademia(long versao, List<Aluno> alunos, List<Instrutor> instrutores,
+                            List<Plano> planos, List<Matricula> matriculas, List<Pagamento> pagamentos) {
+        this.versao = versao;
+        this.alunos = Collections.unmodifiableList(alunos);
+        this.instrutores = Collections.unmodifiableList(instrutores);
+        this.planos = Collections.unmodifiableList(planos);
+        this.matriculas = Collections.unmodifiableList(matriculas);
+        this.pagamentos = Collections.unmodifiableList(pagamentos);
+    }
+
+    /**
+     * Cria um snapshot com os dados atuais da academia.
+     *
+     * @param academia Academia de origem
+     * @param versao Número da versão
+     * @return Novo snapshot
+     */
+    public static SnapshotAcademia de(Academia academia, long versao) {
+        return new SnapshotAcademia(versao,
+            academia.listarAlunos(),
+            academia.listarInstrutores(),
+            academia.listarPlanos(),
+            academia.listarMatriculas(),
+            academia.listarPagamentos());
+    }
+
+    // ========== GETTERS ==========
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public List<Aluno> getAlunos() {
+        return alunos;
+    }
+
+    public List<Instrutor> getInstrutores() {
+        return instrutores;
+    }
+
+    public List<Plano> getPlanos() {
+        return planos;
+    }
+
+    public List<Matricula> getMatriculas() {
+        return matriculas;
+    }
+
+    public List<Pagamento> getPagamentos() {
+        return pagamentos;
+    }
+}
@@ -0,0 +1,49 @@
+package br.trabalho3.sistema.model;
+
+import java.util.Date;
+
+/**
+ * Dados de uma matrícula a ser criada em lote.
+ * Usada por Academia.realizarMatriculas().
+ *
+ */
+public class SolicitacaoMatricula {
+
+    private final Aluno aluno;
+    private final Plano plano;
+    private final Date dataInicio;
+    private final Date dataFim;
+
+    /**
+     * Construtor completo.
+     *
+     * @param aluno Aluno a ser matriculado
+     * @param plano Plano escolhido
+     * @param dataInicio Data de início
+     * @param dataFim Data de término
+     */
+    public SolicitacaoMatricula(Aluno aluno, Plano plano, Date dataInicio, Date dataFim) {
+        this.aluno = aluno;
+        this.plano = plano;
+        this.dataInicio = dataInicio;
+        this.dataFim = dataFim;
+    }
+
+    // ========== GETTERS ==========
+
+    public Aluno getAluno() {
+        return aluno;
+    }
+
+    public Plano getPlano() {
+        return plano;
+    }
+
+    public Date getDataInicio() {
+        return dataInicio;
+    }
+
+    public Date getDataFim() {
+        return dataFim;
+    }
+}
@@ -0,0 +1,50 @@
+package br.trabalho3.sistema.model;
+
+import java.util.Date;
+
+/**
+ * Dados de um pagamento a ser registrado em lote.
+ * Usada por Academia.registrarPagamentos().
+ *
+ */
+public class SolicitacaoPagamento {
+
+    private final Matricula matricula;
+    private final FormaPagamento formaPagamento;
+    private final double valor;
+    private final Date dataPagamento;
+
+    /**
+     * Construtor completo.
+     *
+     * @param matricula Matrícula associada
+     * @param formaPagamento Forma de pagamento
+     * @param valor Valor pago
+     * @param dataPagamento Data do pagamento
+     */
+    public SolicitacaoPagamento(Matricula matricula, FormaPagamento formaPagamento,
+                                double valor, Date dataPagamento) {
+        this.matricula = matricula;
+        this.formaPagamento = formaPagamento;
+        this.valor = valor;
+        this.dataPagamento = dataPagamento;
+    }
+
+    // ========== GETTERS ==========
+
+    public Matricula getMatricula() {
+        return matricula;
+    }
+
+    public FormaPagamento getFormaPagamento() {
+        return formaPagamento;
+    }
+
+    public double getValor() {
+        return valor;
+    }
+
+    public Date getDataPagamento() {
+        return dataPagamento;
+    }
+}
@@ -0,0 +1,247 @@
+package br.trabalho3.sistema.persistence;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Backup dos arquivos de dados com o sistema em funcionamento.
+ * *
+ * O backup pega todos os arquivos CSV no mesmo ponto no tempo sem parar
+ * o sistema: a barreira de gravação dos repositórios é travada apenas
+ * enquanto os arquivos são abertos e seus tamanhos anotados. A cópia é
+ * feita depois, com as gravações já liberadas, e continua consistente
+ * porque os repositórios nunca truncam um arquivo: linhas novas ficam
+ * depois do tamanho anotado, e arquivos reescritos viram arquivos novos,
+ * enquanto o backup continua lendo o antigo que deixou aberto.
+ *
+ * (Links físicos não serviriam: as inclusões são anexadas no mesmo
+ * arquivo, e o link mostraria essas linhas novas.)
+ *
+ * No modo incremental, só são copiados os arquivos que mudaram desde o
+ * último backup (comparando tamanho e CRC32). O manifesto de cada backup
+ * indica em qual pasta está a cópia de cada arquivo, e restaurar() junta
+ * tudo de volta.
+ *
+ */
+public class BackupOnline {
+
+    /**
+     * Nome do manifesto gravado em cada pasta de backup.
+     */
+    public static final String MANIFESTO = "manifesto.properties";
+
+    private static final String PREFIXO_PASTA = "backup-";
+
+    private final Path diretorioDados;
+    private final Path diretorioBackups;
+
+    /**
+     * Arquivo de dados aberto no ponto do backup.
+     */
+    private static class ArquivoAberto {
+        private final String nome;
+        private final FileChannel canal;
+        private final long tamanho;
+
+        ArquivoAberto(String nome, FileChannel canal, long tamanho) {
+            this.nome = nome;
+            this.canal = canal;
+            this.tamanho = tamanho;
+        }
+    }
+
+    /**
+     * Construtor completo.
+     *
+     * @param diretorioDados Pasta com os arquivos CSV (ex.: dados)
+     * @param diretorioBackups Pasta onde as pastas de backup serão criadas
+     */
+    public BackupOnline(Path diretorioDados, Path diretorioBackups) {
+        this.diretorioDados = diretorioDados;
+        this.diretorioBackups = diretorioBackups;
+    }
+
+    /**
+     * Faz um backup dos arquivos de dados.
+     *
+     * @param incremental true para copiar só o que mudou desde o último backup
+     *                    (se não houver backup anterior, faz um completo)
+     * @return Pasta do backup criado
+     * @throws IOException Se não conseguir ler os dados ou gravar o backup
+     */
+    public Path executar(boolean incremental) throws IOException {
+        Path anterior = incremental ? ultimoBackup() : null;
+        Properties manifestoAnterior = anterior != null ? lerManifesto(anterior) : new Properties();
+
+        Files.createDirectories(diretorioBackups);
+        String nomePasta = PREFIXO_PASTA + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        Path pasta = Files.createDirectory(diretorioBackups.resolve(nomePasta));
+
+        List<ArquivoAberto> arquivos = abrirNoMesmoPonto();
+        try {
+            Properties manifesto = new Properties();
+            manifesto.setProperty("tipo", anterior != null ? "incremental" : "completo");
+            if (anterior != null) {
+                manifesto.setProperty("anterior", anterior.getFileName().toString());
+            }
+
+            for (ArquivoAberto arquivo : arquivos) {
+                long crc = calcularCrc(arquivo);
+                String tamanho = String.valueOf(arquivo.tamanho);
+                String crcTexto = Long.toHexString(crc);
+
+                String origem = nomePasta;
+                if (tamanho.equals(manifestoAnterior.getProperty(arquivo.nome + ".tamanho"))
+                        && crcTexto.equals(manifestoAnterior.getProperty(arquivo.nome + ".crc"))) {
+                    // Não mudou: aponta para a cópia que já existe
+                    origem = manifestoAnterior.getProperty(arquivo.nome + ".origem");
+                } else {
+                    copiar(arquivo, pasta.resolve(arquivo.nome));
+                }
+
+                manifesto.setProperty(arquivo.nome + ".tamanho", tamanho);
+                manifesto.setProperty(arquivo.nome + ".crc", crcTexto);
+                manifesto.setProperty(arquivo.nome + ".origem", origem);
+            }
+
+            // O manifesto é gravado por último: sem ele, o backup está incompleto
+            try (OutputStream saida = Files.newOutputStream(pasta.resolve(MANIFESTO))) {
+                manifesto.store(saida, "Backup dos dados da academia");
+            }
+        } finally {
+            for (ArquivoAberto arquivo : arquivos) {
+                arquivo.canal.close();
+            }
+        }
+        return pasta;
+    }
+
+    /**
+     * Restaura um backup (completo ou incremental) em uma pasta.
+     *
+     * @param pastaBackup Pasta do backup a restaurar
+     * @param destino Pasta onde os arquivos serão gravados
+     * @throws IOException Se faltar algum arquivo do backup ou não conseguir gravar
+     */
+    public static void restaurar(Path pastaBackup, Path destino) throws IOException {
+        Properties manifesto = lerManifesto(pastaBackup);
+        Path raiz = pastaBackup.toAbsolutePath().getParent();
+        Files.createDirectories(destino);
+
+        for (String chave : manifesto.stringPropertyNames()) {
+            if (chave.endsWith(".origem")) {
+                String nome = chave.substring(0, chave.length() - ".origem".length());
+                Path copia = raiz.resolve(manifesto.getProperty(chave)).resolve(nome);
+                Files.copy(copia, destino.resolve(nome), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Retorna a pasta do backup mais recente com manifesto, ou null.
+     *
+     * @return Pasta do último backup
+     * @throws IOException Se não conseguir listar a pasta de backups
+     */
+    public Path ultimoBackup() throws IOException {
+        if (!Files.isDirectory(diretorioBackups)) {
+            return null;
+        }
+        Path ultimo = null;
+        try (DirectoryStream<Path> pastas = Files.newDirectoryStream(diretorioBackups, PREFIXO_PASTA + "*")) {
+            for (Path pasta : pastas) {
+                // Os nomes têm a data no formato yyyyMMdd-HHmmss, então a ordem alfabética é a cronológica
+                if (Files.exists(pasta.resolve(MANIFESTO))
+                        && (ultimo == null || pasta.getFileName().toString().compareTo(ultimo.getFileName().toString()) > 0)) {
+                    ultimo = pasta;
+                }
+            }
+        }
+        return ultimo;
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Abre todos os arquivos CSV e anota seus tamanhos com as gravações
+     * bloqueadas, para que todos correspondam ao mesmo ponto no tempo.
+     */
+    private List<ArquivoAberto> abrirNoMesmoPonto() throws IOException {
+        List<ArquivoAberto> arquivos = new ArrayList<>();
+        CSVRepository.BARREIRA_GRAVACAO.writeLock().lock();
+        try (DirectoryStream<Path> csvs = Files.newDirectoryStream(diretorioDados, "*.csv")) {
+            for (Path csv : csvs) {
+                FileChannel canal = FileChannel.open(csv, StandardOpenOption.READ);
+                arquivos.add(new ArquivoAberto(csv.getFileName().toString(), canal, canal.size()));
+            }
+        } catch (IOException e) {
+            for (ArquivoAberto arquivo : arquivos) {
+                arquivo.canal.close();
+            }
+            throw e;
+        } finally {
+            CSVRepository.BARREIRA_GRAVACAO.writeLock().unlock();
+        }
+        return arquivos;
+    }
+
+    /**
+     * Calcula o CRC32 do arquivo até o tamanho anotado.
+     */
+    private static long calcularCrc(ArquivoAberto arquivo) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long posicao = 0;
+        while (posicao < arquivo.tamanho) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), arquivo.tamanho - posicao));
+            int lidos = arquivo.canal.read(buffer, posicao);
+            if (lidos < 0) {
+                break;
+            }
+            buffer.flip();
+            crc.update(buffer);
+            posicao += lidos;
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Copia o arquivo até o tamanho anotado.
+     */
+    private static void copiar(ArquivoAberto arquivo, Path destino) throws IOException {
+        try (FileChannel saida = FileChannel.open(destino,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long posicao = 0;
+            while (posicao < arquivo.tamanho) {
+                long copiados = arquivo.canal.transferTo(posicao, arquivo.tamanho - posicao, saida);
+                if (copiados <= 0) {
+                    break;
+                }
+                posicao += copiados;
+            }
+        }
+    }
+
+    private static Properties lerManifesto(Path pasta) throws IOException {
+        Properties manifesto = new Properties();
+        try (InputStream entrada = Files.newInputStream(pasta.resolve(MANIFESTO))) {
+            manifesto.load(entrada);
+        }
+        return manifesto;
+    }
+}
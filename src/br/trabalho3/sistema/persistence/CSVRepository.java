@@ -1,8 +1,22 @@
 package br.trabalho3.sistema.persistence;
 
+import br.trabalho3.sistema.exceptions.ConflitoVersaoException;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Classe abstrata base para repositórios que fazem persistência em arquivos CSV.
@@ -11,10 +25,43 @@ import java.util.List;
  * permitindo que cada repositório específico implemente apenas a lógica
  * de conversão entre objetos e strings CSV.
  *
+ * Vários processos podem usar a mesma pasta de dados (ex.: dois
+ * computadores da recepção com dados/ na rede). Leituras usam uma trava
+ * compartilhada e gravações uma trava exclusiva (ver TravaArquivo), e cada
+ * gravação muda a versão do arquivo. Se outro processo gravou depois da
+ * última leitura deste repositório, a gravação mescla as alterações com o
+ * conteúdo atual do arquivo, em vez de sobrescrevê-lo.
+ *
+ * Se o mesmo registro foi alterado aqui e pelo outro processo, a linha do
+ * arquivo é mantida e o registro fica em conflito (getIdsEmConflito()):
+ * nenhuma versão diferente da do arquivo é gravada para ele até que a
+ * memória adote a versão do arquivo (recarregar()) ou a alteração deste
+ * processo seja gravada por atualizar() depois disso.
+ *
+ * IDs sequenciais (matrículas e pagamentos) devem ser reservados com
+ * reservarIds(), que usa a trava exclusiva. Se mesmo assim o mesmo ID
+ * aparecer em dois registros diferentes (duas linhas diferentes no arquivo,
+ * ou um registro novo deste processo com um ID que já está no arquivo e
+ * que este repositório nunca viu), é um conflito grave: o arquivo não é
+ * alterado e a gravação falha, em vez de descartar um dos registros.
+ *
  * @param <T> Tipo da entidade que este repositório gerencia
  */
 public abstract class CSVRepository<T> {
 
+    /**
+     * Barreira de gravação compartilhada por todos os repositórios.
+     *
+     * Toda gravação em arquivo usa a trava de leitura (várias gravações podem
+     * acontecer ao mesmo tempo). O backup online usa a trava de escrita por
+     * um instante, só para abrir todos os arquivos no mesmo ponto no tempo.
+     *
+     * Para que esse ponto continue válido enquanto o backup copia, os
+     * arquivos nunca são truncados: ou recebem linhas no final, ou são
+     * gravados em um arquivo novo que substitui o antigo.
+     */
+    static final ReentrantReadWriteLock BARREIRA_GRAVACAO = new ReentrantReadWriteLock();
+
     /**
      * Caminho do arquivo CSV que este repositório gerencia.
      * Cada subclasse define seu próprio arquivo.
@@ -27,6 +74,44 @@ public abstract class CSVRepository<T> {
      */
     protected String cabecalho;
 
+    /**
+     * Trava do arquivo entre processos (e entre as threads deste processo).
+     */
+    private final TravaArquivo trava;
+
+    /**
+     * Versão do arquivo na última vez que este repositório leu o arquivo
+     * inteiro (-1 se ainda não leu). Se a versão atual for outra, outro
+     * processo gravou no arquivo nesse meio tempo.
+     */
+    private volatile long versaoConhecida = -1;
+
+    /**
+     * Hash de cada linha, por ID, como estava na última leitura ou gravação
+     * deste repositório. Usado para perceber quando outro processo alterou
+     * o mesmo registro. Só é acessado com a trava do arquivo.
+     */
+    private final Map<String, Integer> linhasConhecidas = new HashMap<>();
+
+    /**
+     * IDs alterados aqui e por outro processo, ainda não resolvidos. Ficam
+     * em conflito mesmo depois de o arquivo ser lido de novo. Só é acessado
+     * com a trava do arquivo.
+     */
+    private final Set<String> idsEmConflito = new HashSet<>();
+
+    /**
+     * Alteração feita na memória junto com uma gravação, com a trava
+     * exclusiva do arquivo (ver atualizar(Object, AcaoNaMemoria) e recarregar()).
+     *
+     * @param <T> Tipo da entidade
+     * @param <E> Exceção que a alteração pode lançar
+     */
+    @FunctionalInterface
+    public interface AcaoNaMemoria<T, E extends Exception> {
+        void executar(T entidade) throws E;
+    }
+
     /**
      * Construtor que recebe o caminho do arquivo.
      *
@@ -36,6 +121,7 @@ public abstract class CSVRepository<T> {
     public CSVRepository(String caminhoArquivo, String cabecalho) {
         this.caminhoArquivo = caminhoArquivo;
         this.cabecalho = cabecalho;
+        this.trava = TravaArquivo.de(caminhoArquivo);
 
         // Cria o arquivo se não existir
         criarArquivoSeNaoExistir();
@@ -54,14 +140,24 @@ public abstract class CSVRepository<T> {
         }
 
         // Cria o arquivo com cabeçalho se não existir
+        // (verificado de novo com a trava: outro processo pode estar criando)
         if (!arquivo.exists()) {
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(arquivo))) {
-                writer.write(cabecalho);
-                writer.newLine();
-            } catch (IOException e) {
-                System.err.println("Erro ao criar arquivo: " + caminhoArquivo);
-                e.printStackTrace();
-            }
+            comTrava(true, () -> {
+                if (arquivo.exists()) {
+                    return null;
+                }
+                BARREIRA_GRAVACAO.readLock().lock();
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(arquivo))) {
+                    writer.write(cabecalho);
+                    writer.newLine();
+                } catch (IOException e) {
+                    System.err.println("Erro ao criar arquivo: " + caminhoArquivo);
+                    e.printStackTrace();
+                } finally {
+                    BARREIRA_GRAVACAO.readLock().unlock();
+                }
+                return null;
+            }, null);
         }
     }
 
@@ -94,49 +190,427 @@ public abstract class CSVRepository<T> {
      */
     protected abstract String getId(T entidade);
 
+    /**
+     * Retorna o identificador de uma linha do arquivo sem convertê-la em objeto.
+     * Por padrão, é a primeira coluna.
+     *
+     * @param linhaCsv Linha do arquivo CSV
+     * @return Identificador único da linha
+     */
+    protected String idDaLinha(String linhaCsv) {
+        int virgula = linhaCsv.indexOf(',');
+        return (virgula >= 0 ? linhaCsv.substring(0, virgula) : linhaCsv).trim();
+    }
+
     /**
      * Salva todos os dados no arquivo CSV.
-     * Sobrescreve o arquivo existente.
+     * Sobrescreve o arquivo existente (grava um arquivo novo que substitui o antigo).
+     *
+     * Se outro processo gravou no arquivo depois da última leitura deste
+     * repositório, o arquivo não é sobrescrito: as entidades são mescladas
+     * com o conteúdo atual, e só são apagadas as linhas que este repositório
+     * tinha lido e que não estão mais na lista.
      *
      * @param entidades Lista de entidades a serem salvas
      * @return true se salvou com sucesso, false em caso de erro
      */
     public boolean salvarTodos(List<T> entidades) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(caminhoArquivo))) {
-            // Escreve o cabeçalho
-            writer.write(cabecalho);
-            writer.newLine();
+        return comTrava(true, () -> {
+            if (trava.versao() != versaoConhecida || !idsEmConflito.isEmpty()) {
+                Set<String> mantidos = new HashSet<>();
+                for (T entidade : entidades) {
+                    mantidos.add(getId(entidade));
+                }
+                List<String> removidos = new ArrayList<>();
+                for (String id : linhasConhecidas.keySet()) {
+                    if (!mantidos.contains(id)) {
+                        removidos.add(id);
+                    }
+                }
+                List<String> conflitos = new ArrayList<>();
+                return aplicarComTrava(entidades, removidos, conflitos) && conflitos.isEmpty();
+            }
 
-            // Escreve cada entidade
+            List<String> linhas = new ArrayList<>(entidades.size());
             for (T entidade : entidades) {
-                writer.write(toCSV(entidade));
-                writer.newLine();
+                linhas.add(toCSV(entidade));
             }
+            return substituirArquivo(linhas);
+        }, false);
+    }
+
+    /**
+     * Adiciona uma nova entidade ao final do arquivo.
+     *
+     * @param entidade Entidade a ser adicionada
+     * @return true se adicionou com sucesso, false em caso de erro
+     */
+    public boolean adicionar(T entidade) {
+        return anexarLinhas(Collections.singletonList(toCSV(entidade)));
+    }
 
+    /**
+     * Adiciona várias entidades ao final do arquivo, abrindo-o uma única vez.
+     * Use no lugar de várias chamadas a adicionar() em importações em lote.
+     *
+     * @param entidades Entidades a serem adicionadas
+     * @return true se adicionou com sucesso, false em caso de erro
+     */
+    public boolean adicionarTodos(List<T> entidades) {
+        if (entidades.isEmpty()) {
             return true;
+        }
+
+        List<String> linhas = new ArrayList<>(entidades.size());
+        for (T entidade : entidades) {
+            linhas.add(toCSV(entidade));
+        }
+        return anexarLinhas(linhas);
+    }
+
+    /**
+     * Aplica no arquivo apenas as alterações informadas.
+     *
+     * As entidades salvas substituem a linha de mesmo ID (ou são incluídas
+     * no final, se o ID não existir) e os IDs removidos são apagados. As
+     * demais linhas são mantidas como estão, sem serem convertidas em
+     * objetos, então registros que não foram carregados na memória não
+     * se perdem.
+     *
+     * Se só houver entidades novas, elas são apenas anexadas ao final; se
+     * nada mudar, o arquivo não é tocado. Quando é preciso reescrever, o
+     * arquivo novo é gravado ao lado e depois substitui o antigo.
+     *
+     * O arquivo é lido e gravado com a trava exclusiva, então as linhas
+     * gravadas por outros processos são sempre mantidas. Se outro processo
+     * alterou (ou este processo removeu) um registro que também foi
+     * alterado aqui, a linha do arquivo é mantida, o registro fica em
+     * conflito e, depois de gravar as demais alterações, o método lança
+     * ConflitoVersaoException. Se o mesmo ID estiver em dois registros
+     * diferentes, nada é gravado e o método retorna false.
+     *
+     * @param salvas Entidades incluídas ou alteradas
+     * @param idsRemovidos IDs das entidades removidas
+     * @return true se aplicou com sucesso, false em caso de erro ou de IDs repetidos
+     * @throws ConflitoVersaoException Se algum registro ficou em conflito
+     *         (os IDs estão em getIdsEmConflito())
+     */
+    public boolean aplicarAlteracoes(List<T> salvas, Collection<String> idsRemovidos)
+            throws ConflitoVersaoException {
+        List<String> conflitos = new ArrayList<>();
+        long versaoLida = versaoConhecida;
+        boolean aplicou = comTrava(true, () -> aplicarComTrava(salvas, idsRemovidos, conflitos), false);
+        if (!conflitos.isEmpty()) {
+            throw new ConflitoVersaoException("Registros " + conflitos + " de " + caminhoArquivo
+                + " foram alterados também por outro computador (mantida a versão do arquivo)",
+                versaoLida, versaoConhecida);
+        }
+        return aplicou;
+    }
+
+    /**
+     * Aplica as alterações com a trava já obtida.
+     *
+     * @param conflitos Recebe os IDs que ficaram em conflito (não gravados)
+     */
+    private boolean aplicarComTrava(List<T> salvas, Collection<String> idsRemovidos, List<String> conflitos)
+            throws IOException {
+        long versaoAtual = trava.versao();
+        // Só dá para comparar registro a registro se o arquivo já foi lido alguma vez
+        boolean arquivoJaLido = versaoConhecida >= 0;
+        boolean verificarConflitos = arquivoJaLido && versaoAtual != versaoConhecida;
+
+        Map<String, String> pendentes = new LinkedHashMap<>();
+        for (T entidade : salvas) {
+            pendentes.put(getId(entidade), toCSV(entidade));
+        }
+        Set<String> removidos = new HashSet<>(idsRemovidos);
+        Map<String, Integer> lidas = new HashMap<>();
+        List<String> colisoes = new ArrayList<>();
+
+        List<String> linhas = new ArrayList<>();
+        boolean reescrever = false;
 
+        try (BufferedReader reader = new BufferedReader(new FileReader(caminhoArquivo))) {
+            // Pula o cabeçalho
+            String linha = reader.readLine();
+
+            while ((linha = reader.readLine()) != null) {
+                linha = linha.trim();
+                if (linha.isEmpty()) {
+                    continue;
+                }
+
+                String id = idDaLinha(linha);
+                Integer anterior = lidas.putIfAbsent(id, linha.hashCode());
+                if (anterior != null) {
+                    if (anterior != linha.hashCode()) {
+                        // Duas linhas diferentes com o mesmo ID: registros de processos diferentes
+                        colisoes.add(id);
+                    }
+                    reescrever = true; // Linha repetida
+                    continue;
+                }
+                if (removidos.contains(id)) {
+                    if (idsEmConflito.contains(id) || (verificarConflitos && alteradaPorOutro(id, linha))) {
+                        // Alterado por outro computador: não apaga o que ele gravou
+                        conflitos.add(id);
+                        linhas.add(linha);
+                    } else {
+                        reescrever = true; // Linha removida
+                    }
+                    continue;
+                }
+
+                String nova = pendentes.remove(id);
+                if (nova == null) {
+                    linhas.add(linha);
+                } else if (nova.equals(linha)) {
+                    // A memória tem a versão do arquivo: se havia conflito, está resolvido
+                    idsEmConflito.remove(id);
+                    linhas.add(linha);
+                } else if (arquivoJaLido && !linhasConhecidas.containsKey(id)) {
+                    // Registro novo deste processo, mas o ID já está no
+                    // arquivo com outro registro que ele nunca viu
+                    colisoes.add(id);
+                } else if (idsEmConflito.contains(id) || (verificarConflitos && alteradaPorOutro(id, linha))) {
+                    // Alterado aqui e por outro computador: mantém o que está no arquivo
+                    conflitos.add(id);
+                    linhas.add(linha);
+                } else {
+                    linhas.add(nova);
+                    reescrever = true;
+                }
+            }
+
+        } catch (FileNotFoundException e) {
+            // Arquivo ainda não existe: tudo é novo
         } catch (IOException e) {
-            System.err.println("Erro ao salvar no arquivo: " + caminhoArquivo);
+            System.err.println("Erro ao ler arquivo: " + caminhoArquivo);
             e.printStackTrace();
             return false;
         }
+
+        if (!colisoes.isEmpty()) {
+            // Gravar descartaria um dos registros: deixa o arquivo como está
+            System.err.println("Erro: IDs usados por outro computador para registros diferentes em "
+                + caminhoArquivo + " (nada foi gravado): " + colisoes);
+            return false;
+        }
+
+        if (!conflitos.isEmpty()) {
+            idsEmConflito.addAll(conflitos);
+            System.err.println("Aviso: registros alterados também por outro computador em "
+                + caminhoArquivo + " (mantida a versão do arquivo): " + conflitos);
+        }
+
+        // O arquivo acabou de ser lido inteiro: agora este repositório conhece a versão atual
+        versaoConhecida = versaoAtual;
+
+        if (!reescrever) {
+            conhecerLinhas(linhas, true);
+            return anexarLinhas(pendentes.values());
+        }
+
+        linhas.addAll(pendentes.values());
+        return substituirArquivo(linhas);
     }
 
     /**
-     * Adiciona uma nova entidade ao final do arquivo.
+     * Verifica se a linha do arquivo é diferente da que este repositório conhecia.
+     */
+    private boolean alteradaPorOutro(String id, String linha) {
+        Integer conhecida = linhasConhecidas.get(id);
+        return conhecida == null || conhecida != linha.hashCode();
+    }
+
+    /**
+     * Registra as linhas como conhecidas por este repositório.
      *
-     * @param entidade Entidade a ser adicionada
-     * @return true se adicionou com sucesso, false em caso de erro
+     * @param substituir true se as linhas são o arquivo inteiro
      */
-    public boolean adicionar(T entidade) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(caminhoArquivo, true))) {
-            // true = append mode (adiciona ao final)
-            writer.write(toCSV(entidade));
-            writer.newLine();
+    private void conhecerLinhas(Collection<String> linhas, boolean substituir) {
+        if (substituir) {
+            linhasConhecidas.clear();
+        }
+        for (String linha : linhas) {
+            linhasConhecidas.put(idDaLinha(linha), linha.hashCode());
+        }
+    }
+
+    /**
+     * Marca uma gravação feita por este repositório: incrementa a versão do
+     * arquivo. A nova versão só passa a ser a conhecida se nenhum outro
+     * processo tinha gravado antes (senão ainda falta ler o que ele gravou).
+     */
+    private void registrarGravacao() throws IOException {
+        long anterior = trava.versao();
+        long nova = trava.incrementarVersao();
+        if (anterior == versaoConhecida) {
+            versaoConhecida = nova;
+        }
+    }
+
+    /**
+     * Executa a operação com a trava do arquivo.
+     *
+     * @param exclusiva true para gravações, false para leituras
+     * @param seErro Valor retornado se não conseguir obter a trava
+     */
+    private <R> R comTrava(boolean exclusiva, TravaArquivo.Acao<R> acao, R seErro) {
+        try {
+            return exclusiva ? trava.exclusiva(acao) : trava.compartilhada(acao);
+        } catch (IOException e) {
+            System.err.println("Erro ao travar arquivo: " + caminhoArquivo);
+            e.printStackTrace();
+            return seErro;
+        }
+    }
+
+    /**
+     * Reserva números consecutivos para IDs novos (ex.: MAT001, MAT002),
+     * com a trava exclusiva do arquivo. O próximo número livre fica no
+     * arquivo de trava, então dois processos nunca recebem o mesmo número.
+     *
+     * Na primeira reserva, o próximo número livre é calculado a partir dos
+     * IDs já gravados no arquivo.
+     *
+     * @param prefixo Prefixo dos IDs (ex.: "MAT")
+     * @param minimo Menor número aceitável (ex.: o próximo do contador em memória)
+     * @param quantidade Quantidade de números a reservar
+     * @return Primeiro número reservado
+     * @throws IOException Se não for possível travar ou ler o arquivo
+     */
+    public int reservarIds(String prefixo, int minimo, int quantidade) throws IOException {
+        return trava.exclusiva(() -> {
+            long proximo = trava.proximoId();
+            if (proximo == 0) {
+                proximo = ultimoNumero(lerIds(), prefixo) + 1;
+            }
+            long inicio = Math.max(proximo, minimo);
+            trava.definirProximoId(inicio + quantidade);
+            return (int) inicio;
+        });
+    }
+
+    /**
+     * Retorna o maior número entre os IDs com o prefixo (0 se não houver).
+     */
+    private static int ultimoNumero(List<String> ids, String prefixo) {
+        int maior = 0;
+        for (String id : ids) {
+            if (id.startsWith(prefixo)) {
+                try {
+                    maior = Math.max(maior, Integer.parseInt(id.substring(prefixo.length())));
+                } catch (NumberFormatException e) {
+                    // ID fora do padrão: ignora
+                }
+            }
+        }
+        return maior;
+    }
+
+    /**
+     * Verifica se outro processo gravou no arquivo depois da última leitura
+     * deste repositório (os dados na memória podem estar desatualizados).
+     *
+     * @return true se o arquivo foi alterado por outro processo
+     */
+    public boolean alteradoPorOutroProcesso() {
+        return comTrava(false, () -> trava.versao() != versaoConhecida, false);
+    }
+
+    /**
+     * Retorna a versão atual do arquivo (cresce a cada gravação de qualquer processo).
+     *
+     * @return Versão do arquivo, ou -1 em caso de erro
+     */
+    public long versaoArquivo() {
+        return comTrava(false, trava::versao, -1L);
+    }
+
+    /**
+     * Anexa linhas prontas ao final do arquivo, com uma única escrita.
+     */
+    private boolean anexarLinhas(Collection<String> linhas) {
+        if (linhas.isEmpty()) {
             return true;
+        }
+
+        // Monta o texto do lote antes de abrir o arquivo, para gravar de uma vez
+        StringBuilder lote = new StringBuilder();
+        for (String linha : linhas) {
+            lote.append(linha).append(System.lineSeparator());
+        }
+
+        return comTrava(true, () -> {
+            BARREIRA_GRAVACAO.readLock().lock();
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(caminhoArquivo, true))) {
+                writer.write(lote.toString());
+            } catch (IOException e) {
+                System.err.println("Erro ao adicionar no arquivo: " + caminhoArquivo);
+                e.printStackTrace();
+                return false;
+            } finally {
+                BARREIRA_GRAVACAO.readLock().unlock();
+            }
+
+            conhecerLinhas(linhas, false);
+            registrarGravacao();
+            return true;
+        }, false);
+    }
+
+    /**
+     * Grava as linhas em um arquivo temporário e troca o arquivo original por ele.
+     * Se o programa cair no meio, o arquivo original continua inteiro.
+     */
+    private boolean substituirArquivo(List<String> linhas) {
+        Path destino = Paths.get(caminhoArquivo);
+        Path temporario = Paths.get(caminhoArquivo + ".tmp");
+
+        return comTrava(true, () -> {
+            BARREIRA_GRAVACAO.readLock().lock();
+            try {
+                if (!gravarESubstituir(linhas, temporario, destino)) {
+                    return false;
+                }
+            } finally {
+                BARREIRA_GRAVACAO.readLock().unlock();
+            }
 
+            conhecerLinhas(linhas, true);
+            registrarGravacao();
+            return true;
+        }, false);
+    }
+
+    /**
+     * Grava o arquivo temporário e move-o por cima do destino.
+     */
+    private boolean gravarESubstituir(List<String> linhas, Path temporario, Path destino) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temporario.toFile()))) {
+            writer.write(cabecalho);
+            writer.newLine();
+            for (String linha : linhas) {
+                writer.write(linha);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao salvar no arquivo: " + caminhoArquivo);
+            e.printStackTrace();
+            return false;
+        }
+
+        try {
+            try {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
         } catch (IOException e) {
-            System.err.println("Erro ao adicionar no arquivo: " + caminhoArquivo);
+            System.err.println("Erro ao substituir o arquivo: " + caminhoArquivo);
             e.printStackTrace();
             return false;
         }
@@ -148,7 +622,13 @@ public abstract class CSVRepository<T> {
      * @return Lista com todas as entidades do arquivo
      */
     public List<T> buscarTodos() {
+        return comTrava(false, this::lerTodos, new ArrayList<>());
+    }
+
+    private List<T> lerTodos() throws IOException {
         List<T> entidades = new ArrayList<>();
+        List<String> lidas = new ArrayList<>();
+        long versaoLida = trava.versao();
 
         try (BufferedReader reader = new BufferedReader(new FileReader(caminhoArquivo))) {
             // Pula o cabeçalho
@@ -160,6 +640,7 @@ public abstract class CSVRepository<T> {
 
                 // Ignora linhas vazias
                 if (!linha.isEmpty()) {
+                    lidas.add(linha);
                     try {
                         T entidade = fromCSV(linha);
                         entidades.add(entidade);
@@ -176,11 +657,47 @@ public abstract class CSVRepository<T> {
         } catch (IOException e) {
             System.err.println("Erro ao ler arquivo: " + caminhoArquivo);
             e.printStackTrace();
+            return entidades;
         }
 
+        conhecerLinhas(lidas, true);
+        versaoConhecida = versaoLida;
         return entidades;
     }
 
+    /**
+     * Lista os IDs gravados no arquivo, sem converter as linhas em objetos.
+     *
+     * @return IDs na ordem do arquivo
+     */
+    public List<String> listarIds() {
+        return comTrava(false, this::lerIds, new ArrayList<>());
+    }
+
+    private List<String> lerIds() {
+        List<String> ids = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(caminhoArquivo))) {
+            // Pula o cabeçalho
+            String linha = reader.readLine();
+
+            while ((linha = reader.readLine()) != null) {
+                linha = linha.trim();
+                if (!linha.isEmpty()) {
+                    ids.add(idDaLinha(linha));
+                }
+            }
+
+        } catch (FileNotFoundException e) {
+            // Sem arquivo, sem IDs
+        } catch (IOException e) {
+            System.err.println("Erro ao ler arquivo: " + caminhoArquivo);
+            e.printStackTrace();
+        }
+
+        return ids;
+    }
+
     /**
      * Busca uma entidade por ID.
      *
@@ -203,10 +720,155 @@ public abstract class CSVRepository<T> {
      * Atualiza uma entidade existente.
      * Busca pelo ID e substitui os dados.
      *
+     * Se outro processo alterou o mesmo registro depois da última leitura
+     * deste repositório (ou o registro está em conflito), a atualização é
+     * recusada com ConflitoVersaoException (as versões da exceção são as
+     * versões do arquivo) e o registro fica em conflito até recarregar().
+     *
+     * @param entidadeAtualizada Entidade com dados atualizados
+     * @return true se atualizou, false se não encontrou ou erro
+     * @throws ConflitoVersaoException Se o registro foi alterado por outro processo
+     */
+    public boolean atualizar(T entidadeAtualizada) throws ConflitoVersaoException {
+        return atualizar(entidadeAtualizada, entidade -> { });
+    }
+
+    /**
+     * Atualiza uma entidade existente, aplicando antes a mesma alteração na
+     * memória. Tudo acontece com a trava exclusiva do arquivo, nesta ordem:
+     * - verifica se outro processo alterou o registro (senão, lança
+     *   ConflitoVersaoException e nada muda);
+     * - executa a alteração na memória (se ela lançar exceção, o arquivo
+     *   não é alterado);
+     * - grava o registro.
+     *
+     * Um salvamento em segundo plano disparado pela alteração na memória
+     * espera a trava, então não consegue gravar antes da verificação.
+     *
      * @param entidadeAtualizada Entidade com dados atualizados
+     * @param naMemoria Alteração na memória (ex.: academia::atualizarAluno)
      * @return true se atualizou, false se não encontrou ou erro
+     * @throws ConflitoVersaoException Se o registro foi alterado por outro processo
+     * @throws E Exceção lançada pela alteração na memória
      */
-    public boolean atualizar(T entidadeAtualizada) {
+    public <E extends Exception> boolean atualizar(T entidadeAtualizada, AcaoNaMemoria<T, E> naMemoria)
+            throws ConflitoVersaoException, E {
+        ConflitoVersaoException[] conflito = new ConflitoVersaoException[1];
+        Exception[] falhaNaMemoria = new Exception[1];
+
+        // Verificação, memória e gravação com a mesma trava, para nenhuma outra gravação entrar no meio
+        boolean atualizou = comTrava(true, () -> {
+            long versaoAtual = trava.versao();
+            String id = getId(entidadeAtualizada);
+            if (versaoConhecida >= 0 && (versaoAtual != versaoConhecida || idsEmConflito.contains(id))) {
+                String linha = lerLinha(id);
+                if (linha != null && (idsEmConflito.contains(id) || alteradaPorOutro(id, linha))
+                        && !linha.equals(toCSV(entidadeAtualizada))) {
+                    idsEmConflito.add(id);
+                    conflito[0] = new ConflitoVersaoException("Registro " + id + " de " + caminhoArquivo
+                        + " foi alterado por outro computador", versaoConhecida, versaoAtual);
+                    return false;
+                }
+            }
+            try {
+                naMemoria.executar(entidadeAtualizada);
+            } catch (Exception e) {
+                falhaNaMemoria[0] = e;
+                return false;
+            }
+            return atualizarComTrava(entidadeAtualizada);
+        }, false);
+
+        if (conflito[0] != null) {
+            throw conflito[0];
+        }
+        if (falhaNaMemoria[0] != null) {
+            throw this.<E>comoFalha(falhaNaMemoria[0]);
+        }
+        return atualizou;
+    }
+
+    /**
+     * Relê um registro do arquivo e entrega-o para a memória adotar a
+     * versão do arquivo, resolvendo o conflito do registro. A leitura e a
+     * alteração na memória acontecem com a trava exclusiva, então nenhuma
+     * gravação pendente da versão antiga passa por cima do arquivo no meio.
+     *
+     * @param id ID do registro
+     * @param naMemoria Recebe o registro como está no arquivo
+     * @return Registro lido, ou null se não está no arquivo
+     * @throws E Exceção lançada pela alteração na memória
+     */
+    public <E extends Exception> T recarregar(String id, AcaoNaMemoria<T, E> naMemoria) throws E {
+        Exception[] falhaNaMemoria = new Exception[1];
+
+        T lida = comTrava(true, () -> {
+            String linha = lerLinha(id);
+            if (linha == null) {
+                idsEmConflito.remove(id);
+                return null;
+            }
+            T entidade = fromCSV(linha);
+            try {
+                naMemoria.executar(entidade);
+            } catch (Exception e) {
+                falhaNaMemoria[0] = e;
+                return null;
+            }
+            linhasConhecidas.put(id, linha.hashCode());
+            idsEmConflito.remove(id);
+            return entidade;
+        }, null);
+
+        if (falhaNaMemoria[0] != null) {
+            throw this.<E>comoFalha(falhaNaMemoria[0]);
+        }
+        return lida;
+    }
+
+    /**
+     * Retorna os IDs em conflito com outro processo (ver aplicarAlteracoes()).
+     *
+     * @return Cópia dos IDs em conflito
+     */
+    public Set<String> getIdsEmConflito() {
+        return comTrava(false, () -> new HashSet<>(idsEmConflito), new HashSet<>());
+    }
+
+    /**
+     * Relança a exceção da alteração na memória com o tipo declarado.
+     */
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> E comoFalha(Exception falha) {
+        if (falha instanceof RuntimeException) {
+            throw (RuntimeException) falha;
+        }
+        return (E) falha;
+    }
+
+    /**
+     * Lê a linha de um ID no arquivo, sem converter as linhas em objetos.
+     *
+     * @return Linha encontrada, ou null
+     */
+    private String lerLinha(String id) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(caminhoArquivo))) {
+            // Pula o cabeçalho
+            String linha = reader.readLine();
+
+            while ((linha = reader.readLine()) != null) {
+                linha = linha.trim();
+                if (!linha.isEmpty() && idDaLinha(linha).equals(id)) {
+                    return linha;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // Sem arquivo, sem linha
+        }
+        return null;
+    }
+
+    private boolean atualizarComTrava(T entidadeAtualizada) {
         List<T> todas = buscarTodos();
         boolean encontrou = false;
 
@@ -234,6 +896,10 @@ public abstract class CSVRepository<T> {
      * @return true se removeu, false se não encontrou ou erro
      */
     public boolean deletar(String id) {
+        return comTrava(true, () -> deletarComTrava(id), false);
+    }
+
+    private boolean deletarComTrava(String id) {
         List<T> todas = buscarTodos();
         boolean removeu = todas.removeIf(entidade -> getId(entidade).equals(id));
 
@@ -269,14 +935,6 @@ public abstract class CSVRepository<T> {
      * @return true se limpou com sucesso, false em caso de erro
      */
     public boolean limpar() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(caminhoArquivo))) {
-            writer.write(cabecalho);
-            writer.newLine();
-            return true;
-        } catch (IOException e) {
-            System.err.println("Erro ao limpar arquivo: " + caminhoArquivo);
-            e.printStackTrace();
-            return false;
-        }
+        return substituirArquivo(Collections.emptyList());
     }
 }
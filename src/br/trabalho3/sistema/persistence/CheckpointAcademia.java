@@ -0,0 +1,567 @@
+package br.trabalho3.sistema.persistence;
+
+import br.trabalho3.sistema.exceptions.*;
+import br.trabalho3.sistema.model.*;
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Checkpoint binário do estado da academia mais registro das alterações seguintes.
+ * *
+ * O checkpoint é uma imagem binária de todos os dados e contadores da
+ * academia, gravada de tempos em tempos. Entre um checkpoint e outro, cada
+ * alteração (evento) é anexada ao registro. Ao iniciar, o sistema carrega o
+ * checkpoint mais recente e reaplica só as alterações registradas depois
+ * dele, em vez de interpretar os cinco CSVs e resolver todas as referências.
+ *
+ * Cada registro guarda o estado completo da entidade alterada (ou a chave,
+ * nas remoções), então reaplicar é sempre "o último estado vence".
+ *
+ * Formato do registro: [tamanho int][sequência long][tipo byte][entidade byte][dados].
+ * Um registro cortado no final (queda no meio da gravação) é ignorado.
+ *
+ * O checkpoint guarda também as versões dos arquivos CSV no momento em que
+ * foi gravado. Se outro processo gravou nos arquivos depois disso, o
+ * checkpoint não representa mais os dados e não é usado.
+ *
+ */
+public class CheckpointAcademia implements OuvinteEventos {
+
+    private static final int MAGICO = 0x41434B50; // "ACKP"
+    private static final int VERSAO_FORMATO = 3;
+
+    private final Path arquivoCheckpoint;
+    private final Path arquivoRegistro;
+
+    /**
+     * Saída do registro de alterações. Aberta no primeiro uso.
+     */
+    private DataOutputStream registro;
+
+    /**
+     * Protege o arquivo de registro (gravação de eventos e compactação).
+     */
+    private final Object travaRegistro = new Object();
+
+    /**
+     * Fornece as versões atuais dos arquivos CSV (opcional).
+     */
+    private volatile Supplier<String> versoesArquivos = () -> "";
+
+    /**
+     * Construtor completo.
+     *
+     * @param diretorio Pasta onde ficam o checkpoint e o registro
+     */
+    public CheckpointAcademia(Path diretorio) {
+        this.arquivoCheckpoint = diretorio.resolve("academia.ckpt");
+        this.arquivoRegistro = diretorio.resolve("academia.log");
+    }
+
+    /**
+     * Verifica se já existe um checkpoint gravado.
+     *
+     * @return true se existe checkpoint
+     */
+    public boolean existe() {
+        return Files.exists(arquivoCheckpoint);
+    }
+
+    /**
+     * Define de onde vêm as versões dos arquivos CSV, usadas para saber se
+     * outro processo gravou nos arquivos depois do checkpoint.
+     *
+     * @param versoesArquivos Fornecedor das versões (ex.: GerenciadorPersistencia::versoesArquivos)
+     */
+    public void usarVersoesArquivos(Supplier<String> versoesArquivos) {
+        this.versoesArquivos = versoesArquivos;
+    }
+
+    // ========== GRAVAÇÃO ==========
+
+    /**
+     * Grava um checkpoint com o estado atual da academia e descarta do
+     * registro as alterações que ele já inclui.
+     *
+     * @param academia Academia a gravar
+     * @param salvo true se os CSVs já contêm todas as alterações (ex.: ao sair,
+     *              depois do último salvamento)
+     * @throws IOException Se não conseguir gravar
+     */
+    public synchronized void gravar(Academia academia, boolean salvo) throws IOException {
+        EstadoAcademia estado = academia.capturarEstado();
+        SnapshotAcademia dados = estado.getDados();
+
+        Files.createDirectories(arquivoCheckpoint.getParent());
+        Path temporario = arquivoCheckpoint.resolveSibling(arquivoCheckpoint.getFileName() + ".tmp");
+
+        try (DataOutputStream saida = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+            saida.writeInt(MAGICO);
+            saida.writeInt(VERSAO_FORMATO);
+            saida.writeLong(estado.getUltimaSequencia());
+            saida.writeBoolean(salvo);
+            saida.writeUTF(versoesArquivos.get());
+            saida.writeInt(estado.getUltimaMatricula());
+            saida.writeInt(estado.getUltimoPagamento());
+
+            saida.writeInt(dados.getAlunos().size());
+            for (Aluno aluno : dados.getAlunos()) {
+                CodecBinario.escreverAluno(saida, aluno);
+            }
+            saida.writeInt(dados.getInstrutores().size());
+            for (Instrutor instrutor : dados.getInstrutores()) {
+                CodecBinario.escreverInstrutor(saida, instrutor);
+            }
+            saida.writeInt(dados.getPlanos().size());
+            for (Plano plano : dados.getPlanos()) {
+                CodecBinario.escreverPlano(saida, plano);
+            }
+            saida.writeInt(dados.getMatriculas().size());
+            for (Matricula matricula : dados.getMatriculas()) {
+                CodecBinario.escreverMatricula(saida, matricula);
+            }
+            saida.writeInt(dados.getPagamentos().size());
+            for (Pagamento pagamento : dados.getPagamentos()) {
+                CodecBinario.escreverPagamento(saida, pagamento);
+            }
+        }
+
+        mover(temporario, arquivoCheckpoint);
+        compactarRegistro(estado.getUltimaSequencia());
+    }
+
+    /**
+     * Começa a anexar as alterações da academia ao registro.
+     * Deve ser chamado depois de recuperar() (ou da carga inicial).
+     *
+     * @param academia Academia observada
+     * @param intervaloMs Tempo máximo, em milissegundos, que uma alteração
+     *                    espera antes de ser gravada no registro
+     */
+    public void iniciarRegistro(Academia academia, long intervaloMs) {
+        // Sem coalescer: a ordem entre entidades importa (matrícula antes do pagamento)
+        academia.getEventos().inscreverAssincrono(this, intervaloMs, false);
+    }
+
+    /**
+     * Grava as alterações pendentes e para de registrar.
+     *
+     * @param academia Academia observada
+     */
+    public void encerrarRegistro(Academia academia) {
+        academia.getEventos().descarregar();
+        academia.getEventos().cancelar(this);
+        synchronized (travaRegistro) {
+            fecharRegistro();
+        }
+    }
+
+    /**
+     * Anexa os eventos ao registro. Roda na thread de eventos.
+     */
+    @Override
+    public void aoAlterar(List<EventoAcademia> eventos) {
+        synchronized (travaRegistro) {
+            try {
+                if (registro == null) {
+                    Files.createDirectories(arquivoRegistro.getParent());
+                    registro = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(arquivoRegistro.toFile(), true)));
+                }
+                for (EventoAcademia evento : eventos) {
+                    escreverRegistro(registro, evento);
+                }
+                registro.flush();
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar registro de alterações: " + e.getMessage());
+            }
+        }
+    }
+
+    // ========== RECUPERAÇÃO ==========
+
+    /**
+     * Carrega o checkpoint na academia (que deve estar vazia) e reaplica as
+     * alterações registradas depois dele.
+     *
+     * Se o checkpoint foi gravado com salvo = true, os dados carregados são
+     * marcados como já salvos; senão, tudo fica pendente de salvamento, para
+     * que os CSVs recebam o que possa ter ficado só no checkpoint.
+     *
+     * Um checkpoint salvo não é usado se outro processo gravou nos arquivos
+     * depois dele: os arquivos têm dados mais novos. Um checkpoint não salvo
+     * é usado mesmo assim, porque contém alterações que ainda não estão nos
+     * arquivos (o salvamento as mescla com o que o outro processo gravou).
+     *
+     * @param academia Academia a preencher
+     * @return true se havia checkpoint válido e ele foi carregado
+     * @throws IOException Se o checkpoint estiver corrompido ou não puder ser lido
+     */
+    public synchronized boolean recuperar(Academia academia) throws IOException {
+        if (!existe()) {
+            return false;
+        }
+
+        long sequenciaCheckpoint;
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(arquivoCheckpoint)))) {
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO_FORMATO) {
+                throw new IOException("Checkpoint em formato desconhecido: " + arquivoCheckpoint);
+            }
+            sequenciaCheckpoint = entrada.readLong();
+            boolean salvo = entrada.readBoolean();
+            if (!entrada.readUTF().equals(versoesArquivos.get())) {
+                if (salvo) {
+                    System.out.println("Checkpoint desatualizado: arquivos alterados por outro processo");
+                    return false;
+                }
+                System.err.println("Aviso: arquivos alterados por outro processo depois do checkpoint");
+            }
+            academia.setContadores(entrada.readInt(), entrada.readInt());
+
+            carregarDados(entrada, academia);
+            EventoAcademia.avancarSequencia(sequenciaCheckpoint);
+            if (salvo) {
+                academia.getAlteracoes().limpar();
+            }
+        }
+
+        reaplicarRegistro(academia, sequenciaCheckpoint);
+        return true;
+    }
+
+    /**
+     * Lê as listas do checkpoint e inclui tudo na academia em lote.
+     */
+    private void carregarDados(DataInputStream entrada, Academia academia) throws IOException {
+        try {
+            List<Aluno> alunos = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                alunos.add(CodecBinario.lerAluno(entrada));
+            }
+            List<Instrutor> instrutores = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                instrutores.add(CodecBinario.lerInstrutor(entrada));
+            }
+            List<Plano> planos = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                planos.add(CodecBinario.lerPlano(entrada));
+            }
+
+            Map<String, Aluno> alunosPorCpf = new HashMap<>();
+            for (Aluno aluno : alunos) {
+                alunosPorCpf.put(aluno.getCpf(), aluno);
+            }
+            Map<String, Plano> planosPorId = new HashMap<>();
+            for (Plano plano : planos) {
+                planosPorId.put(plano.getId(), plano);
+            }
+
+            List<Matricula> matriculas = new ArrayList<>();
+            Map<String, Matricula> matriculasPorId = new HashMap<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                Matricula matricula = CodecBinario.lerMatricula(entrada, alunosPorCpf::get, planosPorId::get);
+                if (matricula != null) {
+                    matriculas.add(matricula);
+                    matriculasPorId.put(matricula.getId(), matricula);
+                }
+            }
+            List<Pagamento> pagamentos = new ArrayList<>();
+            for (int i = entrada.readInt(); i > 0; i--) {
+                Pagamento pagamento = CodecBinario.lerPagamento(entrada, matriculasPorId::get);
+                if (pagamento != null) {
+                    pagamentos.add(pagamento);
+                }
+            }
+
+            academia.adicionarAlunos(alunos);
+            academia.adicionarInstrutores(instrutores);
+            academia.adicionarPlanos(planos);
+            academia.importarMatriculas(matriculas);
+            academia.importarPagamentos(pagamentos);
+
+        } catch (DadosInvalidosException | MatriculaInvalidaException e) {
+            throw new IOException("Checkpoint inconsistente: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reaplica, em ordem, os registros com sequência maior que a do checkpoint.
+     */
+    private void reaplicarRegistro(Academia academia, long sequenciaCheckpoint) throws IOException {
+        if (!Files.exists(arquivoRegistro)) {
+            return;
+        }
+
+        List<byte[]> pendentes = new ArrayList<>();
+        long maiorSequencia = sequenciaCheckpoint;
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(arquivoRegistro)))) {
+            byte[] corpo;
+            while ((corpo = lerQuadro(entrada)) != null) {
+                long sequencia = lerSequencia(corpo);
+                if (sequencia > sequenciaCheckpoint) {
+                    pendentes.add(corpo);
+                    maiorSequencia = Math.max(maiorSequencia, sequencia);
+                }
+            }
+        }
+
+        // Os novos eventos gerados pela reaplicação devem vir depois dos registrados
+        EventoAcademia.avancarSequencia(maiorSequencia);
+
+        for (byte[] corpo : pendentes) {
+            try {
+                aplicar(academia, new DataInputStream(new ByteArrayInputStream(corpo, 8, corpo.length - 8)));
+            } catch (Exception e) {
+                System.err.println("Erro ao reaplicar alteração: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Aplica um registro na academia, usando os métodos normais da academia
+     * (assim as alterações reaplicadas também ficam pendentes de salvamento).
+     * O registro é a última palavra: a versão cadastrada é ignorada na
+     * alteração e depois recebe a versão registrada.
+     */
+    private void aplicar(Academia academia, DataInputStream entrada) throws Exception {
+        EventoAcademia.Tipo tipo = EventoAcademia.Tipo.values()[entrada.readByte()];
+        EventoAcademia.Entidade entidade = EventoAcademia.Entidade.values()[entrada.readByte()];
+
+        if (tipo == EventoAcademia.Tipo.REMOVIDO) {
+            String chave = CodecBinario.lerTexto(entrada);
+            switch (entidade) {
+                case ALUNO:
+                    academia.removerAluno(chave);
+                    break;
+                case INSTRUTOR:
+                    academia.removerInstrutor(chave);
+                    break;
+                case PLANO:
+                    academia.removerPlano(chave);
+                    break;
+                case MATRICULA:
+                    academia.removerMatricula(chave);
+                    break;
+                case PAGAMENTO:
+                    academia.removerPagamento(chave);
+                    break;
+            }
+            return;
+        }
+
+        switch (entidade) {
+            case ALUNO: {
+                Aluno aluno = CodecBinario.lerAluno(entrada);
+                Aluno atual = buscarOuNull(() -> academia.buscarAlunoPorCpf(aluno.getCpf()));
+                if (atual == null) {
+                    academia.adicionarAluno(aluno);
+                } else {
+                    long versao = aluno.getVersao();
+                    aluno.setVersao(atual.getVersao());
+                    academia.atualizarAluno(aluno);
+                    aluno.setVersao(versao);
+                }
+                break;
+            }
+            case INSTRUTOR: {
+                Instrutor instrutor = CodecBinario.lerInstrutor(entrada);
+                Instrutor atual = buscarOuNull(() -> academia.buscarInstrutorPorCpf(instrutor.getCpf()));
+                if (atual == null) {
+                    academia.adicionarInstrutor(instrutor);
+                } else {
+                    long versao = instrutor.getVersao();
+                    instrutor.setVersao(atual.getVersao());
+                    academia.atualizarInstrutor(instrutor);
+                    instrutor.setVersao(versao);
+                }
+                break;
+            }
+            case PLANO: {
+                Plano plano = CodecBinario.lerPlano(entrada);
+                Plano atual = buscarOuNull(() -> academia.buscarPlanoPorId(plano.getId()));
+                if (atual == null) {
+                    academia.adicionarPlano(plano);
+                } else {
+                    long versao = plano.getVersao();
+                    plano.setVersao(atual.getVersao());
+                    academia.atualizarPlano(plano);
+                    plano.setVersao(versao);
+                }
+                break;
+            }
+            case MATRICULA: {
+                Matricula matricula = CodecBinario.lerMatricula(entrada,
+                    cpf -> buscarOuNull(() -> academia.buscarAlunoPorCpf(cpf)),
+                    id -> buscarOuNull(() -> academia.buscarPlanoPorId(id)));
+                if (matricula == null) {
+                    return;
+                }
+                Matricula atual = buscarOuNull(() -> academia.buscarMatriculaPorId(matricula.getId()));
+                if (atual != null) {
+                    academia.definirStatusMatricula(matricula.getId(), matricula.getStatus());
+                    atual.setVersao(matricula.getVersao());
+                } else {
+                    academia.importarMatriculas(Collections.singletonList(matricula));
+                }
+                break;
+            }
+            case PAGAMENTO: {
+                Pagamento pagamento = CodecBinario.lerPagamento(entrada,
+                    id -> buscarOuNull(() -> academia.buscarMatriculaPorId(id)));
+                if (pagamento == null) {
+                    return;
+                }
+                Pagamento atual = buscarOuNull(() -> academia.buscarPagamentoPorId(pagamento.getId()));
+                if (atual != null) {
+                    academia.definirStatusPagamento(pagamento.getId(), pagamento.getStatus());
+                    atual.setVersao(pagamento.getVersao());
+                } else {
+                    academia.importarPagamentos(Collections.singletonList(pagamento));
+                }
+                break;
+            }
+        }
+    }
+
+    // ========== REGISTRO ==========
+
+    /**
+     * Grava um evento como um quadro do registro.
+     */
+    private static void escreverRegistro(DataOutputStream saida, EventoAcademia evento) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream corpo = new DataOutputStream(bytes);
+        corpo.writeLong(evento.getSequencia());
+        corpo.writeByte(evento.getTipo().ordinal());
+        corpo.writeByte(evento.getEntidade().ordinal());
+
+        if (evento.getTipo() == EventoAcademia.Tipo.REMOVIDO) {
+            CodecBinario.escreverTexto(corpo, evento.getChave());
+        } else {
+            switch (evento.getEntidade()) {
+                case ALUNO:
+                    CodecBinario.escreverAluno(corpo, evento.getObjeto(Aluno.class));
+                    break;
+                case INSTRUTOR:
+                    CodecBinario.escreverInstrutor(corpo, evento.getObjeto(Instrutor.class));
+                    break;
+                case PLANO:
+                    CodecBinario.escreverPlano(corpo, evento.getObjeto(Plano.class));
+                    break;
+                case MATRICULA:
+                    CodecBinario.escreverMatricula(corpo, evento.getObjeto(Matricula.class));
+                    break;
+                case PAGAMENTO:
+                    CodecBinario.escreverPagamento(corpo, evento.getObjeto(Pagamento.class));
+                    break;
+            }
+        }
+
+        saida.writeInt(bytes.size());
+        bytes.writeTo(saida);
+    }
+
+    /**
+     * Lê o próximo quadro do registro.
+     *
+     * @return Corpo do quadro (começando pela sequência), ou null no fim
+     *         do arquivo ou em um quadro cortado
+     */
+    private static byte[] lerQuadro(DataInputStream entrada) throws IOException {
+        int tamanho;
+        try {
+            tamanho = entrada.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (tamanho < 8) {
+            return null;
+        }
+        byte[] corpo = new byte[tamanho];
+        try {
+            entrada.readFully(corpo);
+        } catch (EOFException e) {
+            return null; // Gravação interrompida
+        }
+        return corpo;
+    }
+
+    private static long lerSequencia(byte[] corpo) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(corpo, 0, 8)).readLong();
+    }
+
+    /**
+     * Reescreve o registro mantendo só os quadros depois do checkpoint.
+     */
+    private void compactarRegistro(long sequenciaCheckpoint) throws IOException {
+        synchronized (travaRegistro) {
+            fecharRegistro();
+            if (!Files.exists(arquivoRegistro)) {
+                return;
+            }
+
+            Path temporario = arquivoRegistro.resolveSibling(arquivoRegistro.getFileName() + ".tmp");
+            try (DataInputStream entrada = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(arquivoRegistro)));
+                 DataOutputStream saida = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporario)))) {
+                byte[] corpo;
+                while ((corpo = lerQuadro(entrada)) != null) {
+                    if (lerSequencia(corpo) > sequenciaCheckpoint) {
+                        saida.writeInt(corpo.length);
+                        saida.write(corpo);
+                    }
+                }
+            }
+            mover(temporario, arquivoRegistro);
+        }
+    }
+
+    private void fecharRegistro() {
+        if (registro != null) {
+            try {
+                registro.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar registro de alterações: " + e.getMessage());
+            }
+            registro = null;
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    /**
+     * Busca na academia, trocando a exceção de "não encontrado" por null.
+     */
+    private interface Busca<T> {
+        T buscar() throws Exception;
+    }
+
+    private static <T> T buscarOuNull(Busca<T> busca) {
+        try {
+            return busca.buscar();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void mover(Path origem, Path destino) throws IOException {
+        try {
+            Files.move(origem, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(origem, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package br.trabalho3.sistema.persistence;
+
+import br.trabalho3.sistema.model.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Conversão das entidades da academia para um formato binário compacto.
+ * *
+ * Usado pelo checkpoint e pelo registro de alterações. As referências entre
+ * entidades (aluno e plano da matrícula, matrícula do pagamento) são gravadas
+ * pela chave e resolvidas na leitura, como no CSV, mas sem texto para
+ * interpretar: números e datas vão em binário.
+ *
+ * A versão de cada registro (controle de concorrência otimista) é gravada
+ * junto, para continuar valendo depois de reiniciar.
+ *
+ */
+final class CodecBinario {
+
+    private static final byte PLANO_COMUM = 0;
+    private static final byte PLANO_PREMIUM = 1;
+    private static final byte PLANO_ESTUDANTE = 2;
+
+    private CodecBinario() {
+    }
+
+    // ========== PESSOAS ==========
+
+    static void escreverAluno(DataOutput saida, Aluno aluno) throws IOException {
+        escreverPessoa(saida, aluno);
+        escreverTexto(saida, aluno.getMatriculaId());
+        saida.writeLong(aluno.getVersao());
+    }
+
+    static Aluno lerAluno(DataInput entrada) throws IOException {
+        Aluno aluno = new Aluno(lerTexto(entrada), lerTexto(entrada), lerTexto(entrada), lerTexto(entrada),
+            lerTexto(entrada));
+        aluno.setVersao(entrada.readLong());
+        return aluno;
+    }
+
+    static void escreverInstrutor(DataOutput saida, Instrutor instrutor) throws IOException {
+        escreverPessoa(saida, instrutor);
+        escreverTexto(saida, instrutor.getEspecialidade());
+        escreverTexto(saida, instrutor.getCref());
+        saida.writeLong(instrutor.getVersao());
+    }
+
+    static Instrutor lerInstrutor(DataInput entrada) throws IOException {
+        Instrutor instrutor = new Instrutor(lerTexto(entrada), lerTexto(entrada), lerTexto(entrada),
+            lerTexto(entrada), lerTexto(entrada), lerTexto(entrada));
+        instrutor.setVersao(entrada.readLong());
+        return instrutor;
+    }
+
+    private static void escreverPessoa(DataOutput saida, Pessoa pessoa) throws IOException {
+        escreverTexto(saida, pessoa.getCpf());
+        escreverTexto(saida, pessoa.getNome());
+        escreverTexto(saida, pessoa.getTelefone());
+        escreverTexto(saida, pessoa.getEmail());
+    }
+
+    // ========== PLANOS ==========
+
+    static void escreverPlano(DataOutput saida, Plano plano) throws IOException {
+        if (plano instanceof PlanoPremium) {
+            saida.writeByte(PLANO_PREMIUM);
+        } else if (plano instanceof PlanoEstudante) {
+            saida.writeByte(PLANO_ESTUDANTE);
+        } else {
+            saida.writeByte(PLANO_COMUM);
+        }
+        escreverTexto(saida, plano.getId());
+        escreverTexto(saida, plano.getNome());
+        saida.writeDouble(plano.getPrecoBase());
+        saida.writeInt(plano.getDuracao());
+        saida.writeLong(plano.getVersao());
+    }
+
+    static Plano lerPlano(DataInput entrada) throws IOException {
+        byte tipo = entrada.readByte();
+        String id = lerTexto(entrada);
+        String nome = lerTexto(entrada);
+        double precoBase = entrada.readDouble();
+        int duracao = entrada.readInt();
+
+        Plano plano;
+        switch (tipo) {
+            case PLANO_PREMIUM:
+                plano = new PlanoPremium(id, nome, precoBase, duracao);
+                break;
+            case PLANO_ESTUDANTE:
+                plano = new PlanoEstudante(id, nome, precoBase, duracao);
+                break;
+            default:
+                plano = new PlanoComum(id, nome, precoBase, duracao);
+        }
+        plano.setVersao(entrada.readLong());
+        return plano;
+    }
+
+    // ========== MATRÍCULAS ==========
+
+    static void escreverMatricula(DataOutput saida, Matricula matricula) throws IOException {
+        escreverTexto(saida, matricula.getId());
+        escreverTexto(saida, matricula.getAluno().getCpf());
+        escreverTexto(saida, matricula.getPlano() != null ? matricula.getPlano().getId() : null);
+        escreverData(saida, matricula.getDataInicio());
+        escreverData(saida, matricula.getDataFim());
+        saida.writeByte(matricula.getStatus().ordinal());
+        saida.writeDouble(matricula.getValorMensal());
+        saida.writeLong(matricula.getVersao());
+    }
+
+    /**
+     * Lê uma matrícula, resolvendo aluno e plano pela chave.
+     *
+     * @return Matrícula lida, ou null se o aluno não existir mais
+     */
+    static Matricula lerMatricula(DataInput entrada, Function<String, Aluno> alunos,
+                                  Function<String, Plano> planos) throws IOException {
+        String id = lerTexto(entrada);
+        String cpfAluno = lerTexto(entrada);
+        String idPlano = lerTexto(entrada);
+        Date dataInicio = lerData(entrada);
+        Date dataFim = lerData(entrada);
+        StatusMatricula status = StatusMatricula.values()[entrada.readByte()];
+        double valorMensal = entrada.readDouble();
+        long versao = entrada.readLong();
+
+        Aluno aluno = alunos.apply(cpfAluno);
+        if (aluno == null) {
+            return null;
+        }
+        Plano plano = idPlano != null ? planos.apply(idPlano) : null;
+        Matricula matricula = new Matricula(id, aluno, plano, dataInicio, dataFim, status, valorMensal);
+        matricula.setVersao(versao);
+        return matricula;
+    }
+
+    // ========== PAGAMENTOS ==========
+
+    static void escreverPagamento(DataOutput saida, Pagamento pagamento) throws IOException {
+        escreverTexto(saida, pagamento.getId());
+        escreverTexto(saida, pagamento.getMatricula().getId());
+        FormaPagamento forma = pagamento.getFormaPagamento();
+        saida.writeByte(FormaPagamento.codificar(forma));
+        escreverTexto(saida, forma instanceof PagamentoCartao ? ((PagamentoCartao) forma).getTipoCartao() : null);
+        saida.writeDouble(pagamento.getValor());
+        escreverData(saida, pagamento.getDataPagamento());
+        saida.writeByte(pagamento.getStatus().ordinal());
+        saida.writeLong(pagamento.getVersao());
+    }
+
+    /**
+     * Lê um pagamento, resolvendo a matrícula pelo ID.
+     *
+     * @return Pagamento lido, ou null se a matrícula não existir mais
+     */
+    static Pagamento lerPagamento(DataInput entrada, Function<String, Matricula> matriculas) throws IOException {
+        String id = lerTexto(entrada);
+        String idMatricula = lerTexto(entrada);
+        byte codigoForma = entrada.readByte();
+        String tipoCartao = lerTexto(entrada);
+        double valor = entrada.readDouble();
+        Date dataPagamento = lerData(entrada);
+        StatusPagamento status = StatusPagamento.values()[entrada.readByte()];
+        long versao = entrada.readLong();
+
+        Matricula matricula = matriculas.apply(idMatricula);
+        if (matricula == null) {
+            return null;
+        }
+        FormaPagamento forma = tipoCartao != null
+            ? new PagamentoCartao(tipoCartao)
+            : FormaPagamento.decodificar(codigoForma);
+        Pagamento pagamento = new Pagamento(id, matricula, forma, valor, dataPagamento, status);
+        pagamento.setVersao(versao);
+        return pagamento;
+    }
+
+    // ========== TIPOS BÁSICOS ==========
+
+    static void escreverTexto(DataOutput saida, String texto) throws IOException {
+        saida.writeBoolean(texto != null);
+        if (texto != null) {
+            saida.writeUTF(texto);
+        }
+    }
+
+    static String lerTexto(DataInput entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+
+    private static void escreverData(DataOutput saida, Date data) throws IOException {
+        saida.writeLong(data != null ? data.getTime() : Long.MIN_VALUE);
+    }
+
+    private static Date lerData(DataInput entrada) throws IOException {
+        long tempo = entrada.readLong();
+        return tempo != Long.MIN_VALUE ? new Date(tempo) : null;
+    }
+}
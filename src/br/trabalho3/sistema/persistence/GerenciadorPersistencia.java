@@ -0,0 +1,229 @@
+package br.trabalho3.sistema.persistence;
+
+import br.trabalho3.sistema.exceptions.ConflitoVersaoException;
+import br.trabalho3.sistema.model.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Salva nos arquivos CSV apenas o que mudou na academia.
+ * *
+ * Usa o RastreadorAlteracoes da Academia para saber quais entidades foram
+ * incluídas, alteradas ou removidas desde o último salvamento, e aplica
+ * essas alterações em cada repositório com aplicarAlteracoes(). Arquivos
+ * de tipos que não mudaram nem são abertos.
+ *
+ * Se outro processo usa a mesma pasta de dados, os repositórios mesclam
+ * as gravações (ver CSVRepository). Configurado como GeradorIds da
+ * Academia, reserva os números de IDs de matrículas e pagamentos com a
+ * trava exclusiva dos arquivos, então dois processos nunca usam o mesmo ID
+ * para registros diferentes. Depois de cada salvamento os contadores em
+ * memória também são avançados para depois dos IDs gravados.
+ *
+ */
+public class GerenciadorPersistencia implements GeradorIds {
+
+    private final Academia academia;
+    private final AlunoRepository alunoRepo;
+    private final InstrutorRepository instrutorRepo;
+    private final PlanoRepository planoRepo;
+    private final MatriculaRepository matriculaRepo;
+    private final PagamentoRepository pagamentoRepo;
+
+    /**
+     * Versões dos arquivos de matrículas e pagamentos na última vez que os
+     * contadores de IDs foram sincronizados.
+     */
+    private String versoesContadores;
+
+    /**
+     * Construtor completo.
+     *
+     * @param academia Academia cujas alterações serão salvas
+     * @param alunoRepo Repositório de alunos
+     * @param instrutorRepo Repositório de instrutores
+     * @param planoRepo Repositório de planos
+     * @param matriculaRepo Repositório de matrículas
+     * @param pagamentoRepo Repositório de pagamentos
+     */
+    public GerenciadorPersistencia(Academia academia, AlunoRepository alunoRepo,
+                                   InstrutorRepository instrutorRepo, PlanoRepository planoRepo,
+                                   MatriculaRepository matriculaRepo, PagamentoRepository pagamentoRepo) {
+        this.academia = academia;
+        this.alunoRepo = alunoRepo;
+        this.instrutorRepo = instrutorRepo;
+        this.planoRepo = planoRepo;
+        this.matriculaRepo = matriculaRepo;
+        this.pagamentoRepo = pagamentoRepo;
+    }
+
+    /**
+     * Marca os dados atuais como salvos.
+     * Deve ser chamado logo depois de carregar os arquivos para a memória.
+     */
+    public void marcarComoSalvo() {
+        academia.getAlteracoes().limpar();
+    }
+
+    /**
+     * Verifica se há alterações ainda não salvas.
+     *
+     * @return true se algo mudou desde o último salvamento
+     */
+    public boolean temAlteracoes() {
+        return academia.getAlteracoes().temAlteracoes();
+    }
+
+    /**
+     * Salva as alterações pendentes.
+     *
+     * Cada tipo de entidade é salvo no seu arquivo; se um arquivo falhar,
+     * as alterações dele voltam para o rastreador e serão tentadas de novo
+     * no próximo salvamento.
+     *
+     * Registros alterados aqui e também por outro computador não são
+     * gravados: o arquivo mantém a versão do outro computador e as
+     * alterações desses registros continuam pendentes no rastreador até o
+     * conflito ser resolvido (ver CSVRepository.recarregar()).
+     *
+     * @return true se todas as alterações foram salvas
+     */
+    public synchronized boolean salvarAlteracoes() {
+        RastreadorAlteracoes rastreador = academia.getAlteracoes();
+        boolean sucesso = true;
+
+        for (Map.Entry<EventoAcademia.Entidade, List<EventoAcademia>> entrada : rastreador.retirar().entrySet()) {
+            boolean salvou;
+            try {
+                salvou = aplicar(entrada.getKey(), entrada.getValue());
+            } catch (ConflitoVersaoException e) {
+                // O restante já foi gravado; só os registros em conflito ficam pendentes
+                System.err.println("Conflito ao salvar " + entrada.getKey() + ": " + e.getMessage());
+                Set<String> emConflito = repositorio(entrada.getKey()).getIdsEmConflito();
+                List<EventoAcademia> pendentes = new ArrayList<>();
+                for (EventoAcademia evento : entrada.getValue()) {
+                    if (emConflito.contains(evento.getChave())) {
+                        pendentes.add(evento);
+                    }
+                }
+                rastreador.devolver(pendentes);
+                sucesso = false;
+                continue;
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao salvar " + entrada.getKey() + ": " + e.getMessage());
+                salvou = false;
+            }
+            if (!salvou) {
+                rastreador.devolver(entrada.getValue());
+                sucesso = false;
+            }
+        }
+
+        sincronizarContadores();
+        return sucesso;
+    }
+
+    /**
+     * Se os arquivos de matrículas ou pagamentos mudaram desde a última
+     * sincronização (inclusive por outro processo), avança os
+     * contadores de IDs da academia para depois dos IDs dele.
+     */
+    public synchronized void sincronizarContadores() {
+        String versoes = matriculaRepo.versaoArquivo() + "," + pagamentoRepo.versaoArquivo();
+        if (!versoes.equals(versoesContadores)) {
+            academia.avancarContadores(matriculaRepo.listarIds(), pagamentoRepo.listarIds());
+            versoesContadores = versoes;
+        }
+    }
+
+    /**
+     * Reserva números de IDs no arquivo de matrículas ("MAT") ou de
+     * pagamentos ("PAG"), com a trava exclusiva do arquivo.
+     */
+    @Override
+    public int reservar(String prefixo, int minimo, int quantidade) throws IOException {
+        switch (prefixo) {
+            case "MAT":
+                return matriculaRepo.reservarIds(prefixo, minimo, quantidade);
+            case "PAG":
+                return pagamentoRepo.reservarIds(prefixo, minimo, quantidade);
+            default:
+                throw new IllegalArgumentException("Prefixo de ID desconhecido: " + prefixo);
+        }
+    }
+
+    /**
+     * Retorna as versões atuais dos arquivos de dados, em uma única linha.
+     * Se outro processo gravar em algum arquivo, o texto muda.
+     *
+     * @return Versões dos arquivos (ex.: "3,1,2,5,8")
+     */
+    public String versoesArquivos() {
+        return alunoRepo.versaoArquivo() + "," + instrutorRepo.versaoArquivo() + ","
+            + planoRepo.versaoArquivo() + "," + matriculaRepo.versaoArquivo() + ","
+            + pagamentoRepo.versaoArquivo();
+    }
+
+    /**
+     * Retorna o repositório de um tipo de entidade.
+     */
+    private CSVRepository<?> repositorio(EventoAcademia.Entidade entidade) {
+        switch (entidade) {
+            case ALUNO:
+                return alunoRepo;
+            case INSTRUTOR:
+                return instrutorRepo;
+            case PLANO:
+                return planoRepo;
+            case MATRICULA:
+                return matriculaRepo;
+            case PAGAMENTO:
+                return pagamentoRepo;
+            default:
+                throw new IllegalArgumentException("Entidade desconhecida: " + entidade);
+        }
+    }
+
+    /**
+     * Aplica as alterações de um tipo de entidade no repositório correspondente.
+     */
+    private boolean aplicar(EventoAcademia.Entidade entidade, List<EventoAcademia> alteracoes)
+            throws ConflitoVersaoException {
+        switch (entidade) {
+            case ALUNO:
+                return aplicar(alunoRepo, Aluno.class, alteracoes);
+            case INSTRUTOR:
+                return aplicar(instrutorRepo, Instrutor.class, alteracoes);
+            case PLANO:
+                return aplicar(planoRepo, Plano.class, alteracoes);
+            case MATRICULA:
+                return aplicar(matriculaRepo, Matricula.class, alteracoes);
+            case PAGAMENTO:
+                return aplicar(pagamentoRepo, Pagamento.class, alteracoes);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Separa as alterações em entidades salvas e IDs removidos e aplica no repositório.
+     */
+    private static <T> boolean aplicar(CSVRepository<T> repositorio, Class<T> classe,
+                                       List<EventoAcademia> alteracoes)
+            throws ConflitoVersaoException {
+        List<T> salvas = new ArrayList<>();
+        List<String> removidos = new ArrayList<>();
+
+        for (EventoAcademia evento : alteracoes) {
+            if (evento.getTipo() == EventoAcademia.Tipo.REMOVIDO) {
+                removidos.add(evento.getChave());
+            } else {
+                salvas.add(evento.getObjeto(classe));
+            }
+        }
+        return repositorio.aplicarAlteracoes(salvas, removidos);
+    }
+}
@@ -0,0 +1,209 @@
+package br.trabalho3.sistema.persistence;
+
+import br.trabalho3.sistema.model.Academia;
+import br.trabalho3.sistema.model.EventoAcademia;
+import br.trabalho3.sistema.model.OuvinteEventos;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Salva as alterações da academia em segundo plano.
+ * *
+ * As alterações pendentes são gravadas a cada N segundos ou assim que
+ * M alterações se acumulam, o que acontecer primeiro. Assim, em caso de
+ * queda, perde-se no máximo o que mudou nesse intervalo.
+ *
+ * Os salvamentos rodam em uma thread própria ("salvamento-automatico"),
+ * nunca na thread da interface. Pedidos que chegam enquanto um salvamento
+ * já está na fila são combinados em um só: o salvamento pega todas as
+ * alterações acumuladas até o momento em que começa.
+ *
+ * Opcionalmente, a cada K salvamentos é gravado também um checkpoint
+ * (ver CheckpointAcademia), e outro ao encerrar, para acelerar a próxima
+ * inicialização.
+ *
+ */
+public class SalvamentoAutomatico implements OuvinteEventos {
+
+    private final Academia academia;
+    private final GerenciadorPersistencia persistencia;
+    private final int limiteAlteracoes;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * Alterações recebidas desde o último salvamento.
+     */
+    private final AtomicInteger alteracoesDesdeUltimo;
+
+    /**
+     * Indica que já existe um salvamento na fila (para combinar pedidos).
+     */
+    private final AtomicBoolean salvamentoNaFila;
+
+    /**
+     * Checkpoint gravado periodicamente (opcional).
+     */
+    private volatile CheckpointAcademia checkpoint;
+    private volatile int salvamentosPorCheckpoint;
+
+    /**
+     * Salvamentos desde o último checkpoint. Só usado na thread de salvamento.
+     */
+    private int salvamentosDesdeCheckpoint;
+
+    /**
+     * Cria e inicia o salvamento automático.
+     *
+     * @param academia Academia observada
+     * @param persistencia Gerenciador que grava as alterações
+     * @param intervaloSegundos Intervalo máximo entre salvamentos (N)
+     * @param limiteAlteracoes Quantidade de alterações que dispara um salvamento (M)
+     */
+    public SalvamentoAutomatico(Academia academia, GerenciadorPersistencia persistencia,
+                                int intervaloSegundos, int limiteAlteracoes) {
+        if (intervaloSegundos <= 0 || limiteAlteracoes <= 0) {
+            throw new IllegalArgumentException("Intervalo e limite de alterações devem ser maiores que zero");
+        }
+        this.academia = academia;
+        this.persistencia = persistencia;
+        this.limiteAlteracoes = limiteAlteracoes;
+        this.alteracoesDesdeUltimo = new AtomicInteger();
+        this.salvamentoNaFila = new AtomicBoolean();
+        this.executor = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "salvamento-automatico");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        academia.getEventos().inscrever(this);
+        executor.scheduleWithFixedDelay(this::pedirSalvamento,
+            intervaloSegundos, intervaloSegundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Passa a gravar um checkpoint a cada K salvamentos e ao encerrar.
+     *
+     * @param checkpoint Checkpoint a gravar
+     * @param salvamentosPorCheckpoint Quantidade de salvamentos entre checkpoints (K)
+     */
+    public void configurarCheckpoint(CheckpointAcademia checkpoint, int salvamentosPorCheckpoint) {
+        if (salvamentosPorCheckpoint <= 0) {
+            throw new IllegalArgumentException("Salvamentos por checkpoint deve ser maior que zero");
+        }
+        this.salvamentosPorCheckpoint = salvamentosPorCheckpoint;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Conta as alterações e pede um salvamento ao atingir o limite.
+     * Roda na thread que alterou a academia, então só agenda e retorna.
+     */
+    @Override
+    public void aoAlterar(List<EventoAcademia> eventos) {
+        if (alteracoesDesdeUltimo.addAndGet(eventos.size()) >= limiteAlteracoes) {
+            pedirSalvamento();
+        }
+    }
+
+    /**
+     * Pede um salvamento imediato e espera ele terminar.
+     * Útil ao sair do sistema.
+     *
+     * @return true se todas as alterações foram salvas
+     */
+    public boolean salvarAgora() {
+        try {
+            Future<Boolean> resultado = executor.submit(this::salvar);
+            return resultado.get();
+        } catch (RejectedExecutionException e) {
+            return persistencia.salvarAlteracoes(); // Já encerrado: salva nesta thread
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            System.err.println("Erro ao salvar dados: " + e.getCause().getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Para o salvamento automático, gravando antes o que estiver pendente.
+     * Se houver checkpoint configurado e tudo foi salvo, grava um checkpoint
+     * final marcado como já salvo nos arquivos.
+     *
+     * @return true se todas as alterações foram salvas
+     */
+    public boolean encerrar() {
+        academia.getEventos().cancelar(this);
+        boolean salvou = salvarAgora();
+        executor.shutdown();
+        if (salvou) {
+            gravarCheckpoint(true);
+        }
+        return salvou;
+    }
+
+    /**
+     * Coloca um salvamento na fila, se ainda não houver um esperando.
+     */
+    private void pedirSalvamento() {
+        if (salvamentoNaFila.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::salvar);
+            } catch (RejectedExecutionException e) {
+                salvamentoNaFila.set(false); // Encerrado
+            }
+        }
+    }
+
+    /**
+     * Grava as alterações pendentes. Roda na thread de salvamento.
+     */
+    private boolean salvar() {
+        // Libera novos pedidos antes de retirar as alterações: o que chegar
+        // depois deste ponto será gravado pelo próximo salvamento
+        salvamentoNaFila.set(false);
+        alteracoesDesdeUltimo.set(0);
+
+        if (!persistencia.temAlteracoes()) {
+            return true;
+        }
+        boolean salvou;
+        try {
+            salvou = persistencia.salvarAlteracoes();
+        } catch (RuntimeException e) {
+            System.err.println("Erro no salvamento automático: " + e.getMessage());
+            return false;
+        }
+
+        if (salvou && checkpoint != null && ++salvamentosDesdeCheckpoint >= salvamentosPorCheckpoint) {
+            salvamentosDesdeCheckpoint = 0;
+            gravarCheckpoint(false);
+        }
+        return salvou;
+    }
+
+    /**
+     * Grava o checkpoint, se configurado. Falhas só são registradas: os
+     * arquivos CSV continuam sendo a cópia completa dos dados.
+     */
+    private void gravarCheckpoint(boolean salvo) {
+        CheckpointAcademia atual = checkpoint;
+        if (atual == null) {
+            return;
+        }
+        try {
+            atual.gravar(academia, salvo);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao gravar checkpoint: " + e.getMessage());
+        }
+    }
+}
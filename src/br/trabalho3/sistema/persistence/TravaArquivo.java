@@ -0,0 +1,197 @@
+package br.trabalho3.sistema.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Trava de um arquivo de dados entre processos (ex.: dois computadores
+ * usando a mesma pasta dados/ pela rede).
+ * *
+ * A trava é feita em um arquivo ao lado do arquivo de dados (ex.:
+ * alunos.csv.lock), e não no próprio arquivo, porque o arquivo de dados é
+ * substituído por outro a cada reescrita. Leituras usam trava
+ * compartilhada; gravações usam trava exclusiva.
+ *
+ * O arquivo de trava também guarda a versão do arquivo de dados: um número
+ * que cresce a cada gravação, de qualquer processo. Comparando a versão
+ * atual com a última que viu, um repositório descobre se outro processo
+ * gravou no arquivo.
+ *
+ * Logo depois da versão fica o próximo número livre para IDs novos (usado
+ * pelas matrículas e pagamentos, que têm IDs sequenciais). Como só é
+ * lido e incrementado com a trava exclusiva, dois processos nunca recebem
+ * o mesmo número.
+ *
+ * Travas de arquivo valem para o processo inteiro, então, dentro do mesmo
+ * processo, as threads também se revezam em uma trava comum. A trava é
+ * reentrante: uma gravação pode chamar outra operação do mesmo arquivo.
+ *
+ */
+final class TravaArquivo {
+
+    /**
+     * Uma trava por arquivo, compartilhada por todos os repositórios do processo.
+     */
+    private static final ConcurrentHashMap<Path, TravaArquivo> TRAVAS = new ConcurrentHashMap<>();
+
+    /**
+     * Posições, no arquivo de trava, da versão e do próximo número de ID.
+     */
+    private static final int POSICAO_VERSAO = 0;
+    private static final int POSICAO_PROXIMO_ID = Long.BYTES;
+
+    /**
+     * Operação executada com a trava.
+     */
+    interface Acao<R> {
+        R executar() throws IOException;
+    }
+
+    private final Path arquivo;
+    private final ReentrantLock local = new ReentrantLock();
+
+    /**
+     * Canal do arquivo de trava enquanto a trava está com este processo.
+     * Só é acessado por quem segura a trava local.
+     */
+    private FileChannel canal;
+    private boolean exclusiva;
+
+    private TravaArquivo(Path arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    /**
+     * Retorna a trava do arquivo de dados informado.
+     *
+     * @param caminhoArquivo Caminho do arquivo de dados
+     * @return Trava do arquivo
+     */
+    static TravaArquivo de(String caminhoArquivo) {
+        Path caminho = Paths.get(caminhoArquivo + ".lock").toAbsolutePath().normalize();
+        return TRAVAS.computeIfAbsent(caminho, TravaArquivo::new);
+    }
+
+    /**
+     * Executa uma leitura com trava compartilhada.
+     */
+    <R> R compartilhada(Acao<R> acao) throws IOException {
+        return executar(false, acao);
+    }
+
+    /**
+     * Executa uma gravação com trava exclusiva.
+     */
+    <R> R exclusiva(Acao<R> acao) throws IOException {
+        return executar(true, acao);
+    }
+
+    private <R> R executar(boolean exclusivaPedida, Acao<R> acao) throws IOException {
+        local.lock();
+        try {
+            if (canal != null) {
+                // Chamada de dentro de outra operação deste mesmo arquivo
+                if (exclusivaPedida && !exclusiva) {
+                    throw new IllegalStateException("Gravação dentro de uma leitura: " + arquivo);
+                }
+                return acao.executar();
+            }
+
+            Path diretorio = arquivo.getParent();
+            if (diretorio != null) {
+                Files.createDirectories(diretorio);
+            }
+            try (FileChannel aberto = FileChannel.open(arquivo, StandardOpenOption.CREATE,
+                     StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock trava = aberto.lock(0, Long.MAX_VALUE, !exclusivaPedida);
+                try {
+                    canal = aberto;
+                    exclusiva = exclusivaPedida;
+                    return acao.executar();
+                } finally {
+                    canal = null;
+                    trava.release();
+                }
+            }
+        } finally {
+            local.unlock();
+        }
+    }
+
+    /**
+     * Lê a versão atual do arquivo de dados. Só pode ser chamado com a trava.
+     *
+     * @return Versão (0 se o arquivo nunca foi gravado com trava)
+     */
+    long versao() throws IOException {
+        verificarTrava(false);
+        return lerNumero(POSICAO_VERSAO);
+    }
+
+    /**
+     * Marca uma nova gravação: incrementa a versão. Só pode ser chamado com a trava exclusiva.
+     *
+     * @return Nova versão
+     */
+    long incrementarVersao() throws IOException {
+        verificarTrava(true);
+        long nova = versao() + 1;
+        gravarNumero(POSICAO_VERSAO, nova);
+        return nova;
+    }
+
+    /**
+     * Lê o próximo número livre para IDs novos. Só pode ser chamado com a trava.
+     *
+     * @return Próximo número (0 se nenhum processo reservou IDs ainda)
+     */
+    long proximoId() throws IOException {
+        verificarTrava(false);
+        return lerNumero(POSICAO_PROXIMO_ID);
+    }
+
+    /**
+     * Grava o próximo número livre para IDs novos. Só pode ser chamado com a trava exclusiva.
+     *
+     * @param proximo Próximo número livre
+     */
+    void definirProximoId(long proximo) throws IOException {
+        verificarTrava(true);
+        gravarNumero(POSICAO_PROXIMO_ID, proximo);
+    }
+
+    private long lerNumero(int posicao) throws IOException {
+        if (canal.size() < posicao + Long.BYTES) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        while (buffer.hasRemaining() && canal.read(buffer, posicao + buffer.position()) >= 0) {
+            // Lê os 8 bytes
+        }
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    private void gravarNumero(int posicao, long valor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(valor);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicao + buffer.position());
+        }
+        canal.force(false);
+    }
+
+    private void verificarTrava(boolean exclusivaPedida) {
+        if (!local.isHeldByCurrentThread() || canal == null || (exclusivaPedida && !exclusiva)) {
+            throw new IllegalStateException("Trava não obtida: " + arquivo);
+        }
+    }
+}
@@ -19,6 +19,13 @@ public class TelaCadastroAluno extends JDialog {
     private Academia academia;
     private AlunoRepository alunoRepo;
 
+    /**
+     * Aluno carregado da tabela para edição e a versão dele naquele momento.
+     * Ao salvar, a alteração só é aceita se ninguém alterou o aluno nesse meio tempo.
+     */
+    private String cpfEmEdicao;
+    private long versaoEmEdicao;
+
     // Componentes de formulário
     private JTextField txtCpf;
     private JTextField txtNome;
@@ -235,10 +242,20 @@ public class TelaCadastroAluno extends JDialog {
             // Verifica se é atualização ou novo cadastro
             try {
                 // Tenta buscar aluno existente - se não lançar exceção, significa que existe
-                academia.buscarAlunoPorCpf(cpf);
-                // Se chegou aqui, o aluno existe - atualizar
-                academia.atualizarAluno(aluno);
-                alunoRepo.atualizar(aluno);
+                Aluno cadastrado = academia.buscarAlunoPorCpf(cpf);
+                // Se chegou aqui, o aluno existe - atualizar a partir da versão que foi editada
+                aluno.setVersao(cpf.equals(cpfEmEdicao) ? versaoEmEdicao : cadastrado.getVersao());
+                // Verificação no arquivo, alteração na memória e gravação em um só passo,
+                // com a trava do arquivo: o salvamento automático não grava no meio
+                try {
+                    alunoRepo.atualizar(aluno, academia::atualizarAluno);
+                } catch (ConflitoVersaoException ex) {
+                    if (alunoRepo.getIdsEmConflito().contains(cpf)) {
+                        // Outro computador alterou o aluno no arquivo: a memória adota a versão dele
+                        recarregarDoArquivo(cpf);
+                    }
+                    throw ex;
+                }
 
                 JOptionPane.showMessageDialog(this,
                     "Aluno atualizado com sucesso!",
@@ -267,6 +284,15 @@ public class TelaCadastroAluno extends JDialog {
                 "Erro de Validação",
                 JOptionPane.ERROR_MESSAGE);
 
+        } catch (ConflitoVersaoException ex) {
+            // Outro usuário salvou o mesmo aluno enquanto este editava
+            JOptionPane.showMessageDialog(this,
+                ex.getMessage() + "\nA tabela foi recarregada. Confira os dados e salve novamente.",
+                "Conflito de Edição",
+                JOptionPane.WARNING_MESSAGE);
+            cpfEmEdicao = null;
+            atualizarTabela();
+
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this,
                 "Erro ao salvar aluno: " + ex.getMessage(),
@@ -275,6 +301,24 @@ public class TelaCadastroAluno extends JDialog {
         }
     }
 
+    /**
+     * Coloca na memória o aluno como está gravado no arquivo, depois que
+     * outro computador alterou o mesmo aluno. Assim a memória e o arquivo
+     * continuam iguais e a tabela recarregada mostra o que vale.
+     *
+     * @param cpf CPF do aluno em conflito
+     */
+    private void recarregarDoArquivo(String cpf) {
+        alunoRepo.recarregar(cpf, gravado -> {
+            try {
+                gravado.setVersao(academia.buscarAlunoPorCpf(cpf).getVersao());
+                academia.atualizarAluno(gravado);
+            } catch (UsuarioNaoEncontradoException | ConflitoVersaoException ex) {
+                // Alterado ou removido de novo nesse meio tempo: fica como está
+            }
+        });
+    }
+
     /**
      * Carrega os dados do aluno selecionado na tabela para o formulário.
      */
@@ -287,6 +331,14 @@ public class TelaCadastroAluno extends JDialog {
             txtTelefone.setText(modeloTabela.getValueAt(linhaSelecionada, 2).toString());
             txtEmail.setText(modeloTabela.getValueAt(linhaSelecionada, 3).toString());
             txtMatriculaId.setText(modeloTabela.getValueAt(linhaSelecionada, 4).toString());
+
+            // Guarda a versão lida, para detectar alterações de outros usuários ao salvar
+            try {
+                cpfEmEdicao = txtCpf.getText();
+                versaoEmEdicao = academia.buscarAlunoPorCpf(cpfEmEdicao).getVersao();
+            } catch (UsuarioNaoEncontradoException ex) {
+                cpfEmEdicao = null;
+            }
         }
     }
 
@@ -319,6 +371,7 @@ public class TelaCadastroAluno extends JDialog {
         txtTelefone.setText("");
         txtEmail.setText("");
         txtMatriculaId.setText("");
+        cpfEmEdicao = null;
         txtCpf.requestFocus(); // Foco no primeiro campo
     }
 }
@@ -17,6 +17,12 @@ public class TelaCadastroInstrutor extends JDialog {
     private Academia academia;
     private InstrutorRepository instrutorRepo;
 
+    /**
+     * Instrutor carregado da tabela para edição e a versão dele naquele momento.
+     */
+    private String cpfEmEdicao;
+    private long versaoEmEdicao;
+
     private JTextField txtCpf, txtNome, txtTelefone, txtEmail, txtEspecialidade, txtCref;
     private JButton btnSalvar, btnLimpar, btnFechar;
     private JTable tabelaInstrutores;
@@ -126,6 +132,15 @@ public class TelaCadastroInstrutor extends JDialog {
         btnSalvar.addActionListener(e -> salvarInstrutor());
         btnLimpar.addActionListener(e -> limparCampos());
         btnFechar.addActionListener(e -> dispose());
+
+        tabelaInstrutores.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                if (evt.getClickCount() == 2) {
+                    carregarInstrutorSelecionado();
+                }
+            }
+        });
     }
 
     private void salvarInstrutor() {
@@ -148,9 +163,18 @@ public class TelaCadastroInstrutor extends JDialog {
             Instrutor instrutor = new Instrutor(cpf, nome, telefone, email, especialidade, cref);
 
             try {
-                academia.buscarInstrutorPorCpf(cpf);
-                academia.atualizarInstrutor(instrutor);
-                instrutorRepo.atualizar(instrutor);
+                Instrutor cadastrado = academia.buscarInstrutorPorCpf(cpf);
+                instrutor.setVersao(cpf.equals(cpfEmEdicao) ? versaoEmEdicao : cadastrado.getVersao());
+                // Verificação no arquivo, memória e gravação com a trava do arquivo
+                try {
+                    instrutorRepo.atualizar(instrutor, academia::atualizarInstrutor);
+                } catch (ConflitoVersaoException ex) {
+                    if (instrutorRepo.getIdsEmConflito().contains(cpf)) {
+                        // Outro computador alterou o instrutor no arquivo: a memória adota a versão dele
+                        recarregarDoArquivo(cpf);
+                    }
+                    throw ex;
+                }
                 JOptionPane.showMessageDialog(this, "Instrutor atualizado!");
             } catch (UsuarioNaoEncontradoException ex) {
                 academia.adicionarInstrutor(instrutor);
@@ -161,11 +185,52 @@ public class TelaCadastroInstrutor extends JDialog {
             limparCampos();
             atualizarTabela();
 
+        } catch (ConflitoVersaoException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage() + "\nConfira os dados e salve novamente.",
+                "Conflito de Edição", JOptionPane.WARNING_MESSAGE);
+            cpfEmEdicao = null;
+            atualizarTabela();
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Erro: " + ex.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
         }
     }
 
+    /**
+     * Coloca na memória o instrutor como está gravado no arquivo, depois
+     * que outro computador alterou o mesmo instrutor.
+     */
+    private void recarregarDoArquivo(String cpf) {
+        instrutorRepo.recarregar(cpf, gravado -> {
+            try {
+                gravado.setVersao(academia.buscarInstrutorPorCpf(cpf).getVersao());
+                academia.atualizarInstrutor(gravado);
+            } catch (UsuarioNaoEncontradoException | ConflitoVersaoException ex) {
+                // Alterado ou removido de novo nesse meio tempo: fica como está
+            }
+        });
+    }
+
+    private void carregarInstrutorSelecionado() {
+        int linha = tabelaInstrutores.getSelectedRow();
+        if (linha < 0) {
+            return;
+        }
+        txtCpf.setText(modeloTabela.getValueAt(linha, 0).toString());
+        txtNome.setText(modeloTabela.getValueAt(linha, 1).toString());
+        txtTelefone.setText(modeloTabela.getValueAt(linha, 2).toString());
+        txtEmail.setText(modeloTabela.getValueAt(linha, 3).toString());
+        txtEspecialidade.setText(modeloTabela.getValueAt(linha, 4).toString());
+        txtCref.setText(modeloTabela.getValueAt(linha, 5).toString());
+
+        // Guarda a versão lida, para detectar alterações de outros usuários ao salvar
+        try {
+            cpfEmEdicao = txtCpf.getText();
+            versaoEmEdicao = academia.buscarInstrutorPorCpf(cpfEmEdicao).getVersao();
+        } catch (UsuarioNaoEncontradoException ex) {
+            cpfEmEdicao = null;
+        }
+    }
+
     private void atualizarTabela() {
         modeloTabela.setRowCount(0);
         for (Instrutor i : academia.listarInstrutores()) {
@@ -181,5 +246,6 @@ public class TelaCadastroInstrutor extends JDialog {
         txtEmail.setText("");
         txtEspecialidade.setText("");
         txtCref.setText("");
+        cpfEmEdicao = null;
     }
 }
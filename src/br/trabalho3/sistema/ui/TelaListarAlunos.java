@@ -3,10 +3,12 @@ package br.trabalho3.sistema.ui;
 import br.trabalho3.sistema.model.Academia;
 import br.trabalho3.sistema.model.Aluno;
 import br.trabalho3.sistema.model.Matricula;
+import br.trabalho3.sistema.utils.JuncaoHash;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
+import java.util.Map;
 
 public class TelaListarAlunos extends JDialog {
 
@@ -75,20 +77,20 @@ public class TelaListarAlunos extends JDialog {
         modeloTabela.setRowCount(0);
 
         List<Aluno> alunos = academia.listarAlunos();
+        Map<String, Matricula> matriculaPorCpf =
+            JuncaoHash.indexarPrimeiro(academia.listarMatriculas(), m -> m.getAluno().getCpf());
 
         for (Aluno aluno : alunos) {
             String plano = "-";
             String status = "Sem matrícula";
 
-            // Busca matrícula ativa do aluno
-            for (Matricula m : academia.listarMatriculas()) {
-                if (m.getAluno().getCpf().equals(aluno.getCpf())) {
-                    if (m.getPlano() != null) {
-                        plano = m.getPlano().getNome();
-                    }
-                    status = m.getStatus().toString();
-                    break;
+            // Busca a matrícula do aluno
+            Matricula m = matriculaPorCpf.get(aluno.getCpf());
+            if (m != null) {
+                if (m.getPlano() != null) {
+                    plano = m.getPlano().getNome();
                 }
+                status = m.getStatus().toString();
             }
 
             modeloTabela.addRow(new Object[]{
@@ -146,19 +146,15 @@ public class TelaPagamento extends JDialog {
             if (matriculaSel == null) return;
 
             String idMatricula = matriculaSel.split(" - ")[0];
-            Matricula matricula = academia.buscarMatriculaPorId(idMatricula);
+            academia.buscarMatriculaPorId(idMatricula); // Confere se a matrícula ainda existe
 
             // Busca pagamentos anteriores
             List<Pagamento> pagamentos = academia.listarPagamentosPorMatricula(idMatricula);
 
-            // Calcula total pago
-            double totalPago = 0.0;
-            for (Pagamento p : pagamentos) {
-                totalPago += p.getValor();
-            }
-
-            double valorRestante = matricula.getValorMensal() - totalPago;
-            if (valorRestante < 0) valorRestante = 0;
+            // Total pago (confirmado) e restante já vêm somados pela academia
+            PosicaoFinanceira posicao = academia.getPosicaoFinanceira();
+            double totalPago = posicao.getPago(idMatricula);
+            double valorRestante = posicao.getAReceber(idMatricula);
 
             lblTotalPago.setText(String.format("Total Pago: R$ %.2f", totalPago));
             lblValorRestante.setText(String.format("Valor Restante: R$ %.2f", valorRestante));
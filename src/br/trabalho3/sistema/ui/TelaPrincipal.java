@@ -1,9 +1,16 @@
 package br.trabalho3.sistema.ui;
 
+import br.trabalho3.sistema.exceptions.DadosInvalidosException;
 import br.trabalho3.sistema.model.Academia;
+import br.trabalho3.sistema.model.Aluno;
+import br.trabalho3.sistema.model.ArquivoPagamentos;
+import br.trabalho3.sistema.model.Instrutor;
+import br.trabalho3.sistema.model.Plano;
 import br.trabalho3.sistema.persistence.*;
+import br.trabalho3.sistema.utils.CacheRelatorios;
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 /**
  * Tela principal do sistema de academia.
@@ -27,6 +34,41 @@ public class TelaPrincipal extends JFrame {
     private MatriculaRepository matriculaRepo;
     private PagamentoRepository pagamentoRepo;
 
+    /**
+     * Salva nos repositórios apenas o que mudou na academia.
+     */
+    private GerenciadorPersistencia persistencia;
+
+    /**
+     * Grava as alterações em segundo plano a cada INTERVALO_SALVAMENTO_SEGUNDOS
+     * segundos ou a cada LIMITE_ALTERACOES alterações.
+     */
+    private SalvamentoAutomatico salvamentoAutomatico;
+
+    /**
+     * Imagem binária dos dados mais registro das alterações, usados para
+     * iniciar sem reler os arquivos CSV.
+     */
+    private CheckpointAcademia checkpoint;
+
+    /**
+     * Resultados dos relatórios, reaproveitados enquanto os dados que
+     * eles leem não mudam.
+     */
+    private CacheRelatorios cacheRelatorios;
+
+    private static final int INTERVALO_SALVAMENTO_SEGUNDOS = 30;
+    private static final int LIMITE_ALTERACOES = 50;
+    private static final int SALVAMENTOS_POR_CHECKPOINT = 10;
+    private static final long INTERVALO_REGISTRO_MS = 200;
+
+    /**
+     * Idade, em dias, a partir da qual pagamentos estornados saem do heap
+     * para o arquivo morto ao iniciar o sistema.
+     */
+    private static final int IDADE_ARQUIVAMENTO_DIAS = 180;
+    private static final int CAPACIDADE_INICIAL_ARQUIVO = 1024;
+
     // Componentes da interface gráfica
     private JLabel lblTitulo;
     private JButton btnCadastrarAluno;
@@ -36,6 +78,7 @@ public class TelaPrincipal extends JFrame {
     private JButton btnRegistrarPagamento;
     private JButton btnRelatorios;
     private JButton btnListarAlunos;
+    private JButton btnBackup;
     private JButton btnSair;
 
     /**
@@ -52,6 +95,9 @@ public class TelaPrincipal extends JFrame {
         // Carrega dados dos arquivos CSV
         carregarDadosIniciais();
 
+        cacheRelatorios = new CacheRelatorios();
+        academia.getEventos().inscrever(cacheRelatorios);
+
         // Configura a janela
         configurarJanela();
 
@@ -81,43 +127,118 @@ public class TelaPrincipal extends JFrame {
 
         // PagamentoRepo precisa de MatriculaRepo
         pagamentoRepo = new PagamentoRepository(matriculaRepo);
+
+        persistencia = new GerenciadorPersistencia(academia, alunoRepo, instrutorRepo,
+            planoRepo, matriculaRepo, pagamentoRepo);
     }
 
     /**
-     * Carrega dados iniciais dos arquivos CSV para a memória.
+     * Carrega dados iniciais para a memória.
+     * Usa o checkpoint, se existir; senão, lê os arquivos CSV.
      * Este método é chamado ao iniciar o sistema.
      */
     private void carregarDadosIniciais() {
+        // Cada computador tem seu próprio checkpoint, mesmo com dados/ na rede
+        checkpoint = new CheckpointAcademia(java.nio.file.Paths.get("dados", "checkpoint", nomeComputador()));
+        checkpoint.usarVersoesArquivos(persistencia::versoesArquivos);
         try {
-            // Carrega alunos
-            academia.listarAlunos().clear();
-            alunoRepo.buscarTodos().forEach(aluno -> {
-                try {
-                    academia.adicionarAluno(aluno);
-                } catch (Exception e) {
-                    // Ignora duplicatas que já podem estar na memória
-                }
-            });
+            if (checkpoint.recuperar(academia)) {
+                System.out.println("Dados recuperados do checkpoint!");
+            } else {
+                carregarDosArquivos();
+            }
+        } catch (Exception e) {
+            System.err.println("Erro ao ler checkpoint: " + e.getMessage());
+            academia.limparTodosDados();
+            carregarDosArquivos();
+        }
 
-            // Carrega instrutores
-            academia.listarInstrutores().clear();
-            instrutorRepo.buscarTodos().forEach(instrutor -> {
-                try {
-                    academia.adicionarInstrutor(instrutor);
-                } catch (Exception e) {
-                    // Ignora duplicatas
-                }
-            });
+        // Não repete IDs de matrículas e pagamentos gravados por outro computador:
+        // os novos são reservados com a trava dos arquivos
+        persistencia.sincronizarContadores();
+        academia.configurarGeradorIds(persistencia);
+
+        // Arquivo morto em memória nativa: a cada início os pagamentos voltam
+        // dos arquivos (ou do checkpoint) e os antigos são arquivados de novo
+        academia.configurarArquivoPagamentos(
+            new ArquivoPagamentos(CAPACIDADE_INICIAL_ARQUIVO), IDADE_ARQUIVAMENTO_DIAS);
+        int arquivados = academia.arquivarPagamentosAntigos();
+        if (arquivados > 0) {
+            System.out.println(arquivados + " pagamentos antigos movidos para o arquivo morto");
+        }
 
-            // Carrega planos
-            academia.listarPlanos().clear();
-            planoRepo.buscarTodos().forEach(plano -> {
-                try {
-                    academia.adicionarPlano(plano);
-                } catch (Exception e) {
-                    // Ignora duplicatas
-                }
-            });
+        checkpoint.iniciarRegistro(academia, INTERVALO_REGISTRO_MS);
+        salvamentoAutomatico = new SalvamentoAutomatico(academia, persistencia,
+            INTERVALO_SALVAMENTO_SEGUNDOS, LIMITE_ALTERACOES);
+        salvamentoAutomatico.configurarCheckpoint(checkpoint, SALVAMENTOS_POR_CHECKPOINT);
+    }
+
+    /**
+     * Retorna o nome deste computador (ou "local", se não for possível descobrir).
+     */
+    private static String nomeComputador() {
+        try {
+            return java.net.InetAddress.getLocalHost().getHostName().replaceAll("[^A-Za-z0-9._-]", "_");
+        } catch (java.io.IOException e) {
+            return "local";
+        }
+    }
+
+    /**
+     * Carrega os dados dos arquivos CSV para a memória.
+     */
+    private void carregarDosArquivos() {
+        try {
+            // Carrega em lote (uma versão nova por lista). Se o lote for
+            // recusado por alguma duplicata já na memória, carrega um a um
+            // e ignora só as duplicatas.
+            List<Aluno> alunos = alunoRepo.buscarTodos();
+            try {
+                academia.adicionarAlunos(alunos);
+            } catch (DadosInvalidosException e) {
+                alunos.forEach(aluno -> {
+                    try {
+                        academia.adicionarAluno(aluno);
+                    } catch (Exception ex) {
+                        // Ignora duplicatas que já podem estar na memória
+                    }
+                });
+            }
+
+            List<Instrutor> instrutores = instrutorRepo.buscarTodos();
+            try {
+                academia.adicionarInstrutores(instrutores);
+            } catch (DadosInvalidosException e) {
+                instrutores.forEach(instrutor -> {
+                    try {
+                        academia.adicionarInstrutor(instrutor);
+                    } catch (Exception ex) {
+                        // Ignora duplicatas
+                    }
+                });
+            }
+
+            List<Plano> planos = planoRepo.buscarTodos();
+            try {
+                academia.adicionarPlanos(planos);
+            } catch (DadosInvalidosException e) {
+                planos.forEach(plano -> {
+                    try {
+                        academia.adicionarPlano(plano);
+                    } catch (Exception ex) {
+                        // Ignora duplicatas
+                    }
+                });
+            }
+
+            // Continua a numeração das matrículas e pagamentos já gravados,
+            // para que novos IDs não substituam registros dos arquivos
+            academia.setContadores(
+                ultimoNumero(matriculaRepo.listarIds(), "MAT"),
+                ultimoNumero(pagamentoRepo.listarIds(), "PAG"));
+
+            // O que acabou de ser carregado já está nos arquivos
+            persistencia.marcarComoSalvo();
 
             System.out.println("Dados carregados com sucesso!");
 
@@ -131,7 +252,7 @@ public class TelaPrincipal extends JFrame {
      */
     private void configurarJanela() {
         setTitle("Sistema de Academia");
-        setSize(600, 500);
+        setSize(600, 550);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null); // Centraliza na tela
         setResizable(false); // Impede redimensionamento
@@ -155,6 +276,7 @@ public class TelaPrincipal extends JFrame {
         btnRegistrarPagamento = new JButton("Registrar Pagamento");
         btnRelatorios = new JButton("Relatórios");
         btnListarAlunos = new JButton("Listar Alunos");
+        btnBackup = new JButton("Backup dos Dados");
         btnSair = new JButton("Sair");
 
         // Configura aparência dos botões
@@ -165,6 +287,7 @@ public class TelaPrincipal extends JFrame {
         configurarBotao(btnRegistrarPagamento);
         configurarBotao(btnRelatorios);
         configurarBotao(btnListarAlunos);
+        configurarBotao(btnBackup);
         configurarBotao(btnSair);
 
         // Botão Sair com cor diferente (vermelho)
@@ -202,7 +325,7 @@ public class TelaPrincipal extends JFrame {
         painelPrincipal.add(lblTitulo, BorderLayout.NORTH);
 
         // Painel central com os botões em grade
-        JPanel painelBotoes = new JPanel(new GridLayout(8, 1, 10, 10));
+        JPanel painelBotoes = new JPanel(new GridLayout(9, 1, 10, 10));
         painelBotoes.setBackground(Color.WHITE);
         painelBotoes.add(btnCadastrarAluno);
         painelBotoes.add(btnCadastrarInstrutor);
@@ -211,6 +334,7 @@ public class TelaPrincipal extends JFrame {
         painelBotoes.add(btnRegistrarPagamento);
         painelBotoes.add(btnRelatorios);
         painelBotoes.add(btnListarAlunos);
+        painelBotoes.add(btnBackup);
         painelBotoes.add(btnSair);
 
         painelPrincipal.add(painelBotoes, BorderLayout.CENTER);
@@ -245,6 +369,9 @@ public class TelaPrincipal extends JFrame {
         // Listar Alunos
         btnListarAlunos.addActionListener(e -> listarAlunos());
 
+        // Backup
+        btnBackup.addActionListener(e -> fazerBackup());
+
         // Sair
         btnSair.addActionListener(e -> sairDoSistema());
     }
@@ -272,13 +399,45 @@ public class TelaPrincipal extends JFrame {
     }
 
     private void abrirTelaRelatorios() {
-        new TelaRelatorios(this, academia).setVisible(true);
+        new TelaRelatorios(this, academia, cacheRelatorios).setVisible(true);
     }
 
     private void listarAlunos() {
         new TelaListarAlunos(this, academia).setVisible(true);
     }
 
+    /**
+     * Faz um backup incremental da pasta de dados sem parar o sistema.
+     * A cópia roda fora da thread da interface.
+     */
+    private void fazerBackup() {
+        btnBackup.setEnabled(false);
+        new SwingWorker<java.nio.file.Path, Void>() {
+            @Override
+            protected java.nio.file.Path doInBackground() throws Exception {
+                // Grava o que está só na memória, para entrar no backup
+                persistencia.salvarAlteracoes();
+                BackupOnline backup = new BackupOnline(
+                    java.nio.file.Paths.get("dados"), java.nio.file.Paths.get("backups"));
+                return backup.executar(true);
+            }
+
+            @Override
+            protected void done() {
+                btnBackup.setEnabled(true);
+                try {
+                    JOptionPane.showMessageDialog(TelaPrincipal.this,
+                        "Backup concluído em:\n" + get(),
+                        "Backup", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(TelaPrincipal.this,
+                        "Erro ao fazer backup: " + e.getMessage(),
+                        "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
     /**
      * Salva dados e fecha o sistema.
      */
@@ -289,8 +448,8 @@ public class TelaPrincipal extends JFrame {
             JOptionPane.YES_NO_OPTION);
 
         if (opcao == JOptionPane.YES_OPTION) {
-            // Salva todos os dados antes de sair
-            salvarTodosDados();
+            // Salva as alterações antes de sair
+            salvarAlteracoes();
 
             JOptionPane.showMessageDialog(this,
                 "Dados salvos com sucesso!\nAté logo!",
@@ -302,15 +461,39 @@ public class TelaPrincipal extends JFrame {
     }
 
     /**
-     * Salva todos os dados nos arquivos CSV.
+     * Retorna o maior número usado em IDs com o prefixo informado (ex.: MAT007 -> 7).
+     *
+     * @param ids IDs gravados
+     * @param prefixo Prefixo dos IDs
+     * @return Maior número encontrado, ou 0 se não houver
+     */
+    private static int ultimoNumero(java.util.List<String> ids, String prefixo) {
+        int maior = 0;
+        for (String id : ids) {
+            if (id.startsWith(prefixo)) {
+                try {
+                    maior = Math.max(maior, Integer.parseInt(id.substring(prefixo.length())));
+                } catch (NumberFormatException e) {
+                    // ID fora do padrão: ignora
+                }
+            }
+        }
+        return maior;
+    }
+
+    /**
+     * Salva nos arquivos CSV apenas os registros alterados desde o último
+     * salvamento. Arquivos sem alterações não são reescritos.
      */
-    private void salvarTodosDados() {
+    private void salvarAlteracoes() {
         try {
-            alunoRepo.salvarTodos(academia.listarAlunos());
-            instrutorRepo.salvarTodos(academia.listarInstrutores());
-            planoRepo.salvarTodos(academia.listarPlanos());
-            matriculaRepo.salvarTodos(academia.listarMatriculas());
-            pagamentoRepo.salvarTodos(academia.listarPagamentos());
+            boolean salvou = salvamentoAutomatico != null
+                ? salvamentoAutomatico.encerrar()
+                : persistencia.salvarAlteracoes();
+            if (!salvou) {
+                System.err.println("Erro ao salvar dados: algumas alterações não foram gravadas");
+            }
+            checkpoint.encerrarRegistro(academia);
         } catch (Exception e) {
             System.err.println("Erro ao salvar dados: " + e.getMessage());
         }
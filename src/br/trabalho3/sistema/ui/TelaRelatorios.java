@@ -1,136 +1,437 @@
 package br.trabalho3.sistema.ui;
 
 import br.trabalho3.sistema.model.*;
+import br.trabalho3.sistema.utils.CacheRelatorios;
+import br.trabalho3.sistema.utils.GeradorRelatorio;
+import br.trabalho3.sistema.utils.MotorRelatorios;
+import br.trabalho3.sistema.utils.TotaisFinanceiros;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 public class TelaRelatorios extends JDialog {
 
+    private static final String[] COLUNAS_ALUNOS = {"CPF", "Nome", "Telefone", "Email"};
+    private static final String[] COLUNAS_MATRICULAS = {"ID", "Aluno", "Plano", "Valor", "Status"};
+    private static final String[] COLUNAS_FINANCEIRO = {"ID", "Matrícula", "Valor", "Forma", "Status"};
+
+    private static final int ABA_ALUNOS = 0;
+    private static final int ABA_MATRICULAS = 1;
+    private static final int ABA_FINANCEIRO = 2;
+
+    /**
+     * Quantidade de linhas enviadas para a tabela de cada vez.
+     */
+    private static final int LINHAS_POR_PARTE = 1000;
+
+    /**
+     * Conteúdo calculado de uma aba: linhas da tabela e textos do resumo.
+     * É o que fica guardado no cache de relatórios.
+     */
+    private static class DadosAba {
+        private final List<Object[]> linhas = new ArrayList<>();
+        private final List<String> resumo = new ArrayList<>();
+    }
+
+    /**
+     * Parte de um resultado enviada da thread de cálculo para a tela:
+     * linhas novas de uma tabela ou o resumo de uma aba.
+     */
+    private static class Parte {
+        private final int aba;
+        private final List<Object[]> linhas;
+        private final List<String> resumo;
+
+        Parte(int aba, List<Object[]> linhas, List<String> resumo) {
+            this.aba = aba;
+            this.linhas = linhas;
+            this.resumo = resumo;
+        }
+    }
+
+    /**
+     * Modelo de tabela que recebe as linhas em lotes, avisando a tabela
+     * uma vez por lote (e não uma vez por linha, como o DefaultTableModel).
+     */
+    private static class ModeloLinhas extends AbstractTableModel {
+        private final String[] colunas;
+        private final List<Object[]> linhas = new ArrayList<>();
+
+        ModeloLinhas(String[] colunas) {
+            this.colunas = colunas;
+        }
+
+        void adicionar(List<Object[]> novas) {
+            if (novas.isEmpty()) {
+                return;
+            }
+            int primeira = linhas.size();
+            linhas.addAll(novas);
+            fireTableRowsInserted(primeira, linhas.size() - 1);
+        }
+
+        @Override
+        public int getRowCount() {
+            return linhas.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return colunas.length;
+        }
+
+        @Override
+        public String getColumnName(int coluna) {
+            return colunas[coluna];
+        }
+
+        @Override
+        public Object getValueAt(int linha, int coluna) {
+            return linhas.get(linha)[coluna];
+        }
+    }
+
     private Academia academia;
-    private JTabbedPane abas;
+    private CacheRelatorios cache;
 
-    public TelaRelatorios(Frame parent, Academia academia) {
-        super(parent, "Relatórios", true);
+    /**
+     * Monta as linhas e os totais das abas em paralelo, usando todos os núcleos.
+     */
+    private final MotorRelatorios motor = new MotorRelatorios();
+    private JTabbedPane abas;
+    private ModeloLinhas[] modelos;
+    private JPanel[] paineisResumo;
+    private JProgressBar barraProgresso;
+    private JButton btnCancelar;
+    private JPanel painelProgresso;
+
+    /**
+     * Cálculo dos relatórios em andamento (fora da thread da interface).
+     */
+    private SwingWorker<Void, Parte> calculo;
+
+    public TelaRelatorios(Frame parent, Academia academia, CacheRelatorios cache) {
+        // Não modal: a recepção continua usando o sistema enquanto os relatórios são calculados
+        super(parent, "Relatórios", false);
         this.academia = academia;
+        this.cache = cache;
 
         setSize(800, 600);
         setLocationRelativeTo(parent);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
 
         inicializarComponentes();
         montarLayout();
+        configurarEventos();
+        iniciarCalculo();
     }
 
     private void inicializarComponentes() {
         abas = new JTabbedPane();
+        modelos = new ModeloLinhas[]{
+            new ModeloLinhas(COLUNAS_ALUNOS),
+            new ModeloLinhas(COLUNAS_MATRICULAS),
+            new ModeloLinhas(COLUNAS_FINANCEIRO)
+        };
+        paineisResumo = new JPanel[modelos.length];
 
         // Aba 1: Alunos
-        abas.addTab("Alunos", criarPainelAlunos());
+        abas.addTab("Alunos", criarPainel(ABA_ALUNOS));
 
         // Aba 2: Matrículas
-        abas.addTab("Matrículas", criarPainelMatriculas());
+        abas.addTab("Matrículas", criarPainel(ABA_MATRICULAS));
 
         // Aba 3: Financeiro
-        abas.addTab("Financeiro", criarPainelFinanceiro());
+        abas.addTab("Financeiro", criarPainel(ABA_FINANCEIRO));
+
+        barraProgresso = new JProgressBar(0, 100);
+        barraProgresso.setStringPainted(true);
+        barraProgresso.setString("Calculando relatórios...");
+        btnCancelar = new JButton("Cancelar");
     }
 
-    private JPanel criarPainelAlunos() {
+    private JPanel criarPainel(int aba) {
         JPanel painel = new JPanel(new BorderLayout(10, 10));
         painel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
-        String[] colunas = {"CPF", "Nome", "Telefone", "Email"};
-        DefaultTableModel modelo = new DefaultTableModel(colunas, 0);
-
-        for (Aluno a : academia.listarAlunos()) {
-            modelo.addRow(new Object[]{a.getCpf(), a.getNome(), a.getTelefone(), a.getEmail()});
-        }
-
-        JTable tabela = new JTable(modelo);
+        JTable tabela = new JTable(modelos[aba]);
         JScrollPane scroll = new JScrollPane(tabela);
 
-        JLabel lblTotal = new JLabel("Total de Alunos: " + academia.listarAlunos().size());
-        lblTotal.setFont(new Font("Arial", Font.BOLD, 14));
+        paineisResumo[aba] = new JPanel(new GridLayout(1, 1));
+        paineisResumo[aba].add(new JLabel("Calculando..."));
 
-        painel.add(lblTotal, BorderLayout.NORTH);
+        painel.add(paineisResumo[aba], BorderLayout.NORTH);
         painel.add(scroll, BorderLayout.CENTER);
 
         return painel;
     }
 
-    private JPanel criarPainelMatriculas() {
-        JPanel painel = new JPanel(new BorderLayout(10, 10));
-        painel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+    private void montarLayout() {
+        setLayout(new BorderLayout());
+        add(abas, BorderLayout.CENTER);
+
+        painelProgresso = new JPanel(new BorderLayout(10, 0));
+        painelProgresso.setBorder(BorderFactory.createEmptyBorder(5, 10, 10, 10));
+        painelProgresso.add(barraProgresso, BorderLayout.CENTER);
+        painelProgresso.add(btnCancelar, BorderLayout.EAST);
+        add(painelProgresso, BorderLayout.SOUTH);
+    }
 
-        String[] colunas = {"ID", "Aluno", "Plano", "Valor", "Status"};
-        DefaultTableModel modelo = new DefaultTableModel(colunas, 0);
+    private void configurarEventos() {
+        btnCancelar.addActionListener(e -> calculo.cancel(true));
 
-        int ativas = 0;
-        for (Matricula m : academia.listarMatriculas()) {
-            modelo.addRow(new Object[]{
-                m.getId(),
-                m.getAluno().getNome(),
-                m.getPlano().getNome(),
-                String.format("R$ %.2f", m.getValorMensal()),
-                m.getStatus()
-            });
+        // Fechar a tela interrompe o cálculo que ainda estiver em andamento
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                calculo.cancel(true);
+            }
+        });
+    }
 
-            if (m.estaAtiva()) ativas++;
-        }
+    // ========== CÁLCULO EM SEGUNDO PLANO ==========
+
+    /**
+     * Calcula as abas numa thread separada, publicando as linhas na tabela
+     * em partes à medida que ficam prontas.
+     */
+    private void iniciarCalculo() {
+        calculo = new SwingWorker<Void, Parte>() {
+            @Override
+            protected Void doInBackground() {
+                calcularRelatorios(this::publicarParte, this::setProgress, this::isCancelled);
+                return null;
+            }
 
-        JTable tabela = new JTable(modelo);
-        JScrollPane scroll = new JScrollPane(tabela);
+            private void publicarParte(Parte parte) {
+                publish(parte);
+            }
 
-        JLabel lblTotal = new JLabel(String.format("Total: %d | Ativas: %d",
-            academia.listarMatriculas().size(), ativas));
-        lblTotal.setFont(new Font("Arial", Font.BOLD, 14));
+            @Override
+            protected void process(List<Parte> partes) {
+                for (Parte parte : partes) {
+                    if (parte.linhas != null) {
+                        modelos[parte.aba].adicionar(parte.linhas);
+                    }
+                    if (parte.resumo != null) {
+                        mostrarResumo(parte.aba, parte.resumo);
+                    }
+                }
+            }
 
-        painel.add(lblTotal, BorderLayout.NORTH);
-        painel.add(scroll, BorderLayout.CENTER);
+            @Override
+            protected void done() {
+                finalizarCalculo(this);
+            }
+        };
+        calculo.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                barraProgresso.setValue((Integer) e.getNewValue());
+            }
+        });
+        calculo.execute();
+    }
 
-        return painel;
+    /**
+     * Calcula (ou busca no cache) cada aba e envia o resultado em partes.
+     * Roda fora da thread da interface.
+     */
+    private void calcularRelatorios(Consumer<Parte> publicar,
+                                    IntConsumer progresso,
+                                    BooleanSupplier cancelado) {
+        // Cada aba vem do cache enquanto nada do que ela mostra mudou. As que
+        // precisam ser refeitas leem a mesma versão dos dados, mesmo que a
+        // academia seja alterada enquanto os relatórios são montados; a
+        // leitura só é aberta se alguma aba precisar ser refeita.
+        LeituraAcademia[] leitura = new LeituraAcademia[1];
+        Supplier<LeituraAcademia> abrirLeitura = () -> {
+            if (leitura[0] == null) {
+                leitura[0] = academia.abrirLeitura();
+            }
+            return leitura[0];
+        };
+
+        try {
+            DadosAba alunos = cache.obter("alunos", List.of(),
+                List.of(CacheRelatorios.dependencia(EventoAcademia.Entidade.ALUNO)),
+                () -> calcularAlunos(abrirLeitura.get()));
+            enviarAba(ABA_ALUNOS, alunos, Collections.emptyList(), publicar, cancelado);
+            progresso.accept(25);
+
+            DadosAba matriculas = cache.obter("matriculas", List.of(),
+                List.of(CacheRelatorios.dependencia(EventoAcademia.Entidade.MATRICULA),
+                    CacheRelatorios.dependencia(EventoAcademia.Entidade.ALUNO),
+                    CacheRelatorios.dependencia(EventoAcademia.Entidade.PLANO)),
+                () -> calcularMatriculas(abrirLeitura.get()));
+            enviarAba(ABA_MATRICULAS, matriculas, Collections.emptyList(), publicar, cancelado);
+            progresso.accept(50);
+
+            // Só muda com pagamentos do próprio mês
+            YearMonth mesAtual = YearMonth.now();
+            String receitaMes = cache.obter("receitaMes", List.of(mesAtual),
+                List.of(CacheRelatorios.dependenciaMes(mesAtual)),
+                () -> calcularReceitaMes(mesAtual));
+            progresso.accept(60);
+
+            DadosAba financeiro = cache.obter("financeiro", List.of(),
+                List.of(CacheRelatorios.dependencia(EventoAcademia.Entidade.PAGAMENTO)),
+                () -> calcularFinanceiro(abrirLeitura.get()));
+            enviarAba(ABA_FINANCEIRO, financeiro, List.of(receitaMes), publicar, cancelado);
+            progresso.accept(100);
+        } finally {
+            if (leitura[0] != null) {
+                leitura[0].close();
+            }
+        }
     }
 
-    private JPanel criarPainelFinanceiro() {
-        JPanel painel = new JPanel(new BorderLayout(10, 10));
-        painel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+    /**
+     * Envia as linhas de uma aba em partes e, por fim, o resumo.
+     */
+    private void enviarAba(int aba, DadosAba dados, List<String> resumoExtra,
+                           Consumer<Parte> publicar, BooleanSupplier cancelado) {
+        for (int inicio = 0; inicio < dados.linhas.size(); inicio += LINHAS_POR_PARTE) {
+            if (cancelado.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            int fim = Math.min(inicio + LINHAS_POR_PARTE, dados.linhas.size());
+            publicar.accept(new Parte(aba, dados.linhas.subList(inicio, fim), null));
+        }
+        List<String> resumo = new ArrayList<>(dados.resumo);
+        resumo.addAll(resumoExtra);
+        publicar.accept(new Parte(aba, null, resumo));
+    }
+
+    /**
+     * Interrompe o cálculo de uma aba se a tela pediu o cancelamento.
+     * As linhas são montadas nas threads do motor, então o pedido é
+     * conferido na thread que iniciou o cálculo.
+     */
+    private static void verificarCancelamento(Thread calculo) {
+        if (calculo.isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    private DadosAba calcularAlunos(LeituraAcademia leitura) {
+        Thread calculo = Thread.currentThread();
+        DadosAba dados = new DadosAba();
+        dados.linhas.addAll(motor.mapear(leitura.getAlunos(), a -> {
+            verificarCancelamento(calculo);
+            return new Object[]{a.getCpf(), a.getNome(), a.getTelefone(), a.getEmail()};
+        }));
+        dados.resumo.add("Total de Alunos: " + leitura.getAlunos().size());
+        return dados;
+    }
+
+    private DadosAba calcularMatriculas(LeituraAcademia leitura) {
+        Thread calculo = Thread.currentThread();
+        DadosAba dados = new DadosAba();
 
-        String[] colunas = {"ID", "Matrícula", "Valor", "Forma", "Status"};
-        DefaultTableModel modelo = new DefaultTableModel(colunas, 0);
+        dados.linhas.addAll(motor.mapear(leitura.getMatriculas(), m -> {
+            verificarCancelamento(calculo);
+            return new Object[]{
+                m.getId(),
+                m.getAluno().getNome(),
+                m.getPlano().getNome(),
+                String.format("R$ %.2f", m.getValorMensal()),
+                leitura.statusDe(m)
+            };
+        }));
+        int ativas = motor.contar(leitura.getMatriculas(), m -> leitura.statusDe(m) == StatusMatricula.ATIVA);
+
+        dados.resumo.add(String.format("Total: %d | Ativas: %d", leitura.getMatriculas().size(), ativas));
+        return dados;
+    }
 
-        double totalConfirmado = 0;
-        double totalPendente = 0;
+    private DadosAba calcularFinanceiro(LeituraAcademia leitura) {
+        Thread calculo = Thread.currentThread();
+        DadosAba dados = new DadosAba();
 
-        for (Pagamento p : academia.listarPagamentos()) {
-            modelo.addRow(new Object[]{
+        dados.linhas.addAll(motor.mapear(leitura.getPagamentos(), p -> {
+            verificarCancelamento(calculo);
+            return new Object[]{
                 p.getId(),
                 p.getMatricula().getId(),
                 String.format("R$ %.2f", p.getValor()),
                 p.getFormaPagamento().getTipo(),
-                p.getStatus()
-            });
+                leitura.statusDe(p)
+            };
+        }));
+        // Totais pelas colunas do livro de pagamentos, sem percorrer os objetos; um
+        // pagamento alterado durante o cálculo invalida o resultado no cache
+        TotaisFinanceiros totais = academia.getLivroPagamentos().calcularTotais();
+
+        dados.resumo.add("Total de Pagamentos: " + totais.getQuantidade());
+        dados.resumo.add(String.format("Receitas Confirmadas: R$ %.2f", totais.getValor(StatusPagamento.CONFIRMADO)));
+        dados.resumo.add(String.format("Pendentes: R$ %.2f", totais.getValor(StatusPagamento.PENDENTE)));
+        return dados;
+    }
 
-            if (p.getStatus() == StatusPagamento.CONFIRMADO) {
-                totalConfirmado += p.getValor();
-            } else if (p.getStatus() == StatusPagamento.PENDENTE) {
-                totalPendente += p.getValor();
+    /**
+     * Receita confirmada do mês, pela receita diária da academia: não
+     * percorre os pagamentos.
+     */
+    private String calcularReceitaMes(YearMonth mes) {
+        ZoneId fuso = ZoneId.systemDefault();
+        Date inicio = Date.from(mes.atDay(1).atStartOfDay(fuso).toInstant());
+        Date fim = new Date(Date.from(mes.plusMonths(1).atDay(1).atStartOfDay(fuso).toInstant()).getTime() - 1);
+        double receita = GeradorRelatorio.calcularReceitasPeriodo(academia.getReceitas(), inicio, fim);
+        return String.format("Receitas do Mês (%02d/%d): R$ %.2f", mes.getMonthValue(), mes.getYear(), receita);
+    }
+
+    // ========== ATUALIZAÇÃO DA TELA ==========
+
+    private void mostrarResumo(int aba, List<String> resumo) {
+        JPanel painelInfo = paineisResumo[aba];
+        painelInfo.removeAll();
+        painelInfo.setLayout(new GridLayout(resumo.size(), 1));
+        for (String texto : resumo) {
+            JLabel rotulo = new JLabel(texto);
+            // Resumos de uma linha só ficam em destaque, como título da aba
+            if (resumo.size() == 1) {
+                rotulo.setFont(new Font("Arial", Font.BOLD, 14));
             }
+            painelInfo.add(rotulo);
         }
-
-        JTable tabela = new JTable(modelo);
-        JScrollPane scroll = new JScrollPane(tabela);
-
-        JPanel painelInfo = new JPanel(new GridLayout(3, 1));
-        painelInfo.add(new JLabel("Total de Pagamentos: " + academia.listarPagamentos().size()));
-        painelInfo.add(new JLabel(String.format("Receitas Confirmadas: R$ %.2f", totalConfirmado)));
-        painelInfo.add(new JLabel(String.format("Pendentes: R$ %.2f", totalPendente)));
-
-        painel.add(painelInfo, BorderLayout.NORTH);
-        painel.add(scroll, BorderLayout.CENTER);
-
-        return painel;
+        painelInfo.revalidate();
+        painelInfo.repaint();
     }
 
-    private void montarLayout() {
-        add(abas);
+    private void finalizarCalculo(SwingWorker<Void, Parte> worker) {
+        btnCancelar.setEnabled(false);
+        if (worker.isCancelled()) {
+            barraProgresso.setString("Cálculo cancelado");
+            return;
+        }
+        try {
+            worker.get();
+            remove(painelProgresso);
+            revalidate();
+            repaint();
+        } catch (InterruptedException | CancellationException e) {
+            barraProgresso.setString("Cálculo cancelado");
+        } catch (ExecutionException e) {
+            barraProgresso.setString("Erro ao calcular relatórios");
+            System.err.println("Erro ao calcular relatórios: " + e.getCause().getMessage());
+            if (isDisplayable()) {
+                JOptionPane.showMessageDialog(this, "Erro ao calcular relatórios: " + e.getCause().getMessage(),
+                    "Erro", JOptionPane.ERROR_MESSAGE);
+            }
+        }
     }
 }
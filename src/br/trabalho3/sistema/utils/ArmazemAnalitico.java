@@ -0,0 +1,183 @@
+package br.trabalho3.sistema.utils;
+
+import br.trabalho3.sistema.model.LeituraAcademia;
+import br.trabalho3.sistema.model.Matricula;
+import br.trabalho3.sistema.model.Pagamento;
+import br.trabalho3.sistema.model.StatusMatricula;
+import br.trabalho3.sistema.model.StatusPagamento;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Armazém colunar com os dados da academia, para consultas de agregação.
+ * *
+ * Copia pagamentos e matrículas para duas TabelaAnalitica, com a medida em
+ * centavos e dimensões codificadas por dicionário:
+ * - pagamentos (medida: valor; data: data do pagamento): status, forma,
+ *   plano, tipoPlano, mes, semana, diaSemana;
+ * - matrículas (medida: valor mensal; data: data de início): status,
+ *   plano, tipoPlano, mes, semana, diaSemana.
+ *
+ * Um novo recorte vira uma consulta, sem um laço novo no GeradorRelatorio:
+ * - receita por forma de pagamento e mês:
+ *   getPagamentos().consulta().onde(STATUS, "CONFIRMADO").agruparPor(FORMA, MES)
+ * - matrículas por tipo de plano e semana:
+ *   getMatriculas().consulta().agruparPor(TIPO_PLANO, SEMANA)
+ * - pagamentos por dia da semana:
+ *   getPagamentos().consulta().agruparPor(DIA_SEMANA)
+ *
+ * O armazém é uma cópia: alterações posteriores na academia não aparecem
+ * nele. Para dados atualizados, monte outro (de preferência a partir de uma
+ * LeituraAcademia, que fixa os status do momento da abertura).
+ *
+ */
+public class ArmazemAnalitico {
+
+    // ========== DIMENSÕES ==========
+
+    public static final String STATUS = "status";
+    public static final String FORMA = "forma";
+    public static final String PLANO = "plano";
+    public static final String TIPO_PLANO = "tipoPlano";
+
+    /**
+     * Mês da data, no formato yyyy-MM.
+     */
+    public static final String MES = "mes";
+
+    /**
+     * Semana ISO da data, no formato yyyy-Sww (ex.: 2026-S42).
+     */
+    public static final String SEMANA = "semana";
+
+    /**
+     * Dia da semana da data, numerado para ordenar (ex.: 1-SEG, 7-DOM).
+     */
+    public static final String DIA_SEMANA = "diaSemana";
+
+    /**
+     * Valor usado quando o dado não está preenchido.
+     */
+    public static final String SEM_VALOR = "-";
+
+    private static final String[] DIAS_SEMANA = {"1-SEG", "2-TER", "3-QUA", "4-QUI", "5-SEX", "6-SAB", "7-DOM"};
+
+    private static final String[] SEM_CALENDARIO = {SEM_VALOR, SEM_VALOR, SEM_VALOR};
+
+    private final TabelaAnalitica pagamentos;
+    private final TabelaAnalitica matriculas;
+
+    /**
+     * Mês, semana e dia da semana de cada dia epoch já visto (montagem).
+     */
+    private final Map<Integer, String[]> calendario = new HashMap<>();
+
+    private ArmazemAnalitico() {
+        this.pagamentos = new TabelaAnalitica(STATUS, FORMA, PLANO, TIPO_PLANO, MES, SEMANA, DIA_SEMANA);
+        this.matriculas = new TabelaAnalitica(STATUS, PLANO, TIPO_PLANO, MES, SEMANA, DIA_SEMANA);
+    }
+
+    /**
+     * Monta o armazém com a versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @return Armazém com as matrículas e pagamentos da leitura
+     */
+    public static ArmazemAnalitico de(LeituraAcademia leitura) {
+        return de(leitura.getMatriculas(), leitura::statusDe, leitura.getPagamentos(), leitura::statusDe);
+    }
+
+    /**
+     * Monta o armazém a partir de listas, com o status atual de cada item.
+     *
+     * @param matriculas Matrículas
+     * @param pagamentos Pagamentos
+     * @return Armazém com as matrículas e pagamentos informados
+     */
+    public static ArmazemAnalitico de(List<Matricula> matriculas, List<Pagamento> pagamentos) {
+        return de(matriculas, Matricula::getStatus, pagamentos, Pagamento::getStatus);
+    }
+
+    private static ArmazemAnalitico de(
+            List<Matricula> matriculas,
+            Function<Matricula, StatusMatricula> statusMatricula,
+            List<Pagamento> pagamentos,
+            Function<Pagamento, StatusPagamento> statusPagamento) {
+        ArmazemAnalitico armazem = new ArmazemAnalitico();
+        for (Matricula matricula : matriculas) {
+            armazem.adicionarMatricula(matricula, statusMatricula.apply(matricula));
+        }
+        for (Pagamento pagamento : pagamentos) {
+            armazem.adicionarPagamento(pagamento, statusPagamento.apply(pagamento));
+        }
+        armazem.calendario.clear();
+        return armazem;
+    }
+
+    public TabelaAnalitica getPagamentos() {
+        return pagamentos;
+    }
+
+    public TabelaAnalitica getMatriculas() {
+        return matriculas;
+    }
+
+    // ========== MONTAGEM ==========
+
+    private void adicionarMatricula(Matricula matricula, StatusMatricula status) {
+        Date data = matricula.getDataInicio();
+        int dia = data != null ? Conversor.paraDiaEpoch(data) : Integer.MIN_VALUE;
+        String[] datas = calendarioDe(data, dia);
+        matriculas.adicionar(
+            Conversor.paraCentavos(matricula.getValorMensal()), dia,
+            nomeDe(status),
+            matricula.getPlano() != null ? valorDe(matricula.getPlano().getId()) : SEM_VALOR,
+            matricula.getPlano() != null ? valorDe(matricula.getPlano().getTipo()) : SEM_VALOR,
+            datas[0], datas[1], datas[2]);
+    }
+
+    private void adicionarPagamento(Pagamento pagamento, StatusPagamento status) {
+        Date data = pagamento.getDataPagamento();
+        int dia = data != null ? Conversor.paraDiaEpoch(data) : Integer.MIN_VALUE;
+        String[] datas = calendarioDe(data, dia);
+        Matricula matricula = pagamento.getMatricula();
+        boolean temPlano = matricula != null && matricula.getPlano() != null;
+        pagamentos.adicionar(
+            Conversor.paraCentavos(pagamento.getValor()), dia,
+            nomeDe(status),
+            pagamento.getFormaPagamento() != null ? valorDe(pagamento.getFormaPagamento().getTipo()) : SEM_VALOR,
+            temPlano ? valorDe(matricula.getPlano().getId()) : SEM_VALOR,
+            temPlano ? valorDe(matricula.getPlano().getTipo()) : SEM_VALOR,
+            datas[0], datas[1], datas[2]);
+    }
+
+    /**
+     * Retorna mês, semana e dia da semana do dia, calculando uma vez por dia.
+     */
+    private String[] calendarioDe(Date data, int dia) {
+        if (data == null) {
+            return SEM_CALENDARIO;
+        }
+        return calendario.computeIfAbsent(dia, d -> {
+            LocalDate local = LocalDate.ofEpochDay(d);
+            return new String[] {
+                String.format("%04d-%02d", local.getYear(), local.getMonthValue()),
+                String.format("%04d-S%02d", local.get(IsoFields.WEEK_BASED_YEAR), local.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)),
+                DIAS_SEMANA[local.getDayOfWeek().getValue() - 1]
+            };
+        });
+    }
+
+    private static String nomeDe(Enum<?> status) {
+        return status != null ? status.name() : SEM_VALOR;
+    }
+
+    private static String valorDe(String valor) {
+        return valor != null ? valor : SEM_VALOR;
+    }
+}
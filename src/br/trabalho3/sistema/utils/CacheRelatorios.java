@@ -0,0 +1,168 @@
+package br.trabalho3.sistema.utils;
+
+import br.trabalho3.sistema.model.EventoAcademia;
+import br.trabalho3.sistema.model.OuvinteEventos;
+import br.trabalho3.sistema.model.Pagamento;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache de resultados de relatórios, invalidado pelos eventos da academia.
+ * *
+ * Cada resultado é guardado pela chave (tipo do relatório + parâmetros)
+ * junto com as dependências que ele lê, por exemplo:
+ * - "ALUNO": qualquer alteração em alunos;
+ * - "PAGAMENTO": qualquer alteração em pagamentos;
+ * - "PAGAMENTO:2026-10": alterações em pagamentos de outubro de 2026.
+ *
+ * Inscrito no barramento de eventos, o cache incrementa a versão de cada
+ * dependência atingida por um evento. Um resultado só é reaproveitado se
+ * nenhuma das suas dependências mudou de versão desde que foi calculado;
+ * assim um pagamento novo invalida o relatório do seu mês e os relatórios
+ * de todos os pagamentos, mas não o de outros meses nem o de alunos.
+ *
+ * As versões lidas antes de calcular ficam guardadas com o resultado: se
+ * um evento chegar durante o cálculo, o resultado já nasce inválido.
+ *
+ */
+public class CacheRelatorios implements OuvinteEventos {
+
+    /**
+     * Resultado guardado e as versões das dependências quando foi calculado.
+     */
+    private static class Entrada {
+        private final Object valor;
+        private final Map<String, Long> versoes;
+
+        Entrada(Object valor, Map<String, Long> versoes) {
+            this.valor = valor;
+            this.versoes = versoes;
+        }
+    }
+
+    /**
+     * Versão atual de cada dependência (quantas vezes foi atingida).
+     */
+    private final Map<String, Long> versoes = new ConcurrentHashMap<>();
+
+    /**
+     * Resultados por chave (tipo + parâmetros).
+     */
+    private final Map<List<Object>, Entrada> entradas = new ConcurrentHashMap<>();
+
+    // ========== DEPENDÊNCIAS ==========
+
+    /**
+     * Dependência de todas as alterações de um tipo de entidade.
+     *
+     * @param entidade Tipo de entidade
+     * @return Nome da dependência
+     */
+    public static String dependencia(EventoAcademia.Entidade entidade) {
+        return entidade.name();
+    }
+
+    /**
+     * Dependência das alterações em pagamentos de um mês.
+     *
+     * @param mes Mês dos pagamentos
+     * @return Nome da dependência
+     */
+    public static String dependenciaMes(YearMonth mes) {
+        return EventoAcademia.Entidade.PAGAMENTO.name() + ":" + mes;
+    }
+
+    /**
+     * Dependência das alterações em pagamentos do mês de uma data.
+     *
+     * @param data Data dentro do mês
+     * @return Nome da dependência
+     */
+    public static String dependenciaMes(Date data) {
+        return dependenciaMes(mesDe(data));
+    }
+
+    // ========== CONSULTA ==========
+
+    /**
+     * Retorna o resultado guardado ou calcula (e guarda) um novo.
+     *
+     * @param tipo Tipo do relatório (ex.: "financeiro")
+     * @param parametros Parâmetros do relatório (ex.: o mês), comparados com equals
+     * @param dependencias O que o relatório lê (ver dependencia() e dependenciaMes())
+     * @param calcular Cálculo do relatório, usado quando não há resultado válido
+     * @return Resultado do relatório
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obter(String tipo, List<?> parametros, Collection<String> dependencias, Supplier<T> calcular) {
+        List<Object> chave = Arrays.asList(tipo, parametros);
+
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && valida(entrada)) {
+            return (T) entrada.valor;
+        }
+
+        Map<String, Long> lidas = new HashMap<>();
+        for (String dependencia : dependencias) {
+            lidas.put(dependencia, versoes.getOrDefault(dependencia, 0L));
+        }
+        T valor = calcular.get();
+        entradas.put(chave, new Entrada(valor, lidas));
+        return valor;
+    }
+
+    /**
+     * Descarta todos os resultados guardados.
+     */
+    public void invalidarTudo() {
+        entradas.clear();
+    }
+
+    /**
+     * Retorna a quantidade de resultados guardados (válidos ou não).
+     *
+     * @return Quantidade de entradas
+     */
+    public int tamanho() {
+        return entradas.size();
+    }
+
+    // ========== INVALIDAÇÃO ==========
+
+    @Override
+    public void aoAlterar(List<EventoAcademia> eventos) {
+        for (EventoAcademia evento : eventos) {
+            versoes.merge(dependencia(evento.getEntidade()), 1L, Long::sum);
+            if (evento.getEntidade() == EventoAcademia.Entidade.PAGAMENTO) {
+                Date data = evento.getObjeto(Pagamento.class).getDataPagamento();
+                if (data != null) {
+                    versoes.merge(dependenciaMes(data), 1L, Long::sum);
+                }
+            }
+        }
+        // Libera a memória dos resultados que não valem mais
+        entradas.values().removeIf(entrada -> !valida(entrada));
+    }
+
+    private boolean valida(Entrada entrada) {
+        for (Map.Entry<String, Long> lida : entrada.versoes.entrySet()) {
+            if (!lida.getValue().equals(versoes.getOrDefault(lida.getKey(), 0L))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static YearMonth mesDe(Date data) {
+        return YearMonth.from(Instant.ofEpochMilli(data.getTime()).atZone(ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,65 @@
+package br.trabalho3.sistema.utils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Classe utilitária para converter datas e valores em representações
+ * numéricas compactas.
+ *
+ * - Datas viram "dia epoch" (dias desde 01/01/1970), um int.
+ * - Valores em reais viram centavos, um long, evitando erros de
+ *   arredondamento ao somar muitos valores double.
+ *
+ */
+public class Conversor {
+
+    /**
+     * Construtor privado para evitar instanciação.
+     * Esta classe contém apenas métodos estáticos.
+     */
+    private Conversor() {
+        // Construtor privado - classe utilitária não deve ser instanciada
+    }
+
+    /**
+     * Converte uma data para dias desde 01/01/1970 (fuso horário local).
+     *
+     * @param data Data a ser convertida
+     * @return Dia epoch correspondente
+     */
+    public static int paraDiaEpoch(Date data) {
+        return (int) data.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Converte dias desde 01/01/1970 para uma data (meia-noite, fuso horário local).
+     *
+     * @param diaEpoch Dia epoch
+     * @return Data correspondente
+     */
+    public static Date deDiaEpoch(int diaEpoch) {
+        return Date.from(LocalDate.ofEpochDay(diaEpoch).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Converte um valor em reais para centavos, arredondando.
+     *
+     * @param valor Valor em reais
+     * @return Valor em centavos
+     */
+    public static long paraCentavos(double valor) {
+        return Math.round(valor * 100);
+    }
+
+    /**
+     * Converte um valor em centavos para reais.
+     *
+     * @param centavos Valor em centavos
+     * @return Valor em reais
+     */
+    public static double deCentavos(long centavos) {
+        return centavos / 100.0;
+    }
+}
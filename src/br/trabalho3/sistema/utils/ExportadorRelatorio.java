@@ -0,0 +1,344 @@
+package br.trabalho3.sistema.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Escrita de relatórios direto em um Writer, linha a linha.
+ * *
+ * Os itens são lidos de um Iterator e cada campo é escrito assim que é
+ * formatado, sem montar a lista de linhas nem o texto inteiro na memória.
+ * Assim, exportar um relatório de um milhão de linhas usa a mesma memória
+ * que exportar dez (o buffer do Writer).
+ *
+ * A formatação é feita à mão, sem String.format nem String.join:
+ * - CSV: campos separados por vírgula; campos com vírgula, aspas ou quebra
+ *   de linha vão entre aspas, com as aspas internas duplicadas.
+ * - Largura fixa: texto alinhado à esquerda e completado com espaços até
+ *   a largura da coluna (como "%-15s"; textos maiores não são cortados).
+ *
+ * Exemplo:
+ *
+ *   try (ExportadorRelatorio saida = ExportadorRelatorio.paraArquivo("alunos.csv")) {
+ *       saida.exportarCSV(alunos.iterator(), List.of("CPF", "Nome"),
+ *           (aluno, s) -> s.campoCSV(aluno.getCpf()).campoCSV(aluno.getNome()));
+ *   }
+ *
+ */
+public class ExportadorRelatorio implements Closeable {
+
+    /**
+     * Escreve as colunas de um item na linha atual.
+     *
+     * @param <T> Tipo do item
+     */
+    @FunctionalInterface
+    public interface Colunas<T> {
+        void escrever(T item, ExportadorRelatorio saida) throws IOException;
+    }
+
+    /**
+     * Tamanho do buffer usado ao abrir um arquivo.
+     */
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final Writer destino;
+    private final String separadorLinha;
+
+    /**
+     * Indica se a linha atual ainda não tem nenhum campo CSV.
+     */
+    private boolean inicioLinha = true;
+
+    /**
+     * Espaço para montar os dígitos de um número (reusado a cada número).
+     */
+    private final char[] digitos = new char[19];
+
+    /**
+     * Cria o exportador com o separador de linha do sistema.
+     *
+     * @param destino Writer de destino (de preferência com buffer)
+     */
+    public ExportadorRelatorio(Writer destino) {
+        this(destino, System.lineSeparator());
+    }
+
+    /**
+     * Cria o exportador.
+     *
+     * @param destino Writer de destino (de preferência com buffer)
+     * @param separadorLinha Texto escrito ao fim de cada linha
+     */
+    public ExportadorRelatorio(Writer destino, String separadorLinha) {
+        this.destino = destino;
+        this.separadorLinha = separadorLinha;
+    }
+
+    /**
+     * Abre (ou recria) um arquivo para exportação, com buffer.
+     *
+     * @param nomeArquivo Caminho do arquivo
+     * @return Exportador que escreve no arquivo
+     * @throws IOException Se não conseguir criar o arquivo
+     */
+    public static ExportadorRelatorio paraArquivo(String nomeArquivo) throws IOException {
+        return new ExportadorRelatorio(new BufferedWriter(new FileWriter(nomeArquivo), TAMANHO_BUFFER));
+    }
+
+    // ========== EXPORTAÇÃO ==========
+
+    /**
+     * Exporta itens em CSV, um por linha.
+     *
+     * @param itens Itens a exportar (lidos um a um)
+     * @param cabecalho Nomes das colunas (ou null para sem cabeçalho)
+     * @param colunas Escreve os campos de cada item
+     * @return Quantidade de linhas de dados escritas
+     * @throws IOException Se der erro ao escrever
+     */
+    public <T> long exportarCSV(Iterator<T> itens, List<String> cabecalho, Colunas<T> colunas) throws IOException {
+        if (cabecalho != null && !cabecalho.isEmpty()) {
+            for (String nome : cabecalho) {
+                campoCSV(nome);
+            }
+            fimLinha();
+        }
+
+        long linhas = 0;
+        while (itens.hasNext()) {
+            colunas.escrever(itens.next(), this);
+            fimLinha();
+            linhas++;
+        }
+        destino.flush();
+        return linhas;
+    }
+
+    /**
+     * Escreve itens em colunas de largura fixa, um por linha.
+     *
+     * @param itens Itens a escrever (lidos um a um)
+     * @param colunas Escreve as colunas de cada item
+     * @return Quantidade de linhas escritas
+     * @throws IOException Se der erro ao escrever
+     */
+    public <T> long exportarLarguraFixa(Iterator<T> itens, Colunas<T> colunas) throws IOException {
+        long linhas = 0;
+        while (itens.hasNext()) {
+            colunas.escrever(itens.next(), this);
+            fimLinha();
+            linhas++;
+        }
+        destino.flush();
+        return linhas;
+    }
+
+    // ========== CAMPOS CSV ==========
+
+    /**
+     * Escreve um campo de texto CSV (null vira campo vazio).
+     */
+    public ExportadorRelatorio campoCSV(String valor) throws IOException {
+        separarCampo();
+        if (valor == null) {
+            return this;
+        }
+        if (!precisaAspas(valor)) {
+            destino.write(valor);
+            return this;
+        }
+        destino.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                destino.write('"');
+            }
+            destino.write(c);
+        }
+        destino.write('"');
+        return this;
+    }
+
+    /**
+     * Escreve um campo inteiro CSV.
+     */
+    public ExportadorRelatorio campoCSV(long valor) throws IOException {
+        separarCampo();
+        escreverInteiro(valor);
+        return this;
+    }
+
+    /**
+     * Escreve um valor em centavos como campo CSV com duas casas ("123.45").
+     */
+    public ExportadorRelatorio campoCentavosCSV(long centavos) throws IOException {
+        separarCampo();
+        escreverCentavos(centavos, '.');
+        return this;
+    }
+
+    /**
+     * Escreve uma data como campo CSV no formato dd/MM/yyyy (null vira campo vazio).
+     */
+    public ExportadorRelatorio campoDataCSV(Date data) throws IOException {
+        separarCampo();
+        if (data != null) {
+            escreverData(data);
+        }
+        return this;
+    }
+
+    // ========== COLUNAS DE LARGURA FIXA ==========
+
+    /**
+     * Escreve um texto alinhado à esquerda, completando com espaços.
+     * Como em String.format, null é escrito como "null".
+     *
+     * @param valor Texto da coluna
+     * @param largura Largura mínima da coluna
+     */
+    public ExportadorRelatorio coluna(String valor, int largura) throws IOException {
+        String texto = String.valueOf(valor);
+        destino.write(texto);
+        espacos(largura - texto.length());
+        return this;
+    }
+
+    /**
+     * Escreve um texto sem completar a largura.
+     */
+    public ExportadorRelatorio texto(String valor) throws IOException {
+        destino.write(valor);
+        return this;
+    }
+
+    /**
+     * Escreve um caractere repetido (ex.: linha de "=").
+     */
+    public ExportadorRelatorio repetir(char caractere, int vezes) throws IOException {
+        for (int i = 0; i < vezes; i++) {
+            destino.write(caractere);
+        }
+        return this;
+    }
+
+    /**
+     * Escreve um número inteiro.
+     */
+    public ExportadorRelatorio numero(long valor) throws IOException {
+        escreverInteiro(valor);
+        return this;
+    }
+
+    /**
+     * Escreve um valor em centavos como "R$ 1234,56".
+     */
+    public ExportadorRelatorio reais(long centavos) throws IOException {
+        destino.write("R$ ");
+        escreverCentavos(centavos, ',');
+        return this;
+    }
+
+    /**
+     * Escreve uma data no formato dd/MM/yyyy (null não escreve nada).
+     */
+    public ExportadorRelatorio data(Date data) throws IOException {
+        if (data != null) {
+            escreverData(data);
+        }
+        return this;
+    }
+
+    // ========== LINHAS ==========
+
+    /**
+     * Termina a linha atual.
+     */
+    public ExportadorRelatorio fimLinha() throws IOException {
+        destino.write(separadorLinha);
+        inicioLinha = true;
+        return this;
+    }
+
+    /**
+     * Grava o que estiver no buffer e fecha o destino.
+     */
+    @Override
+    public void close() throws IOException {
+        destino.close();
+    }
+
+    // ========== FORMATAÇÃO ==========
+
+    private void separarCampo() throws IOException {
+        if (!inicioLinha) {
+            destino.write(',');
+        }
+        inicioLinha = false;
+    }
+
+    private static boolean precisaAspas(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void espacos(int quantidade) throws IOException {
+        for (int i = 0; i < quantidade; i++) {
+            destino.write(' ');
+        }
+    }
+
+    private void escreverInteiro(long valor) throws IOException {
+        if (valor < 0) {
+            destino.write('-');
+            if (valor == Long.MIN_VALUE) {
+                destino.write("9223372036854775808");
+                return;
+            }
+            valor = -valor;
+        }
+        int posicao = digitos.length;
+        do {
+            digitos[--posicao] = (char) ('0' + valor % 10);
+            valor /= 10;
+        } while (valor > 0);
+        destino.write(digitos, posicao, digitos.length - posicao);
+    }
+
+    private void escreverCentavos(long centavos, char separadorDecimal) throws IOException {
+        if (centavos < 0) {
+            destino.write('-');
+            centavos = -centavos;
+        }
+        escreverInteiro(centavos / 100);
+        destino.write(separadorDecimal);
+        escreverDoisDigitos((int) (centavos % 100));
+    }
+
+    private void escreverData(Date data) throws IOException {
+        LocalDate dia = LocalDate.ofEpochDay(Conversor.paraDiaEpoch(data));
+        escreverDoisDigitos(dia.getDayOfMonth());
+        destino.write('/');
+        escreverDoisDigitos(dia.getMonthValue());
+        destino.write('/');
+        escreverInteiro(dia.getYear());
+    }
+
+    private void escreverDoisDigitos(int valor) throws IOException {
+        destino.write((char) ('0' + valor / 10));
+        destino.write((char) ('0' + valor % 10));
+    }
+}
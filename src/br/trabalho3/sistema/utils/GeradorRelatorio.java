@@ -4,6 +4,7 @@ import br.trabalho3.sistema.model.*;
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.Function;
 
 /**
  * Classe utilitária para geração de relatórios e exportação de dados.
@@ -14,6 +15,10 @@ import java.util.*;
  * - Exportar dados para CSV
  * - Formatar dados para impressão
  *
+ * Os relatórios também aceitam uma LeituraAcademia: as listas e os status
+ * vêm da versão fixada pela leitura, então o relatório fica consistente
+ * mesmo que a academia seja alterada enquanto ele é gerado.
+ *
  */
 public class GeradorRelatorio {
 
@@ -42,21 +47,32 @@ public class GeradorRelatorio {
             List<Aluno> alunos,
             List<Matricula> matriculas,
             StatusMatricula statusFiltro) {
+        return filtrarAlunosPorStatus(alunos, matriculas, Matricula::getStatus, statusFiltro);
+    }
 
-        List<Aluno> alunosFiltrados = new ArrayList<>();
+    /**
+     * Filtra alunos por status de matrícula, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param statusFiltro Status desejado
+     * @return Lista de alunos que possuem matrícula com o status especificado
+     */
+    public static List<Aluno> filtrarAlunosPorStatus(LeituraAcademia leitura, StatusMatricula statusFiltro) {
+        return filtrarAlunosPorStatus(leitura.getAlunos(), leitura.getMatriculas(), leitura::statusDe, statusFiltro);
+    }
 
-        // Para cada aluno, verifica se possui matrícula com o status desejado
-        for (Aluno aluno : alunos) {
-            for (Matricula matricula : matriculas) {
-                if (matricula.getAluno().getCpf().equals(aluno.getCpf()) &&
-                    matricula.getStatus() == statusFiltro) {
-                    alunosFiltrados.add(aluno);
-                    break; // Encontrou uma matrícula, não precisa continuar
-                }
-            }
-        }
+    private static List<Aluno> filtrarAlunosPorStatus(
+            List<Aluno> alunos,
+            List<Matricula> matriculas,
+            Function<Matricula, StatusMatricula> statusDe,
+            StatusMatricula statusFiltro) {
 
-        return alunosFiltrados;
+        // Junta pelo CPF: monta o conjunto dos CPFs com matrícula no status
+        // desejado (uma passada nas matrículas) e consulta cada aluno nele
+        return JuncaoHash.semiJuncao(
+            alunos, Aluno::getCpf,
+            matriculas, matricula -> matricula.getAluno().getCpf(),
+            matricula -> statusDe.apply(matricula) == statusFiltro);
     }
 
     /**
@@ -71,12 +87,32 @@ public class GeradorRelatorio {
             List<Pagamento> pagamentos,
             Date dataInicio,
             Date dataFim) {
+        return calcularReceitasPeriodo(pagamentos, Pagamento::getStatus, dataInicio, dataFim);
+    }
+
+    /**
+     * Calcula o total de receitas confirmadas em um período, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param dataInicio Data inicial do período (pode ser null para sem limite)
+     * @param dataFim Data final do período (pode ser null para sem limite)
+     * @return Valor total das receitas confirmadas no período
+     */
+    public static double calcularReceitasPeriodo(LeituraAcademia leitura, Date dataInicio, Date dataFim) {
+        return calcularReceitasPeriodo(leitura.getPagamentos(), leitura::statusDe, dataInicio, dataFim);
+    }
+
+    private static double calcularReceitasPeriodo(
+            List<Pagamento> pagamentos,
+            Function<Pagamento, StatusPagamento> statusDe,
+            Date dataInicio,
+            Date dataFim) {
 
         double totalReceitas = 0.0;
 
         for (Pagamento pagamento : pagamentos) {
             // Considera apenas pagamentos confirmados
-            if (pagamento.getStatus() == StatusPagamento.CONFIRMADO) {
+            if (statusDe.apply(pagamento) == StatusPagamento.CONFIRMADO) {
                 Date dataPagamento = pagamento.getDataPagamento();
 
                 // Verifica se está dentro do período
@@ -99,6 +135,25 @@ public class GeradorRelatorio {
         return totalReceitas;
     }
 
+    /**
+     * Calcula o total de receitas confirmadas em um período usando a receita
+     * diária mantida pela academia (Academia.getReceitas()).
+     *
+     * Não percorre os pagamentos: a consulta custa O(log dias). A comparação
+     * é feita por dia: pagamentos do dia inicial e do dia final entram no total.
+     *
+     * @param receitas Receita diária da academia
+     * @param dataInicio Data inicial do período (pode ser null para sem limite)
+     * @param dataFim Data final do período (pode ser null para sem limite)
+     * @return Valor total das receitas confirmadas no período
+     */
+    public static double calcularReceitasPeriodo(
+            ReceitaDiaria receitas,
+            Date dataInicio,
+            Date dataFim) {
+        return receitas.calcularReceita(dataInicio, dataFim);
+    }
+
     /**
      * Filtra pagamentos por status.
      *
@@ -109,11 +164,29 @@ public class GeradorRelatorio {
     public static List<Pagamento> filtrarPagamentosPorStatus(
             List<Pagamento> pagamentos,
             StatusPagamento status) {
+        return filtrarPagamentosPorStatus(pagamentos, Pagamento::getStatus, status);
+    }
+
+    /**
+     * Filtra pagamentos por status, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param status Status desejado (PENDENTE, CONFIRMADO, ESTORNADO)
+     * @return Lista de pagamentos com o status especificado
+     */
+    public static List<Pagamento> filtrarPagamentosPorStatus(LeituraAcademia leitura, StatusPagamento status) {
+        return filtrarPagamentosPorStatus(leitura.getPagamentos(), leitura::statusDe, status);
+    }
+
+    private static List<Pagamento> filtrarPagamentosPorStatus(
+            List<Pagamento> pagamentos,
+            Function<Pagamento, StatusPagamento> statusDe,
+            StatusPagamento status) {
 
         List<Pagamento> pagamentosFiltrados = new ArrayList<>();
 
         for (Pagamento pagamento : pagamentos) {
-            if (pagamento.getStatus() == status) {
+            if (statusDe.apply(pagamento) == status) {
                 pagamentosFiltrados.add(pagamento);
             }
         }
@@ -128,11 +201,27 @@ public class GeradorRelatorio {
      * @return Mapa com nome do plano e quantidade de matrículas ativas
      */
     public static Map<String, Integer> gerarEstatisticasPlanos(List<Matricula> matriculas) {
+        return gerarEstatisticasPlanos(matriculas, Matricula::getStatus);
+    }
+
+    /**
+     * Gera estatísticas de planos na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @return Mapa com nome do plano e quantidade de matrículas ativas
+     */
+    public static Map<String, Integer> gerarEstatisticasPlanos(LeituraAcademia leitura) {
+        return gerarEstatisticasPlanos(leitura.getMatriculas(), leitura::statusDe);
+    }
+
+    private static Map<String, Integer> gerarEstatisticasPlanos(
+            List<Matricula> matriculas,
+            Function<Matricula, StatusMatricula> statusDe) {
         Map<String, Integer> estatisticas = new HashMap<>();
 
         for (Matricula matricula : matriculas) {
             // Considera apenas matrículas ativas
-            if (matricula.getStatus() == StatusMatricula.ATIVA) {
+            if (statusDe.apply(matricula) == StatusMatricula.ATIVA) {
                 String nomePlano = matricula.getPlano().getNome();
 
                 // Incrementa contador do plano
@@ -143,6 +232,20 @@ public class GeradorRelatorio {
         return estatisticas;
     }
 
+    /**
+     * Gera estatísticas de planos a partir dos contadores mantidos pela
+     * academia (Academia.getEstatisticasPlanos()), sem percorrer as matrículas.
+     *
+     * Ao contrário das outras versões, o mapa é indexado pelo ID do plano,
+     * então planos com o mesmo nome não são somados juntos.
+     *
+     * @param estatisticas Contadores de matrículas por plano
+     * @return Mapa com ID do plano e quantidade de matrículas ativas
+     */
+    public static Map<String, Integer> gerarEstatisticasPlanos(EstatisticasPlanos estatisticas) {
+        return estatisticas.contarPorPlano(StatusMatricula.ATIVA);
+    }
+
     /**
      * Exporta uma lista de dados para arquivo CSV.
      *
@@ -155,29 +258,74 @@ public class GeradorRelatorio {
             List<List<String>> dados,
             String nomeArquivo,
             List<String> cabecalho) {
+        return exportarCSV(dados.iterator(), nomeArquivo, cabecalho);
+    }
 
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(nomeArquivo))) {
-            // Escreve o cabeçalho
-            if (cabecalho != null && !cabecalho.isEmpty()) {
-                writer.write(String.join(",", cabecalho));
-                writer.newLine();
-            }
+    /**
+     * Exporta linhas para arquivo CSV à medida que são lidas do iterador,
+     * sem guardar o relatório inteiro na memória.
+     *
+     * @param linhas Linhas de dados (cada linha é uma lista de campos)
+     * @param nomeArquivo Nome do arquivo CSV a ser criado
+     * @param cabecalho Cabeçalho do arquivo (nomes das colunas)
+     * @return true se exportou com sucesso, false em caso de erro
+     */
+    public static boolean exportarCSV(
+            Iterator<List<String>> linhas,
+            String nomeArquivo,
+            List<String> cabecalho) {
 
-            // Escreve cada linha de dados
-            for (List<String> linha : dados) {
-                // Trata campos que contêm vírgula (coloca entre aspas)
-                List<String> camposTratados = new ArrayList<>();
+        try (ExportadorRelatorio saida = ExportadorRelatorio.paraArquivo(nomeArquivo)) {
+            saida.exportarCSV(linhas, cabecalho, (linha, s) -> {
                 for (String campo : linha) {
-                    if (campo.contains(",")) {
-                        camposTratados.add("\"" + campo + "\"");
-                    } else {
-                        camposTratados.add(campo);
-                    }
+                    s.campoCSV(campo);
                 }
-                writer.write(String.join(",", camposTratados));
-                writer.newLine();
-            }
+            });
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("Erro ao exportar CSV: " + e.getMessage());
+            return false;
+        }
+    }
 
+    /**
+     * Exporta pagamentos para arquivo CSV, um por linha, sem montar as
+     * linhas na memória.
+     *
+     * @param pagamentos Pagamentos a exportar
+     * @param nomeArquivo Nome do arquivo CSV a ser criado
+     * @return true se exportou com sucesso, false em caso de erro
+     */
+    public static boolean exportarPagamentosCSV(Iterator<Pagamento> pagamentos, String nomeArquivo) {
+        return exportarPagamentosCSV(pagamentos, Pagamento::getStatus, nomeArquivo);
+    }
+
+    /**
+     * Exporta os pagamentos para arquivo CSV, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param nomeArquivo Nome do arquivo CSV a ser criado
+     * @return true se exportou com sucesso, false em caso de erro
+     */
+    public static boolean exportarPagamentosCSV(LeituraAcademia leitura, String nomeArquivo) {
+        return exportarPagamentosCSV(leitura.getPagamentos().iterator(), leitura::statusDe, nomeArquivo);
+    }
+
+    private static boolean exportarPagamentosCSV(
+            Iterator<Pagamento> pagamentos,
+            Function<Pagamento, StatusPagamento> statusDe,
+            String nomeArquivo) {
+
+        List<String> cabecalho = Arrays.asList("ID", "Matricula", "Valor", "Data", "Forma", "Status");
+        try (ExportadorRelatorio saida = ExportadorRelatorio.paraArquivo(nomeArquivo)) {
+            saida.exportarCSV(pagamentos, cabecalho, (pagamento, s) -> s
+                .campoCSV(pagamento.getId())
+                .campoCSV(pagamento.getMatricula().getId())
+                .campoCentavosCSV(Conversor.paraCentavos(pagamento.getValor()))
+                .campoDataCSV(pagamento.getDataPagamento())
+                .campoCSV(pagamento.getFormaPagamento().getTipo())
+                .campoCSV(statusDe.apply(pagamento).name()));
             return true;
 
         } catch (IOException e) {
@@ -193,29 +341,46 @@ public class GeradorRelatorio {
      * @return String formatada com os dados dos alunos
      */
     public static String formatarRelatorioAlunos(List<Aluno> alunos) {
-        StringBuilder relatorio = new StringBuilder();
-        relatorio.append("RELATÓRIO DE ALUNOS\n");
-        relatorio.append("=".repeat(80)).append("\n\n");
+        StringWriter relatorio = new StringWriter();
+        try {
+            escreverRelatorioAlunos(alunos, relatorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringWriter não lança IOException
+        }
+        return relatorio.toString();
+    }
+
+    /**
+     * Escreve o relatório de alunos direto no Writer, aluno por aluno.
+     * O texto é o mesmo de formatarRelatorioAlunos(), mas não é montado
+     * inteiro na memória.
+     *
+     * @param alunos Alunos do relatório
+     * @param destino Onde escrever (de preferência com buffer)
+     * @throws IOException Se der erro ao escrever
+     */
+    public static void escreverRelatorioAlunos(Collection<Aluno> alunos, Writer destino) throws IOException {
+        ExportadorRelatorio saida = new ExportadorRelatorio(destino, "\n");
+        saida.texto("RELATÓRIO DE ALUNOS").fimLinha();
+        saida.repetir('=', 80).fimLinha().fimLinha();
 
         if (alunos.isEmpty()) {
-            relatorio.append("Nenhum aluno encontrado.\n");
+            saida.texto("Nenhum aluno encontrado.").fimLinha();
         } else {
-            relatorio.append(String.format("Total de alunos: %d\n\n", alunos.size()));
-            relatorio.append(String.format("%-15s %-30s %-15s %-30s\n",
-                "CPF", "Nome", "Telefone", "Email"));
-            relatorio.append("-".repeat(80)).append("\n");
-
-            for (Aluno aluno : alunos) {
-                relatorio.append(String.format("%-15s %-30s %-15s %-30s\n",
-                    aluno.getCpf(),
-                    aluno.getNome(),
-                    aluno.getTelefone(),
-                    aluno.getEmail()));
-            }
+            saida.texto("Total de alunos: ").numero(alunos.size()).fimLinha().fimLinha();
+            saida.coluna("CPF", 15).texto(" ").coluna("Nome", 30).texto(" ")
+                .coluna("Telefone", 15).texto(" ").coluna("Email", 30).fimLinha();
+            saida.repetir('-', 80).fimLinha();
+
+            saida.exportarLarguraFixa(alunos.iterator(), (aluno, s) -> s
+                .coluna(aluno.getCpf(), 15).texto(" ")
+                .coluna(aluno.getNome(), 30).texto(" ")
+                .coluna(aluno.getTelefone(), 15).texto(" ")
+                .coluna(aluno.getEmail(), 30));
         }
 
-        relatorio.append("\n").append("=".repeat(80)).append("\n");
-        return relatorio.toString();
+        saida.fimLinha().repetir('=', 80).fimLinha();
+        destino.flush();
     }
 
     /**
@@ -225,33 +390,77 @@ public class GeradorRelatorio {
      * @return String formatada com os dados financeiros
      */
     public static String formatarRelatorioFinanceiro(List<Pagamento> pagamentos) {
+        return formatarRelatorioFinanceiro(pagamentos, Pagamento::getStatus);
+    }
+
+    /**
+     * Formata um relatório financeiro na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @return String formatada com os dados financeiros
+     */
+    public static String formatarRelatorioFinanceiro(LeituraAcademia leitura) {
+        return formatarRelatorioFinanceiro(leitura.getPagamentos(), leitura::statusDe);
+    }
+
+    private static String formatarRelatorioFinanceiro(
+            List<Pagamento> pagamentos,
+            Function<Pagamento, StatusPagamento> statusDe) {
+        return formatarRelatorioFinanceiro(TotaisFinanceiros.de(pagamentos, statusDe));
+    }
+
+    /**
+     * Formata um relatório financeiro a partir de totais já calculados
+     * (por exemplo, pelo MotorRelatorios).
+     *
+     * @param totais Totais dos pagamentos por status
+     * @return String formatada com os dados financeiros
+     */
+    public static String formatarRelatorioFinanceiro(TotaisFinanceiros totais) {
         StringBuilder relatorio = new StringBuilder();
         relatorio.append("RELATÓRIO FINANCEIRO\n");
         relatorio.append("=".repeat(80)).append("\n\n");
 
-        double totalConfirmado = 0.0;
-        double totalPendente = 0.0;
-        double totalEstornado = 0.0;
+        relatorio.append(String.format("Total de Pagamentos: %d\n\n", totais.getQuantidade()));
+        relatorio.append(String.format("Receitas Confirmadas: R$ %.2f\n", totais.getValor(StatusPagamento.CONFIRMADO)));
+        relatorio.append(String.format("Pagamentos Pendentes: R$ %.2f\n", totais.getValor(StatusPagamento.PENDENTE)));
+        relatorio.append(String.format("Valores Estornados:   R$ %.2f\n", totais.getValor(StatusPagamento.ESTORNADO)));
+        relatorio.append("\n").append("=".repeat(80)).append("\n");
 
-        for (Pagamento pagamento : pagamentos) {
-            switch (pagamento.getStatus()) {
-                case CONFIRMADO:
-                    totalConfirmado += pagamento.getValor();
-                    break;
-                case PENDENTE:
-                    totalPendente += pagamento.getValor();
-                    break;
-                case ESTORNADO:
-                    totalEstornado += pagamento.getValor();
-                    break;
+        return relatorio.toString();
+    }
+
+    /**
+     * Formata o resultado de uma consulta do ArmazemAnalitico, uma linha
+     * por grupo (valores das dimensões, quantidade e valor).
+     *
+     * @param titulo Título do relatório
+     * @param resultado Resultado da consulta
+     * @return String formatada com os grupos e o total
+     */
+    public static String formatarAgregacao(String titulo, ResultadoAgregacao resultado) {
+        StringBuilder relatorio = new StringBuilder();
+        relatorio.append(titulo.toUpperCase()).append("\n");
+        relatorio.append("=".repeat(80)).append("\n\n");
+
+        for (String dimensao : resultado.getDimensoes()) {
+            relatorio.append(String.format("%-15s ", dimensao));
+        }
+        relatorio.append(String.format("%10s %18s\n", "Quantidade", "Valor"));
+        relatorio.append("-".repeat(80)).append("\n");
+
+        for (ResultadoAgregacao.Grupo grupo : resultado.getGrupos()) {
+            for (String valor : grupo.getChave()) {
+                relatorio.append(String.format("%-15s ", valor));
             }
+            relatorio.append(String.format("%10d %18s\n", grupo.getQuantidade(),
+                String.format("R$ %.2f", grupo.getValor())));
         }
 
-        relatorio.append(String.format("Total de Pagamentos: %d\n\n", pagamentos.size()));
-        relatorio.append(String.format("Receitas Confirmadas: R$ %.2f\n", totalConfirmado));
-        relatorio.append(String.format("Pagamentos Pendentes: R$ %.2f\n", totalPendente));
-        relatorio.append(String.format("Valores Estornados:   R$ %.2f\n", totalEstornado));
-        relatorio.append("\n").append("=".repeat(80)).append("\n");
+        relatorio.append("-".repeat(80)).append("\n");
+        relatorio.append(String.format("Total: %d, R$ %.2f\n", resultado.getQuantidadeTotal(),
+            Conversor.deCentavos(resultado.getCentavosTotal())));
+        relatorio.append("=".repeat(80)).append("\n");
 
         return relatorio.toString();
     }
@@ -0,0 +1,125 @@
+package br.trabalho3.sistema.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Operadores de junção por hash para os relatórios.
+ * *
+ * Em vez de comparar cada item de uma lista com todos os itens da outra
+ * (O(n·m)), o lado "construção" é percorrido uma vez para montar um conjunto
+ * ou mapa pela chave, e o lado "sondagem" é percorrido uma vez consultando
+ * esse conjunto. O custo total fica O(n + m).
+ *
+ * Exemplo: alunos que têm alguma matrícula ativa.
+ *
+ *   JuncaoHash.semiJuncao(alunos, Aluno::getCpf,
+ *       matriculas, m -> m.getAluno().getCpf(),
+ *       m -> m.getStatus() == StatusMatricula.ATIVA);
+ *
+ * A ordem da lista sondada é mantida no resultado.
+ *
+ */
+public class JuncaoHash {
+
+    /**
+     * Construtor privado para evitar instanciação.
+     * Esta classe contém apenas métodos estáticos.
+     */
+    private JuncaoHash() {
+        // Construtor privado - classe utilitária não deve ser instanciada
+    }
+
+    /**
+     * Semi-junção: itens da esquerda que têm pelo menos um item da direita
+     * (que passa no filtro) com a mesma chave. Cada item da esquerda aparece
+     * no máximo uma vez, mesmo que tenha vários correspondentes.
+     *
+     * @param esquerda Itens sondados (ex.: alunos)
+     * @param chaveEsquerda Chave de cada item da esquerda
+     * @param direita Itens usados para construir o conjunto (ex.: matrículas)
+     * @param chaveDireita Chave de cada item da direita
+     * @param filtroDireita Condição para o item da direita contar
+     * @return Itens da esquerda com correspondente, na ordem original
+     */
+    public static <E, D, K> List<E> semiJuncao(
+            Collection<E> esquerda,
+            Function<? super E, ? extends K> chaveEsquerda,
+            Collection<D> direita,
+            Function<? super D, ? extends K> chaveDireita,
+            Predicate<? super D> filtroDireita) {
+        Set<K> chaves = construirChaves(direita, chaveDireita, filtroDireita);
+        List<E> resultado = new ArrayList<>();
+        for (E item : esquerda) {
+            if (chaves.contains(chaveEsquerda.apply(item))) {
+                resultado.add(item);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Anti-junção: itens da esquerda que não têm nenhum item da direita
+     * (que passa no filtro) com a mesma chave.
+     *
+     * @param esquerda Itens sondados
+     * @param chaveEsquerda Chave de cada item da esquerda
+     * @param direita Itens usados para construir o conjunto
+     * @param chaveDireita Chave de cada item da direita
+     * @param filtroDireita Condição para o item da direita contar
+     * @return Itens da esquerda sem correspondente, na ordem original
+     */
+    public static <E, D, K> List<E> antiJuncao(
+            Collection<E> esquerda,
+            Function<? super E, ? extends K> chaveEsquerda,
+            Collection<D> direita,
+            Function<? super D, ? extends K> chaveDireita,
+            Predicate<? super D> filtroDireita) {
+        Set<K> chaves = construirChaves(direita, chaveDireita, filtroDireita);
+        List<E> resultado = new ArrayList<>();
+        for (E item : esquerda) {
+            if (!chaves.contains(chaveEsquerda.apply(item))) {
+                resultado.add(item);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Monta um mapa da chave para o primeiro item com aquela chave.
+     * Serve para juntar cada item de outra lista ao seu primeiro
+     * correspondente (ex.: cada aluno com sua primeira matrícula)
+     * com uma consulta por item.
+     *
+     * @param itens Itens a indexar
+     * @param chave Chave de cada item
+     * @return Mapa da chave para o primeiro item encontrado
+     */
+    public static <D, K> Map<K, D> indexarPrimeiro(Collection<D> itens, Function<? super D, ? extends K> chave) {
+        Map<K, D> indice = new HashMap<>();
+        for (D item : itens) {
+            indice.putIfAbsent(chave.apply(item), item);
+        }
+        return indice;
+    }
+
+    private static <D, K> Set<K> construirChaves(
+            Collection<D> direita,
+            Function<? super D, ? extends K> chaveDireita,
+            Predicate<? super D> filtroDireita) {
+        Set<K> chaves = new HashSet<>();
+        for (D item : direita) {
+            if (filtroDireita.test(item)) {
+                chaves.add(chaveDireita.apply(item));
+            }
+        }
+        return chaves;
+    }
+}
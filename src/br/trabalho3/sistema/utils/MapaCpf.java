@@ -0,0 +1,216 @@
+package br.trabalho3.sistema.utils;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de CPFs compactos (long) para objetos, usando endereçamento aberto.
+ *
+ * Diferente de um HashMap&lt;Long, V&gt;, as chaves ficam em um vetor de long
+ * primitivo, sem criar um objeto Long para cada CPF. Colisões são resolvidas
+ * por sondagem linear (procura a próxima posição livre do vetor).
+ *
+ * As chaves são CPFs compactos gerados por ValidadorCPF.compactarCPF(),
+ * que nunca são negativos. Por isso -1 é usado para marcar posições vazias.
+ *
+ * Esta classe não é sincronizada. Quem a usa entre threads (como a Academia)
+ * deve controlar o acesso. get() tolera ser chamado durante uma escrita
+ * (leitura otimista): pode devolver um resultado errado, mas não entra em
+ * laço infinito nem lança exceção por vetores trocados no meio da leitura.
+ *
+ * @param <V> Tipo dos valores guardados (ex: Aluno, Instrutor)
+ */
+public class MapaCpf<V> {
+
+    /**
+     * Marca de posição vazia no vetor de chaves.
+     */
+    private static final long VAZIO = -1L;
+
+    /**
+     * Capacidade inicial (sempre potência de 2).
+     */
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    /**
+     * Vetor de chaves (CPFs compactos).
+     */
+    private long[] chaves;
+
+    /**
+     * Vetor de valores, na mesma posição da chave correspondente.
+     */
+    private Object[] valores;
+
+    /**
+     * Quantidade de pares guardados.
+     */
+    private int tamanho;
+
+    /**
+     * Cria um mapa vazio.
+     */
+    public MapaCpf() {
+        alocar(CAPACIDADE_INICIAL);
+    }
+
+    /**
+     * Busca o valor associado a um CPF compacto.
+     *
+     * @param cpf CPF compacto
+     * @return Valor encontrado ou null se não existir
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long cpf) {
+        if (cpf < 0) {
+            return null;
+        }
+        long[] k = chaves;
+        Object[] v = valores;
+        if (k == null || v == null || k.length != v.length) {
+            return null; // Vetores sendo trocados por outra thread
+        }
+        int mascara = k.length - 1;
+        for (int i = posicao(cpf, mascara), passos = 0; passos < k.length; i = (i + 1) & mascara, passos++) {
+            long atual = k[i];
+            if (atual == cpf) {
+                return (V) v[i];
+            }
+            if (atual == VAZIO) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Verifica se existe um valor para o CPF.
+     *
+     * @param cpf CPF compacto
+     * @return true se existe, false caso contrário
+     */
+    public boolean contem(long cpf) {
+        return get(cpf) != null;
+    }
+
+    /**
+     * Associa um valor a um CPF compacto, substituindo o anterior se existir.
+     *
+     * @param cpf CPF compacto (não pode ser negativo)
+     * @param valor Valor a guardar
+     * @return Valor anterior ou null se não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long cpf, V valor) {
+        if (cpf < 0) {
+            throw new IllegalArgumentException("CPF compacto inválido: " + cpf);
+        }
+        if ((tamanho + 1) * 4 > chaves.length * 3) {
+            alocar(chaves.length * 2); // Mantém ocupação abaixo de 75%
+        }
+        int mascara = chaves.length - 1;
+        int i = posicao(cpf, mascara);
+        while (chaves[i] != VAZIO) {
+            if (chaves[i] == cpf) {
+                V anterior = (V) valores[i];
+                valores[i] = valor;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        chaves[i] = cpf;
+        valores[i] = valor;
+        tamanho++;
+        return null;
+    }
+
+    /**
+     * Remove o valor associado a um CPF compacto.
+     *
+     * Após remover, as chaves seguintes do mesmo grupo são puxadas para trás,
+     * para que a sondagem linear continue encontrando todas elas.
+     *
+     * @param cpf CPF compacto
+     * @return Valor removido ou null se não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long cpf) {
+        if (cpf < 0) {
+            return null;
+        }
+        int mascara = chaves.length - 1;
+        int i = posicao(cpf, mascara);
+        while (chaves[i] != cpf) {
+            if (chaves[i] == VAZIO) {
+                return null;
+            }
+            i = (i + 1) & mascara;
+        }
+
+        V removido = (V) valores[i];
+        int livre = i;
+        for (int j = (i + 1) & mascara; chaves[j] != VAZIO; j = (j + 1) & mascara) {
+            int ideal = posicao(chaves[j], mascara);
+            // Move a chave j para a posição livre se ela não estiver
+            // entre sua posição ideal e j (considerando a volta do vetor)
+            if (((j - ideal) & mascara) >= ((j - livre) & mascara)) {
+                chaves[livre] = chaves[j];
+                valores[livre] = valores[j];
+                livre = j;
+            }
+        }
+        chaves[livre] = VAZIO;
+        valores[livre] = null;
+        tamanho--;
+        return removido;
+    }
+
+    /**
+     * Retorna a quantidade de CPFs guardados.
+     *
+     * @return Tamanho do mapa
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Remove todos os pares do mapa.
+     */
+    public void limpar() {
+        chaves = null;
+        valores = null;
+        alocar(CAPACIDADE_INICIAL);
+    }
+
+    /**
+     * Calcula a posição inicial de uma chave no vetor.
+     * Espalha os bits do CPF para evitar agrupamento de CPFs parecidos.
+     */
+    private static int posicao(long cpf, int mascara) {
+        long h = cpf * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    /**
+     * Cria novos vetores com a capacidade informada e reinsere os pares existentes.
+     */
+    @SuppressWarnings("unchecked")
+    private void alocar(int capacidade) {
+        long[] chavesAntigas = chaves;
+        Object[] valoresAntigos = valores;
+
+        long[] novasChaves = new long[capacidade];
+        Arrays.fill(novasChaves, VAZIO);
+        chaves = novasChaves;
+        valores = new Object[capacidade];
+        tamanho = 0;
+
+        if (chavesAntigas != null) {
+            for (int i = 0; i < chavesAntigas.length; i++) {
+                if (chavesAntigas[i] != VAZIO) {
+                    put(chavesAntigas[i], (V) valoresAntigos[i]);
+                }
+            }
+        }
+    }
+}
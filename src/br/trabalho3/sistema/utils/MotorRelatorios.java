@@ -0,0 +1,374 @@
+package br.trabalho3.sistema.utils;
+
+import br.trabalho3.sistema.model.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Execução paralela dos relatórios em um ForkJoinPool.
+ * *
+ * Oferece os mesmos relatórios do GeradorRelatorio (totais financeiros,
+ * receitas do período, filtros por status e estatísticas de planos), mas
+ * divide a lista de entrada em partes, calcula um resultado parcial de cada
+ * parte em paralelo e junta os parciais no final.
+ *
+ * O resultado é sempre o mesmo, com qualquer quantidade de threads:
+ * - a divisão em partes depende só do tamanho da lista;
+ * - os parciais são juntados sempre na ordem (esquerda + direita), então
+ *   as listas filtradas mantêm a ordem original;
+ * - valores são somados em centavos (long), sem erro de arredondamento.
+ *
+ * Listas menores que o tamanho de uma parte são processadas direto na
+ * thread que chamou, sem usar o pool.
+ *
+ */
+public class MotorRelatorios {
+
+    /**
+     * Quantidade padrão de itens processados em cada parte.
+     */
+    public static final int ITENS_POR_PARTE_PADRAO = 8192;
+
+    /**
+     * Pool onde as partes são calculadas.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Tamanho máximo de uma parte (abaixo disso não divide mais).
+     */
+    private final int itensPorParte;
+
+    /**
+     * Cria o motor usando o pool comum da JVM.
+     */
+    public MotorRelatorios() {
+        this(ForkJoinPool.commonPool(), ITENS_POR_PARTE_PADRAO);
+    }
+
+    /**
+     * Cria o motor com um pool próprio.
+     *
+     * @param pool Pool onde as partes serão calculadas
+     * @param itensPorParte Quantidade máxima de itens em cada parte
+     */
+    public MotorRelatorios(ForkJoinPool pool, int itensPorParte) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool não pode ser nulo");
+        }
+        if (itensPorParte <= 0) {
+            throw new IllegalArgumentException("Itens por parte deve ser maior que zero");
+        }
+        this.pool = pool;
+        this.itensPorParte = itensPorParte;
+    }
+
+    // ========== RELATÓRIOS FINANCEIROS ==========
+
+    /**
+     * Soma os pagamentos por status.
+     *
+     * @param pagamentos Lista de pagamentos
+     * @return Totais por status, em centavos
+     */
+    public TotaisFinanceiros calcularTotais(List<Pagamento> pagamentos) {
+        return calcularTotais(pagamentos, Pagamento::getStatus);
+    }
+
+    /**
+     * Soma os pagamentos por status, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @return Totais por status, em centavos
+     */
+    public TotaisFinanceiros calcularTotais(LeituraAcademia leitura) {
+        return calcularTotais(leitura.getPagamentos(), leitura::statusDe);
+    }
+
+    private TotaisFinanceiros calcularTotais(List<Pagamento> pagamentos,
+                                             Function<Pagamento, StatusPagamento> statusDe) {
+        return executar(pagamentos, parte -> TotaisFinanceiros.de(parte, statusDe), TotaisFinanceiros::combinar);
+    }
+
+    /**
+     * Formata o relatório financeiro com os totais calculados em paralelo.
+     *
+     * @param leitura Leitura aberta da academia
+     * @return String formatada com os dados financeiros
+     */
+    public String formatarRelatorioFinanceiro(LeituraAcademia leitura) {
+        return GeradorRelatorio.formatarRelatorioFinanceiro(calcularTotais(leitura));
+    }
+
+    /**
+     * Calcula o total de receitas confirmadas em um período.
+     * As datas são comparadas como em GeradorRelatorio.calcularReceitasPeriodo.
+     *
+     * @param pagamentos Lista de pagamentos
+     * @param dataInicio Data inicial do período (pode ser null para sem limite)
+     * @param dataFim Data final do período (pode ser null para sem limite)
+     * @return Valor total das receitas confirmadas no período
+     */
+    public double calcularReceitasPeriodo(List<Pagamento> pagamentos, Date dataInicio, Date dataFim) {
+        return calcularReceitasPeriodo(pagamentos, Pagamento::getStatus, dataInicio, dataFim);
+    }
+
+    /**
+     * Calcula o total de receitas confirmadas em um período, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param dataInicio Data inicial do período (pode ser null para sem limite)
+     * @param dataFim Data final do período (pode ser null para sem limite)
+     * @return Valor total das receitas confirmadas no período
+     */
+    public double calcularReceitasPeriodo(LeituraAcademia leitura, Date dataInicio, Date dataFim) {
+        return calcularReceitasPeriodo(leitura.getPagamentos(), leitura::statusDe, dataInicio, dataFim);
+    }
+
+    private double calcularReceitasPeriodo(List<Pagamento> pagamentos,
+                                           Function<Pagamento, StatusPagamento> statusDe,
+                                           Date dataInicio, Date dataFim) {
+        long centavos = executar(pagamentos, parte -> {
+            long soma = 0;
+            for (Pagamento pagamento : parte) {
+                Date data = pagamento.getDataPagamento();
+                if (statusDe.apply(pagamento) == StatusPagamento.CONFIRMADO
+                        && (dataInicio == null || !data.before(dataInicio))
+                        && (dataFim == null || !data.after(dataFim))) {
+                    soma += Conversor.paraCentavos(pagamento.getValor());
+                }
+            }
+            return soma;
+        }, Long::sum);
+        return Conversor.deCentavos(centavos);
+    }
+
+    /**
+     * Filtra pagamentos por status, mantendo a ordem da lista.
+     *
+     * @param pagamentos Lista de todos os pagamentos
+     * @param status Status desejado
+     * @return Lista de pagamentos com o status especificado
+     */
+    public List<Pagamento> filtrarPagamentosPorStatus(List<Pagamento> pagamentos, StatusPagamento status) {
+        return filtrar(pagamentos, pagamento -> pagamento.getStatus() == status);
+    }
+
+    /**
+     * Filtra pagamentos por status, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param status Status desejado
+     * @return Lista de pagamentos com o status especificado
+     */
+    public List<Pagamento> filtrarPagamentosPorStatus(LeituraAcademia leitura, StatusPagamento status) {
+        return filtrar(leitura.getPagamentos(), pagamento -> leitura.statusDe(pagamento) == status);
+    }
+
+    // ========== RELATÓRIOS DE MATRÍCULAS ==========
+
+    /**
+     * Conta as matrículas ativas por nome de plano.
+     *
+     * @param matriculas Lista de matrículas
+     * @return Mapa com nome do plano e quantidade de matrículas ativas
+     */
+    public Map<String, Integer> gerarEstatisticasPlanos(List<Matricula> matriculas) {
+        return gerarEstatisticasPlanos(matriculas, Matricula::getStatus);
+    }
+
+    /**
+     * Conta as matrículas ativas por nome de plano, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @return Mapa com nome do plano e quantidade de matrículas ativas
+     */
+    public Map<String, Integer> gerarEstatisticasPlanos(LeituraAcademia leitura) {
+        return gerarEstatisticasPlanos(leitura.getMatriculas(), leitura::statusDe);
+    }
+
+    private Map<String, Integer> gerarEstatisticasPlanos(List<Matricula> matriculas,
+                                                         Function<Matricula, StatusMatricula> statusDe) {
+        return executar(matriculas, parte -> {
+            Map<String, Integer> contagem = new HashMap<>();
+            for (Matricula matricula : parte) {
+                if (statusDe.apply(matricula) == StatusMatricula.ATIVA) {
+                    contagem.merge(matricula.getPlano().getNome(), 1, Integer::sum);
+                }
+            }
+            return contagem;
+        }, (esquerda, direita) -> {
+            direita.forEach((plano, quantidade) -> esquerda.merge(plano, quantidade, Integer::sum));
+            return esquerda;
+        });
+    }
+
+    /**
+     * Filtra alunos que possuem matrícula com o status informado.
+     * Os CPFs das matrículas no status são reunidos em paralelo e depois
+     * os alunos são consultados em paralelo (junção por hash).
+     *
+     * @param alunos Lista de todos os alunos
+     * @param matriculas Lista de todas as matrículas
+     * @param statusFiltro Status desejado
+     * @return Alunos com matrícula no status, na ordem da lista
+     */
+    public List<Aluno> filtrarAlunosPorStatus(List<Aluno> alunos, List<Matricula> matriculas,
+                                              StatusMatricula statusFiltro) {
+        return filtrarAlunosPorStatus(alunos, matriculas, Matricula::getStatus, statusFiltro);
+    }
+
+    /**
+     * Filtra alunos por status de matrícula, na versão fixada pela leitura.
+     *
+     * @param leitura Leitura aberta da academia
+     * @param statusFiltro Status desejado
+     * @return Alunos com matrícula no status, na ordem da lista
+     */
+    public List<Aluno> filtrarAlunosPorStatus(LeituraAcademia leitura, StatusMatricula statusFiltro) {
+        return filtrarAlunosPorStatus(leitura.getAlunos(), leitura.getMatriculas(), leitura::statusDe, statusFiltro);
+    }
+
+    private List<Aluno> filtrarAlunosPorStatus(List<Aluno> alunos, List<Matricula> matriculas,
+                                               Function<Matricula, StatusMatricula> statusDe,
+                                               StatusMatricula statusFiltro) {
+        Set<String> cpfs = executar(matriculas, parte -> {
+            Set<String> encontrados = new HashSet<>();
+            for (Matricula matricula : parte) {
+                if (statusDe.apply(matricula) == statusFiltro) {
+                    encontrados.add(matricula.getAluno().getCpf());
+                }
+            }
+            return encontrados;
+        }, (esquerda, direita) -> {
+            esquerda.addAll(direita);
+            return esquerda;
+        });
+        return filtrar(alunos, aluno -> cpfs.contains(aluno.getCpf()));
+    }
+
+    // ========== LINHAS E CONTAGENS ==========
+
+    /**
+     * Converte cada item da lista (por exemplo, em uma linha de tabela),
+     * mantendo a ordem.
+     *
+     * @param itens Lista de entrada
+     * @param conversao Conversão de um item
+     * @return Itens convertidos, na ordem da lista
+     */
+    public <T, R> List<R> mapear(List<T> itens, Function<T, R> conversao) {
+        return executar(itens, parte -> {
+            List<R> convertidos = new ArrayList<>(parte.size());
+            for (T item : parte) {
+                convertidos.add(conversao.apply(item));
+            }
+            return convertidos;
+        }, (esquerda, direita) -> {
+            esquerda.addAll(direita);
+            return esquerda;
+        });
+    }
+
+    /**
+     * Conta os itens que atendem à condição.
+     *
+     * @param itens Lista de entrada
+     * @param condicao Condição
+     * @return Quantidade de itens aceitos
+     */
+    public <T> int contar(List<T> itens, Predicate<T> condicao) {
+        return executar(itens, parte -> {
+            int aceitos = 0;
+            for (T item : parte) {
+                if (condicao.test(item)) {
+                    aceitos++;
+                }
+            }
+            return aceitos;
+        }, Integer::sum);
+    }
+
+    // ========== DIVISÃO EM PARTES ==========
+
+    /**
+     * Filtra uma lista em paralelo, mantendo a ordem.
+     */
+    private <T> List<T> filtrar(List<T> itens, Predicate<T> condicao) {
+        return executar(itens, parte -> {
+            List<T> aceitos = new ArrayList<>();
+            for (T item : parte) {
+                if (condicao.test(item)) {
+                    aceitos.add(item);
+                }
+            }
+            return aceitos;
+        }, (esquerda, direita) -> {
+            esquerda.addAll(direita);
+            return esquerda;
+        });
+    }
+
+    /**
+     * Calcula o resultado de cada parte da lista e junta os parciais.
+     *
+     * @param itens Lista de entrada
+     * @param parcial Cálculo de uma parte (recebe uma sublista)
+     * @param juntar Junta o parcial da esquerda com o da direita, nessa ordem
+     * @return Resultado da lista inteira
+     */
+    private <T, R> R executar(List<T> itens, Function<List<T>, R> parcial, BinaryOperator<R> juntar) {
+        if (itens.size() <= itensPorParte) {
+            return parcial.apply(itens);
+        }
+        List<T> lista = itens instanceof RandomAccess ? itens : new ArrayList<>(itens);
+        return pool.invoke(new Parte<>(lista, 0, lista.size(), parcial, juntar, itensPorParte));
+    }
+
+    /**
+     * Uma parte da lista. Divide-se ao meio até ficar com no máximo
+     * itensPorParte itens.
+     */
+    private static class Parte<T, R> extends RecursiveTask<R> {
+        private final List<T> itens;
+        private final int inicio;
+        private final int fim;
+        private final Function<List<T>, R> parcial;
+        private final BinaryOperator<R> juntar;
+        private final int itensPorParte;
+
+        Parte(List<T> itens, int inicio, int fim, Function<List<T>, R> parcial,
+              BinaryOperator<R> juntar, int itensPorParte) {
+            this.itens = itens;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.parcial = parcial;
+            this.juntar = juntar;
+            this.itensPorParte = itensPorParte;
+        }
+
+        @Override
+        protected R compute() {
+            if (fim - inicio <= itensPorParte) {
+                return parcial.apply(itens.subList(inicio, fim));
+            }
+            int meio = (inicio + fim) >>> 1;
+            Parte<T, R> esquerda = new Parte<>(itens, inicio, meio, parcial, juntar, itensPorParte);
+            Parte<T, R> direita = new Parte<>(itens, meio, fim, parcial, juntar, itensPorParte);
+            esquerda.fork();
+            R resultadoDireita = direita.compute();
+            return juntar.apply(esquerda.join(), resultadoDireita);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package br.trabalho3.sistema.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma consulta da TabelaAnalitica.
+ * *
+ * Cada grupo tem os valores das dimensões de agrupamento (a chave), a
+ * quantidade de linhas e a soma da medida em centavos. Os grupos ficam
+ * ordenados pela chave, dimensão por dimensão.
+ *
+ */
+public class ResultadoAgregacao {
+
+    /**
+     * Uma combinação de valores das dimensões e os seus totais.
+     */
+    public static class Grupo {
+        private final List<String> chave;
+        private final int quantidade;
+        private final long centavos;
+
+        Grupo(List<String> chave, int quantidade, long centavos) {
+            this.chave = Collections.unmodifiableList(chave);
+            this.quantidade = quantidade;
+            this.centavos = centavos;
+        }
+
+        /**
+         * Retorna os valores das dimensões, na ordem do agrupamento.
+         *
+         * @return Chave do grupo (vazia se a consulta não agrupou)
+         */
+        public List<String> getChave() {
+            return chave;
+        }
+
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        public long getCentavos() {
+            return centavos;
+        }
+
+        public double getValor() {
+            return Conversor.deCentavos(centavos);
+        }
+
+        @Override
+        public String toString() {
+            return chave + " " + quantidade + " R$ " + String.format("%.2f", getValor());
+        }
+    }
+
+    private final List<String> dimensoes;
+    private final List<Grupo> grupos;
+
+    ResultadoAgregacao(List<String> dimensoes, List<Grupo> grupos) {
+        this.dimensoes = Collections.unmodifiableList(dimensoes);
+        List<Grupo> ordenados = new ArrayList<>(grupos);
+        ordenados.sort(ResultadoAgregacao::compararChaves);
+        this.grupos = Collections.unmodifiableList(ordenados);
+    }
+
+    /**
+     * Retorna os nomes das dimensões de agrupamento.
+     *
+     * @return Nomes das dimensões
+     */
+    public List<String> getDimensoes() {
+        return dimensoes;
+    }
+
+    public List<Grupo> getGrupos() {
+        return grupos;
+    }
+
+    /**
+     * Retorna o grupo com a chave informada.
+     *
+     * @param chave Valores das dimensões, na ordem do agrupamento
+     * @return Grupo encontrado, ou null se nenhuma linha tem essa combinação
+     */
+    public Grupo buscar(String... chave) {
+        List<String> procurada = List.of(chave);
+        for (Grupo grupo : grupos) {
+            if (grupo.chave.equals(procurada)) {
+                return grupo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retorna a quantidade total de linhas, somando todos os grupos.
+     *
+     * @return Quantidade de linhas
+     */
+    public int getQuantidadeTotal() {
+        int total = 0;
+        for (Grupo grupo : grupos) {
+            total += grupo.quantidade;
+        }
+        return total;
+    }
+
+    /**
+     * Retorna a soma total em centavos, somando todos os grupos.
+     *
+     * @return Soma em centavos
+     */
+    public long getCentavosTotal() {
+        long total = 0;
+        for (Grupo grupo : grupos) {
+            total += grupo.centavos;
+        }
+        return total;
+    }
+
+    private static int compararChaves(Grupo a, Grupo b) {
+        for (int i = 0; i < a.chave.size(); i++) {
+            int comparacao = a.chave.get(i).compareTo(b.chave.get(i));
+            if (comparacao != 0) {
+                return comparacao;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,361 @@
+package br.trabalho3.sistema.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabela colunar para consultas de agregação (filtrar, agrupar e somar).
+ * *
+ * Cada linha tem uma medida (valor em centavos), um dia epoch e um valor
+ * para cada dimensão (ex.: status, forma de pagamento, mês). As dimensões
+ * são codificadas por dicionário: cada valor distinto ganha um código int
+ * e a coluna guarda só os códigos, num vetor int[].
+ *
+ * Uma consulta percorre uma coluna de cada vez, em laços sobre vetores
+ * primitivos:
+ * - filtros reduzem um vetor de seleção (as linhas que ainda passam);
+ * - o agrupamento combina os códigos das dimensões em uma chave int;
+ * - a soma acumula centavos e quantidades em vetores indexados pela chave.
+ *
+ * A tabela é montada pelo ArmazemAnalitico e não muda depois de pronta,
+ * então pode ser consultada por várias threads ao mesmo tempo.
+ *
+ */
+public class TabelaAnalitica {
+
+    /**
+     * Capacidade inicial dos vetores.
+     */
+    private static final int CAPACIDADE_INICIAL = 64;
+
+    /**
+     * Maior quantidade de combinações acumuladas em vetores diretos. Acima
+     * disso as chaves são renumeradas para as combinações que existem.
+     */
+    private static final int LIMITE_COMBINACOES = 1 << 20;
+
+    /**
+     * Coluna de uma dimensão, codificada por dicionário.
+     */
+    private static class Dimensao {
+        private final String nome;
+        private int[] codigos;
+        private final List<String> valores = new ArrayList<>();
+        private final Map<String, Integer> codigoPorValor = new HashMap<>();
+
+        Dimensao(String nome) {
+            this.nome = nome;
+            this.codigos = new int[CAPACIDADE_INICIAL];
+        }
+
+        int codificar(String valor) {
+            Integer codigo = codigoPorValor.get(valor);
+            if (codigo == null) {
+                codigo = valores.size();
+                valores.add(valor);
+                codigoPorValor.put(valor, codigo);
+            }
+            return codigo;
+        }
+    }
+
+    private final Map<String, Dimensao> dimensoes = new LinkedHashMap<>();
+    private final Dimensao[] colunas;
+    private int tamanho;
+
+    /**
+     * Medida de cada linha em centavos.
+     */
+    private long[] centavos;
+
+    /**
+     * Data de cada linha em dias desde 01/01/1970.
+     */
+    private int[] dias;
+
+    /**
+     * Cria uma tabela vazia com as dimensões informadas.
+     *
+     * @param nomesDimensoes Nomes das dimensões, na ordem usada em adicionar()
+     */
+    TabelaAnalitica(String... nomesDimensoes) {
+        this.colunas = new Dimensao[nomesDimensoes.length];
+        for (int i = 0; i < nomesDimensoes.length; i++) {
+            colunas[i] = new Dimensao(nomesDimensoes[i]);
+            dimensoes.put(nomesDimensoes[i], colunas[i]);
+        }
+        this.centavos = new long[CAPACIDADE_INICIAL];
+        this.dias = new int[CAPACIDADE_INICIAL];
+    }
+
+    /**
+     * Adiciona uma linha ao final da tabela.
+     *
+     * @param medida Valor da linha em centavos
+     * @param dia Dia epoch da linha
+     * @param valores Valor de cada dimensão, na ordem do construtor
+     */
+    void adicionar(long medida, int dia, String... valores) {
+        garantirCapacidade(tamanho + 1);
+        centavos[tamanho] = medida;
+        dias[tamanho] = dia;
+        for (int i = 0; i < colunas.length; i++) {
+            colunas[i].codigos[tamanho] = colunas[i].codificar(valores[i]);
+        }
+        tamanho++;
+    }
+
+    /**
+     * Retorna a quantidade de linhas.
+     *
+     * @return Número de linhas
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Retorna os nomes das dimensões da tabela.
+     *
+     * @return Nomes das dimensões, na ordem de criação
+     */
+    public List<String> getDimensoes() {
+        return new ArrayList<>(dimensoes.keySet());
+    }
+
+    /**
+     * Retorna os valores distintos de uma dimensão (o seu dicionário).
+     *
+     * @param dimensao Nome da dimensão
+     * @return Valores distintos, em ordem alfabética
+     */
+    public List<String> valoresDe(String dimensao) {
+        List<String> valores = new ArrayList<>(buscarDimensao(dimensao).valores);
+        Collections.sort(valores);
+        return valores;
+    }
+
+    /**
+     * Inicia uma consulta sobre todas as linhas da tabela.
+     *
+     * @return Consulta sem filtros nem agrupamento
+     */
+    public Consulta consulta() {
+        return new Consulta();
+    }
+
+    /**
+     * Consulta de agregação: filtros, agrupamento e execução.
+     *
+     * Exemplo (receita confirmada por forma de pagamento e mês):
+     *   armazem.getPagamentos().consulta()
+     *       .onde(ArmazemAnalitico.STATUS, "CONFIRMADO")
+     *       .agruparPor(ArmazemAnalitico.FORMA, ArmazemAnalitico.MES)
+     *       .executar();
+     *
+     */
+    public class Consulta {
+        private int diaInicio = Integer.MIN_VALUE;
+        private int diaFim = Integer.MAX_VALUE;
+        private final Map<Dimensao, boolean[]> filtros = new LinkedHashMap<>();
+        private final List<Dimensao> grupos = new ArrayList<>();
+
+        private Consulta() {
+        }
+
+        /**
+         * Mantém só as linhas cuja dimensão tem um dos valores informados.
+         * Chamar de novo para a mesma dimensão substitui o filtro anterior.
+         *
+         * @param dimensao Nome da dimensão
+         * @param valores Valores aceitos
+         * @return Esta consulta
+         */
+        public Consulta onde(String dimensao, String... valores) {
+            Dimensao coluna = buscarDimensao(dimensao);
+            boolean[] aceitos = new boolean[coluna.valores.size()];
+            for (String valor : valores) {
+                Integer codigo = coluna.codigoPorValor.get(valor);
+                if (codigo != null) {
+                    aceitos[codigo] = true;
+                }
+            }
+            filtros.put(coluna, aceitos);
+            return this;
+        }
+
+        /**
+         * Mantém só as linhas com data no período (inclusive).
+         *
+         * @param inicio Primeiro dia do período (pode ser null para sem limite)
+         * @param fim Último dia do período (pode ser null para sem limite)
+         * @return Esta consulta
+         */
+        public Consulta entre(Date inicio, Date fim) {
+            this.diaInicio = inicio != null ? Conversor.paraDiaEpoch(inicio) : Integer.MIN_VALUE;
+            this.diaFim = fim != null ? Conversor.paraDiaEpoch(fim) : Integer.MAX_VALUE;
+            return this;
+        }
+
+        /**
+         * Agrupa o resultado pelas dimensões informadas, nesta ordem.
+         * Sem agrupamento, o resultado tem um único grupo com o total.
+         *
+         * @param nomesDimensoes Nomes das dimensões
+         * @return Esta consulta
+         */
+        public Consulta agruparPor(String... nomesDimensoes) {
+            for (String nome : nomesDimensoes) {
+                grupos.add(buscarDimensao(nome));
+            }
+            return this;
+        }
+
+        /**
+         * Executa a consulta.
+         *
+         * @return Quantidade e soma de cada grupo, ordenados pela chave
+         */
+        public ResultadoAgregacao executar() {
+            int[] selecao = new int[tamanho];
+            int selecionadas = selecionarPeriodo(selecao);
+            for (Map.Entry<Dimensao, boolean[]> filtro : filtros.entrySet()) {
+                selecionadas = filtrar(selecao, selecionadas, filtro.getKey().codigos, filtro.getValue());
+            }
+
+            // Chave de cada linha selecionada: códigos das dimensões combinados
+            int[] chaves = new int[selecionadas];
+            int combinacoes = 1;
+            for (Dimensao grupo : grupos) {
+                int cardinalidade = Math.max(1, grupo.valores.size());
+                int[] codigos = grupo.codigos;
+                if ((long) combinacoes * cardinalidade > LIMITE_COMBINACOES) {
+                    combinacoes = combinarRenumerando(chaves, selecao, selecionadas, codigos, cardinalidade);
+                    continue;
+                }
+                for (int j = 0; j < selecionadas; j++) {
+                    chaves[j] = chaves[j] * cardinalidade + codigos[selecao[j]];
+                }
+                combinacoes *= cardinalidade;
+            }
+
+            long[] somas = new long[combinacoes];
+            int[] quantidades = new int[combinacoes];
+            int[] exemplos = new int[combinacoes];
+            for (int j = 0; j < selecionadas; j++) {
+                int chave = chaves[j];
+                somas[chave] += centavos[selecao[j]];
+                if (quantidades[chave]++ == 0) {
+                    exemplos[chave] = selecao[j];
+                }
+            }
+
+            return montarResultado(somas, quantidades, exemplos, selecionadas == 0 && grupos.isEmpty());
+        }
+
+        private int selecionarPeriodo(int[] selecao) {
+            int selecionadas = 0;
+            if (diaInicio == Integer.MIN_VALUE && diaFim == Integer.MAX_VALUE) {
+                for (int i = 0; i < tamanho; i++) {
+                    selecao[i] = i;
+                }
+                return tamanho;
+            }
+            for (int i = 0; i < tamanho; i++) {
+                int dia = dias[i];
+                if (dia >= diaInicio && dia <= diaFim) {
+                    selecao[selecionadas++] = i;
+                }
+            }
+            return selecionadas;
+        }
+
+        private int filtrar(int[] selecao, int selecionadas, int[] codigos, boolean[] aceitos) {
+            int restantes = 0;
+            for (int j = 0; j < selecionadas; j++) {
+                int linha = selecao[j];
+                if (aceitos[codigos[linha]]) {
+                    selecao[restantes++] = linha;
+                }
+            }
+            return restantes;
+        }
+
+        /**
+         * Combina mais uma dimensão nas chaves quando o total de combinações
+         * possíveis é grande demais para vetores diretos: as chaves passam a
+         * ser só as combinações que realmente aparecem (0, 1, 2, ...).
+         */
+        private int combinarRenumerando(
+                int[] chaves, int[] selecao, int selecionadas, int[] codigos, int cardinalidade) {
+            Map<Long, Integer> novas = new HashMap<>();
+            for (int j = 0; j < selecionadas; j++) {
+                long combinada = (long) chaves[j] * cardinalidade + codigos[selecao[j]];
+                Integer nova = novas.get(combinada);
+                if (nova == null) {
+                    nova = novas.size();
+                    novas.put(combinada, nova);
+                }
+                chaves[j] = nova;
+            }
+            return Math.max(1, novas.size());
+        }
+
+        /**
+         * Monta os grupos. Os valores de cada chave são lidos da primeira
+         * linha do grupo, sem precisar decompor a chave.
+         */
+        private ResultadoAgregacao montarResultado(
+                long[] somas, int[] quantidades, int[] exemplos, boolean vazioSemGrupos) {
+            List<String> nomes = new ArrayList<>();
+            for (Dimensao grupo : grupos) {
+                nomes.add(grupo.nome);
+            }
+
+            List<ResultadoAgregacao.Grupo> resultado = new ArrayList<>();
+            for (int chave = 0; chave < quantidades.length; chave++) {
+                if (quantidades[chave] == 0) {
+                    continue;
+                }
+                String[] valores = new String[grupos.size()];
+                for (int g = 0; g < valores.length; g++) {
+                    Dimensao grupo = grupos.get(g);
+                    valores[g] = grupo.valores.get(grupo.codigos[exemplos[chave]]);
+                }
+                resultado.add(new ResultadoAgregacao.Grupo(Arrays.asList(valores), quantidades[chave], somas[chave]));
+            }
+            if (vazioSemGrupos) {
+                resultado.add(new ResultadoAgregacao.Grupo(Collections.emptyList(), 0, 0));
+            }
+            return new ResultadoAgregacao(nomes, resultado);
+        }
+    }
+
+    // ========== MÉTODOS AUXILIARES ==========
+
+    private Dimensao buscarDimensao(String nome) {
+        Dimensao dimensao = dimensoes.get(nome);
+        if (dimensao == null) {
+            throw new IllegalArgumentException("Dimensão desconhecida: " + nome + " (disponíveis: " + dimensoes.keySet() + ")");
+        }
+        return dimensao;
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (minimo <= centavos.length) {
+            return;
+        }
+        int novaCapacidade = Math.max(minimo, centavos.length * 2);
+        centavos = Arrays.copyOf(centavos, novaCapacidade);
+        dias = Arrays.copyOf(dias, novaCapacidade);
+        for (Dimensao coluna : colunas) {
+            coluna.codigos = Arrays.copyOf(coluna.codigos, novaCapacidade);
+        }
+    }
+}
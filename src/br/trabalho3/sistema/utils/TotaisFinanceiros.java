@@ -0,0 +1,109 @@
+package br.trabalho3.sistema.utils;
+
+import br.trabalho3.sistema.model.Pagamento;
+import br.trabalho3.sistema.model.StatusPagamento;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Totais de pagamentos por status, somados em centavos.
+ * *
+ * Somar em centavos (long) dá sempre o mesmo resultado, em qualquer ordem,
+ * ao contrário de somar valores double. Por isso totais parciais calculados
+ * em paralelo podem ser combinados com combinar() sem mudar o resultado.
+ *
+ */
+public class TotaisFinanceiros {
+
+    private static final StatusPagamento[] STATUS = StatusPagamento.values();
+
+    private int quantidade;
+    private final int[] quantidadePorStatus = new int[STATUS.length];
+    private final long[] centavosPorStatus = new long[STATUS.length];
+
+    /**
+     * Cria totais zerados.
+     */
+    public TotaisFinanceiros() {
+    }
+
+    /**
+     * Soma uma lista de pagamentos.
+     *
+     * @param pagamentos Pagamentos a somar
+     * @param statusDe Função que informa o status de cada pagamento
+     * @return Totais da lista
+     */
+    public static TotaisFinanceiros de(List<Pagamento> pagamentos, Function<Pagamento, StatusPagamento> statusDe) {
+        TotaisFinanceiros totais = new TotaisFinanceiros();
+        for (Pagamento pagamento : pagamentos) {
+            totais.adicionar(pagamento, statusDe.apply(pagamento));
+        }
+        return totais;
+    }
+
+    /**
+     * Soma um pagamento com o status informado.
+     *
+     * @param pagamento Pagamento
+     * @param status Status considerado
+     */
+    public void adicionar(Pagamento pagamento, StatusPagamento status) {
+        quantidade++;
+        quantidadePorStatus[status.ordinal()]++;
+        centavosPorStatus[status.ordinal()] += Conversor.paraCentavos(pagamento.getValor());
+    }
+
+    /**
+     * Soma vários pagamentos de um mesmo status de uma vez, já em centavos
+     * (ex.: totais de uma coluna do livro de pagamentos).
+     *
+     * @param status Status dos pagamentos
+     * @param quantidadeStatus Quantidade de pagamentos
+     * @param centavos Soma dos valores em centavos
+     */
+    public void adicionar(StatusPagamento status, int quantidadeStatus, long centavos) {
+        quantidade += quantidadeStatus;
+        quantidadePorStatus[status.ordinal()] += quantidadeStatus;
+        centavosPorStatus[status.ordinal()] += centavos;
+    }
+
+    /**
+     * Soma a estes totais os totais de outra parte.
+     *
+     * @param outros Totais de outra parte dos pagamentos
+     * @return Estes totais, já somados
+     */
+    public TotaisFinanceiros combinar(TotaisFinanceiros outros) {
+        quantidade += outros.quantidade;
+        for (int i = 0; i < STATUS.length; i++) {
+            quantidadePorStatus[i] += outros.quantidadePorStatus[i];
+            centavosPorStatus[i] += outros.centavosPorStatus[i];
+        }
+        return this;
+    }
+
+    // ========== GETTERS ==========
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public int getQuantidade(StatusPagamento status) {
+        return quantidadePorStatus[status.ordinal()];
+    }
+
+    public long getCentavos(StatusPagamento status) {
+        return centavosPorStatus[status.ordinal()];
+    }
+
+    /**
+     * Retorna o total em reais dos pagamentos com o status informado.
+     *
+     * @param status Status dos pagamentos
+     * @return Total em reais
+     */
+    public double getValor(StatusPagamento status) {
+        return Conversor.deCentavos(centavosPorStatus[status.ordinal()]);
+    }
+}
@@ -63,4 +63,62 @@ public class ValidadorCPF {
                cpf.substring(6, 9) + "-" +
                cpf.substring(9, 11);
     }
+
+    /**
+     * Formata um CPF compacto (armazenado como long) para o padrão XXX.XXX.XXX-XX.
+     *
+     * Completa com zeros à esquerda, pois CPFs que começam com zero
+     * perdem esses dígitos quando convertidos para número.
+     *
+     * Os 14 caracteres são escritos direto do número, do último para o
+     * primeiro, sem texto intermediário: é chamado a cada getCpf().
+     *
+     * @param cpf CPF compacto (apenas os 11 dígitos como número)
+     * @return CPF formatado
+     */
+    public static String formatarCPF(long cpf) {
+        char[] texto = new char[14];
+        long restante = cpf;
+        for (int i = texto.length - 1; i >= 0; i--) {
+            if (i == 3 || i == 7) {
+                texto[i] = '.';
+            } else if (i == 11) {
+                texto[i] = '-';
+            } else {
+                texto[i] = (char) ('0' + restante % 10);
+                restante /= 10;
+            }
+        }
+        return new String(texto);
+    }
+
+    /**
+     * Converte um CPF formatado (XXX.XXX.XXX-XX) para sua forma compacta (long).
+     *
+     * Só aceita o CPF no formato padrão, pois a forma compacta sempre volta
+     * formatada em formatarCPF(long). Assim, converter e formatar de novo
+     * devolve exatamente o mesmo texto.
+     *
+     * @param cpf CPF no formato XXX.XXX.XXX-XX
+     * @return CPF compacto, ou -1 se o texto não estiver no formato padrão
+     */
+    public static long compactarCPF(String cpf) {
+        if (cpf == null || cpf.length() != 14 ||
+            cpf.charAt(3) != '.' || cpf.charAt(7) != '.' || cpf.charAt(11) != '-') {
+            return -1L;
+        }
+
+        long valor = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            if (i == 3 || i == 7 || i == 11) {
+                continue; // Pula os separadores
+            }
+            char c = cpf.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1L;
+            }
+            valor = valor * 10 + (c - '0');
+        }
+        return valor;
+    }
 }